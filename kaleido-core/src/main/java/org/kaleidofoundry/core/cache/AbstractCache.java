@@ -16,6 +16,7 @@
 package org.kaleidofoundry.core.cache;
 
 import java.io.Serializable;
+import java.util.Map;
 
 import org.kaleidofoundry.core.context.EmptyContextParameterException;
 import org.kaleidofoundry.core.context.RuntimeContext;
@@ -104,6 +105,18 @@ public abstract class AbstractCache<K extends Serializable, V extends Serializab
     */
    protected abstract boolean doRemove(@NotNull K key);
 
+   /**
+    * put several entries, entry by entry by default<br/>
+    * override it if the cache provider have a bulk operation
+    * 
+    * @param entries
+    */
+   protected void doPutAll(@NotNull final Map<? extends K, ? extends V> entries) {
+	for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+	   doPut(entry.getKey(), entry.getValue());
+	}
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.cache.Cache#getName()
@@ -133,6 +146,16 @@ public abstract class AbstractCache<K extends Serializable, V extends Serializab
 	doPut(key, entity);
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.cache.Cache#putAll(java.util.Map)
+    */
+   @Override
+   public final void putAll(@NotNull final Map<? extends K, ? extends V> entries) {
+	checkCacheState();
+	doPutAll(entries);
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.cache.Cache#remove(java.io.Serializable)
@@ -39,7 +39,7 @@ import java.util.Set;
 
 import org.kaleidofoundry.core.context.ProviderException;
 import org.kaleidofoundry.core.context.RuntimeContext;
-import org.kaleidofoundry.core.i18n.InternalBundleHelper;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Nullable;
 import org.kaleidofoundry.core.store.FileStore;
@@ -61,6 +61,8 @@ public abstract class AbstractCacheManager implements CacheManager {
 
     /** CacheManager default logger */
     static final Logger LOGGER = LoggerFactory.getLogger(CacheManager.class);
+    /** i18n logger, messages are formatted only if the level is enabled */
+    static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, CacheMessageBundle);
 
     /** force the use of this cache configuration instead of the context one (if defined) */
     protected final String forcedConfiguration;
@@ -213,7 +215,7 @@ public abstract class AbstractCacheManager implements CacheManager {
 		    singleFileStore.unload();
 		}
 	  } catch (final ResourceException rse) {
-		LOGGER.error(InternalBundleHelper.CacheMessageBundle.getMessage("cachemanager.destroyall.store.error"), rse);
+		I18N_LOGGER.error("cachemanager.destroyall.store.error", rse);
 	  } finally {
 		// unregister cacheManager from registry
 		CacheManagerFactory.getRegistry().remove(context.getName());
@@ -430,14 +432,14 @@ public abstract class AbstractCacheManager implements CacheManager {
 
     protected void traceLoading(String configResource) {
 	  if (StringHelper.isEmpty(configResource)) {
-		LOGGER.info(CacheMessageBundle.getMessage("cachemanager.loading.default", getMetaInformations()));
+		I18N_LOGGER.info("cachemanager.loading.default", getMetaInformations());
 	  } else {
-		LOGGER.info(CacheMessageBundle.getMessage("cachemanager.loading.custom", getMetaInformations(), configResource));
+		I18N_LOGGER.info("cachemanager.loading.custom", getMetaInformations(), configResource);
 	  }
     }
     
     protected void traceCacheCreation(String cacheName) {
-		LOGGER.info(CacheMessageBundle.getMessage("cachemanager.create.cache", cacheName));
-		LOGGER.debug(CacheMessageBundle.getMessage("cachemanager.create.cache.detailed", cacheName, getName()));		
+		I18N_LOGGER.info("cachemanager.create.cache", cacheName);
+		I18N_LOGGER.debug("cachemanager.create.cache.detailed", cacheName, getName());		
     }
 }
@@ -19,6 +19,7 @@ import static org.kaleidofoundry.core.cache.CacheConstants.CachePluginName;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.kaleidofoundry.core.context.Provider;
@@ -62,6 +63,13 @@ public interface Cache<K extends Serializable, V extends Serializable> {
     */
    void put(@NotNull K key, @NotNull V entity);
 
+   /**
+    * Puts several entries in the cache (new or update), in a single call when the cache provider allows it
+    * 
+    * @param entries entries to put in cache
+    */
+   void putAll(@NotNull Map<? extends K, ? extends V> entries);
+
    /**
     * Remove an entry from the cache
     * 
@@ -15,10 +15,9 @@
  */
 package org.kaleidofoundry.core.cache;
 
-import static org.kaleidofoundry.core.cache.AbstractCacheManager.LOGGER;
+import static org.kaleidofoundry.core.cache.AbstractCacheManager.I18N_LOGGER;
 import static org.kaleidofoundry.core.cache.CacheManagerContextBuilder.FileStoreUri;
 import static org.kaleidofoundry.core.cache.CacheManagerContextBuilder.ProviderCode;
-import static org.kaleidofoundry.core.i18n.InternalBundleHelper.CacheMessageBundle;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -83,11 +82,11 @@ public class CacheManagerProvider extends AbstractProviderService<CacheManager>
 		   + CacheProvidersEnum.local.name();
 
 	   if (userCacheImplNotFound && StringHelper.isEmpty(cacheProviderCode)) {
-		LOGGER.warn(CacheMessageBundle.getMessage("cacheprovider.notfound", cacheProviderCode));
+		I18N_LOGGER.warn("cacheprovider.notfound", cacheProviderCode);
 	   }
 
-	   LOGGER.debug(CacheMessageBundle.getMessage("cacheprovider.customize"));
-	   LOGGER.info(CacheMessageBundle.getMessage("cacheprovider.default", DEFAULT_CACHE_PROVIDER));
+	   I18N_LOGGER.debug("cacheprovider.customize");
+	   I18N_LOGGER.info("cacheprovider.default", DEFAULT_CACHE_PROVIDER);
 	   INIT_LOADED = true;
 	}
    }
@@ -275,7 +274,7 @@ public class CacheManagerProvider extends AbstractProviderService<CacheManager>
 			entry.getValue().destroyAll();
 		   }
 		} catch (Throwable th) {
-		   LOGGER.info(CacheMessageBundle.getMessage("cachemanager.destroyall.error", entry.getKey()), th);
+		   I18N_LOGGER.info("cachemanager.destroyall.error", entry.getKey(), th);
 		}
 	   }
 	}
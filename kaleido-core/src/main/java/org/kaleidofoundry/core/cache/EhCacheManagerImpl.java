@@ -17,7 +17,6 @@ package org.kaleidofoundry.core.cache;
 
 import static org.kaleidofoundry.core.cache.CacheConstants.EhCacheManagerPluginName;
 import static org.kaleidofoundry.core.cache.CacheManagerContextBuilder.FileStoreUri;
-import static org.kaleidofoundry.core.i18n.InternalBundleHelper.CacheMessageBundle;
 
 import java.io.FileNotFoundException;
 import java.io.InputStream;
@@ -160,7 +159,7 @@ public class EhCacheManagerImpl extends AbstractCacheManager {
 
 	// destroy all cache instances
 	for (final String name : cachesByName.keySet()) {
-	   LOGGER.info(CacheMessageBundle.getMessage("cachemanager.destroy.info", name));
+	   I18N_LOGGER.info("cachemanager.destroy.info", name);
 	   destroy(name);
 	}
 
@@ -21,6 +21,7 @@ import static org.kaleidofoundry.core.cache.CacheProvidersEnum.infinispan;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.infinispan.Cache;
@@ -127,6 +128,15 @@ org.kaleidofoundry.core.cache.Cache<K, V> {
 	cache.put(key, entity);
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.cache.AbstractCache#doPutAll(java.util.Map)
+    */
+   @Override
+   public void doPutAll(final Map<? extends K, ? extends V> entries) {
+	cache.putAll(entries);
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.cache.Cache#remove(java.io.Serializable)
@@ -17,7 +17,6 @@ package org.kaleidofoundry.core.cache;
 
 import static org.kaleidofoundry.core.cache.CacheConstants.InfinispanCacheManagerPluginName;
 import static org.kaleidofoundry.core.cache.CacheManagerContextBuilder.FileStoreUri;
-import static org.kaleidofoundry.core.i18n.InternalBundleHelper.CacheMessageBundle;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -148,7 +147,7 @@ public class InfinispanCacheManagerImpl extends org.kaleidofoundry.core.cache.Ab
    public synchronized void destroyAll() {
 	super.destroyAll();
 	for (final String name : cachesByName.keySet()) {
-	   LOGGER.info(CacheMessageBundle.getMessage("cachemanager.destroy.info", name));
+	   I18N_LOGGER.info("cachemanager.destroy.info", name);
 	   destroy(name);
 	}
 	infiniSpanCacheManager.stop();
@@ -21,6 +21,7 @@ import static org.kaleidofoundry.core.cache.CacheProvidersEnum.local;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -123,6 +124,15 @@ public class LocalCacheImpl<K extends Serializable, V extends Serializable> exte
 	CacheableMap.put(key, entity);
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.cache.AbstractCache#doPutAll(java.util.Map)
+    */
+   @Override
+   protected void doPutAll(final Map<? extends K, ? extends V> entries) {
+	CacheableMap.putAll(entries);
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.cache.AbstractCache#doRemove(java.io.Serializable)
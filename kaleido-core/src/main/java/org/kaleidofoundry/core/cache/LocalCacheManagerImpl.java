@@ -16,7 +16,6 @@
 package org.kaleidofoundry.core.cache;
 
 import static org.kaleidofoundry.core.cache.CacheConstants.DefaultLocalCacheManagerPluginName;
-import static org.kaleidofoundry.core.i18n.InternalBundleHelper.CacheMessageBundle;
 
 import java.io.Serializable;
 import java.util.LinkedHashMap;
@@ -114,7 +113,7 @@ public class LocalCacheManagerImpl extends org.kaleidofoundry.core.cache.Abstrac
    public synchronized void destroyAll() {
 	super.destroyAll();
 	for (final String name : cachesByName.keySet()) {
-	   LOGGER.info(CacheMessageBundle.getMessage("cachemanager.destroy.info", name));
+	   I18N_LOGGER.info("cachemanager.destroy.info", name);
 	   destroy(name);
 	}
    }
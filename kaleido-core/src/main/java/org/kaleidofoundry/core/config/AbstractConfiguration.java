@@ -49,6 +49,7 @@ import org.kaleidofoundry.core.config.ConfigurationChangeEvent.ConfigurationChan
 import org.kaleidofoundry.core.config.model.FireChangesReport;
 import org.kaleidofoundry.core.context.EmptyContextParameterException;
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
@@ -81,6 +82,8 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractConfiguration extends AbstractPropertyAccessor implements Configuration {
 
    protected static final Logger LOGGER = LoggerFactory.getLogger(Configuration.class);
+   /** i18n logger, messages are formatted only if the level is enabled */
+   protected static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, ConfigurationMessageBundle);
 
    // configuration name identifier
    protected final String name;
@@ -257,7 +260,7 @@ public abstract class AbstractConfiguration extends AbstractPropertyAccessor imp
    @Override
    public final synchronized void load() throws ResourceException, ConfigurationException {
 	if (isLoaded()) { throw new ConfigurationException("config.load.already", name); }
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.load.info", name, getResourceUri()));
+	I18N_LOGGER.info("config.load.info", name, getResourceUri());
 	final ResourceHandler resourceHandler = singleFileStore.get();
 	try {
 	   loadProperties(resourceHandler, cacheProperties);
@@ -274,7 +277,7 @@ public abstract class AbstractConfiguration extends AbstractPropertyAccessor imp
    public final synchronized void store() throws ResourceException {
 	if (!isLoaded()) { throw new ConfigurationException("config.load.notloaded", name); }
 	if (!isStorable()) { throw new ConfigurationException("config.readonly.store", name); }
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.save.info", name, getResourceUri()));
+	I18N_LOGGER.info("config.save.info", name, getResourceUri());
 	final ResourceHandler resourceHandler = singleFileStore.get();
 	try {
 	   storeProperties(resourceHandler, cacheProperties);
@@ -290,7 +293,7 @@ public abstract class AbstractConfiguration extends AbstractPropertyAccessor imp
    @Override
    public final synchronized void unload() throws ResourceException, ConfigurationException {
 	if (!isLoaded()) { throw new ConfigurationException("config.load.notloaded", name); }
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.unload.info", name, getResourceUri()));
+	I18N_LOGGER.info("config.unload.info", name, getResourceUri());
 	// cleanup cache entries
 	cacheProperties.clear();
 	// unload store
@@ -311,7 +314,7 @@ public abstract class AbstractConfiguration extends AbstractPropertyAccessor imp
 	for (final String oldPropName : cacheProperties.keys()) {
 	   oldItems.put(oldPropName, cacheProperties.get(oldPropName));
 	}
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.unload.info", name, getResourceUri()));
+	I18N_LOGGER.info("config.unload.info", name, getResourceUri());
 	// cleanup cache entries
 	cacheProperties.clear();
 	// unload store
@@ -445,10 +448,10 @@ public abstract class AbstractConfiguration extends AbstractPropertyAccessor imp
 	FireChangesReport fireReport = new FireChangesReport(getName(), singleFileStore.getResourceBinding(), created, updated, removed, listenerCount);
 
 	// log message
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.firechanges.info0", name, singleFileStore.getResourceBinding(), fireReport.getCreated(),
-		fireReport.getUpdated(), fireReport.getRemoved(), fireReport.getListernerCount()));
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.firechanges.info1", fireReport.getCreated(), fireReport.getUpdated(), fireReport.getRemoved()));
-	LOGGER.info(ConfigurationMessageBundle.getMessage("config.firechanges.info2", fireReport.getListernerCount()));
+	I18N_LOGGER.info("config.firechanges.info0", name, singleFileStore.getResourceBinding(), fireReport.getCreated(),
+		fireReport.getUpdated(), fireReport.getRemoved(), fireReport.getListernerCount());
+	I18N_LOGGER.info("config.firechanges.info1", fireReport.getCreated(), fireReport.getUpdated(), fireReport.getRemoved());
+	I18N_LOGGER.info("config.firechanges.info2", fireReport.getListernerCount());
 
 	return fireReport;
    }
@@ -56,6 +56,7 @@ import org.kaleidofoundry.core.env.model.EnvironmentInfo;
 import org.kaleidofoundry.core.env.model.EnvironmentStatus;
 import org.kaleidofoundry.core.env.model.EnvironmentStatus.Status;
 import org.kaleidofoundry.core.env.model.EnvironmentVersions;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.persistence.UnmanagedEntityManagerFactory;
 import org.kaleidofoundry.core.plugin.PluginFactory;
 import org.kaleidofoundry.core.plugin.model.Plugin;
@@ -89,6 +90,7 @@ import org.slf4j.LoggerFactory;
 public class EnvironmentInitializer {
 
    private static final Logger LOGGER = LoggerFactory.getLogger(EnvironmentInitializer.class);
+   private static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, CoreMessageBundle);
 
    static EnvironmentInitializer instance;
 
@@ -272,15 +274,15 @@ public class EnvironmentInitializer {
 
 		// I18n JPA enable or no
 		if (org.kaleidofoundry.core.i18n.I18nMessagesProvider.isJpaEnabledForI18n()) {
-		   LOGGER.info(CoreMessageBundle.getMessage("loader.define.i18n.jpa.enabled"));
+		   I18N_LOGGER.info("loader.define.i18n.jpa.enabled");
 		} else {
-		   LOGGER.info(CoreMessageBundle.getMessage("loader.define.i18n.jpa.disabled"));
+		   I18N_LOGGER.info("loader.define.i18n.jpa.disabled");
 		}
 
 		// Parse and set default locale if needed
 		final String defaultLocale = STATIC_ENV_PARAMETERS.get(LOCAL_PROPERTY);
 		if (!StringHelper.isEmpty(defaultLocale)) {
-		   LOGGER.info(CoreMessageBundle.getMessage("loader.define.locale", defaultLocale));
+		   I18N_LOGGER.info("loader.define.locale", defaultLocale);
 		   final Locale setDefaultLocale = LocaleFactory.parseLocale(defaultLocale);
 		   Locale.setDefault(setDefaultLocale);
 		   LOGGER.info(StringHelper.replicate("*", 120));
@@ -295,8 +297,8 @@ public class EnvironmentInitializer {
 		// Configurations to load
 		final String kaleidoConfigurations = STATIC_ENV_PARAMETERS.get(CONFIGURATIONS_PROPERTY);
 		if (!StringHelper.isEmpty(kaleidoConfigurations)) {
-		   LOGGER.info(CoreMessageBundle.getMessage("loader.define.configurations",
-			   StringHelper.replaceAll(kaleidoConfigurations, "\n", ",").replaceAll("\\s+", "")));
+		   I18N_LOGGER.info("loader.define.configurations",
+			   StringHelper.replaceAll(kaleidoConfigurations, "\n", ",").replaceAll("\\s+", ""));
 		   // load and register given configurations ids / url
 		   try {
 			ConfigurationFactory.init(StringHelper.replaceAll(kaleidoConfigurations, "\n", CONFIGURATIONS_PROPERTY_SEPARATOR));
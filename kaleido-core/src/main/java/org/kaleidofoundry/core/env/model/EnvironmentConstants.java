@@ -100,6 +100,9 @@ public interface EnvironmentConstants {
    /** Enable or disable jpa entity manager resolution for resourceBundle */
    String I18N_JPA_ACTIVATION_PROPERTY = "kaleido.i18n.jpa.enabled";
 
+   /** Page size of the queries used to bulk load the jpa resourceBundle (500 by default) */
+   String I18N_JPA_PAGE_SIZE_PROPERTY = "kaleido.i18n.jpa.pageSize";
+
    /**
     * default name for internal kaleidofoundry persistent context unit name
     * (declare into persitence.xml)
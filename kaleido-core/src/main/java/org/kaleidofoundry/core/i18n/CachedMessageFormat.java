@@ -0,0 +1,96 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.i18n;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Parsed message pattern of a bundle key, cached by {@link DefaultMessageBundle}.<br/>
+ * <br/>
+ * {@link MessageFormat} is not thread safe, so the parsed instance is never shared : a single instance is kept in a lock free slot, the thread
+ * which borrows it uses it exclusively, and a concurrent thread which finds the slot empty works on a clone of the prototype (cloning is far
+ * cheaper than parsing the pattern again).<br/>
+ * A pattern with no argument placeholder and no quote is returned as is, without any {@link MessageFormat}.
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+class CachedMessageFormat {
+
+   // original message pattern
+   private final String pattern;
+   // parsed pattern, never used directly for formatting (null for a plain message)
+   private final MessageFormat prototype;
+   // parsed pattern instance available for the next caller (null if borrowed)
+   private final AtomicReference<MessageFormat> available;
+
+   /**
+    * @param pattern message pattern
+    * @param locale bundle locale
+    */
+   CachedMessageFormat(final String pattern, final Locale locale) {
+	this.pattern = pattern;
+	if (isPlainMessage(pattern)) {
+	   prototype = null;
+	   available = null;
+	} else {
+	   prototype = new MessageFormat(pattern, locale);
+	   available = new AtomicReference<MessageFormat>((MessageFormat) prototype.clone());
+	}
+   }
+
+   /**
+    * @param message message pattern to compare with
+    * @return <code>true</code> if this entry have been built with the given pattern
+    */
+   boolean isFor(final String message) {
+	return pattern == message || pattern.equals(message);
+   }
+
+   /**
+    * @param arguments message arguments (can be null)
+    * @return the formatted message
+    */
+   String format(final Object... arguments) {
+
+	// fast path, no format needed
+	if (prototype == null) { return pattern; }
+
+	MessageFormat messageFormat = available.getAndSet(null);
+	if (messageFormat == null) {
+	   messageFormat = (MessageFormat) prototype.clone();
+	}
+
+	try {
+	   return messageFormat.format(arguments, new StringBuffer(pattern.length() + 32), null).toString();
+	} finally {
+	   // give back the instance for the next caller
+	   available.compareAndSet(null, messageFormat);
+	}
+   }
+
+   /**
+    * @param pattern
+    * @return <code>true</code> if the pattern does not need a {@link MessageFormat} to be formatted
+    */
+   static boolean isPlainMessage(final String pattern) {
+	return pattern.indexOf('{') < 0 && pattern.indexOf('\'') < 0;
+   }
+}
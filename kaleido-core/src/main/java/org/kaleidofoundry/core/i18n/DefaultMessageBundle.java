@@ -17,19 +17,25 @@ package org.kaleidofoundry.core.i18n;
 
 import static org.kaleidofoundry.core.i18n.I18nConstants.I18nDefaultMessageBundlePluginName;
 
-import java.text.MessageFormat;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.kaleidofoundry.core.cache.Cache;
 import org.kaleidofoundry.core.cache.CacheManager;
 import org.kaleidofoundry.core.cache.CacheManagerFactory;
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.plugin.Declare;
+import org.kaleidofoundry.core.store.FileStore;
 import org.kaleidofoundry.core.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,16 +52,26 @@ public class DefaultMessageBundle extends ResourceBundle implements I18nMessages
 
    // used for user resource bundle data
    final Cache<String, String> resourceBundleCache;
-   // used internally for kaleidofoundry internal resource bundle data
-   final Properties resourceBundleNoCache;
+   // used internally for kaleidofoundry internal resource bundle data (swapped on reload)
+   volatile Properties resourceBundleNoCache;
    // bundle resource name
    final String resourceName;
    // bundle parent (can be null)
    private ResourceBundle parent;
+   // parsed message formats, by message key
+   private final ConcurrentMap<String, CachedMessageFormat> messageFormats = new ConcurrentHashMap<String, CachedMessageFormat>();
 
    // internal runtime context
    private final RuntimeContext<I18nMessages> context;
 
+   // bundle source, set by the control which loads it, and used to reload it
+   String baseName;
+   MessageBundleControlFormat format;
+   WeakReference<ClassLoader> loader;
+   FileStore fileStore;
+   // last modification date of the loaded content (-1 if unknown)
+   volatile long lastModified = -1;
+
    /**
     * @param resourceName
     * @param properties
@@ -93,10 +109,8 @@ public class DefaultMessageBundle extends ResourceBundle implements I18nMessages
 	   resourceBundleCache = cacheManager.getCache(resourceName.startsWith("i18n/") ? "kaleidofoundry/" + resourceName : "kaleidofoundry/i18n/"
 		   + resourceName);
 	   resourceBundleNoCache = null;
-	   // copy common properties to internal Cache<String,String> storage
-	   for (final String propName : properties.stringPropertyNames()) {
-		resourceBundleCache.put(propName, properties.getProperty(propName));
-	   }
+	   // copy common properties to internal Cache<String,String> storage, in a single bulk put
+	   resourceBundleCache.putAll(toMap(properties));
 	}
 
 	this.resourceName = resourceName;
@@ -147,21 +161,85 @@ public class DefaultMessageBundle extends ResourceBundle implements I18nMessages
     */
    @Override
    public String getMessage(final String key, final Object... array) throws MissingResourceException {
-	String msg = null;
-
-	try {
-	   msg = getString(key);
-	} catch (MissingResourceException mre) {
-	}
+	final String msg = lookupMessage(key);
 
 	if (msg == null) {
 	   // it can't be an i18n message, where are inside the bundle currently instantiate
 	   throw new MissingResourceException("Cannot find message key '" + key + "' in resource '" + resourceName + "'", DefaultMessageBundle.class.getName(), key);
 	}
 
-	// with locale specifics
-	return (new MessageFormat(msg, getLocale())).format(array, new StringBuffer(), null).toString();
-	// return MessageFormat.format(msg, array);
+	// with locale specifics, message pattern is parsed once and reused while it does not change
+	CachedMessageFormat messageFormat = messageFormats.get(key);
+	if (messageFormat == null || !messageFormat.isFor(msg)) {
+	   messageFormat = new CachedMessageFormat(msg, getLocale());
+	   messageFormats.put(key, messageFormat);
+	}
+	return messageFormat.format(array);
+   }
+
+   /**
+    * resolve the message pattern of the given key, in this bundle and then in its parents<br/>
+    * unlike {@link #getString(String)}, no {@link MissingResourceException} is built when the key is not found
+    * 
+    * @param key message code
+    * @return message pattern, or null if not found
+    */
+   String lookupMessage(final String key) {
+	if (key == null) { throw new NullPointerException(); }
+
+	ResourceBundle bundle = this;
+	while (bundle != null) {
+	   if (bundle instanceof DefaultMessageBundle) {
+		final DefaultMessageBundle messageBundle = (DefaultMessageBundle) bundle;
+		final Object msg = messageBundle.handleGetObject(key);
+		if (msg != null) { return msg.toString(); }
+		bundle = messageBundle.getParent();
+	   } else {
+		try {
+		   return bundle.getString(key);
+		} catch (final MissingResourceException mre) {
+		   return null;
+		}
+	   }
+	}
+	return null;
+   }
+
+   /**
+    * replace the content of this bundle, the other bundles keep their caches<br/>
+    * <br/>
+    * internal bundle content is swapped in a single write. User bundle entries are replaced key by key : a reader gets the previous or
+    * the new value of a key, never a missing one if the key still exists.
+    * 
+    * @param properties new content
+    * @param lastModified last modification date of the new content
+    */
+   synchronized void reload(final Properties properties, final long lastModified) {
+	LOGGER.info("Reload message bundle '{}'", resourceName);
+	if (resourceBundleCache != null) {
+	   resourceBundleCache.putAll(toMap(properties));
+	   for (final String propName : new ArrayList<String>(resourceBundleCache.keys())) {
+		if (!properties.containsKey(propName)) {
+		   resourceBundleCache.remove(propName);
+		}
+	   }
+	} else {
+	   resourceBundleNoCache = properties;
+	}
+	// parsed formats are checked against their pattern when used, only the removed keys have to be evicted
+	messageFormats.keySet().retainAll(properties.stringPropertyNames());
+	this.lastModified = lastModified;
+   }
+
+   /*
+    * properties as a string map
+    */
+   static Map<String, String> toMap(final Properties properties) {
+	final Map<String, String> entries = new HashMap<String, String>();
+	for (final String propName : properties.stringPropertyNames()) {
+	   entries.put(propName, properties.getProperty(propName));
+	}
+	return entries;
    }
 
    /*
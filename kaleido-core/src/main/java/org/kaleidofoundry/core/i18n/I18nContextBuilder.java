@@ -51,6 +51,15 @@ import org.kaleidofoundry.core.context.RuntimeContext;
  * <td>classLoaderClass</td>
  * <td>specific class name to get the {@link ClassLoader} to used</td>
  * </tr>
+ * <tr>
+ * <td>fileStoreUri</td>
+ * <td>base uri of the file store used to load the bundle resources, instead of the class loader (<code>http:</code>, <code>ftp:</code>,
+ * <code>jpa:</code>, <code>memory:</code>...)</td>
+ * </tr>
+ * <tr>
+ * <td>fileStoreRef</td>
+ * <td>file store context name to use</td>
+ * </tr>
  * </table>
  * </p>
  * 
@@ -83,6 +92,16 @@ public class I18nContextBuilder extends AbstractRuntimeContextBuilder<I18nMessag
     */
    public static final String ClassLoaderClass = "classLoaderClass";
 
+   /**
+    * base uri of the file store used to load the bundle resources, instead of the class loader
+    */
+   public static final String FileStoreUri = "fileStoreUri";
+
+   /**
+    * file store context name to use
+    */
+   public static final String FileStoreRef = "fileStoreRef";
+
    /**
     * 
     */
@@ -223,4 +242,24 @@ public class I18nContextBuilder extends AbstractRuntimeContextBuilder<I18nMessag
 	getContextParameters().put(CacheManagerRef, cacheManagerRef);
 	return this;
    }
+
+   /**
+    * @param fileStoreUri
+    * @return set fileStoreUri context parameter
+    * @see #FileStoreUri
+    */
+   public I18nContextBuilder withFileStoreUri(final String fileStoreUri) {
+	getContextParameters().put(FileStoreUri, fileStoreUri);
+	return this;
+   }
+
+   /**
+    * @param fileStoreRef
+    * @return set fileStoreRef context parameter
+    * @see #FileStoreRef
+    */
+   public I18nContextBuilder withFileStoreRef(final String fileStoreRef) {
+	getContextParameters().put(FileStoreRef, fileStoreRef);
+	return this;
+   }
 }
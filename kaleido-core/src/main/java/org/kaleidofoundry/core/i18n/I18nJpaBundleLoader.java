@@ -0,0 +1,246 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.i18n;
+
+import static org.kaleidofoundry.core.env.model.EnvironmentConstants.I18N_JPA_PAGE_SIZE_PROPERTY;
+import static org.kaleidofoundry.core.env.model.EnvironmentConstants.STATIC_ENV_PARAMETERS;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.kaleidofoundry.core.i18n.model.I18nMessageLanguage;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+import org.kaleidofoundry.core.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loader of the jpa i18n resources, used by {@link MessageBundleControl} when jpa control is enabled.<br/>
+ * <br/>
+ * All the messages of a resource are fetched at once, for all the languages, by paged queries (see
+ * {@link org.kaleidofoundry.core.env.model.EnvironmentConstants#I18N_JPA_PAGE_SIZE_PROPERTY}). Then each locale candidate probed by
+ * {@link java.util.ResourceBundle} is served from memory, including the "not found" ones.<br/>
+ * <br/>
+ * {@link #refresh()} only fetches the messages created or updated since the last loading. The update dates are set by the clocks of the
+ * writers, and a transaction can commit after a more recent one : so a refresh reads again the messages of the last
+ * {@link #REFRESH_OVERLAP} ms, and skips the ones already applied with the same update date. Deleted messages are not detected, use
+ * {@link #clear()} for that.
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+public class I18nJpaBundleLoader {
+
+   static final Logger LOGGER = LoggerFactory.getLogger(I18nJpaBundleLoader.class);
+
+   /** default page size of the bulk queries */
+   public static final int DEFAULT_PAGE_SIZE = 500;
+
+   /** time window in ms before the last update date, which is read again by a refresh (clock skew and late commits of the writers) */
+   public static final long REFRESH_OVERLAP = 60 * 1000;
+
+   // messages by resource name, then by locale id (an empty map is a resource not found)
+   private final ConcurrentMap<String, Map<String, Properties>> resources;
+   // most recent update date of the loaded messages
+   private volatile Date lastUpdatedDate;
+   // update date (ms) of the applied messages of the refresh window, by message language id (guarded by this)
+   private final Map<Integer, Long> appliedUpdates = new HashMap<Integer, Long>();
+
+   public I18nJpaBundleLoader() {
+	resources = new ConcurrentHashMap<String, Map<String, Properties>>();
+   }
+
+   /**
+    * @param resourceName
+    * @param locale
+    * @return the messages of the resource for the given locale, or <code>null</code> if not found
+    */
+   public Properties getProperties(@NotNull final String resourceName, @NotNull final Locale locale) {
+	Map<String, Properties> translations = resources.get(resourceName);
+	if (translations == null) {
+	   load(Collections.singleton(resourceName));
+	   translations = resources.get(resourceName);
+	}
+	return translations.get(locale.toString());
+   }
+
+   /**
+    * load all the messages of the given resources, which are not already loaded
+    *
+    * @param resourceNames
+    */
+   public synchronized void load(@NotNull final Collection<String> resourceNames) {
+	final Set<String> toLoad = new LinkedHashSet<String>();
+	for (final String resourceName : resourceNames) {
+	   if (!resources.containsKey(resourceName)) {
+		toLoad.add(resourceName);
+	   }
+	}
+	if (toLoad.isEmpty()) { return; }
+
+	LOGGER.debug("bulk loading of the jpa i18n resources {}", toLoad);
+
+	final Map<String, Map<String, Properties>> loaded = new HashMap<String, Map<String, Properties>>();
+	for (final String resourceName : toLoad) {
+	   loaded.put(resourceName, new HashMap<String, Properties>());
+	}
+
+	final I18nMessageController messageService = new I18nMessageController();
+	final int pageSize = getPageSize();
+	int firstResult = 0;
+	Date latestUpdatedDate = lastUpdatedDate;
+	List<I18nMessageLanguage> page;
+	do {
+	   page = messageService.findMessagesByResources(toLoad, firstResult, pageSize);
+	   for (final I18nMessageLanguage ml : page) {
+		latestUpdatedDate = index(loaded, ml, latestUpdatedDate);
+	   }
+	   firstResult += page.size();
+	} while (page.size() == pageSize);
+
+	resources.putAll(loaded);
+	// advanced once all the pages are swapped in, a failed page does not skip its updates
+	lastUpdatedDate = latestUpdatedDate;
+	pruneAppliedUpdates();
+   }
+
+   /**
+    * reload the messages of the loaded resources, created or updated since the last loading
+    *
+    * @return names of the resources which have been updated
+    */
+   public synchronized Set<String> refresh() {
+	if (resources.isEmpty()) { return Collections.emptySet(); }
+
+	final Set<String> resourceNames = new LinkedHashSet<String>(resources.keySet());
+	final Date since = lastUpdatedDate != null ? new Date(Math.max(0, lastUpdatedDate.getTime() - REFRESH_OVERLAP)) : new Date(0);
+	final Map<String, Map<String, Properties>> updated = new HashMap<String, Map<String, Properties>>();
+
+	final I18nMessageController messageService = new I18nMessageController();
+	final int pageSize = getPageSize();
+	int firstResult = 0;
+	Date latestUpdatedDate = lastUpdatedDate;
+	List<I18nMessageLanguage> page;
+	do {
+	   page = messageService.findMessagesUpdatedSince(resourceNames, since, firstResult, pageSize);
+	   for (final I18nMessageLanguage ml : page) {
+		// already applied by the previous loading, the overlap window is read again
+		if (ml.getUpdatedDate() != null && Long.valueOf(ml.getUpdatedDate().getTime()).equals(appliedUpdates.get(ml.getId()))) {
+		   continue;
+		}
+		final String resourceName = ml.getMessage().getGroup().getCode();
+		if (!updated.containsKey(resourceName)) {
+		   // copy on write, readers keep on using the previous messages until the swap
+		   final Map<String, Properties> translations = new HashMap<String, Properties>();
+		   for (final Map.Entry<String, Properties> entry : resources.get(resourceName).entrySet()) {
+			final Properties properties = new Properties();
+			properties.putAll(entry.getValue());
+			translations.put(entry.getKey(), properties);
+		   }
+		   updated.put(resourceName, translations);
+		}
+		latestUpdatedDate = index(updated, ml, latestUpdatedDate);
+	   }
+	   firstResult += page.size();
+	} while (page.size() == pageSize);
+
+	resources.putAll(updated);
+	lastUpdatedDate = latestUpdatedDate;
+	pruneAppliedUpdates();
+
+	if (!updated.isEmpty()) {
+	   LOGGER.info("jpa i18n resources refreshed {}", updated.keySet());
+	}
+	return updated.keySet();
+   }
+
+   /**
+    * @param resourceName
+    * @return <code>true</code> if the resource have been loaded (found or not)
+    */
+   public boolean isLoaded(@NotNull final String resourceName) {
+	return resources.containsKey(resourceName);
+   }
+
+   /**
+    * @return most recent update date of the loaded messages, <code>null</code> if none
+    */
+   public Date getLastUpdatedDate() {
+	return lastUpdatedDate;
+   }
+
+   /**
+    * clear all the loaded resources
+    */
+   public synchronized void clear() {
+	resources.clear();
+	lastUpdatedDate = null;
+	appliedUpdates.clear();
+   }
+
+   /*
+    * add the message to its resource / locale properties, and return the most recent of its update date and the given one
+    */
+   Date index(final Map<String, Map<String, Properties>> target, final I18nMessageLanguage ml, final Date latestUpdatedDate) {
+	final String resourceName = ml.getMessage().getGroup().getCode();
+	final String localeId = ml.getLocaleId() != null ? ml.getLocaleId() : "";
+
+	Properties properties = target.get(resourceName).get(localeId);
+	if (properties == null) {
+	   properties = new Properties();
+	   target.get(resourceName).put(localeId, properties);
+	}
+	if (ml.getContent() != null) {
+	   properties.put(ml.getMessage().getCode(), ml.getContent());
+	}
+
+	final Date updatedDate = ml.getUpdatedDate();
+	if (updatedDate != null && ml.getId() != null) {
+	   appliedUpdates.put(ml.getId(), updatedDate.getTime());
+	}
+	return updatedDate != null && (latestUpdatedDate == null || updatedDate.after(latestUpdatedDate)) ? updatedDate : latestUpdatedDate;
+   }
+
+   /*
+    * forget the applied messages which are out of the refresh window
+    */
+   private void pruneAppliedUpdates() {
+	final long since = lastUpdatedDate != null ? lastUpdatedDate.getTime() - REFRESH_OVERLAP : Long.MAX_VALUE;
+	final Iterator<Long> updatedDates = appliedUpdates.values().iterator();
+	while (updatedDates.hasNext()) {
+	   if (updatedDates.next() < since) {
+		updatedDates.remove();
+	   }
+	}
+   }
+
+   static int getPageSize() {
+	final String pageSize = STATIC_ENV_PARAMETERS.get(I18N_JPA_PAGE_SIZE_PROPERTY);
+	return !StringHelper.isEmpty(pageSize) ? Integer.parseInt(pageSize) : DEFAULT_PAGE_SIZE;
+   }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.i18n;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logging facade over slf4j, which logs i18n messages of a {@link I18nMessages} bundle.<br/>
+ * <br/>
+ * The message is resolved and formatted only if the level is enabled, so a disabled level costs a single boolean check.<br/>
+ * Like slf4j, if the last argument is a {@link Throwable}, it is logged as the exception of the message.
+ *
+ * <pre>
+ * static final I18nLogger LOGGER = I18nLogger.getLogger(MyClass.class, InternalBundleHelper.StoreMessageBundle);
+ * ...
+ * LOGGER.warn(&quot;store.failover.retry.get.info&quot;, resourceRelativePath, sleepTime, retryCount, maxRetryCount);
+ * </pre>
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+public class I18nLogger {
+
+   private final Logger logger;
+   private final I18nMessages messages;
+
+   /**
+    * @param logger slf4j logger to use
+    * @param messages bundle of the message codes
+    */
+   public I18nLogger(@NotNull final Logger logger, @NotNull final I18nMessages messages) {
+	this.logger = logger;
+	this.messages = messages;
+   }
+
+   /**
+    * @param clazz class of the logger
+    * @param messages bundle of the message codes
+    * @return new i18n logger instance
+    */
+   public static I18nLogger getLogger(@NotNull final Class<?> clazz, @NotNull final I18nMessages messages) {
+	return new I18nLogger(LoggerFactory.getLogger(clazz), messages);
+   }
+
+   /**
+    * @return underlying slf4j logger, for non i18n messages
+    */
+   public Logger getLogger() {
+	return logger;
+   }
+
+   /**
+    * @return bundle of the message codes
+    */
+   public I18nMessages getMessages() {
+	return messages;
+   }
+
+   /**
+    * @return is the trace level enabled
+    */
+   public boolean isTraceEnabled() {
+	return logger.isTraceEnabled();
+   }
+
+   /**
+    * @return is the debug level enabled
+    */
+   public boolean isDebugEnabled() {
+	return logger.isDebugEnabled();
+   }
+
+   /**
+    * @return is the info level enabled
+    */
+   public boolean isInfoEnabled() {
+	return logger.isInfoEnabled();
+   }
+
+   /**
+    * @return is the warn level enabled
+    */
+   public boolean isWarnEnabled() {
+	return logger.isWarnEnabled();
+   }
+
+   /**
+    * @return is the error level enabled
+    */
+   public boolean isErrorEnabled() {
+	return logger.isErrorEnabled();
+   }
+
+   /**
+    * @param code message code
+    * @param args message arguments, the last one can be a {@link Throwable}
+    */
+   public void trace(final String code, final Object... args) {
+	if (logger.isTraceEnabled()) {
+	   logger.trace(messages.getMessage(code, args), throwableOf(args));
+	}
+   }
+
+   /**
+    * @param code message code
+    * @param args message arguments, the last one can be a {@link Throwable}
+    */
+   public void debug(final String code, final Object... args) {
+	if (logger.isDebugEnabled()) {
+	   logger.debug(messages.getMessage(code, args), throwableOf(args));
+	}
+   }
+
+   /**
+    * @param code message code
+    * @param args message arguments, the last one can be a {@link Throwable}
+    */
+   public void info(final String code, final Object... args) {
+	if (logger.isInfoEnabled()) {
+	   logger.info(messages.getMessage(code, args), throwableOf(args));
+	}
+   }
+
+   /**
+    * @param code message code
+    * @param args message arguments, the last one can be a {@link Throwable}
+    */
+   public void warn(final String code, final Object... args) {
+	if (logger.isWarnEnabled()) {
+	   logger.warn(messages.getMessage(code, args), throwableOf(args));
+	}
+   }
+
+   /**
+    * @param code message code
+    * @param args message arguments, the last one can be a {@link Throwable}
+    */
+   public void error(final String code, final Object... args) {
+	if (logger.isErrorEnabled()) {
+	   logger.error(messages.getMessage(code, args), throwableOf(args));
+	}
+   }
+
+   /**
+    * @param args
+    * @return the last argument if it is a throwable, null otherwise
+    */
+   static Throwable throwableOf(final Object[] args) {
+	if (args == null || args.length == 0) { return null; }
+	final Object last = args[args.length - 1];
+	return last instanceof Throwable ? (Throwable) last : null;
+   }
+}
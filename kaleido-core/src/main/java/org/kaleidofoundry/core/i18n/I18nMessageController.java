@@ -20,6 +20,8 @@ import static org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_Mess
 import static org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesByLocale.Parameter_Locale;
 import static org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesByLocale.Parameter_ResourceName;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
@@ -27,12 +29,15 @@ import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
 import org.kaleidofoundry.core.i18n.model.I18nMessage;
+import org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesByResources;
+import org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesUpdatedSince;
 import org.kaleidofoundry.core.i18n.model.I18nMessageLanguage;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
@@ -78,4 +83,49 @@ public class I18nMessageController {
 
 	return result;
    }
+
+   /**
+    * reload the modified i18n bundles, without flushing the others
+    * 
+    * @see I18nMessagesFactory#reloadModifiedBundles()
+    */
+   @PUT
+   @Path("reload")
+   public void reloadModifiedBundles() {
+	I18nMessagesFactory.reloadModifiedBundles();
+   }
+
+   /**
+    * @param resourceNames
+    * @param firstResult position of the first result of the page
+    * @param maxResults size of the page
+    * @return a page of the messages of the given resources, for all the languages (ordered by id)
+    */
+   @SuppressWarnings("unchecked")
+   public List<I18nMessageLanguage> findMessagesByResources(@NotNull final Collection<String> resourceNames, final int firstResult, final int maxResults) {
+	Query query = em.createNamedQuery(Query_MessagesByResources.Name);
+	query.setParameter(Query_MessagesByResources.Parameter_ResourceNames, resourceNames);
+	query.setFirstResult(firstResult);
+	query.setMaxResults(maxResults);
+	return query.getResultList();
+   }
+
+   /**
+    * @param resourceNames
+    * @param updatedDate
+    * @param firstResult position of the first result of the page
+    * @param maxResults size of the page
+    * @return a page of the messages of the given resources, for all the languages, created or updated since the given date, included (ordered
+    *         by id)
+    */
+   @SuppressWarnings("unchecked")
+   public List<I18nMessageLanguage> findMessagesUpdatedSince(@NotNull final Collection<String> resourceNames, @NotNull final Date updatedDate,
+	   final int firstResult, final int maxResults) {
+	Query query = em.createNamedQuery(Query_MessagesUpdatedSince.Name);
+	query.setParameter(Query_MessagesUpdatedSince.Parameter_ResourceNames, resourceNames);
+	query.setParameter(Query_MessagesUpdatedSince.Parameter_UpdatedDate, updatedDate);
+	query.setFirstResult(firstResult);
+	query.setMaxResults(maxResults);
+	return query.getResultList();
+   }
 }
@@ -17,6 +17,7 @@ package org.kaleidofoundry.core.i18n;
 
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
@@ -44,6 +45,16 @@ public class I18nMessagesFactory {
 	I18nMessagesProvider.clearCache();
    }
 
+   /**
+    * reload the modified bundles only, without flushing the others
+    * 
+    * @return resource names of the reloaded bundles
+    * @see I18nMessagesProvider#reloadModifiedBundles()
+    */
+   public static Set<String> reloadModifiedBundles() {
+	return I18nMessagesProvider.reloadModifiedBundles();
+   }
+
    /**
     * @return internal bundle registry
     */
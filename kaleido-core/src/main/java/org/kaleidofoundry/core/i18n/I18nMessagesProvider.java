@@ -22,8 +22,12 @@ import static org.kaleidofoundry.core.i18n.I18nContextBuilder.ClassLoaderClass;
 import static org.kaleidofoundry.core.i18n.I18nContextBuilder.LocaleCountry;
 import static org.kaleidofoundry.core.i18n.I18nContextBuilder.LocaleLanguage;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import org.kaleidofoundry.core.context.AbstractProviderService;
 import org.kaleidofoundry.core.context.EmptyContextParameterException;
@@ -43,6 +47,9 @@ public class I18nMessagesProvider extends AbstractProviderService<I18nMessages>
 
    private static final Logger LOGGER = LoggerFactory.getLogger(I18nMessagesProvider.class);
 
+   // shared bulk loader of the jpa resources
+   private static final I18nJpaBundleLoader JPA_BUNDLE_LOADER = new I18nJpaBundleLoader();
+
    /**
     * @param genericClassInterface
     */
@@ -197,6 +204,33 @@ public class I18nMessagesProvider extends AbstractProviderService<I18nMessages>
 	LOGGER.info("Clear all resources bundles caches");
 	ResourceBundle.clearCache();
 	ResourceBundle.clearCache(I18nMessagesFactory.class.getClassLoader());
+	MessageBundleControl.clearLoadedBundles();
+	JPA_BUNDLE_LOADER.clear();
+   }
+
+   /**
+    * reload the bundles which source have been modified since their loading (last modified date of the properties resource, or updated date
+    * of the jpa messages).<br/>
+    * <br/>
+    * Unlike {@link #clearCache()}, the content of each modified bundle is swapped in place, the other bundles keep their caches and the
+    * {@link I18nMessages} instances already provided see the new messages.
+    * 
+    * @return resource names of the reloaded bundles
+    */
+   public static Set<String> reloadModifiedBundles() {
+	final Set<String> updatedJpaResources = isJpaEnabledForI18n() ? JPA_BUNDLE_LOADER.refresh() : Collections.<String> emptySet();
+	final Set<String> reloaded = new LinkedHashSet<String>();
+
+	for (final DefaultMessageBundle bundle : MessageBundleControl.getLoadedBundles()) {
+	   try {
+		if (MessageBundleControl.reloadIfModified(bundle, updatedJpaResources)) {
+		   reloaded.add(bundle.getResourceName());
+		}
+	   } catch (final IOException ioe) {
+		LOGGER.warn("Reload of message bundle '{}' failed: {}", bundle.getResourceName(), ioe.getMessage());
+	   }
+	}
+	return reloaded;
    }
 
    /*
@@ -227,7 +261,16 @@ public class I18nMessagesProvider extends AbstractProviderService<I18nMessages>
 
 	final DefaultMessageBundle bundle = (DefaultMessageBundle) ResourceBundle.getBundle(baseName, locale != null ? locale : defaultLocale(),
 		loader != null ? loader : DefaultMessageBundle.class.getClassLoader(), new MessageBundleControl(context));
-	bundle.setParent(parent);
+	if (parent != null) {
+	   // the locale parent chain built by the jdk is kept, the explicit parent is chained at its root
+	   DefaultMessageBundle root = bundle;
+	   while (root.getParent() instanceof DefaultMessageBundle && root.getParent() != parent) {
+		root = (DefaultMessageBundle) root.getParent();
+	   }
+	   if (root != parent && root.getParent() == null) {
+		root.setParent(parent);
+	   }
+	}
 	return bundle;
    }
 
@@ -246,6 +289,13 @@ public class I18nMessagesProvider extends AbstractProviderService<I18nMessages>
 	STATIC_ENV_PARAMETERS.put(I18N_JPA_ACTIVATION_PROPERTY, Boolean.FALSE.toString());
    }
    
+   /**
+    * @return the shared bulk loader of the jpa resources, which can be used to preload or refresh them
+    */
+   public static I18nJpaBundleLoader getJpaBundleLoader() {
+	return JPA_BUNDLE_LOADER;
+   }
+
    /**
     * @return do JPA is enable to get and persist i18n messages bundle
     */
@@ -15,28 +15,64 @@
  */
 package org.kaleidofoundry.core.i18n;
 
+import static org.kaleidofoundry.core.i18n.I18nContextBuilder.FileStoreRef;
+import static org.kaleidofoundry.core.i18n.I18nContextBuilder.FileStoreUri;
+
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.ResourceBundle.Control;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
-import org.kaleidofoundry.core.i18n.model.I18nMessageLanguage;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.lang.annotation.TaskLabel;
 import org.kaleidofoundry.core.lang.annotation.Tasks;
 import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+import org.kaleidofoundry.core.store.FileStore;
+import org.kaleidofoundry.core.store.FileStoreContextBuilder;
+import org.kaleidofoundry.core.store.FileStoreFactory;
+import org.kaleidofoundry.core.store.ResourceHandler;
+import org.kaleidofoundry.core.store.ResourceMetadata;
+import org.kaleidofoundry.core.store.ResourceNotFoundException;
+import org.kaleidofoundry.core.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Resource bundle control, which loads the bundle resources from :
+ * <ul>
+ * <li>the class loader (properties or xml properties),</li>
+ * <li>a {@link FileStore} if the context defines a {@link I18nContextBuilder#FileStoreUri} (<code>http:</code>, <code>ftp:</code>,
+ * <code>jpa:</code>, <code>memory:</code>...),</li>
+ * <li>the jpa i18n entities, if jpa control is enabled.</li>
+ * </ul>
+ * With a file store, the resources of all the candidate locales are fetched in parallel as soon as the first one is needed, so a remote
+ * bundle chain is loaded in a single latency window.
+ * 
  * @author jraduget
  */
 @ThreadSafe
@@ -44,8 +80,35 @@ public class MessageBundleControl extends Control {
 
    private static final Logger LOGGER = LoggerFactory.getLogger(MessageBundleControl.class);
 
+   // bundles loaded by a control, which can be reloaded (weak references, the jdk resource bundle cache remains the owner)
+   private static final Set<DefaultMessageBundle> LOADED_BUNDLES = Collections.newSetFromMap(Collections
+	   .synchronizedMap(new WeakHashMap<DefaultMessageBundle, Boolean>()));
+
+   /** last modification date of a class path bundle which is not resolved yet, see {@link #getLocalLastModified(ClassLoader, String)} */
+   static final long LAST_MODIFIED_UNRESOLVED = 0;
+
+   /** max number of file store resources fetched at the same time */
+   static final int PREFETCH_THREADS = 8;
+
+   // shared executor of the file store resources fetch (daemon threads)
+   private static final ExecutorService PREFETCH_EXECUTOR = Executors.newFixedThreadPool(PREFETCH_THREADS, new ThreadFactory() {
+	private final AtomicInteger count = new AtomicInteger();
+
+	@Override
+	public Thread newThread(final Runnable runnable) {
+	   final Thread thread = new Thread(runnable, "kaleido-i18n-prefetch-" + count.incrementAndGet());
+	   thread.setDaemon(true);
+	   return thread;
+	}
+   });
+
    private final RuntimeContext<I18nMessages> context;
 
+   // candidate locales by base name, recorded for the prefetch
+   private final ConcurrentMap<String, List<Locale>> candidateLocales = new ConcurrentHashMap<String, List<Locale>>();
+   // file store resources being fetched, by resource name
+   private final ConcurrentMap<String, Future<FileStoreResource>> prefetchedResources = new ConcurrentHashMap<String, Future<FileStoreResource>>();
+
    /**
     * @param context
     */
@@ -66,6 +129,18 @@ public class MessageBundleControl extends Control {
 	return Collections.unmodifiableList(lformat);
    }
 
+   /*
+    * (non-Javadoc)
+    * @see java.util.ResourceBundle.Control#getCandidateLocales(java.lang.String, java.util.Locale)
+    */
+   @Override
+   public List<Locale> getCandidateLocales(final String baseName, final Locale locale) {
+	final List<Locale> candidates = super.getCandidateLocales(baseName, locale);
+	// recorded only, the fetch starts on the first bundle to load (nothing to fetch if the bundles are already cached)
+	candidateLocales.put(baseName, candidates);
+	return candidates;
+   }
+
    /*
     * (non-Javadoc)
     * @see java.util.ResourceBundle.Control#newBundle(java.lang.String, java.util.Locale, java.lang.String, java.lang.ClassLoader, boolean)
@@ -94,9 +169,7 @@ public class MessageBundleControl extends Control {
     * @throws InstantiationException
     * @throws IOException
     */
-   @Tasks(tasks = {
-	   @Task(comment = "Make messageBundleControl extensible via {@link Plugin} extention. Load can be done via xml, jpa... ?", labels = TaskLabel.Enhancement),
-	   @Task(comment = "Use fileStore to load bundle resource", labels = TaskLabel.Enhancement) })
+   @Tasks(tasks = { @Task(comment = "Make messageBundleControl extensible via {@link Plugin} extention. Load can be done via xml, jpa... ?", labels = TaskLabel.Enhancement) })
    ResourceBundle newInputStreamBundle(final String baseName, final Locale locale, final MessageBundleControlFormat format, final ClassLoader loader,
 	   final boolean reload) throws IllegalAccessException, InstantiationException, IOException {
 
@@ -108,6 +181,8 @@ public class MessageBundleControl extends Control {
 	InputStream inProperties = null;
 
 	boolean foundResource = false;
+	long lastModified = -1;
+	final FileStore fileStore = format != MessageBundleControlFormat.JPA_ENTITY_PROPERTIES ? getFileStore(baseName) : null;
 
 	if (LOGGER.isDebugEnabled()) {
 	   LOGGER.debug("newBundle resolver for");
@@ -122,8 +197,18 @@ public class MessageBundleControl extends Control {
 	// Loader...
 	try {
 
+	   // file store datas (properties or xml properties)...
+	   if (fileStore != null) {
+		final FileStoreResource resource = getFileStoreResource(fileStore, baseName, resourceName, format);
+		if (resource != null) {
+		   properties.putAll(resource.properties);
+		   lastModified = resource.lastModified;
+		   foundResource = true;
+		}
+	   }
+
 	   // standard properties datas....
-	   if (format == MessageBundleControlFormat.STANDARD_PROPERTIES) {
+	   if (fileStore == null && format == MessageBundleControlFormat.STANDARD_PROPERTIES) {
 		inProperties = newUrlInputStream(loader, resourceName, reload);
 		if (inProperties != null) {
 		   properties.load(inProperties);
@@ -132,7 +217,7 @@ public class MessageBundleControl extends Control {
 	   }
 
 	   // xml properties datas...
-	   if (format == MessageBundleControlFormat.XML_PROPERTIES) {
+	   if (fileStore == null && format == MessageBundleControlFormat.XML_PROPERTIES) {
 		inProperties = newUrlInputStream(loader, resourceName, reload);
 		if (inProperties != null) {
 		   properties.loadFromXML(inProperties);
@@ -143,14 +228,11 @@ public class MessageBundleControl extends Control {
 	   // jpa entity datas
 	   if (format == MessageBundleControlFormat.JPA_ENTITY_PROPERTIES && I18nMessagesProvider.isJpaEnabledForI18n()) {
 
-		@Task(comment = "create a service injector (local / guice / spring / ejb3 local or remote...)")
-		final I18nMessageController messageService = new I18nMessageController();
-		final List<I18nMessageLanguage> messagesLanguage = messageService.findMessagesByLocale(baseName, locale);
+		// all the locales of the resource are bulk loaded once, then served from memory (found or not)
+		final Properties jpaProperties = I18nMessagesProvider.getJpaBundleLoader().getProperties(baseName, locale);
 
-		if (!messagesLanguage.isEmpty()) {
-		   for (final I18nMessageLanguage ml : messagesLanguage) {
-			properties.put(ml.getMessage().getCode(), ml.getContent());
-		   }
+		if (jpaProperties != null && !jpaProperties.isEmpty()) {
+		   properties.putAll(jpaProperties);
 		   foundResource = true;
 		}
 	   }
@@ -169,6 +251,16 @@ public class MessageBundleControl extends Control {
 
 	if (foundResource) {
 	   messageBundle = new DefaultMessageBundle(resourceName, properties, context);
+	   messageBundle.baseName = baseName;
+	   messageBundle.format = format;
+	   messageBundle.loader = new WeakReference<ClassLoader>(loader);
+	   messageBundle.fileStore = fileStore;
+	   if (fileStore != null) {
+		messageBundle.lastModified = lastModified;
+	   } else if (format != MessageBundleControlFormat.JPA_ENTITY_PROPERTIES) {
+		messageBundle.lastModified = getLocalLastModified(loader, resourceName);
+	   }
+	   LOADED_BUNDLES.add(messageBundle);
 	   LOGGER.debug("\t-> resource found !");
 	} else {
 	   LOGGER.debug("\t-> resource not found...");
@@ -186,7 +278,7 @@ public class MessageBundleControl extends Control {
     * @return resource input stream
     * @throws IOException
     */
-   InputStream newUrlInputStream(final ClassLoader loader, final String resourceName, final boolean reload) throws IOException {
+   static InputStream newUrlInputStream(final ClassLoader loader, final String resourceName, final boolean reload) throws IOException {
 
 	InputStream stream = null;
 
@@ -207,6 +299,253 @@ public class MessageBundleControl extends Control {
 
    }
 
+   /**
+    * @param loader
+    * @param resourceName
+    * @return last modification date of the resource, -1 if not found or unknown
+    * @throws IOException
+    */
+   static long getLastModified(final ClassLoader loader, final String resourceName) throws IOException {
+	final URL url = loader.getResource(resourceName);
+	if (url == null) { return -1; }
+
+	final URLConnection connection = url.openConnection();
+	connection.setUseCaches(false);
+	final long lastModified = connection.getLastModified();
+	// the connection can have opened the resource (file or jar), release it
+	connection.getInputStream().close();
+	return lastModified > 0 ? lastModified : -1;
+   }
+
+   /**
+    * last modification date of a class path resource, without opening any connection : the date of a file is read from the file system.
+    * The date of another resource (a jar entry, which does not change while the jar is used) is resolved by the first
+    * {@link #reloadIfModified(DefaultMessageBundle, Set)} only, so a bundle load never opens an url connection.
+    * 
+    * @param loader
+    * @param resourceName
+    * @return last modification date of the resource, -1 if not found or unknown, {@link #LAST_MODIFIED_UNRESOLVED} if not resolved yet
+    */
+   static long getLocalLastModified(final ClassLoader loader, final String resourceName) {
+	final URL url = loader.getResource(resourceName);
+	if (url == null) { return -1; }
+	if (!"file".equals(url.getProtocol())) { return LAST_MODIFIED_UNRESOLVED; }
+	try {
+	   final long lastModified = new File(url.toURI()).lastModified();
+	   return lastModified > 0 ? lastModified : -1;
+	} catch (final URISyntaxException use) {
+	   return LAST_MODIFIED_UNRESOLVED;
+	} catch (final IllegalArgumentException iae) {
+	   return LAST_MODIFIED_UNRESOLVED;
+	}
+   }
+
+   /**
+    * reload the content of the bundle, if its source have been modified since its loading.<br/>
+    * Only the given bundle is reloaded, the jdk resource bundle cache is not flushed.
+    * 
+    * @param bundle bundle to check
+    * @param updatedJpaResources names of the jpa resources which have been refreshed
+    * @return <code>true</code> if the bundle have been reloaded
+    * @throws IOException
+    */
+   static boolean reloadIfModified(final DefaultMessageBundle bundle, final Set<String> updatedJpaResources) throws IOException {
+	final ClassLoader loader = bundle.loader != null ? bundle.loader.get() : null;
+	if (loader == null || bundle.format == null) { return false; }
+
+	// jpa resources have been refreshed by the bulk loader, only swap the content of the updated ones
+	if (bundle.format == MessageBundleControlFormat.JPA_ENTITY_PROPERTIES) {
+	   if (!updatedJpaResources.contains(bundle.baseName)) { return false; }
+	   final Properties properties = I18nMessagesProvider.getJpaBundleLoader().getProperties(bundle.baseName, bundle.getLocale());
+	   if (properties == null) { return false; }
+	   bundle.reload(properties, -1);
+	   return true;
+	}
+
+	final String resourceName = bundle.getResourceName();
+
+	// file store resources
+	if (bundle.fileStore != null) {
+	   // meta datas only, the content is loaded if the resource have been modified
+	   final ResourceMetadata metadata;
+	   try {
+		metadata = bundle.fileStore.stat(resourceName);
+	   } catch (final ResourceNotFoundException rnfe) {
+		return false;
+	   }
+	   if (metadata.getLastModified() > 0 && metadata.getLastModified() <= bundle.lastModified) { return false; }
+
+	   final FileStoreResource resource = loadFileStoreResource(bundle.fileStore, resourceName, bundle.format);
+	   if (resource == null || resource.lastModified <= 0 || resource.lastModified <= bundle.lastModified) { return false; }
+	   bundle.reload(resource.properties, resource.lastModified);
+	   return true;
+	}
+
+	final long lastModified = getLastModified(loader, resourceName);
+	// first check of a bundle which date is not resolved yet : its current date becomes the reference
+	if (bundle.lastModified == LAST_MODIFIED_UNRESOLVED) {
+	   bundle.lastModified = lastModified;
+	   return false;
+	}
+	if (lastModified <= 0 || lastModified <= bundle.lastModified) { return false; }
+
+	final Properties properties = new Properties();
+	final InputStream inProperties = newUrlInputStream(loader, resourceName, true);
+	if (inProperties == null) { return false; }
+	try {
+	   if (bundle.format == MessageBundleControlFormat.XML_PROPERTIES) {
+		properties.loadFromXML(inProperties);
+	   } else {
+		properties.load(inProperties);
+	   }
+	} finally {
+	   inProperties.close();
+	}
+	bundle.reload(properties, lastModified);
+	return true;
+   }
+
+   /**
+    * @param baseName
+    * @return the file store of the bundle resources, <code>null</code> if the bundle resources are not loaded from a file store
+    */
+   FileStore getFileStore(final String baseName) {
+	final String fileStoreUri = context != null ? context.getString(FileStoreUri) : null;
+	if (StringHelper.isEmpty(fileStoreUri)) { return null; }
+
+	final String fileStoreRef = context.getString(FileStoreRef, "i18n." + baseName + ".unnamed");
+	final FileStore fileStore = FileStoreFactory.getRegistry().get(fileStoreRef);
+	if (fileStore != null && fileStoreUri.equals(fileStore.getBaseUri())) { return fileStore; }
+	return FileStoreFactory.provides(fileStoreUri, new FileStoreContextBuilder(fileStoreRef).build());
+   }
+
+   /**
+    * get a bundle resource from the file store. A call also starts the fetch of the resources of the other candidate locales, in
+    * parallel. Only the format being resolved is fetched, the next format (xml) is only looked up when no properties resource has been found,
+    * and the candidates already loaded from the file store (a parent bundle shared with another locale) are not fetched again.
+    * 
+    * @param fileStore
+    * @param baseName
+    * @param resourceName
+    * @param format
+    * @return the loaded resource, <code>null</code> if not found
+    * @throws IOException
+    */
+   FileStoreResource getFileStoreResource(final FileStore fileStore, final String baseName, final String resourceName,
+	   final MessageBundleControlFormat format) throws IOException {
+
+	final List<Locale> candidates = candidateLocales.get(baseName);
+	if (candidates != null) {
+	   final Set<String> loadedResources = new HashSet<String>();
+	   for (final DefaultMessageBundle bundle : getLoadedBundles()) {
+		if (bundle.fileStore == fileStore) {
+		   loadedResources.add(bundle.getResourceName());
+		}
+	   }
+	   for (final Locale candidate : candidates) {
+		final String candidateName = toResourceName(toBundleName(baseName, candidate), format.getExtention());
+		if (!loadedResources.contains(candidateName)) {
+		   prefetch(fileStore, candidateName, format);
+		}
+	   }
+	}
+
+	final Future<FileStoreResource> future = prefetch(fileStore, resourceName, format);
+
+	try {
+	   return future.get();
+	} catch (final InterruptedException ie) {
+	   Thread.currentThread().interrupt();
+	   throw new InterruptedIOException(resourceName);
+	} catch (final ExecutionException ee) {
+	   if (ee.getCause() instanceof IOException) { throw (IOException) ee.getCause(); }
+	   if (ee.getCause() instanceof RuntimeException) { throw (RuntimeException) ee.getCause(); }
+	   throw new IllegalStateException(ee.getCause());
+	} finally {
+	   // consumed, a further call (reload) will fetch it again
+	   prefetchedResources.remove(resourceName, future);
+	}
+   }
+
+   /*
+    * submit the fetch of the resource, if it is not already submitted
+    */
+   private Future<FileStoreResource> prefetch(final FileStore fileStore, final String resourceName, final MessageBundleControlFormat format) {
+	Future<FileStoreResource> future = prefetchedResources.get(resourceName);
+	if (future == null) {
+	   final FutureTask<FileStoreResource> task = new FutureTask<FileStoreResource>(new Callable<FileStoreResource>() {
+		@Override
+		public FileStoreResource call() throws IOException {
+		   return loadFileStoreResource(fileStore, resourceName, format);
+		}
+	   });
+	   future = prefetchedResources.putIfAbsent(resourceName, task);
+	   if (future == null) {
+		future = task;
+		PREFETCH_EXECUTOR.execute(task);
+	   }
+	}
+	return future;
+   }
+
+   /**
+    * @param fileStore
+    * @param resourceName
+    * @param format
+    * @return the loaded resource, <code>null</code> if not found
+    * @throws IOException
+    */
+   static FileStoreResource loadFileStoreResource(final FileStore fileStore, final String resourceName, final MessageBundleControlFormat format)
+	   throws IOException {
+	final ResourceHandler resource;
+	try {
+	   resource = fileStore.get(resourceName);
+	} catch (final ResourceNotFoundException rnfe) {
+	   return null;
+	}
+
+	try {
+	   final Properties properties = new Properties();
+	   if (format == MessageBundleControlFormat.XML_PROPERTIES) {
+		properties.loadFromXML(resource.getInputStream());
+	   } else {
+		properties.load(resource.getInputStream());
+	   }
+	   return new FileStoreResource(properties, resource.getLastModified());
+	} finally {
+	   resource.close();
+	}
+   }
+
+   /**
+    * bundle resource loaded from a file store
+    */
+   static class FileStoreResource {
+	final Properties properties;
+	final long lastModified;
+
+	FileStoreResource(final Properties properties, final long lastModified) {
+	   this.properties = properties;
+	   this.lastModified = lastModified;
+	}
+   }
+
+   /**
+    * @return a snapshot of the loaded bundles which are still in use
+    */
+   static List<DefaultMessageBundle> getLoadedBundles() {
+	synchronized (LOADED_BUNDLES) {
+	   return new ArrayList<DefaultMessageBundle>(LOADED_BUNDLES);
+	}
+   }
+
+   /**
+    * forget the loaded bundles
+    */
+   static void clearLoadedBundles() {
+	LOADED_BUNDLES.clear();
+   }
+
    /*
     * (non-Javadoc)
     * @see java.util.ResourceBundle.Control#getFallbackLocale(java.lang.String, java.util.Locale)
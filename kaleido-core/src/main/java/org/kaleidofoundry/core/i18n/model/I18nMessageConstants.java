@@ -40,6 +40,27 @@ public interface I18nMessageConstants {
 		+ " and ml.localeId = :" + Parameter_Locale;
    }
 
+   /**
+    * Query static final informations, used to bulk load all the translations of a set of resources
+    */
+   public static interface Query_MessagesByResources {
+	String Name = "i18n.findMessagesByResources";
+	String Parameter_ResourceNames = "resourceNames";
+	String Jql = "select ml from I18nMessageLanguage ml join fetch ml.message where ml.message.group.code in :" + Parameter_ResourceNames
+		+ " order by ml.id";
+   }
+
+   /**
+    * Query static final informations, used to refresh the translations of a set of resources, updated since a given date
+    */
+   public static interface Query_MessagesUpdatedSince {
+	String Name = "i18n.findMessagesUpdatedSince";
+	String Parameter_ResourceNames = "resourceNames";
+	String Parameter_UpdatedDate = "updatedDate";
+	String Jql = "select ml from I18nMessageLanguage ml join fetch ml.message where ml.message.group.code in :" + Parameter_ResourceNames
+		+ " and ml.updatedDate >= :" + Parameter_UpdatedDate + " order by ml.id";
+   }
+
    /** Default message group */
    I18nMessageGroup DefaultMessageGroup = new I18nMessageGroup("DEFAULT");
 
@@ -18,6 +18,8 @@ package org.kaleidofoundry.core.i18n.model;
 import static org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Table_I18nMessageLanguage;
 
 import java.io.Serializable;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.Locale;
 
 import javax.persistence.CascadeType;
@@ -30,7 +32,11 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.persistence.Version;
@@ -41,9 +47,12 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
 import org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesByLocale;
+import org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesByResources;
+import org.kaleidofoundry.core.i18n.model.I18nMessageConstants.Query_MessagesUpdatedSince;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.util.StringHelper;
+import org.kaleidofoundry.core.util.locale.LocaleFactory;
 
 /**
  * a translated message
@@ -53,7 +62,9 @@ import org.kaleidofoundry.core.util.StringHelper;
 @Entity
 // @Access(AccessType.PROPERTY)
 @Table(name = Table_I18nMessageLanguage, uniqueConstraints = { @UniqueConstraint(columnNames = { "MESSAGE_ID", "LOCALE" }) })
-@NamedQueries({ @NamedQuery(name = Query_MessagesByLocale.Name, query = Query_MessagesByLocale.Jql) })
+@NamedQueries({ @NamedQuery(name = Query_MessagesByLocale.Name, query = Query_MessagesByLocale.Jql),
+	@NamedQuery(name = Query_MessagesByResources.Name, query = Query_MessagesByResources.Jql),
+	@NamedQuery(name = Query_MessagesUpdatedSince.Name, query = Query_MessagesUpdatedSince.Jql) })
 @XmlRootElement(name = "i18n")
 @XmlAccessorType(XmlAccessType.FIELD)
 @Task(comment = "Audit information (locale zone for the date, user information...)")
@@ -78,12 +89,22 @@ public class I18nMessageLanguage implements Serializable {
    private Locale locale;
    private String isoLanguage;
    private String content;
+   @Temporal(TemporalType.TIMESTAMP)
+   @Column(nullable = true)
+   private Date updatedDate;
    @Version
    Integer version;
 
    public I18nMessageLanguage() {
    }
 
+   @PrePersist
+   @PreUpdate
+   protected void preUpdate() {
+	Locale locale = LocaleFactory.getDefaultFactory().getCurrentLocale();
+	updatedDate = Calendar.getInstance(locale).getTime();
+   }
+
    /**
     * @param message the i18n message
     * @param content message translation for the given locale country
@@ -106,7 +127,7 @@ public class I18nMessageLanguage implements Serializable {
    /**
     * @return {@link Locale} persistence id
     */
-   protected String getLocaleId() {
+   public String getLocaleId() {
 	return localeId;
    }
 
@@ -153,6 +174,13 @@ public class I18nMessageLanguage implements Serializable {
 	return content;
    }
 
+   /**
+    * @return date of the last creation or update of the translation
+    */
+   public Date getUpdatedDate() {
+	return updatedDate;
+   }
+
    protected void setLocaleId(final String localeId) {
 	this.localeId = localeId;
    }
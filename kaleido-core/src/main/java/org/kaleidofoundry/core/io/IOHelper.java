@@ -28,6 +28,10 @@ import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 
 import org.kaleidofoundry.core.lang.Charsets;
@@ -47,6 +51,11 @@ public abstract class IOHelper {
     */
    public static final int DefaultBufferSize = 512;
 
+   /**
+    * max size of a single channel transfer
+    */
+   static final long MaxTransferSize = 8 * 1024 * 1024;
+
    private final static Logger LOGGER = LoggerFactory.getLogger(IOHelper.class);
 
    /**
@@ -116,6 +125,60 @@ public abstract class IOHelper {
 	return toByteArray(in, DefaultBufferSize);
    }
 
+   /**
+    * Copy the remaining content of a channel to another one, without any intermediate heap array :
+    * <ul>
+    * <li>a file source is transferred with {@link FileChannel#transferTo(long, long, WritableByteChannel)} (zero copy when the os allows it),</li>
+    * <li>a file target is filled with {@link FileChannel#transferFrom(ReadableByteChannel, long, long)},</li>
+    * <li>otherwise the content is streamed through a direct buffer.</li>
+    * </ul>
+    * The channels are not closed.
+    * 
+    * @param in source channel
+    * @param out target channel
+    * @param bufferSize size of the direct buffer
+    * @return number of bytes copied
+    * @throws IOException
+    */
+   public static long copy(final ReadableByteChannel in, final WritableByteChannel out, final int bufferSize) throws IOException {
+	long count = 0;
+
+	if (in instanceof FileChannel) {
+	   final FileChannel fileChannel = (FileChannel) in;
+	   final long size = fileChannel.size();
+	   long position = fileChannel.position();
+	   while (position < size) {
+		final long transferred = fileChannel.transferTo(position, Math.min(MaxTransferSize, size - position), out);
+		if (transferred <= 0) {
+		   break;
+		}
+		position += transferred;
+		count += transferred;
+	   }
+	   fileChannel.position(position);
+	} else if (out instanceof FileChannel) {
+	   final FileChannel fileChannel = (FileChannel) out;
+	   long position = fileChannel.position();
+	   long transferred;
+	   while ((transferred = fileChannel.transferFrom(in, position, MaxTransferSize)) > 0) {
+		position += transferred;
+		count += transferred;
+	   }
+	   fileChannel.position(position);
+	} else {
+	   final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+	   while (in.read(buffer) != -1) {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+		   count += out.write(buffer);
+		}
+		buffer.clear();
+	   }
+	}
+
+	return count;
+   }
+
    /**
     * The resource file will be searched as follows:
     * <ul>
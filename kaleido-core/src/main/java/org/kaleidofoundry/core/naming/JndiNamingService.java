@@ -31,6 +31,7 @@ import javax.naming.NamingException;
 import javax.rmi.PortableRemoteObject;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.plugin.Declare;
@@ -47,6 +48,7 @@ import org.slf4j.LoggerFactory;
 public class JndiNamingService implements NamingService {
 
    protected static final Logger logger = LoggerFactory.getLogger(JndiNamingService.class);
+   protected static final I18nLogger i18nLogger = new I18nLogger(logger, NamingMessageBundle);
 
    private final RuntimeContext<NamingService> context;
 
@@ -244,15 +246,15 @@ public class JndiNamingService implements NamingService {
 		   retryCount++;
 		   final int sleepTime = getFailoverWaitBeforeRetry();
 		   if (retryCount < maxRetryCount) {
-			logger.warn(NamingMessageBundle.getMessage("naming.failover.retry.get.info", resourceName, sleepTime, retryCount, maxRetryCount));
+			i18nLogger.warn("naming.failover.retry.get.info", resourceName, sleepTime, retryCount, maxRetryCount);
 			try {
 			   Thread.sleep((sleepTime));
 			} catch (final InterruptedException e) {
-			   logger.error(NamingMessageBundle.getMessage("naming.failover.retry.error", sleepTime), nae);
+			   i18nLogger.error("naming.failover.retry.error", sleepTime, nae);
 			   throw nae;
 			}
 		   } else {
-			logger.error(NamingMessageBundle.getMessage("naming.failover.retry.get.info", resourceName, sleepTime, retryCount, maxRetryCount), nae);
+			i18nLogger.error("naming.failover.retry.get.info", resourceName, sleepTime, retryCount, maxRetryCount, nae);
 		   }
 		}
 	   }
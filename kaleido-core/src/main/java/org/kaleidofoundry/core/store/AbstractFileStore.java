@@ -16,30 +16,82 @@
 package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_ASYNC_QUEUE_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_ASYNC_THREADS;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CACHING_MAX_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHANNEL_BUFFER_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_COMPRESSION_MIME_TYPES;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_COMPRESSION_MIN_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_MAX_SLEEP_TIME_BEFORE_RETRY;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.AsyncQueueSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.AsyncThreads;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.AsyncTimeout;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BaseUri;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BatchParallelism;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CacheManagerRef;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.Caching;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CachingMaxSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CachingValidation;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.Compression;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CompressionLevel;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CompressionMimeTypes;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CompressionMinSize;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ConnectTimeout;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MaxRetryOnFailure;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MaxSleepTimeBeforeRetryOnFailure;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ReadTimeout;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.Readonly;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.SleepTimeBeforeRetryOnFailure;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UseCaches;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.io.SequenceInputStream;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
 
 import org.kaleidofoundry.core.cache.Cache;
 import org.kaleidofoundry.core.cache.CacheManager;
 import org.kaleidofoundry.core.cache.CacheManagerFactory;
 import org.kaleidofoundry.core.context.EmptyContextParameterException;
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.io.MimeTypeResolverFactory;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
@@ -67,6 +119,8 @@ public abstract class AbstractFileStore implements FileStore {
 
    /** default fileStore logger */
    static final Logger LOGGER = LoggerFactory.getLogger(FileStore.class);
+   /** i18n logger, messages are formatted only if the level is enabled */
+   static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, StoreMessageBundle);
 
    protected final RuntimeContext<FileStore> context;
 
@@ -76,6 +130,21 @@ public abstract class AbstractFileStore implements FileStore {
 
    protected final Cache<String, ResourceHandler> resourcesByUri;
 
+   // bounded executor of the asynchronous operations, created on first use
+   private volatile ExecutorService asyncExecutor;
+   // normalizer of the resources uri
+   private volatile ResourceUriNormalizer uriNormalizer;
+
+   // shared timer of the asynchronous operations timeouts and retry delays (it does no i/o)
+   static final ScheduledExecutorService ASYNC_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+	@Override
+	public Thread newThread(final Runnable runnable) {
+	   final Thread thread = new Thread(runnable, "kaleido-filestore-scheduler");
+	   thread.setDaemon(true);
+	   return thread;
+	}
+   });
+
    /**
     * runtime context injection by constructor<br/>
     * the file store will be registered in {@link FileStoreFactory#getRegistry()}
@@ -184,6 +253,51 @@ public abstract class AbstractFileStore implements FileStore {
     */
    protected abstract void doStore(@NotNull URI resourceUri, @NotNull ResourceHandler resource) throws ResourceException;
 
+   /**
+    * batch store processing, you don't have to check argument validity<br/>
+    * By default, the resources are stored one by one. Override it if the store can commit them together.
+    * 
+    * @param resources resources to store, by uri
+    * @throws ResourceException
+    */
+   protected void doStore(@NotNull final Map<URI, ResourceHandler> resources) throws ResourceException {
+	for (final Map.Entry<URI, ResourceHandler> resource : resources.entrySet()) {
+	   doStore(resource.getKey(), resource.getValue());
+	}
+   }
+
+   /**
+    * native move processing, you don't have to check argument validity<br/>
+    * Override it if the store can move a resource on its own (rename, update...), without transferring its content. An existing
+    * destination have to be replaced.
+    * 
+    * @param originUri
+    * @param destinationUri
+    * @return <code>true</code> if the resource have been moved, <code>false</code> if the store can't do it natively : the content is
+    *         then copied to the destination, and the origin is removed (default)
+    * @throws ResourceNotFoundException if the origin can't be found
+    * @throws ResourceException
+    */
+   protected boolean doMove(@NotNull final URI originUri, @NotNull final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	return false;
+   }
+
+   /**
+    * native copy processing inside the store, you don't have to check argument validity<br/>
+    * Override it if the store can copy a resource on its own, without transferring its content through the store. An existing destination
+    * have to be replaced.
+    * 
+    * @param originUri
+    * @param destinationUri
+    * @return <code>true</code> if the resource have been copied, <code>false</code> if the store can't do it natively : the content is
+    *         then streamed to the destination (default)
+    * @throws ResourceNotFoundException if the origin can't be found
+    * @throws ResourceException
+    */
+   protected boolean doCopy(@NotNull final URI originUri, @NotNull final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	return false;
+   }
+
    /**
     * build a full resource uri, given a relative path
     * 
@@ -191,43 +305,33 @@ public abstract class AbstractFileStore implements FileStore {
     * @return full resource uri, given the relative path parameter
     */
    protected String buildResourceURi(final String resourceRelativePath) {
+	return getUriNormalizer().normalize(resourceRelativePath);
+   }
 
-	boolean appendBaseUri = false;
-	final String baseUri = getBaseUri();
-	final String relativePath = resourceRelativePath;
-	final StringBuilder resourceUri = new StringBuilder();
-
-	if (relativePath != null && !relativePath.startsWith(baseUri)) {
-	   appendBaseUri = true;
-	   resourceUri.append(baseUri);
-	} else {
-	   resourceUri.append(relativePath);
-	}
-
-	// merge variables that could be contains in the resource path
-	final StringBuilder mergedResourceUri = new StringBuilder(FileStoreProvider.buildFullResourceURi(resourceUri.toString()));
-
-	// remove '/' is baseUri ends with '/' and relativePath starts with a '/'
-	if (appendBaseUri && baseUri != null && baseUri.endsWith("/") && relativePath != null && relativePath.startsWith("/")) {
-	   mergedResourceUri.deleteCharAt(mergedResourceUri.length() - 1);
-	} else {
-	   // add '/' if needed
-	   if (appendBaseUri && baseUri != null && !baseUri.endsWith("/") && relativePath != null && !relativePath.startsWith("/")) {
-		mergedResourceUri.append("/");
-	   }
-	}
+   /**
+    * build a full resource uri, given a relative path, and check that it can be handled by the store
+    * 
+    * @param resourceRelativePath
+    * @return full resource uri, given the relative path parameter
+    * @throws IllegalArgumentException if the resource uri is not manageable by the store
+    * @see #isUriManageable(String)
+    */
+   protected String buildManageableResourceURi(final String resourceRelativePath) {
+	final String resourceUri = getUriNormalizer().normalize(resourceRelativePath, true);
+	if (resourceUri != null) { return resourceUri; }
+	throw new IllegalArgumentException(StoreMessageBundle.getMessage("store.uri.illegal", buildResourceURi(resourceRelativePath), getClass().getName()));
+   }
 
-	if (appendBaseUri) {
-	   mergedResourceUri.append(relativePath);
+   /*
+    * normalizer of the resources uri, created on first use (the store types may not be available during the construction)
+    */
+   ResourceUriNormalizer getUriNormalizer() {
+	ResourceUriNormalizer normalizer = uriNormalizer;
+	if (normalizer == null) {
+	   normalizer = new ResourceUriNormalizer(getBaseUri(), getStoreType(), ResourceUriNormalizer.DEFAULT_CACHE_SIZE);
+	   uriNormalizer = normalizer;
 	}
-
-	String result = mergedResourceUri.toString();
-	// normalize uri by using '/' as path separator
-	result = FileHelper.buildCustomPath(result, FileHelper.UNIX_SEPARATOR, false);
-	// normalize uri by replacing spaces by %20
-	result = StringHelper.replaceAll(result, " ", "%20");
-
-	return result;
+	return normalizer;
    }
 
    @Override
@@ -272,14 +376,98 @@ public abstract class AbstractFileStore implements FileStore {
     * @throws ResourceException
     */
    protected ResourceHandler createCacheableResourceHandler(final ResourceHandler resourceHandler) throws ResourceException {
-	ResourceHandlerBean cacheableResource = new ResourceHandlerBean(this, resourceHandler.getUri(), resourceHandler.getBytes());
+	return createCacheableResourceHandler(resourceHandler, resourceHandler.getBytes());
+   }
+
+   /*
+    * new in memory resource handler, with the meta datas of the given one
+    */
+   private ResourceHandler createCacheableResourceHandler(final ResourceHandler resourceHandler, final byte[] content) {
+	// the bean builds its own inputStream / reader from the shared bytes, on demand
+	final ResourceHandlerBean cacheableResource = new ResourceHandlerBean(this, resourceHandler.getUri(), content);
 	cacheableResource.setLastModified(resourceHandler.getLastModified());
 	cacheableResource.setMimeType(resourceHandler.getMimeType());
 	cacheableResource.setCharset(resourceHandler.getCharset());
-	cacheableResource.setInputStream(new ByteArrayInputStream(resourceHandler.getBytes()));
+	cacheableResource.setLength(content.length);
+	if (resourceHandler instanceof ResourceHandlerBean) {
+	   cacheableResource.setEtag(((ResourceHandlerBean) resourceHandler).getEtag());
+	}
 	return cacheableResource;
    }
 
+   /**
+    * put the resource in the cache if its size allows it ({@link FileStoreContextBuilder#CachingMaxSize})<br/>
+    * A resource of unknown size is read up to the max size only : if it is larger, it is streamed to the caller without being cached.
+    * 
+    * @param resourceUri
+    * @param in resource got from the store
+    * @return the resource to give to the caller
+    * @throws ResourceException
+    */
+   ResourceHandler cacheResourceHandler(final String resourceUri, final ResourceHandler in) throws ResourceException {
+	final long maxSize = Math.min(context.getLong(CachingMaxSize, DEFAULT_CACHING_MAX_SIZE), Integer.MAX_VALUE - 1);
+	final long length = in.getLength();
+
+	// too large to be cached, streamed to the caller
+	if (length > maxSize) { return in; }
+
+	final byte[] content;
+	if (length >= 0 || !(in instanceof ResourceHandlerBean)) {
+	   content = in.getBytes();
+	} else {
+	   try {
+		final byte[] head = readAtMost(in.getInputStream(), (int) maxSize + 1);
+		if (head.length > maxSize) {
+		   // larger than expected, the read head is given back in front of the remaining stream
+		   ((ResourceHandlerBean) in).setInputStream(new SequenceInputStream(new ByteArrayInputStream(head), in.getInputStream()));
+		   return in;
+		}
+		content = head;
+	   } catch (final IOException ioe) {
+		in.close();
+		throw ioe instanceof ResourceException ? (ResourceException) ioe : new ResourceException(ioe, resourceUri);
+	   }
+	   in.close();
+	}
+
+	final ResourceHandler cacheableResource = createCacheableResourceHandler(in, content);
+	resourcesByUri.put(resourceUri, cacheableResource);
+	return createCacheableResourceHandler(cacheableResource, content);
+   }
+
+   /**
+    * @param in
+    * @param maxLength
+    * @return the first bytes of the input, up to maxLength
+    * @throws IOException
+    */
+   static byte[] readAtMost(final InputStream in, final int maxLength) throws IOException {
+	final byte[] buffer = new byte[Math.min(maxLength, DEFAULT_CHANNEL_BUFFER_SIZE)];
+	final ByteArrayOutputStream out = new ByteArrayOutputStream(buffer.length);
+	int remaining = maxLength;
+	int read;
+	while (remaining > 0 && (read = in.read(buffer, 0, Math.min(buffer.length, remaining))) >= 0) {
+	   out.write(buffer, 0, read);
+	   remaining -= read;
+	}
+	return out.toByteArray();
+   }
+
+   /**
+    * @param in
+    * @param buffer
+    * @return number of bytes read, less than the buffer length only at the end of the stream
+    * @throws IOException
+    */
+   static int readChunk(final InputStream in, final byte[] buffer) throws IOException {
+	int count = 0;
+	int read;
+	while (count < buffer.length && (read = in.read(buffer, count, buffer.length - count)) >= 0) {
+	   count += read;
+	}
+	return count;
+   }
+
    @Override
    public FileStore closeAll() {
 	for (ResourceHandler resourceHandler : openedResources.values()) {
@@ -293,6 +481,9 @@ public abstract class AbstractFileStore implements FileStore {
 	if (context.getName() != null) {
 	   FileStoreFactory.getRegistry().remove(context.getName());
 	}
+	if (asyncExecutor != null) {
+	   asyncExecutor.shutdown();
+	}
 	closeAll();
    }
 
@@ -333,14 +524,7 @@ public abstract class AbstractFileStore implements FileStore {
    @Override
    public boolean isUriManageable(@NotNull final String pResourceUri) {
 
-	final String resourceUri = buildResourceURi(pResourceUri);
-	final FileStoreType resourceType = FileStoreTypeEnum.match(resourceUri);
-
-	if (resourceType != null) {
-	   for (final FileStoreType t : getStoreType()) {
-		if (t.equals(resourceType)) { return true; }
-	   }
-	}
+	if (getUriNormalizer().normalize(pResourceUri, true) != null) { return true; }
 
 	throw new IllegalArgumentException(StoreMessageBundle.getMessage("store.uri.illegal", pResourceUri, getClass().getName()));
    }
@@ -364,44 +548,20 @@ public abstract class AbstractFileStore implements FileStore {
     */
    @Override
    public final ResourceHandler get(@NotNull final String resourceRelativePath) throws ResourceException {
-	final String resourceUri = buildResourceURi(resourceRelativePath);
-	isUriManageable(resourceUri);
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
 
 	int retryCount = 0;
 	int maxRetryCount = 1;
 	ResourceException lastError = null;
 
 	// get from cache if enabled
-	if (resourcesByUri != null && resourcesByUri.containsKey(resourceUri)) {
-	   // create a new resourceHandler sharing same bytes data, but with a specific user inputStream / reader
-	   return createCacheableResourceHandler(resourcesByUri.get(resourceUri));
-	}
+	final ResourceHandler cachedResource = getCachedResource(resourceUri);
+	if (cachedResource != null) { return cachedResource; }
 
 	while (retryCount < maxRetryCount) {
 	   try {
 		// try to get the resource
-		final ResourceHandler in = doGet(URI.create(resourceUri));
-		if (in == null || in.isEmpty()) { throw new ResourceNotFoundException(resourceRelativePath); }
-		
-		// some extra informations
-		if (in instanceof ResourceHandlerBean) {
-			((ResourceHandlerBean) in).setLastModified(in.getLastModified());
-			((ResourceHandlerBean) in).setMimeType(in.getMimeType() != null  ? 
-					in.getMimeType() : 
-					MimeTypeResolverFactory.getService().getMimeType(FileHelper.getFileNameExtension(resourceUri)));
-			((ResourceHandlerBean) in).setCharset(in.getCharset());
-		}
-		   
-		// if caching is enabled : put to cache
-		if (resourcesByUri != null) {
-		   final ResourceHandler cacheableResource = createResourceHandler(resourceUri, in.getBytes());
-		   resourcesByUri.put(resourceUri, cacheableResource);
-		   return cacheableResource;
-		}
-		// no cache, direct resource access
-		else {
-		   return in;
-		}
+		return getResource(resourceRelativePath, resourceUri);
 	   } catch (final ResourceException rse) {
 		lastError = rse;
 		maxRetryCount = getMaxRetryOnFailure();
@@ -412,17 +572,18 @@ public abstract class AbstractFileStore implements FileStore {
 		// wait for the configuring delay (in milliseconds)
 		else {
 		   retryCount++;
-		   final int sleepTime = getSleepTimeBeforeRetryOnFailure();
 		   if (retryCount < maxRetryCount) {
-			LOGGER.warn(StoreMessageBundle.getMessage("store.failover.retry.get.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount));
+			final long sleepTime = getRetryDelay(retryCount);
+			I18N_LOGGER.warn("store.failover.retry.get.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount);
 			try {
-			   Thread.sleep((sleepTime));
+			   Thread.sleep(sleepTime);
 			} catch (final InterruptedException e) {
-			   LOGGER.error(StoreMessageBundle.getMessage("store.failover.retry.error", sleepTime), rse);
+			   Thread.currentThread().interrupt();
+			   I18N_LOGGER.error("store.failover.retry.error", sleepTime, rse);
 			   throw rse;
 			}
 		   } else {
-			LOGGER.error(StoreMessageBundle.getMessage("store.failover.retry.get.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount), rse);
+			I18N_LOGGER.error("store.failover.failed", resourceRelativePath, retryCount, maxRetryCount, rse);
 		   }
 		}
 	   }
@@ -435,6 +596,229 @@ public abstract class AbstractFileStore implements FileStore {
 	}
    }
 
+   /**
+    * @param resourceUri
+    * @return a new resource handler sharing the bytes of the cached resource, but with a specific user inputStream / reader.<br/>
+    *         If the cached resource is stale (see {@link FileStoreContextBuilder#CachingValidation}), the current resource got by
+    *         {@link #doGetIfModified(URI, ResourceHandler)}.<br/>
+    *         <code>null</code> if the resource is not cached, or if its validation failed
+    * @throws ResourceException
+    */
+   ResourceHandler getCachedResource(final String resourceUri) throws ResourceException {
+	if (resourcesByUri == null) { return null; }
+	final ResourceHandler cachedResource = resourcesByUri.get(resourceUri);
+	if (cachedResource == null) { return null; }
+
+	if (isCachingValidation()) {
+	   final ResourceHandler currentResource;
+	   try {
+		currentResource = doGetIfModified(URI.create(resourceUri), cachedResource);
+	   } catch (final ResourceException rse) {
+		// the caller will get the resource again, with the fail-over policy
+		resourcesByUri.remove(resourceUri);
+		return null;
+	   }
+	   if (currentResource != null) {
+		resourcesByUri.remove(resourceUri);
+		return processResource(resourceUri, resourceUri, currentResource);
+	   }
+	}
+	return decompress(createCacheableResourceHandler(cachedResource));
+   }
+
+   /**
+    * conditional get processing of a cached resource, you don't have to check argument validity<br/>
+    * By default, the meta datas of the resource ({@link #doStat(URI)}) are compared to the cached ones, then the resource is got by
+    * {@link #doGet(URI)} if it has changed. Override it if the store can do it in a single request (http conditional get, ...).
+    * 
+    * @param resourceUri
+    * @param cachedResource
+    * @return <code>null</code> if the cached resource is still up to date, otherwise the current resource
+    * @throws ResourceNotFoundException if resource can't be found anymore
+    * @throws ResourceException
+    */
+   protected ResourceHandler doGetIfModified(@NotNull final URI resourceUri, @NotNull final ResourceHandler cachedResource)
+	   throws ResourceNotFoundException, ResourceException {
+	return isUpToDate(cachedResource, resourceUri.toString()) ? null : doGet(resourceUri);
+   }
+
+   /**
+    * @param cachedResource
+    * @param resourceUri
+    * @return <code>true</code> if the meta datas of the resource in the store match the cached one : same entity tag if both are known,
+    *         otherwise same modification date and same length
+    * @throws ResourceException
+    */
+   boolean isUpToDate(final ResourceHandler cachedResource, final String resourceUri) throws ResourceException {
+	final ResourceMetadata metadata;
+	try {
+	   metadata = doStat(URI.create(resourceUri));
+	} catch (final ResourceNotFoundException rnfe) {
+	   return false;
+	}
+
+	final String etag = cachedResource instanceof ResourceHandlerBean ? ((ResourceHandlerBean) cachedResource).getEtag() : null;
+	if (etag != null && metadata.getEtag() != null) { return etag.equals(metadata.getEtag()); }
+	// an unknown modification date can't be validated
+	return metadata.getLastModified() > 0 && metadata.getLastModified() == cachedResource.getLastModified()
+		&& (metadata.getLength() < 0 || metadata.getLength() == cachedResource.getLength());
+   }
+
+   /**
+    * @return validate a cached resource before using it
+    * @see FileStoreContextBuilder#CachingValidation
+    */
+   protected boolean isCachingValidation() {
+	return context.getBoolean(CachingValidation, false);
+   }
+
+   /**
+    * a single attempt to get the resource
+    * 
+    * @param resourceRelativePath
+    * @param resourceUri
+    * @return resource handler
+    * @throws ResourceException
+    */
+   ResourceHandler getResource(final String resourceRelativePath, final String resourceUri) throws ResourceException {
+	return processResource(resourceRelativePath, resourceUri, doGet(URI.create(resourceUri)));
+   }
+
+   /**
+    * complete the meta datas of a resource got from the store, then cache it if caching is enabled
+    * 
+    * @param resourceRelativePath
+    * @param resourceUri
+    * @param in resource got from the store
+    * @return resource handler
+    * @throws ResourceException
+    */
+   ResourceHandler processResource(final String resourceRelativePath, final String resourceUri, final ResourceHandler in) throws ResourceException {
+	if (in == null || in.isEmpty()) { throw new ResourceNotFoundException(resourceRelativePath); }
+
+	// some extra informations
+	if (in instanceof ResourceHandlerBean) {
+	   ((ResourceHandlerBean) in).setLastModified(in.getLastModified());
+	   ((ResourceHandlerBean) in).setMimeType(in.getMimeType() != null ? in.getMimeType() : MimeTypeResolverFactory.getService().getMimeType(
+		   FileHelper.getFileNameExtension(resourceUri)));
+	   ((ResourceHandlerBean) in).setCharset(in.getCharset());
+	}
+
+	// if caching is enabled : put to cache, unless the resource is too large (the cache keeps the stored form, compressed or not)
+	if (resourcesByUri != null) {
+	   return decompress(cacheResourceHandler(resourceUri, in));
+	}
+	// no cache, direct resource access
+	else {
+	   return decompress(in);
+	}
+   }
+
+   /**
+    * @return codec used to compress the stored resources, <code>null</code> if compression is disabled
+    * @see FileStoreContextBuilder#Compression
+    */
+   protected CompressionCodec getCompression() {
+	final String compression = context.getString(Compression);
+	return !StringHelper.isEmpty(compression) ? CompressionCodec.valueOf(compression.trim().toLowerCase()) : null;
+   }
+
+   /**
+    * @return compression level, -1 for the default one
+    * @see FileStoreContextBuilder#CompressionLevel
+    */
+   protected int getCompressionLevel() {
+	return context.getInteger(CompressionLevel, Deflater.DEFAULT_COMPRESSION);
+   }
+
+   /**
+    * @param resourceUri
+    * @param resource
+    * @return <code>true</code> if the resource have to be compressed : its mime type is one of
+    *         {@link FileStoreContextBuilder#CompressionMimeTypes}, and its size is unknown or at least
+    *         {@link FileStoreContextBuilder#CompressionMinSize}
+    * @throws ResourceException
+    */
+   boolean isCompressible(final String resourceUri, final ResourceHandler resource) throws ResourceException {
+	long length = resource.getLength();
+	if (length < 0 && resource instanceof ResourceHandlerBean && ((ResourceHandlerBean) resource).isInMemory()) {
+	   length = resource.getBytes().length;
+	}
+	if (length >= 0 && length < context.getLong(CompressionMinSize, DEFAULT_COMPRESSION_MIN_SIZE)) { return false; }
+
+	String mimeType = resource.getMimeType() != null ? resource.getMimeType() : MimeTypeResolverFactory.getService().getMimeType(
+		FileHelper.getFileNameExtension(resourceUri));
+	if (mimeType == null) { return false; }
+	// ignore the mime type parameters, like charset
+	mimeType = (mimeType.indexOf(';') >= 0 ? mimeType.substring(0, mimeType.indexOf(';')) : mimeType).trim();
+
+	for (final String compressedType : StringHelper.split(context.getString(CompressionMimeTypes, DEFAULT_COMPRESSION_MIME_TYPES), ",")) {
+	   final String type = compressedType.trim();
+	   if (type.endsWith("*") ? mimeType.startsWith(type.substring(0, type.length() - 1)) : mimeType.equalsIgnoreCase(type)) { return true; }
+	}
+	return false;
+   }
+
+   /**
+    * @param resourceUri
+    * @param resource resource to store
+    * @return the resource to store, compressed if compression is enabled and if the resource is compressible, see
+    *         {@link #isCompressible(String, ResourceHandler)}
+    * @throws ResourceException
+    */
+   ResourceHandler compress(final String resourceUri, final ResourceHandler resource) throws ResourceException {
+	final CompressionCodec compression = getCompression();
+	if (compression == null || !isCompressible(resourceUri, resource)) { return resource; }
+
+	final ResourceHandlerBean compressed = new ResourceHandlerBean(this, resource.getUri(), compression.encode(resource.getInputStream(),
+		getCompressionLevel()));
+	compressed.setLastModified(resource.getLastModified());
+	compressed.setMimeType(resource.getMimeType());
+	compressed.setCharset(resource.getCharset());
+	return compressed;
+   }
+
+   /**
+    * the codec of a stored resource is found from the header written by {@link #compress(String, ResourceHandler)}. A resource without this
+    * header is returned as is : the resources stored before the compression has been enabled, or stored already compressed by their
+    * producer (a gzip file for instance), are read as they have been stored.<br/>
+    * The length of a decompressed resource is unknown.
+    * 
+    * @param resource resource got from the store
+    * @return the decompressed resource, if compression is enabled
+    * @throws ResourceException
+    */
+   ResourceHandler decompress(final ResourceHandler resource) throws ResourceException {
+	final CompressionCodec compression = getCompression();
+	if (compression == null || !(resource instanceof ResourceHandlerBean)) { return resource; }
+
+	final ResourceHandlerBean bean = (ResourceHandlerBean) resource;
+	final byte[] header = new byte[CompressionCodec.HEADER_LENGTH];
+	try {
+	   final PushbackInputStream in = new PushbackInputStream(bean.getInputStream(), header.length);
+	   final int length = readChunk(in, header);
+	   final CompressionCodec codec = CompressionCodec.detect(header, length);
+	   if (codec == null) {
+		if (length > 0) {
+		   in.unread(header, 0, length);
+		}
+		bean.setInputStream(in);
+		return bean;
+	   }
+
+	   final ResourceHandlerBean decompressed = new ResourceHandlerBean(this, bean.getUri(), codec.decompress(in));
+	   decompressed.setLastModified(bean.getLastModified());
+	   decompressed.setMimeType(bean.getMimeType());
+	   decompressed.setCharset(bean.getCharset());
+	   decompressed.setEtag(bean.getEtag());
+	   return decompressed;
+	} catch (final ResourceException rse) {
+	   throw rse;
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resource.getUri());
+	}
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.store.FileStore#remove(java.lang.String)
@@ -443,8 +827,7 @@ public abstract class AbstractFileStore implements FileStore {
    public final FileStore remove(@NotNull final String resourceRelativePath) throws ResourceException {
 	if (isReadOnly()) { throw new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : ""); }
 
-	final String resourceUri = buildResourceURi(resourceRelativePath);
-	isUriManageable(resourceUri);
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
 
 	int retryCount = 0;
 	int maxRetryCount = 1;
@@ -470,18 +853,18 @@ public abstract class AbstractFileStore implements FileStore {
 		// wait for the configuring delay (in milliseconds)
 		else {
 		   retryCount++;
-		   final int sleepTime = getSleepTimeBeforeRetryOnFailure();
 		   if (retryCount < maxRetryCount) {
-			LOGGER.warn(StoreMessageBundle.getMessage("store.failover.retry.remove.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount));
+			final long sleepTime = getRetryDelay(retryCount);
+			I18N_LOGGER.warn("store.failover.retry.remove.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount);
 			try {
-			   Thread.sleep((sleepTime));
+			   Thread.sleep(sleepTime);
 			} catch (final InterruptedException e) {
-			   LOGGER.error(StoreMessageBundle.getMessage("store.failover.retry.error", sleepTime), rse);
+			   Thread.currentThread().interrupt();
+			   I18N_LOGGER.error("store.failover.retry.error", sleepTime, rse);
 			   throw rse;
 			}
 		   } else {
-			LOGGER.error(StoreMessageBundle.getMessage("store.failover.retry.remove.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount),
-				rse);
+			I18N_LOGGER.error("store.failover.failed", resourceRelativePath, retryCount, maxRetryCount, rse);
 		   }
 		}
 	   }
@@ -501,8 +884,7 @@ public abstract class AbstractFileStore implements FileStore {
    @Override
    public final FileStore store(@NotNull final ResourceHandler resource) throws ResourceException {
 	if (isReadOnly()) { throw new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : ""); }
-	final String resourceUri = buildResourceURi(resource.getUri());
-	isUriManageable(resourceUri);
+	final String resourceUri = buildManageableResourceURi(resource.getUri());
 
 	int retryCount = 0;
 	int maxRetryCount = 1;
@@ -513,15 +895,14 @@ public abstract class AbstractFileStore implements FileStore {
 	   resourcesByUri.remove(resourceUri);
 	}
 
+	final ResourceHandler storedResource = compress(resourceUri, resource);
+
 	while (retryCount < maxRetryCount) {
 	   try {
 		// Set some meta datas
-		if (resource instanceof ResourceHandlerBean) {
-		   ((ResourceHandlerBean) resource).setLastModified(System.currentTimeMillis());
-		   ((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(FileHelper.getFileNameExtension(resourceUri)));
-		}
+		setStoreMetaDatas(resourceUri, storedResource);
 		// try to store the resource
-		doStore(URI.create(resourceUri), resource);
+		doStore(URI.create(resourceUri), storedResource);
 		return this;
 	   } catch (final ResourceException rse) {
 		lastError = rse;
@@ -533,18 +914,18 @@ public abstract class AbstractFileStore implements FileStore {
 		// wait for the configuring delay (in milliseconds)
 		else {
 		   retryCount++;
-		   final int sleepTime = getSleepTimeBeforeRetryOnFailure();
 		   if (retryCount < maxRetryCount) {
-			LOGGER.warn(StoreMessageBundle.getMessage("store.failover.retry.store.info", resource.getUri(), sleepTime, retryCount, maxRetryCount));
+			final long sleepTime = getRetryDelay(retryCount);
+			I18N_LOGGER.warn("store.failover.retry.store.info", resource.getUri(), sleepTime, retryCount, maxRetryCount);
 			try {
-			   Thread.sleep((sleepTime));
+			   Thread.sleep(sleepTime);
 			} catch (final InterruptedException e) {
-			   LOGGER.error(StoreMessageBundle.getMessage("store.failover.retry.error", sleepTime), rse);
+			   Thread.currentThread().interrupt();
+			   I18N_LOGGER.error("store.failover.retry.error", sleepTime, rse);
 			   throw rse;
 			}
 		   } else {
-			LOGGER.error(
-				StoreMessageBundle.getMessage("store.failover.retry.store.info", resource.getUri(), sleepTime, retryCount, maxRetryCount), rse);
+			I18N_LOGGER.error("store.failover.failed", resource.getUri(), retryCount, maxRetryCount, rse);
 		   }
 		}
 	   }
@@ -557,6 +938,43 @@ public abstract class AbstractFileStore implements FileStore {
 	}
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#store(java.util.Collection)
+    */
+   @Override
+   public final FileStore store(@NotNull final Collection<ResourceHandler> resources) throws ResourceException {
+	if (isReadOnly()) { throw new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : ""); }
+
+	final Map<URI, ResourceHandler> toStore = new LinkedHashMap<URI, ResourceHandler>();
+	for (final ResourceHandler resource : resources) {
+	   final String resourceUri = buildManageableResourceURi(resource.getUri());
+	   setStoreMetaDatas(resourceUri, resource);
+	   toStore.put(URI.create(resourceUri), compress(resourceUri, resource));
+	}
+
+	// invalidate cache entries
+	if (resourcesByUri != null) {
+	   for (final URI resourceUri : toStore.keySet()) {
+		resourcesByUri.remove(resourceUri.toString());
+	   }
+	}
+
+	// no fail-over here, a failure of a batch can't be retried partially
+	doStore(toStore);
+	return this;
+   }
+
+   /*
+    * meta datas of a resource to store
+    */
+   private void setStoreMetaDatas(final String resourceUri, final ResourceHandler resource) {
+	if (resource instanceof ResourceHandlerBean) {
+	   ((ResourceHandlerBean) resource).setLastModified(System.currentTimeMillis());
+	   ((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(FileHelper.getFileNameExtension(resourceUri)));
+	}
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.store.FileStore#store(java.lang.String, java.io.InputStream)
@@ -592,9 +1010,20 @@ public abstract class AbstractFileStore implements FileStore {
    public final FileStore move(@NotNull final String origin, @NotNull final String destination) throws ResourceNotFoundException, ResourceException {
 	if (isReadOnly()) { throw new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : ""); }
 
-	isUriManageable(buildResourceURi(origin));
-	isUriManageable(buildResourceURi(destination));
+	final String originUri = buildManageableResourceURi(origin);
+	final String destinationUri = buildManageableResourceURi(destination);
+
+	// native move
+	if (doMove(URI.create(originUri), URI.create(destinationUri))) {
+	   // invalidate cache entries
+	   if (resourcesByUri != null) {
+		resourcesByUri.remove(originUri);
+		resourcesByUri.remove(destinationUri);
+	   }
+	   return this;
+	}
 
+	// generic move : copy then remove
 	if (exists(destination)) {
 	   remove(destination);
 	}
@@ -614,25 +1043,785 @@ public abstract class AbstractFileStore implements FileStore {
 
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#copy(java.lang.String, org.kaleidofoundry.core.store.FileStore, java.lang.String)
+    */
+   @Override
+   public FileStore copy(@NotNull final String origin, @NotNull final FileStore targetStore, @NotNull final String destination)
+	   throws ResourceNotFoundException, ResourceException {
+	if (targetStore.isReadOnly()) { throw new ResourceException("store.readonly.illegal", targetStore.getBaseUri()); }
+
+	// native copy inside the store
+	if (targetStore == this) {
+	   final String originUri = buildManageableResourceURi(origin);
+	   final String destinationUri = buildManageableResourceURi(destination);
+
+	   if (doCopy(URI.create(originUri), URI.create(destinationUri))) {
+		// invalidate cache entry
+		if (resourcesByUri != null) {
+		   resourcesByUri.remove(destinationUri);
+		}
+		return this;
+	   }
+	}
+
+	final ResourceHandler resource = get(origin);
+	try {
+	   // the target store pulls the content from the origin stream, at its own pace
+	   targetStore.store(targetStore.createResourceHandler(destination, resource.getInputStream()));
+	} finally {
+	   resource.close();
+	}
+	return this;
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#getAll(java.util.Collection)
+    */
+   @Override
+   public BatchResult<ResourceHandler> getAll(@NotNull final Collection<String> resourceRelativePaths) {
+	return batch(resourceRelativePaths, new BatchOperation<String, ResourceHandler>() {
+	   @Override
+	   public String pathOf(final String resourceRelativePath) {
+		return resourceRelativePath;
+	   }
+
+	   @Override
+	   public ResourceHandler call(final String resourceRelativePath) throws ResourceException {
+		return get(resourceRelativePath);
+	   }
+	});
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#storeAll(java.util.Collection)
+    */
+   @Override
+   public BatchResult<Void> storeAll(@NotNull final Collection<ResourceHandler> resources) {
+	return batch(resources, new BatchOperation<ResourceHandler, Void>() {
+	   @Override
+	   public String pathOf(final ResourceHandler resource) {
+		return resource.getUri();
+	   }
+
+	   @Override
+	   public Void call(final ResourceHandler resource) throws ResourceException {
+		store(resource);
+		return null;
+	   }
+	});
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#removeAll(java.util.Collection)
+    */
+   @Override
+   public BatchResult<Void> removeAll(@NotNull final Collection<String> resourceRelativePaths) {
+	return batch(resourceRelativePaths, new BatchOperation<String, Void>() {
+	   @Override
+	   public String pathOf(final String resourceRelativePath) {
+		return resourceRelativePath;
+	   }
+
+	   @Override
+	   public Void call(final String resourceRelativePath) throws ResourceException {
+		remove(resourceRelativePath);
+		return null;
+	   }
+	});
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#copyTree(java.lang.String, java.util.Collection, org.kaleidofoundry.core.store.FileStore,
+    * java.lang.String)
+    */
+   @Override
+   public BatchResult<Void> copyTree(@NotNull final String originRoot, @NotNull final Collection<String> resourceRelativePaths,
+	   @NotNull final FileStore targetStore, @NotNull final String destinationRoot) {
+	return batch(resourceRelativePaths, new BatchOperation<String, Void>() {
+	   @Override
+	   public String pathOf(final String resourceRelativePath) {
+		return resourceRelativePath;
+	   }
+
+	   @Override
+	   public Void call(final String resourceRelativePath) throws ResourceException {
+		copy(concatPath(originRoot, resourceRelativePath), targetStore, concatPath(destinationRoot, resourceRelativePath));
+		return null;
+	   }
+	});
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#list(java.lang.String)
+    */
+   @Override
+   public final IoIterable<ResourceMetadata> list(@NotNull final String resourceRelativePath) throws ResourceException {
+	return walk(resourceRelativePath, 1);
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#walk(java.lang.String, int)
+    */
+   @Override
+   public final IoIterable<ResourceMetadata> walk(@NotNull final String resourceRelativePath, final int maxDepth) throws ResourceException {
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+	return doWalk(URI.create(resourceUri), maxDepth < 0 ? Integer.MAX_VALUE : maxDepth);
+   }
+
+   /**
+    * listing processing of the direct children of a directory, you don't have to check argument validity<br/>
+    * The content of the resources must not be read, and the iteration have to be lazy for a large directory.<br/>
+    * By default, the store does not support listing.
+    * 
+    * @param directoryUri
+    * @return meta datas of the direct children
+    * @throws ResourceNotFoundException if the directory can't be found
+    * @throws ResourceException
+    */
+   protected IoIterable<ResourceMetadata> doList(@NotNull final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	throw new ResourceException("store.list.unsupported", getBaseUri());
+   }
+
+   /**
+    * recursive listing processing, you don't have to check argument validity<br/>
+    * By default, a lazy depth first traversal, listing a directory with {@link #doList(URI)} only when the iteration reaches it. Override it
+    * if the store can list a whole tree at once.
+    * 
+    * @param directoryUri
+    * @param maxDepth max depth of the traversal, 1 for the direct children only
+    * @return meta datas of the resources of the tree, a directory comes before its children
+    * @throws ResourceNotFoundException if the directory can't be found
+    * @throws ResourceException
+    */
+   protected IoIterable<ResourceMetadata> doWalk(@NotNull final URI directoryUri, final int maxDepth) throws ResourceNotFoundException,
+	   ResourceException {
+	final IoIterable<ResourceMetadata> root = doList(directoryUri);
+	if (maxDepth <= 1) { return root; }
+
+	final LinkedList<IoIterable<ResourceMetadata>> opened = new LinkedList<IoIterable<ResourceMetadata>>();
+	opened.add(root);
+
+	return new IoIterable<ResourceMetadata>() {
+	   @Override
+	   public Iterator<ResourceMetadata> iterator() {
+		return new Iterator<ResourceMetadata>() {
+		   // iterators of the directories being traversed, the last one is the deepest
+		   private final LinkedList<Iterator<ResourceMetadata>> stack = new LinkedList<Iterator<ResourceMetadata>>(Collections.singleton(root
+			   .iterator()));
+		   // directory returned by the previous next(), its children are listed on the following call
+		   private ResourceMetadata pendingDirectory;
+
+		   @Override
+		   public boolean hasNext() {
+			if (pendingDirectory != null) {
+			   final URI childUri = URI.create(pendingDirectory.getUri());
+			   pendingDirectory = null;
+			   try {
+				final IoIterable<ResourceMetadata> children = doList(childUri);
+				opened.add(children);
+				stack.add(children.iterator());
+			   } catch (final ResourceException rse) {
+				throw new IllegalStateException(rse.getMessage(), rse);
+			   }
+			}
+			while (!stack.isEmpty() && !stack.getLast().hasNext()) {
+			   stack.removeLast();
+			   closeQuietly(opened.size() > 1 ? opened.removeLast() : null);
+			}
+			return !stack.isEmpty();
+		   }
+
+		   @Override
+		   public ResourceMetadata next() {
+			if (!hasNext()) { throw new NoSuchElementException(); }
+			final ResourceMetadata resource = stack.getLast().next();
+			if (resource.isDirectory() && stack.size() < maxDepth) {
+			   pendingDirectory = resource;
+			}
+			return resource;
+		   }
+
+		   @Override
+		   public void remove() {
+			throw new UnsupportedOperationException();
+		   }
+		};
+	   }
+
+	   @Override
+	   public void close() throws IOException {
+		while (!opened.isEmpty()) {
+		   opened.removeLast().close();
+		}
+	   }
+	};
+   }
+
+   /**
+    * @param resourceUri full uri of the resource
+    * @param directory is it a directory
+    * @param length content length (-1 if unknown)
+    * @param lastModified time of the last modification in ms (0 if unknown)
+    * @return new resource meta datas, the mime type is resolved from the uri extension
+    */
+   protected ResourceMetadata createResourceMetadata(final String resourceUri, final boolean directory, final long length,
+	   final long lastModified) {
+	return createResourceMetadata(resourceUri, directory, length, lastModified, null, null);
+   }
+
+   /**
+    * @param resourceUri full uri of the resource
+    * @param directory is it a directory
+    * @param length content length (-1 if unknown)
+    * @param lastModified time of the last modification in ms (0 if unknown)
+    * @param mimeType mime type of the resource (if null, it is resolved from the uri extension)
+    * @param etag version identifier of the resource content (null if unknown)
+    * @return new resource meta datas
+    */
+   protected ResourceMetadata createResourceMetadata(final String resourceUri, final boolean directory, final long length,
+	   final long lastModified, final String mimeType, final String etag) {
+	final String baseUri = getBaseUri();
+	String path = resourceUri.startsWith(baseUri) ? resourceUri.substring(baseUri.length()) : resourceUri;
+	path = path.startsWith("/") ? path.substring(1) : path;
+	final String resolvedMimeType = directory || mimeType != null ? mimeType : MimeTypeResolverFactory.getService().getMimeType(
+		FileHelper.getFileNameExtension(resourceUri));
+	return new ResourceMetadata(resourceUri, path, directory, length, lastModified, resolvedMimeType, etag);
+   }
+
+   /*
+    * close a listing, ignoring the error
+    */
+   static void closeQuietly(final IoIterable<?> iterable) {
+	if (iterable != null) {
+	   try {
+		iterable.close();
+	   } catch (final IOException ioe) {
+		LOGGER.warn("can't close resource listing", ioe);
+	   }
+	}
+   }
+
+   /*
+    * listing of an already fetched collection, nothing to release
+    */
+   static <T> IoIterable<T> ioIterable(final Collection<T> elements) {
+	return new IoIterable<T>() {
+	   @Override
+	   public Iterator<T> iterator() {
+		return elements.iterator();
+	   }
+
+	   @Override
+	   public void close() {
+	   }
+	};
+   }
+
+   /**
+    * an operation of a batch, applied to each of its elements
+    * 
+    * @param <E> element type
+    * @param <T> result type
+    */
+   interface BatchOperation<E, T> {
+
+	/**
+	 * @param element
+	 * @return resource path of the element, used in the batch report
+	 */
+	String pathOf(E element);
+
+	/**
+	 * @param element
+	 * @return result of the operation
+	 * @throws ResourceException
+	 */
+	T call(E element) throws ResourceException;
+   }
+
+   /**
+    * run the operation for all the elements, with at most {@link #getBatchParallelism()} elements processed at the same time by the store
+    * executor. The caller thread waits for the end of the batch.
+    * 
+    * @param elements
+    * @param operation
+    * @return per resource report
+    */
+   <E, T> BatchResult<T> batch(final Collection<E> elements, final BatchOperation<E, T> operation) {
+	final BatchResult<T> result = new BatchResult<T>();
+	final int parallelism = getBatchParallelism();
+
+	// sequential, in the caller thread
+	if (parallelism <= 1 || elements.size() <= 1) {
+	   for (final E element : elements) {
+		try {
+		   result.success(operation.pathOf(element), operation.call(element));
+		} catch (final Throwable th) {
+		   result.failure(operation.pathOf(element), th);
+		}
+	   }
+	   return result;
+	}
+
+	// parallel, the window of pending operations is bounded so the executor queue can't be overflowed
+	final Semaphore window = new Semaphore(parallelism);
+	final List<E> submitted = new ArrayList<E>();
+	final List<Future<T>> futures = new ArrayList<Future<T>>();
+	for (final E element : elements) {
+	   try {
+		window.acquire();
+	   } catch (final InterruptedException ie) {
+		Thread.currentThread().interrupt();
+		result.failure(operation.pathOf(element), ie);
+		continue;
+	   }
+	   try {
+		futures.add(getAsyncExecutor().submit(new Callable<T>() {
+		   @Override
+		   public T call() throws ResourceException {
+			try {
+			   return operation.call(element);
+			} finally {
+			   window.release();
+			}
+		   }
+		}));
+		submitted.add(element);
+	   } catch (final RejectedExecutionException ree) {
+		window.release();
+		result.failure(operation.pathOf(element), ree);
+	   }
+	}
+
+	for (int i = 0; i < futures.size(); i++) {
+	   final String resourcePath = operation.pathOf(submitted.get(i));
+	   try {
+		result.success(resourcePath, futures.get(i).get());
+	   } catch (final ExecutionException ee) {
+		result.failure(resourcePath, ee.getCause());
+	   } catch (final InterruptedException ie) {
+		Thread.currentThread().interrupt();
+		result.failure(resourcePath, ie);
+	   }
+	}
+	return result;
+   }
+
+   /**
+    * @return max number of resources processed at the same time by a batch operation
+    * @see FileStoreContextBuilder#BatchParallelism
+    */
+   protected int getBatchParallelism() {
+	return context.getInteger(BatchParallelism, context.getInteger(AsyncThreads, DEFAULT_ASYNC_THREADS));
+   }
+
+   /*
+    * root + '/' + relative path
+    */
+   static String concatPath(final String root, final String relativePath) {
+	if (StringHelper.isEmpty(root)) { return relativePath; }
+	final boolean rootSlash = root.endsWith("/");
+	final boolean pathSlash = relativePath.startsWith("/");
+	if (rootSlash && pathSlash) {
+	   return root + relativePath.substring(1);
+	} else if (rootSlash || pathSlash) {
+	   return root + relativePath;
+	} else {
+	   return root + "/" + relativePath;
+	}
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#getAsync(java.lang.String)
+    */
+   @Override
+   public CompletableFuture<ResourceHandler> getAsync(@NotNull final String resourceRelativePath) {
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+
+	// get from cache if enabled, no thread needed (unless the cached resource have to be validated)
+	if (resourcesByUri != null && !isCachingValidation()) {
+	   try {
+		final ResourceHandler cachedResource = getCachedResource(resourceUri);
+		if (cachedResource != null) { return CompletableFuture.completedFuture(cachedResource); }
+	   } catch (final ResourceException rse) {
+		return failedFuture(rse);
+	   }
+	}
+
+	return async(new Callable<ResourceHandler>() {
+	   @Override
+	   public ResourceHandler call() throws ResourceException {
+		final ResourceHandler cachedResource = getCachedResource(resourceUri);
+		return cachedResource != null ? cachedResource : getResource(resourceRelativePath, resourceUri);
+	   }
+	}, resourceRelativePath, "store.failover.retry.get.info");
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#storeAsync(org.kaleidofoundry.core.store.ResourceHandler)
+    */
+   @Override
+   public CompletableFuture<FileStore> storeAsync(@NotNull final ResourceHandler resource) {
+	if (isReadOnly()) { return failedFuture(new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : "")); }
+	final String resourceUri = buildManageableResourceURi(resource.getUri());
+
+	// invalidate cache entry
+	if (resourcesByUri != null) {
+	   resourcesByUri.remove(resourceUri);
+	}
+
+	return async(new Callable<FileStore>() {
+	   @Override
+	   public FileStore call() throws ResourceException {
+		final ResourceHandler storedResource = compress(resourceUri, resource);
+		setStoreMetaDatas(resourceUri, storedResource);
+		doStore(URI.create(resourceUri), storedResource);
+		return AbstractFileStore.this;
+	   }
+	}, resource.getUri(), "store.failover.retry.store.info");
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#removeAsync(java.lang.String)
+    */
+   @Override
+   public CompletableFuture<FileStore> removeAsync(@NotNull final String resourceRelativePath) {
+	if (isReadOnly()) { return failedFuture(new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : "")); }
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+
+	// invalidate cache entry
+	if (resourcesByUri != null) {
+	   resourcesByUri.remove(resourceUri);
+	}
+
+	return async(new Callable<FileStore>() {
+	   @Override
+	   public FileStore call() throws ResourceException {
+		doRemove(URI.create(resourceUri));
+		return AbstractFileStore.this;
+	   }
+	}, resourceRelativePath, "store.failover.retry.remove.info");
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#moveAsync(java.lang.String, java.lang.String)
+    */
+   @Override
+   public CompletableFuture<FileStore> moveAsync(@NotNull final String origin, @NotNull final String destination) {
+	if (isReadOnly()) { return failedFuture(new ResourceException("store.readonly.illegal", context.getName() != null ? context.getName() : "")); }
+
+	// the whole move is retried, each attempt is made of single attempts of its operations
+	return async(new Callable<FileStore>() {
+	   @Override
+	   public FileStore call() throws ResourceException {
+		moveResource(origin, destination);
+		return AbstractFileStore.this;
+	   }
+	}, origin, "store.failover.retry.move.info");
+   }
+
+   /**
+    * a single attempt to move the resource, natively if the store can, otherwise by a copy then a remove
+    * 
+    * @param origin
+    * @param destination
+    * @throws ResourceException
+    */
+   void moveResource(final String origin, final String destination) throws ResourceException {
+	final String originUri = buildManageableResourceURi(origin);
+	final String destinationUri = buildManageableResourceURi(destination);
+
+	try {
+	   if (doMove(URI.create(originUri), URI.create(destinationUri))) { return; }
+
+	   // generic move : copy then remove
+	   if (existsResource(destinationUri)) {
+		doRemove(URI.create(destinationUri));
+	   }
+	   final ResourceHandler resource = getResource(origin, originUri);
+	   try {
+		final ResourceHandler storedResource = compress(destinationUri, createResourceHandler(destination, resource.getInputStream()));
+		setStoreMetaDatas(destinationUri, storedResource);
+		doStore(URI.create(destinationUri), storedResource);
+	   } finally {
+		resource.close();
+	   }
+	   doRemove(URI.create(originUri));
+	} finally {
+	   // invalidate cache entries
+	   if (resourcesByUri != null) {
+		resourcesByUri.remove(originUri);
+		resourcesByUri.remove(destinationUri);
+	   }
+	}
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#existsAsync(java.lang.String)
+    */
+   @Override
+   public CompletableFuture<Boolean> existsAsync(@NotNull final String resourceRelativePath) {
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+
+	// a cached resource exists, unless it have to be validated
+	if (resourcesByUri != null && !isCachingValidation() && resourcesByUri.containsKey(resourceUri)) { return CompletableFuture.completedFuture(true); }
+
+	return async(new Callable<Boolean>() {
+	   @Override
+	   public Boolean call() throws ResourceException {
+		return existsResource(resourceUri);
+	   }
+	}, resourceRelativePath, "store.failover.retry.stat.info");
+   }
+
+   /**
+    * a single attempt to find the resource
+    * 
+    * @param resourceUri
+    * @return <code>true</code> if the resource exists
+    * @throws ResourceException
+    */
+   boolean existsResource(final String resourceUri) throws ResourceException {
+	try {
+	   doStat(URI.create(resourceUri));
+	   return true;
+	} catch (final ResourceNotFoundException rnfe) {
+	   return false;
+	}
+   }
+
+   /**
+    * run an operation with the store executor<br/>
+    * After a failure, the next attempt is scheduled after a backoff delay (see {@link #getRetryDelay(int)}) : no thread is blocked while
+    * waiting.
+    * 
+    * @param operation a single attempt of the operation
+    * @param resourceName resource name, for the log messages
+    * @param retryMessageCode message code logged before a new attempt, <code>null</code> to disable the fail-over
+    * @return future result of the operation
+    */
+   <T> CompletableFuture<T> async(final Callable<T> operation, final String resourceName, final String retryMessageCode) {
+	final CompletableFuture<T> result = new CompletableFuture<T>();
+	submit(operation, result, 0, resourceName, retryMessageCode);
+
+	final Integer timeout = context.getInteger(AsyncTimeout);
+	if (timeout != null && timeout.intValue() > 0 && !result.isDone()) {
+	   final ScheduledFuture<?> timer = ASYNC_SCHEDULER.schedule(new Runnable() {
+		@Override
+		public void run() {
+		   result.completeExceptionally(new TimeoutException(StoreMessageBundle.getMessage("store.async.timeout", resourceName, timeout)));
+		}
+	   }, timeout.longValue(), TimeUnit.MILLISECONDS);
+	   result.whenComplete(new BiConsumer<T, Throwable>() {
+		@Override
+		public void accept(final T value, final Throwable error) {
+		   timer.cancel(false);
+		}
+	   });
+	}
+	return result;
+   }
+
+   /*
+    * submit an attempt of the operation to the store executor
+    */
+   private <T> void submit(final Callable<T> operation, final CompletableFuture<T> result, final int retryCount, final String resourceName,
+	   final String retryMessageCode) {
+	try {
+	   getAsyncExecutor().execute(new Runnable() {
+		@Override
+		public void run() {
+		   // timed out or cancelled meanwhile
+		   if (result.isDone()) { return; }
+		   try {
+			final T value = operation.call();
+			if (!result.complete(value) && value instanceof ResourceHandler) {
+			   // nobody will read it
+			   ((ResourceHandler) value).close();
+			}
+		   } catch (final ResourceNotFoundException rnfe) {
+			result.completeExceptionally(rnfe);
+		   } catch (final ResourceException rse) {
+			final int maxRetryCount = getMaxRetryOnFailure();
+			final int attempts = retryCount + 1;
+			if (retryMessageCode == null || attempts >= maxRetryCount) {
+			   if (retryMessageCode != null) {
+				I18N_LOGGER.error("store.failover.failed", resourceName, attempts, maxRetryCount, rse);
+			   }
+			   result.completeExceptionally(rse);
+			} else {
+			   final long delay = getRetryDelay(attempts);
+			   I18N_LOGGER.warn(retryMessageCode, resourceName, delay, attempts, maxRetryCount);
+			   ASYNC_SCHEDULER.schedule(new Runnable() {
+				@Override
+				public void run() {
+				   submit(operation, result, attempts, resourceName, retryMessageCode);
+				}
+			   }, delay, TimeUnit.MILLISECONDS);
+			}
+		   } catch (final Throwable th) {
+			result.completeExceptionally(th);
+		   }
+		}
+	   });
+	} catch (final RejectedExecutionException ree) {
+	   // queue is full or store is destroyed
+	   result.completeExceptionally(ree);
+	}
+   }
+
+   /**
+    * @return the bounded executor of the store, created on first use
+    * @see FileStoreContextBuilder#AsyncThreads
+    * @see FileStoreContextBuilder#AsyncQueueSize
+    */
+   protected ExecutorService getAsyncExecutor() {
+	if (asyncExecutor == null) {
+	   synchronized (this) {
+		if (asyncExecutor == null) {
+		   final int threads = context.getInteger(AsyncThreads, DEFAULT_ASYNC_THREADS);
+		   final String threadPrefix = "kaleido-filestore-" + (!StringHelper.isEmpty(context.getName()) ? context.getName() : getStoreType()[0].name()) + "-";
+		   final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+			   context.getInteger(AsyncQueueSize, DEFAULT_ASYNC_QUEUE_SIZE)), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+			   final Thread thread = new Thread(runnable, threadPrefix + count.incrementAndGet());
+			   thread.setDaemon(true);
+			   return thread;
+			}
+		   });
+		   executor.allowCoreThreadTimeOut(true);
+		   asyncExecutor = executor;
+		}
+	   }
+	}
+	return asyncExecutor;
+   }
+
+   /**
+    * exponential backoff with jitter : the base delay ({@link FileStoreContextBuilder#SleepTimeBeforeRetryOnFailure}) is doubled after each
+    * failure, up to {@link FileStoreContextBuilder#MaxSleepTimeBeforeRetryOnFailure}, then a random value between the half and the whole of
+    * it is taken, so that the clients which failed together don't retry together
+    * 
+    * @param retryCount number of failed attempts
+    * @return time to wait in ms, before the next attempt
+    */
+   protected long getRetryDelay(final int retryCount) {
+	final long baseDelay = getSleepTimeBeforeRetryOnFailure();
+	if (baseDelay <= 0) { return 0; }
+	final long maxDelay = context.getInteger(MaxSleepTimeBeforeRetryOnFailure, DEFAULT_MAX_SLEEP_TIME_BEFORE_RETRY);
+	final long delay = retryCount > 30 ? maxDelay : Math.min(maxDelay, baseDelay << (retryCount - 1));
+	return delay / 2 + ThreadLocalRandom.current().nextLong(delay - delay / 2 + 1);
+   }
+
+   /**
+    * @param error
+    * @return a future already completed by the given error
+    */
+   static <T> CompletableFuture<T> failedFuture(final Throwable error) {
+	final CompletableFuture<T> result = new CompletableFuture<T>();
+	result.completeExceptionally(error);
+	return result;
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.lang.pattern.Store#exists(java.lang.Object)
     */
    @Override
    public final boolean exists(@NotNull final String resourceRelativePath) throws ResourceException {
-	ResourceHandler resource = null;
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+
+	// a cached resource exists, unless it have to be validated
+	if (resourcesByUri != null && !isCachingValidation() && resourcesByUri.containsKey(resourceUri)) { return true; }
+
 	try {
-	   resource = get(resourceRelativePath);
+	   statResource(resourceRelativePath, resourceUri);
 	   return true;
 	} catch (final ResourceNotFoundException rnfe) {
 	   return false;
-	} finally {
-	   if (resource != null) {
-		resource.close();
+	}
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.FileStore#stat(java.lang.String)
+    */
+   @Override
+   public final ResourceMetadata stat(@NotNull final String resourceRelativePath) throws ResourceNotFoundException, ResourceException {
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+	return statResource(resourceRelativePath, resourceUri);
+   }
+
+   /**
+    * stat the resource, with the fail-over settings of the store (a resource not found is not retried)
+    * 
+    * @param resourceRelativePath
+    * @param resourceUri
+    * @return resource meta datas
+    * @throws ResourceException
+    */
+   ResourceMetadata statResource(final String resourceRelativePath, final String resourceUri) throws ResourceException {
+	int retryCount = 0;
+	while (true) {
+	   try {
+		return doStat(URI.create(resourceUri));
+	   } catch (final ResourceNotFoundException rnfe) {
+		throw rnfe;
+	   } catch (final ResourceException rse) {
+		retryCount++;
+		final int maxRetryCount = getMaxRetryOnFailure();
+		if (retryCount >= maxRetryCount) { throw rse; }
+
+		final long sleepTime = getRetryDelay(retryCount);
+		I18N_LOGGER.warn("store.failover.retry.stat.info", resourceRelativePath, sleepTime, retryCount, maxRetryCount);
+		try {
+		   Thread.sleep(sleepTime);
+		} catch (final InterruptedException e) {
+		   Thread.currentThread().interrupt();
+		   I18N_LOGGER.error("store.failover.retry.error", sleepTime, rse);
+		   throw rse;
+		}
 	   }
 	}
    }
 
+   /**
+    * meta datas processing of a resource, you don't have to check argument validity<br/>
+    * The content of the resource must not be read. By default, the resource is opened by {@link #doGet(URI)} then closed at once : override
+    * it if the store can get the meta datas on their own (http HEAD request, file attributes, ...).
+    * 
+    * @param resourceUri
+    * @return resource meta datas
+    * @throws ResourceNotFoundException if resource can't be found
+    * @throws ResourceException
+    */
+   protected ResourceMetadata doStat(@NotNull final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final ResourceHandler resource = doGet(resourceUri);
+	if (resource == null || resource.isEmpty()) { throw new ResourceNotFoundException(resourceUri.toString()); }
+	try {
+	   return createResourceMetadata(resourceUri.toString(), false, resource.getLength(), resource.getLastModified(), resource.getMimeType(),
+		   resource instanceof ResourceHandlerBean ? ((ResourceHandlerBean) resource).getEtag() : null);
+	} finally {
+	   resource.close();
+	}
+   }
+
    /**
     * @param urlConnection
     */
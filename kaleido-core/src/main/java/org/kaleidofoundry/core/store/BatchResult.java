@@ -0,0 +1,82 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kaleidofoundry.core.lang.annotation.NotThreadSafe;
+
+/**
+ * Per resource report of a {@link FileStore} batch operation (getAll, storeAll, removeAll, copyTree)<br/>
+ * The resources are reported in the order of the request. A failed resource does not stop the other ones.
+ * 
+ * @author jraduget
+ * @param <T> result type of a resource operation
+ */
+@NotThreadSafe
+public class BatchResult<T> {
+
+   private final Map<String, T> succeeded;
+   private final Map<String, Throwable> failed;
+
+   BatchResult() {
+	succeeded = new LinkedHashMap<String, T>();
+	failed = new LinkedHashMap<String, Throwable>();
+   }
+
+   void success(final String resourcePath, final T result) {
+	succeeded.put(resourcePath, result);
+   }
+
+   void failure(final String resourcePath, final Throwable error) {
+	failed.put(resourcePath, error);
+   }
+
+   /**
+    * @return result of the succeeded resources, by resource path
+    */
+   public Map<String, T> getSucceeded() {
+	return Collections.unmodifiableMap(succeeded);
+   }
+
+   /**
+    * @return error of the failed resources, by resource path
+    */
+   public Map<String, Throwable> getFailed() {
+	return Collections.unmodifiableMap(failed);
+   }
+
+   /**
+    * @return <code>true</code> if no resource failed
+    */
+   public boolean isSuccessful() {
+	return failed.isEmpty();
+   }
+
+   /**
+    * @return number of resources processed
+    */
+   public int size() {
+	return succeeded.size() + failed.size();
+   }
+
+   @Override
+   public String toString() {
+	return "succeeded=" + succeeded.keySet() + ", failed=" + failed;
+   }
+}
@@ -0,0 +1,786 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
+import static org.kaleidofoundry.core.store.FileStoreConstants.CasStorePluginName;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CAS_CHUNK_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BackendStoreRef;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CasChunkSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.io.IoIterable;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.plugin.Declare;
+import org.kaleidofoundry.core.util.StringHelper;
+
+/**
+ * Content addressed {@link FileStore} implementation, which deduplicates the content of its resources.<br/>
+ * <br/>
+ * The content of a resource is split into chunks of {@link FileStoreContextBuilder#CasChunkSize} bytes, each chunk is stored once under its
+ * SHA-256 hash, in a backend store (see {@link FileStoreContextBuilder#BackendStoreRef}). A resource is only a small manifest, giving its
+ * meta datas and the hashes of its chunks. So :
+ * <ul>
+ * <li>identical contents (or identical parts of them) are stored once,</li>
+ * <li>a copy or a move only writes a manifest, the content is never transferred,</li>
+ * <li>the SHA-256 hash of the whole content is the entity tag of the resource.</li>
+ * </ul>
+ * The backend store layout is :
+ * <ul>
+ * <li><code>manifests/{resource path}</code> : the manifest of a resource (properties format)</li>
+ * <li><code>chunks/{first 2 hash digits}/{hash}</code> : the content of a chunk</li>
+ * </ul>
+ * The chunks are reference counted : the counters are built from the manifests on first use, a chunk is removed from the backend store as
+ * soon as its last resource is removed or updated, unless a reader of one of its resources still reads it (the chunks of a resource are
+ * pinned until its content is closed). {@link #collectGarbage()} rebuilds the counters and removes the orphan chunks (left by
+ * an interrupted store, or by another instance sharing the backend store). Only one store instance should write in a backend store.
+ * 
+ * @author jraduget
+ * @see FileStoreContextBuilder enum of context configuration properties available
+ */
+@Declare(CasStorePluginName)
+public class CasFileStore extends AbstractFileStore implements FileStore {
+
+   /** backend directory of the manifests */
+   static final String MANIFESTS_DIR = "manifests";
+   /** backend directory of the chunks */
+   static final String CHUNKS_DIR = "chunks";
+
+   private static final String DIGEST_ALGORITHM = "SHA-256";
+   private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+   // reference count of the chunks, by hash (guarded by itself)
+   private final Map<String, Integer> references = new HashMap<String, Integer>();
+   // are the reference counts built (guarded by references)
+   private boolean indexed;
+   // chunks which are being read, with their number of readers, by hash (guarded by references)
+   private final Map<String, Integer> pins = new HashMap<String, Integer>();
+   // writers share it, the garbage collection holds it exclusively
+   private final ReadWriteLock gcLock = new ReentrantReadWriteLock();
+   // manifest locks by resource uri (striped) : the read of the previous manifest, the write of the new one and the release of its chunks
+   // are not interleaved with the ones of another writer of the same resource, which would release the same chunks twice
+   private final ReentrantLock[] manifestLocks = new ReentrantLock[32];
+
+   {
+	for (int i = 0; i < manifestLocks.length; i++) {
+	   manifestLocks[i] = new ReentrantLock();
+	}
+   }
+
+   private volatile FileStore backendStore;
+
+   /**
+    * @param context
+    */
+   public CasFileStore(@NotNull final RuntimeContext<FileStore> context) {
+	super(context);
+   }
+
+   /**
+    * @param baseUri
+    * @param context
+    */
+   public CasFileStore(final String baseUri, final RuntimeContext<FileStore> context) {
+	super(baseUri, context);
+   }
+
+   /**
+    * @param baseUri
+    * @param context
+    * @param backendStore store where the chunks and the manifests are kept
+    */
+   public CasFileStore(final String baseUri, final RuntimeContext<FileStore> context, @NotNull final FileStore backendStore) {
+	super(baseUri, context);
+	this.backendStore = backendStore;
+   }
+
+   /**
+    * @see AbstractFileStore#AbstractFileStore()
+    */
+   CasFileStore() {
+	super();
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#getStoreType()
+    */
+   @Override
+   public FileStoreType[] getStoreType() {
+	return new FileStoreType[] { FileStoreTypeEnum.cas };
+   }
+
+   /**
+    * @return the store where the chunks and the manifests are kept, provided by the {@link FileStoreContextBuilder#BackendStoreRef}
+    *         context on first use
+    */
+   public FileStore getBackendStore() {
+	if (backendStore == null) {
+	   synchronized (this) {
+		if (backendStore == null) {
+		   final String backendStoreRef = context.getString(BackendStoreRef);
+		   if (StringHelper.isEmpty(backendStoreRef)) { throw new IllegalStateException(StoreMessageBundle.getMessage(
+			   "store.cas.backend.notdefined", context.getName(), BackendStoreRef)); }
+		   backendStore = FileStoreFactory.provides(new RuntimeContext<FileStore>(backendStoreRef, FileStore.class, context));
+		}
+	   }
+	}
+	return backendStore;
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doGet(java.net.URI)
+    */
+   @Override
+   protected ResourceHandler doGet(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	// the chunks are pinned under the manifest lock, so a concurrent update of the resource can't remove them before they are read
+	final Manifest manifest;
+	final SortedSet<Integer> locks = lockManifests(resourceUri);
+	try {
+	   manifest = readManifest(resourceUri);
+	   pin(manifest.chunks);
+	} finally {
+	   unlockManifests(locks);
+	}
+	final ResourceHandler resource = createResourceHandler(resourceUri.toString(), new ChunksInputStream(manifest.chunks));
+	// Set some meta datas
+	if (resource instanceof ResourceHandlerBean) {
+	   ((ResourceHandlerBean) resource).setLastModified(manifest.lastModified);
+	   ((ResourceHandlerBean) resource).setLength(manifest.size);
+	   ((ResourceHandlerBean) resource).setMimeType(manifest.mimeType);
+	   ((ResourceHandlerBean) resource).setCharset(manifest.charset);
+	   ((ResourceHandlerBean) resource).setEtag(manifest.digest);
+	}
+	return resource;
+   }
+
+   /**
+    * The content is read chunk by chunk, only the chunks which are not already in the backend store are written. The manifest is written
+    * last, then the chunks of the previous content are released.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStore(java.net.URI, org.kaleidofoundry.core.store.ResourceHandler)
+    */
+   @Override
+   protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
+	gcLock.readLock().lock();
+	try {
+	   final Manifest manifest = new Manifest();
+	   manifest.lastModified = resource.getLastModified();
+	   manifest.mimeType = resource.getMimeType();
+	   manifest.charset = resource.getCharset();
+
+	   final MessageDigest contentDigest = newDigest();
+	   final MessageDigest chunkDigest = newDigest();
+	   final byte[] buffer = new byte[context.getInteger(CasChunkSize, DEFAULT_CAS_CHUNK_SIZE)];
+	   final InputStream in = resource.getInputStream();
+	   boolean stored = false;
+	   try {
+		int count;
+		while ((count = readChunk(in, buffer)) > 0) {
+		   contentDigest.update(buffer, 0, count);
+		   chunkDigest.update(buffer, 0, count);
+		   final String hash = toHex(chunkDigest.digest());
+		   // the reference is taken first, so the chunk can't be removed once it is found
+		   acquire(Arrays.asList(hash));
+		   manifest.chunks.add(hash);
+		   if (!getBackendStore().exists(chunkPath(hash))) {
+			getBackendStore().store(chunkPath(hash), Arrays.copyOf(buffer, count));
+		   }
+		   manifest.size += count;
+		}
+		manifest.digest = toHex(contentDigest.digest());
+
+		final SortedSet<Integer> locks = lockManifests(resourceUri);
+		try {
+		   final Manifest previous = findManifest(resourceUri);
+		   writeManifest(resourceUri, manifest);
+		   stored = true;
+		   if (previous != null) {
+			release(previous.chunks);
+		   }
+		} finally {
+		   unlockManifests(locks);
+		}
+	   } catch (final ResourceException rse) {
+		throw rse;
+	   } catch (final IOException ioe) {
+		throw new ResourceException(ioe, resourceUri.toString());
+	   } finally {
+		resource.close();
+		if (!stored) {
+		   release(manifest.chunks);
+		}
+	   }
+	} finally {
+	   gcLock.readLock().unlock();
+	}
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doRemove(java.net.URI)
+    */
+   @Override
+   protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	gcLock.readLock().lock();
+	final SortedSet<Integer> locks = lockManifests(resourceUri);
+	try {
+	   final Manifest manifest = readManifest(resourceUri);
+	   getBackendStore().remove(manifestPath(resourceUri));
+	   release(manifest.chunks);
+	} finally {
+	   unlockManifests(locks);
+	   gcLock.readLock().unlock();
+	}
+   }
+
+   /**
+    * Only the manifest is moved, the reference counts of the chunks are unchanged.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doMove(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doMove(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	gcLock.readLock().lock();
+	final SortedSet<Integer> locks = lockManifests(originUri, destinationUri);
+	try {
+	   final Manifest previous = findManifest(destinationUri);
+	   try {
+		getBackendStore().move(manifestPath(originUri), manifestPath(destinationUri));
+	   } catch (final ResourceNotFoundException rnfe) {
+		throw new ResourceNotFoundException(originUri.toString());
+	   }
+	   if (previous != null) {
+		release(previous.chunks);
+	   }
+	   return true;
+	} finally {
+	   unlockManifests(locks);
+	   gcLock.readLock().unlock();
+	}
+   }
+
+   /**
+    * Only a manifest is written, the chunks get one more reference.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doCopy(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doCopy(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	gcLock.readLock().lock();
+	// the origin is locked too, so its chunks can't be released before they are acquired for the copy
+	final SortedSet<Integer> locks = lockManifests(originUri, destinationUri);
+	try {
+	   final Manifest manifest = readManifest(originUri);
+	   final Manifest previous = findManifest(destinationUri);
+	   acquire(manifest.chunks);
+	   boolean copied = false;
+	   try {
+		writeManifest(destinationUri, manifest);
+		copied = true;
+	   } finally {
+		if (!copied) {
+		   release(manifest.chunks);
+		}
+	   }
+	   if (previous != null) {
+		release(previous.chunks);
+	   }
+	   return true;
+	} finally {
+	   unlockManifests(locks);
+	   gcLock.readLock().unlock();
+	}
+   }
+
+   /**
+    * The meta datas are read from the manifest, the SHA-256 hash of the content is used as entity tag.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final Manifest manifest = readManifest(resourceUri);
+	return createResourceMetadata(resourceUri.toString(), false, manifest.size, manifest.lastModified, manifest.mimeType, manifest.digest);
+   }
+
+   /**
+    * The listing of the manifests directory, the manifest of a resource is read when the iteration reaches it.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	final IoIterable<ResourceMetadata> manifests;
+	try {
+	   manifests = getBackendStore().list(manifestPath(directoryUri));
+	} catch (final ResourceNotFoundException rnfe) {
+	   throw new ResourceNotFoundException(directoryUri.toString());
+	}
+
+	return new IoIterable<ResourceMetadata>() {
+	   @Override
+	   public Iterator<ResourceMetadata> iterator() {
+		final Iterator<ResourceMetadata> it = manifests.iterator();
+		return new Iterator<ResourceMetadata>() {
+		   @Override
+		   public boolean hasNext() {
+			return it.hasNext();
+		   }
+
+		   @Override
+		   public ResourceMetadata next() {
+			final ResourceMetadata entry = it.next();
+			final String resourceUri = buildResourceURi(entry.getPath().substring(MANIFESTS_DIR.length() + 1));
+			if (entry.isDirectory()) { return createResourceMetadata(resourceUri, true, -1, 0); }
+			try {
+			   return doStat(URI.create(resourceUri));
+			} catch (final ResourceException rse) {
+			   throw new IllegalStateException(rse.getMessage(), rse);
+			}
+		   }
+
+		   @Override
+		   public void remove() {
+			throw new UnsupportedOperationException();
+		   }
+		};
+	   }
+
+	   @Override
+	   public void close() throws IOException {
+		manifests.close();
+	   }
+	};
+   }
+
+   /**
+    * Rebuild the reference counts from the manifests, then remove the chunks which are not referenced by any of them.<br/>
+    * The writes of the store wait for the end of the collection.
+    * 
+    * @return number of removed chunks
+    * @throws ResourceException
+    */
+   public int collectGarbage() throws ResourceException {
+	gcLock.writeLock().lock();
+	try {
+	   synchronized (references) {
+		indexed = false;
+		references.clear();
+		ensureIndexed();
+
+		final List<String> orphans = new ArrayList<String>();
+		final IoIterable<ResourceMetadata> chunks;
+		try {
+		   chunks = getBackendStore().walk(CHUNKS_DIR, -1);
+		} catch (final ResourceNotFoundException rnfe) {
+		   return 0;
+		}
+		try {
+		   for (final ResourceMetadata chunk : chunks) {
+			final String hash = chunk.getPath().substring(chunk.getPath().lastIndexOf('/') + 1);
+			if (!chunk.isDirectory() && !references.containsKey(hash) && !pins.containsKey(hash)) {
+			   orphans.add(chunk.getPath());
+			}
+		   }
+		} finally {
+		   closeQuietly(chunks);
+		}
+		for (final String orphan : orphans) {
+		   getBackendStore().remove(orphan);
+		}
+		I18N_LOGGER.info("store.cas.gc.info", getBaseUri(), orphans.size());
+		return orphans.size();
+	   }
+	} finally {
+	   gcLock.writeLock().unlock();
+	}
+   }
+
+   /**
+    * @param hash
+    * @return number of resources which reference the chunk
+    * @throws ResourceException
+    */
+   public int getReferenceCount(@NotNull final String hash) throws ResourceException {
+	synchronized (references) {
+	   ensureIndexed();
+	   final Integer count = references.get(hash);
+	   return count != null ? count : 0;
+	}
+   }
+
+   /*
+    * take the manifest locks of the resources, in the same order for all the threads
+    */
+   private SortedSet<Integer> lockManifests(final URI... resourceUris) {
+	final SortedSet<Integer> lockIndexes = new TreeSet<Integer>();
+	for (final URI resourceUri : resourceUris) {
+	   lockIndexes.add((resourceUri.hashCode() & Integer.MAX_VALUE) % manifestLocks.length);
+	}
+	for (final Integer lockIndex : lockIndexes) {
+	   manifestLocks[lockIndex].lock();
+	}
+	return lockIndexes;
+   }
+
+   private void unlockManifests(final SortedSet<Integer> lockIndexes) {
+	for (final Integer lockIndex : lockIndexes) {
+	   manifestLocks[lockIndex].unlock();
+	}
+   }
+
+   /*
+    * add a reference to each chunk
+    */
+   private void acquire(final List<String> hashes) throws ResourceException {
+	synchronized (references) {
+	   ensureIndexed();
+	   for (final String hash : hashes) {
+		final Integer count = references.get(hash);
+		references.put(hash, count != null ? count + 1 : 1);
+	   }
+	}
+   }
+
+   /*
+    * remove a reference of each chunk, a chunk without reference is removed from the backend store, unless it is pinned by a reader. It is
+    * done holding the lock, so a concurrent store can't find a chunk which is being removed.
+    */
+   private void release(final List<String> hashes) throws ResourceException {
+	synchronized (references) {
+	   ensureIndexed();
+	   for (final String hash : hashes) {
+		final Integer count = references.get(hash);
+		if (count != null && count > 1) {
+		   references.put(hash, count - 1);
+		} else {
+		   references.remove(hash);
+		   if (!pins.containsKey(hash)) {
+			removeChunk(hash);
+		   }
+		}
+	   }
+	}
+   }
+
+   /*
+    * pin each chunk for a reader
+    */
+   private void pin(final List<String> hashes) {
+	synchronized (references) {
+	   for (final String hash : hashes) {
+		final Integer count = pins.get(hash);
+		pins.put(hash, count != null ? count + 1 : 1);
+	   }
+	}
+   }
+
+   /*
+    * unpin each chunk once read, a chunk released meanwhile by all its resources is removed from the backend store
+    */
+   private void unpin(final List<String> hashes) throws ResourceException {
+	synchronized (references) {
+	   ensureIndexed();
+	   for (final String hash : hashes) {
+		final Integer count = pins.get(hash);
+		if (count != null && count > 1) {
+		   pins.put(hash, count - 1);
+		} else {
+		   pins.remove(hash);
+		   if (!references.containsKey(hash)) {
+			removeChunk(hash);
+		   }
+		}
+	   }
+	}
+   }
+
+   /*
+    * remove a chunk from the backend store (the caller holds the references lock)
+    */
+   private void removeChunk(final String hash) throws ResourceException {
+	try {
+	   getBackendStore().remove(chunkPath(hash));
+	} catch (final ResourceNotFoundException rnfe) {
+	   // already removed
+	}
+   }
+
+   /*
+    * build the reference counts from the manifests, on first use (the caller holds the references lock)
+    */
+   private void ensureIndexed() throws ResourceException {
+	if (indexed) { return; }
+	final IoIterable<ResourceMetadata> manifests;
+	try {
+	   manifests = getBackendStore().walk(MANIFESTS_DIR, -1);
+	} catch (final ResourceNotFoundException rnfe) {
+	   indexed = true;
+	   return;
+	}
+	try {
+	   for (final ResourceMetadata entry : manifests) {
+		if (!entry.isDirectory()) {
+		   for (final String hash : readManifest(entry.getPath(), entry.getUri()).chunks) {
+			final Integer count = references.get(hash);
+			references.put(hash, count != null ? count + 1 : 1);
+		   }
+		}
+	   }
+	} finally {
+	   closeQuietly(manifests);
+	}
+	indexed = true;
+   }
+
+   /**
+    * @param resourceUri
+    * @return path of the resource manifest in the backend store
+    */
+   String manifestPath(final URI resourceUri) {
+	final String uri = resourceUri.toString();
+	String path = uri.startsWith(getBaseUri()) ? uri.substring(getBaseUri().length()) : resourceUri.getPath();
+	path = path.startsWith("/") ? path.substring(1) : path;
+	return path.length() > 0 ? MANIFESTS_DIR + "/" + path : MANIFESTS_DIR;
+   }
+
+   /**
+    * @param hash
+    * @return path of the chunk in the backend store
+    */
+   static String chunkPath(final String hash) {
+	return CHUNKS_DIR + "/" + hash.substring(0, 2) + "/" + hash;
+   }
+
+   /*
+    * manifest of an existing resource
+    */
+   private Manifest readManifest(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	try {
+	   return readManifest(manifestPath(resourceUri), resourceUri.toString());
+	} catch (final ResourceNotFoundException rnfe) {
+	   throw new ResourceNotFoundException(resourceUri.toString());
+	}
+   }
+
+   /*
+    * manifest of a resource, null if it does not exist
+    */
+   private Manifest findManifest(final URI resourceUri) throws ResourceException {
+	try {
+	   return readManifest(manifestPath(resourceUri), resourceUri.toString());
+	} catch (final ResourceNotFoundException rnfe) {
+	   return null;
+	}
+   }
+
+   private Manifest readManifest(final String manifestPath, final String resourceUri) throws ResourceException {
+	final ResourceHandler resource = getBackendStore().get(manifestPath);
+	try {
+	   return Manifest.read(resource.getInputStream());
+	} catch (final ResourceException rse) {
+	   throw rse;
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri);
+	} catch (final RuntimeException rte) {
+	   throw new ResourceException("store.cas.manifest.illegal", rte, resourceUri);
+	} finally {
+	   resource.close();
+	}
+   }
+
+   private void writeManifest(final URI resourceUri, final Manifest manifest) throws ResourceException {
+	try {
+	   getBackendStore().store(manifestPath(resourceUri), manifest.toBytes());
+	} catch (final ResourceException rse) {
+	   throw rse;
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+   }
+
+   /**
+    * @return new SHA-256 message digest
+    */
+   static MessageDigest newDigest() {
+	try {
+	   return MessageDigest.getInstance(DIGEST_ALGORITHM);
+	} catch (final NoSuchAlgorithmException nsae) {
+	   // SHA-256 is required for every jvm
+	   throw new IllegalStateException(nsae);
+	}
+   }
+
+   /**
+    * @param bytes
+    * @return lower case hexadecimal form of the bytes
+    */
+   static String toHex(final byte[] bytes) {
+	final char[] hex = new char[bytes.length * 2];
+	for (int i = 0; i < bytes.length; i++) {
+	   hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+	   hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+	}
+	return new String(hex);
+   }
+
+   @Override
+   public void destroy() {
+	super.destroy();
+	synchronized (references) {
+	   references.clear();
+	   indexed = false;
+	}
+   }
+
+   /**
+    * Meta datas of a resource, and the hashes of its content chunks
+    */
+   static class Manifest {
+
+	long size;
+	long lastModified;
+	String mimeType;
+	String charset;
+	String digest;
+	final List<String> chunks = new ArrayList<String>();
+
+	byte[] toBytes() throws IOException {
+	   final Properties properties = new Properties();
+	   properties.setProperty("size", String.valueOf(size));
+	   properties.setProperty("lastModified", String.valueOf(lastModified));
+	   if (mimeType != null) {
+		properties.setProperty("mimeType", mimeType);
+	   }
+	   if (charset != null) {
+		properties.setProperty("charset", charset);
+	   }
+	   properties.setProperty("digest", digest);
+	   properties.setProperty("chunks", StringHelper.unsplit(",", chunks.toArray()));
+	   final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	   properties.store(out, null);
+	   return out.toByteArray();
+	}
+
+	static Manifest read(final InputStream in) throws IOException {
+	   final Properties properties = new Properties();
+	   properties.load(in);
+	   final Manifest manifest = new Manifest();
+	   manifest.size = Long.parseLong(properties.getProperty("size"));
+	   manifest.lastModified = Long.parseLong(properties.getProperty("lastModified"));
+	   manifest.mimeType = properties.getProperty("mimeType");
+	   manifest.charset = properties.getProperty("charset");
+	   manifest.digest = properties.getProperty("digest");
+	   final String chunks = properties.getProperty("chunks");
+	   if (!StringHelper.isEmpty(chunks)) {
+		manifest.chunks.addAll(Arrays.asList(chunks.split(",")));
+	   }
+	   return manifest;
+	}
+   }
+
+   /**
+    * Content of a resource, the chunks are read one after the other from the backend store. The chunks have to be pinned by the caller, they
+    * are unpinned when the stream is closed.
+    */
+   class ChunksInputStream extends InputStream {
+
+	private final List<String> chunks;
+	private final Iterator<String> hashes;
+	private ResourceHandler current;
+	private InputStream in;
+	private boolean closed;
+
+	ChunksInputStream(final List<String> chunks) {
+	   this.chunks = chunks;
+	   hashes = chunks.iterator();
+	}
+
+	@Override
+	public int read() throws IOException {
+	   while (nextChunk()) {
+		final int b = in.read();
+		if (b >= 0) { return b; }
+		closeChunk();
+	   }
+	   return -1;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   if (len == 0) { return 0; }
+	   while (nextChunk()) {
+		final int count = in.read(b, off, len);
+		if (count > 0) { return count; }
+		closeChunk();
+	   }
+	   return -1;
+	}
+
+	@Override
+	public void close() throws IOException {
+	   closeChunk();
+	   while (hashes.hasNext()) {
+		hashes.next();
+	   }
+	   if (!closed) {
+		closed = true;
+		unpin(chunks);
+	   }
+	}
+
+	/*
+	 * @return false at the end of the content
+	 */
+	private boolean nextChunk() throws IOException {
+	   if (in != null) { return true; }
+	   if (!hashes.hasNext()) { return false; }
+	   // a resource exception is an io exception
+	   current = getBackendStore().get(chunkPath(hashes.next()));
+	   in = current.getInputStream();
+	   return true;
+	}
+
+	private void closeChunk() {
+	   if (current != null) {
+		current.close();
+	   }
+	   current = null;
+	   in = null;
+	}
+   }
+}
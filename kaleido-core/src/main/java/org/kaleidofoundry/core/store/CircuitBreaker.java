@@ -0,0 +1,131 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Circuit breaker of a store, used to stop calling a failing store for a while, instead of waiting for it on each request.<br/>
+ * <br/>
+ * The circuit is closed while the store works. It is opened after {@link #getFailureThreshold()} consecutive failures : the requests are
+ * then rejected at once. Once {@link #getOpenTime()} is elapsed, a single trial request is allowed (half opened circuit) : its success
+ * closes the circuit, its failure opens it again.
+ * 
+ * @author jraduget
+ */
+@ThreadSafe
+class CircuitBreaker {
+
+   /** states of a circuit breaker */
+   enum State {
+	/** requests are allowed */
+	closed,
+	/** requests are rejected */
+	open,
+	/** a single trial request is allowed */
+	halfOpen
+   }
+
+   private final int failureThreshold;
+   private final long openTime;
+
+   // guarded by this
+   private State state;
+   private int failures;
+   private long openedAt;
+   private boolean trial;
+
+   /**
+    * @param failureThreshold number of consecutive failures which opens the circuit
+    * @param openTime time in ms during which the requests are rejected
+    */
+   CircuitBreaker(final int failureThreshold, final long openTime) {
+	this.failureThreshold = Math.max(1, failureThreshold);
+	this.openTime = Math.max(0, openTime);
+	state = State.closed;
+   }
+
+   /**
+    * @return <code>true</code> if a request can be sent to the store, in a half opened circuit, only the first caller gets
+    *         <code>true</code> and must report the result of its request
+    */
+   synchronized boolean allowRequest() {
+	if (state == State.open && System.nanoTime() - openedAt >= openTime * 1000000L) {
+	   state = State.halfOpen;
+	   trial = false;
+	}
+	if (state == State.halfOpen) {
+	   if (trial) { return false; }
+	   trial = true;
+	   return true;
+	}
+	return state == State.closed;
+   }
+
+   /**
+    * a request succeeded, the circuit is closed
+    */
+   synchronized void onSuccess() {
+	state = State.closed;
+	failures = 0;
+	trial = false;
+   }
+
+   /**
+    * a request failed
+    * 
+    * @return <code>true</code> if this failure opens the circuit
+    */
+   synchronized boolean onFailure() {
+	failures++;
+	if (state == State.halfOpen || (state == State.closed && failures >= failureThreshold)) {
+	   state = State.open;
+	   openedAt = System.nanoTime();
+	   trial = false;
+	   return true;
+	}
+	return false;
+   }
+
+   /**
+    * @return current state of the circuit
+    */
+   synchronized State getState() {
+	if (state == State.open && System.nanoTime() - openedAt >= openTime * 1000000L) { return State.halfOpen; }
+	return state;
+   }
+
+   /**
+    * @return number of consecutive failures
+    */
+   synchronized int getFailures() {
+	return failures;
+   }
+
+   /**
+    * @return number of consecutive failures which opens the circuit
+    */
+   int getFailureThreshold() {
+	return failureThreshold;
+   }
+
+   /**
+    * @return time in ms during which the requests are rejected
+    */
+   long getOpenTime() {
+	return openTime;
+   }
+}
@@ -16,6 +16,7 @@
 package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.store.FileStoreConstants.ClasspathStorePluginName;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ClasspathIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,9 +24,16 @@ import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLDecoder;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import org.kaleidofoundry.core.context.IllegalContextParameterException;
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.plugin.Declare;
@@ -35,6 +43,10 @@ import org.kaleidofoundry.core.system.JavaSystemHelper;
  * Classpath file store implementation<br/>
  * <br/>
  * <b>This implementation is only for read only use</b> - the methods store, remove, move will throws {@link ResourceException}<br/>
+ * <br/>
+ * If {@link FileStoreContextBuilder#ClasspathIndex} is enabled, the resources of the class loader are indexed when the store is created.
+ * Then an indexed resource is read directly from its jar file or its directory, and a resource not found is remembered as such, instead
+ * of walking the class loader chain for each get (see {@link ClasspathResourceIndex}).<br/>
  * 
  * @author jraduget
  * @see FileStoreContextBuilder enum of context configuration properties available
@@ -43,11 +55,15 @@ import org.kaleidofoundry.core.system.JavaSystemHelper;
 @Declare(ClasspathStorePluginName)
 public class ClasspathFileStore extends AbstractFileStore implements FileStore {
 
+   // index of the class loader resources, null if disabled
+   private final ClasspathResourceIndex classpathIndex;
+
    /**
     * @param context
     */
    public ClasspathFileStore(@NotNull final RuntimeContext<FileStore> context) {
 	super(context);
+	classpathIndex = buildClasspathIndex();
    }
 
    /**
@@ -56,6 +72,7 @@ public class ClasspathFileStore extends AbstractFileStore implements FileStore {
     */
    public ClasspathFileStore(final String baseUri, final RuntimeContext<FileStore> context) {
 	super(baseUri, context);
+	classpathIndex = buildClasspathIndex();
    }
 
    /**
@@ -63,6 +80,36 @@ public class ClasspathFileStore extends AbstractFileStore implements FileStore {
     */
    ClasspathFileStore() {
 	super();
+	classpathIndex = null;
+   }
+
+   /*
+    * index of the class loader resources, if enabled
+    */
+   private ClasspathResourceIndex buildClasspathIndex() {
+	if (!context.getBoolean(ClasspathIndex, false)) { return null; }
+	final ClassLoader classLoader = getClassLoader();
+	final long start = System.currentTimeMillis();
+	try {
+	   final ClasspathResourceIndex index = ClasspathResourceIndex.build(classLoader);
+	   if (index == null) {
+		I18N_LOGGER.warn("store.classpath.index.disabled", getBaseUri(), classLoader);
+	   } else {
+		I18N_LOGGER.info("store.classpath.index.info", getBaseUri(), index.size(), index.getRootCount(), System.currentTimeMillis() - start);
+	   }
+	   return index;
+	} catch (final IOException ioe) {
+	   I18N_LOGGER.warn("store.classpath.index.disabled", getBaseUri(), classLoader, ioe);
+	   return null;
+	}
+   }
+
+   /**
+    * @return index of the class loader resources, <code>null</code> if it is disabled, or if the class loader to use is not the indexed one
+    * @see FileStoreContextBuilder#ClasspathIndex
+    */
+   ClasspathResourceIndex getClasspathIndex() {
+	return classpathIndex != null && classpathIndex.getClassLoader() == getClassLoader() ? classpathIndex : null;
    }
 
    /**
@@ -109,14 +156,27 @@ public class ClasspathFileStore extends AbstractFileStore implements FileStore {
     */
    @Override
    protected ResourceHandler doGet(final URI resourceBinding) throws ResourceNotFoundException, ResourceException {
-	final StringBuilder localPath = new StringBuilder();
+	final String localPathStr = getLocalPath(resourceBinding);
 
-	if (resourceBinding.getHost() != null) {
-	   localPath.append(resourceBinding.getHost()).append("/");
+	final ClasspathResourceIndex index = getClasspathIndex();
+	if (index != null) {
+	   final ClasspathResourceIndex.Entry entry = index.get(localPathStr);
+	   if (entry != null) {
+		final ResourceHandler resourceHandler;
+		try {
+		   resourceHandler = createResourceHandler(resourceBinding.toString(), index.open(entry));
+		} catch (final IOException ioe) {
+		   throw new ResourceException(ioe, resourceBinding.toString());
+		}
+		if (resourceHandler instanceof ResourceHandlerBean) {
+		   ((ResourceHandlerBean) resourceHandler).setLastModified(entry.time);
+		   ((ResourceHandlerBean) resourceHandler).setLength(entry.size);
+		}
+		return resourceHandler;
+	   }
+	   if (index.isNotFound(localPathStr)) { throw new ResourceNotFoundException(resourceBinding.toString()); }
 	}
-	localPath.append(resourceBinding.getPath());
 
-	final String localPathStr = (localPath.charAt(0) == '/') ? localPath.substring(1) : localPath.toString();
 	final InputStream in = JavaSystemHelper.getResourceAsStream(getClassLoader(), localPathStr);
 	final URL resourceUrl = JavaSystemHelper.getResource(getClassLoader(), localPathStr);
 	final ResourceHandler resourceHandler;
@@ -146,6 +206,9 @@ public class ClasspathFileStore extends AbstractFileStore implements FileStore {
 	   }
 	   return resourceHandler;
 	} else {
+	   if (index != null) {
+		index.notFound(localPathStr);
+	   }
 	   throw new ResourceNotFoundException(resourceBinding.toString());
 	}
    }
@@ -168,4 +231,133 @@ public class ClasspathFileStore extends AbstractFileStore implements FileStore {
 	throw new ResourceException("store.readonly.illegal", context.getName());
    }
 
+   /**
+    * The meta datas are read from the file, or from the jar entry, without opening the resource.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final String localPath = getLocalPath(resourceUri);
+
+	final ClasspathResourceIndex index = getClasspathIndex();
+	if (index != null) {
+	   final ClasspathResourceIndex.Entry entry = index.get(localPath);
+	   if (entry != null) { return createResourceMetadata(resourceUri.toString(), false, entry.size, entry.time); }
+	   if (index.isNotFound(localPath)) { throw new ResourceNotFoundException(resourceUri.toString()); }
+	}
+
+	final URL resourceUrl = JavaSystemHelper.getResource(getClassLoader(), localPath);
+	if (resourceUrl == null) {
+	   if (index != null) {
+		index.notFound(localPath);
+	   }
+	   throw new ResourceNotFoundException(resourceUri.toString());
+	}
+
+	if (!resourceUrl.getProtocol().equals("file") && !resourceUrl.getProtocol().equals("jar")) { return super.doStat(resourceUri); }
+
+	try {
+	   if (resourceUrl.getProtocol().equals("file")) {
+		final File resourceFile = new File(URLDecoder.decode(resourceUrl.getFile(), "UTF-8"));
+		return createResourceMetadata(resourceUri.toString(), resourceFile.isDirectory(), resourceFile.isDirectory() ? -1 : resourceFile
+			.length(), resourceFile.lastModified());
+	   } else {
+		final JarEntry entry = ((JarURLConnection) resourceUrl.openConnection()).getJarEntry();
+		return createResourceMetadata(resourceUri.toString(), entry.isDirectory(), entry.isDirectory() ? -1 : entry.getSize(), entry.getTime());
+	   }
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+   }
+
+   /**
+    * All the classpath entries containing the directory are listed (directories and jar files), the first entry wins for a given name.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	final String localPath = getLocalPath(directoryUri);
+	final String localDirectory = localPath.endsWith("/") ? localPath.substring(0, localPath.length() - 1) : localPath;
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	final Map<String, ResourceMetadata> children = new TreeMap<String, ResourceMetadata>();
+	boolean found = false;
+
+	try {
+	   final Enumeration<URL> directoryUrls = getClassLoader().getResources(localDirectory);
+	   while (directoryUrls.hasMoreElements()) {
+		final URL directoryUrl = directoryUrls.nextElement();
+
+		if (directoryUrl.getProtocol().equals("file")) {
+		   final File[] files = new File(URLDecoder.decode(directoryUrl.getFile(), "UTF-8")).listFiles();
+		   if (files != null) {
+			found = true;
+			for (final File file : files) {
+			   final String name = file.getName();
+			   if (!children.containsKey(name)) {
+				children.put(name, createResourceMetadata(parentUri + name.replace(" ", "%20"), file.isDirectory(), file.isDirectory() ? -1
+					: file.length(), file.lastModified()));
+			   }
+			}
+		   }
+		} else if (directoryUrl.getProtocol().equals("jar")) {
+		   found = true;
+		   final JarFile jarFile = ((JarURLConnection) directoryUrl.openConnection()).getJarFile();
+		   final String entryPrefix = localDirectory.length() > 0 ? localDirectory + "/" : "";
+		   final Enumeration<JarEntry> entries = jarFile.entries();
+		   while (entries.hasMoreElements()) {
+			final JarEntry entry = entries.nextElement();
+			if (entry.getName().startsWith(entryPrefix) && entry.getName().length() > entryPrefix.length()) {
+			   final String relativeName = entry.getName().substring(entryPrefix.length());
+			   final int separator = relativeName.indexOf('/');
+			   // a directory entry ends with a '/', and some jar files have no entry for their directories
+			   final String name = separator < 0 ? relativeName : relativeName.substring(0, separator);
+			   if (!children.containsKey(name)) {
+				if (separator < 0) {
+				   children.put(name, createResourceMetadata(parentUri + name.replace(" ", "%20"), false, entry.getSize(), entry.getTime()));
+				} else {
+				   children.put(name, createResourceMetadata(parentUri + name.replace(" ", "%20"), true, -1, 0));
+				}
+			   }
+			}
+		   }
+		}
+	   }
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, directoryUri.toString());
+	}
+
+	if (!found) { throw new ResourceNotFoundException(directoryUri.toString()); }
+	return ioIterable(children.values());
+   }
+
+   /**
+    * the opened jar files of the index are closed
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#destroy()
+    */
+   @Override
+   public void destroy() {
+	if (classpathIndex != null) {
+	   classpathIndex.close();
+	}
+	super.destroy();
+   }
+
+   /**
+    * @param resourceBinding
+    * @return path of the resource in the class loader
+    */
+   protected String getLocalPath(final URI resourceBinding) {
+	final StringBuilder localPath = new StringBuilder();
+
+	if (resourceBinding.getHost() != null) {
+	   localPath.append(resourceBinding.getHost()).append("/");
+	}
+	localPath.append(resourceBinding.getPath());
+
+	return (localPath.length() > 0 && localPath.charAt(0) == '/') ? localPath.substring(1) : localPath.toString();
+   }
+
 }
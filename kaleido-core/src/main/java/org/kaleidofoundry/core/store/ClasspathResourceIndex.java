@@ -0,0 +1,341 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipException;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Index of the resources of a class loader, used by {@link ClasspathFileStore} to find a resource without walking the class loader chain
+ * (see {@link FileStoreContextBuilder#ClasspathIndex}).<br/>
+ * <br/>
+ * The index is built once, from the classpath entries of the class loader and of its parents (directories, jar files and the jar files of
+ * their manifest <code>Class-Path</code>), the first entry wins for a given name like with the class loader. Each indexed resource knows
+ * its classpath entry, its size and its time, and it is read directly from its directory or from its jar file (opened once, on first use).<br/>
+ * <br/>
+ * The resources of the jdk class loaders are not indexed. So a resource which is not indexed is still looked up by the class loader, then
+ * it is remembered as not found, if it is (see {@link #isNotFound(String)}).<br/>
+ * <br/>
+ * The class loader chain can't be indexed if one of its class loaders is not an {@link URLClassLoader} (or the system class loader), or
+ * has a non local classpath entry (see {@link #build(ClassLoader)}).
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+class ClasspathResourceIndex {
+
+   /** max number of resources remembered as not found */
+   static final int MAX_NOT_FOUND = 10000;
+
+   private final ClassLoader classLoader;
+   private final List<Root> roots;
+   // indexed resources by name, never modified once built
+   private final Map<String, Entry> entries;
+   // names of the resources not found by the class loader
+   private final Set<String> notFound;
+
+   private ClasspathResourceIndex(final ClassLoader classLoader, final List<Root> roots, final Map<String, Entry> entries) {
+	this.classLoader = classLoader;
+	this.roots = roots;
+	this.entries = entries;
+	this.notFound = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+   }
+
+   /**
+    * build the index of the given class loader
+    *
+    * @param classLoader
+    * @return the index, <code>null</code> if the class loader chain can't be indexed
+    * @throws IOException
+    */
+   static ClasspathResourceIndex build(@NotNull final ClassLoader classLoader) throws IOException {
+	final List<File> classpath = classpathOf(classLoader);
+	if (classpath == null) { return null; }
+
+	final List<Root> roots = new ArrayList<Root>();
+	final Map<String, Entry> entries = new HashMap<String, Entry>();
+	final Set<File> visited = new HashSet<File>();
+	final LinkedList<File> toIndex = new LinkedList<File>(classpath);
+
+	while (!toIndex.isEmpty()) {
+	   final File file = toIndex.removeFirst().getCanonicalFile();
+	   if (!visited.add(file) || !file.exists()) {
+		continue;
+	   }
+	   final Root root = new Root(file);
+	   roots.add(root);
+	   if (root.jar) {
+		try {
+		   // the jar files of the manifest class path follow the jar file, like with the class loader
+		   toIndex.addAll(0, indexJar(root, entries));
+		} catch (final ZipException ze) {
+		   // not a jar file, the class loader ignores it as well
+		   roots.remove(root);
+		}
+	   } else {
+		indexDirectory(root, file, "", entries);
+	   }
+	}
+	return new ClasspathResourceIndex(classLoader, roots, entries);
+   }
+
+   /**
+    * @param classLoader
+    * @return the local classpath entries of the class loader chain, parents first, without the jdk ones. <code>null</code> if the chain
+    *         can't be indexed
+    */
+   static List<File> classpathOf(final ClassLoader classLoader) {
+	final ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+
+	// the jdk class loaders (bootstrap, platform or extension)
+	final Set<ClassLoader> jdkClassLoaders = new HashSet<ClassLoader>();
+	for (ClassLoader cl = systemClassLoader.getParent(); cl != null; cl = cl.getParent()) {
+	   jdkClassLoaders.add(cl);
+	}
+
+	final LinkedList<ClassLoader> chain = new LinkedList<ClassLoader>();
+	for (ClassLoader cl = classLoader; cl != null && !jdkClassLoaders.contains(cl); cl = cl.getParent()) {
+	   chain.addFirst(cl);
+	}
+
+	final List<File> classpath = new ArrayList<File>();
+	for (final ClassLoader cl : chain) {
+	   if (cl instanceof URLClassLoader) {
+		for (final URL url : ((URLClassLoader) cl).getURLs()) {
+		   final File file = toFile(url);
+		   if (file == null) { return null; }
+		   classpath.add(file);
+		}
+	   } else if (cl == systemClassLoader) {
+		final StringTokenizer tokens = new StringTokenizer(System.getProperty("java.class.path", ""), File.pathSeparator);
+		while (tokens.hasMoreTokens()) {
+		   classpath.add(new File(tokens.nextToken()));
+		}
+	   } else {
+		return null;
+	   }
+	}
+	return classpath;
+   }
+
+   /**
+    * @param resourceName
+    * @return the indexed resource, <code>null</code> if it is not indexed
+    */
+   Entry get(@NotNull final String resourceName) {
+	return entries.get(resourceName);
+   }
+
+   /**
+    * @param entry
+    * @return a new input stream of the indexed resource
+    * @throws IOException
+    */
+   InputStream open(@NotNull final Entry entry) throws IOException {
+	if (entry.root.jar) {
+	   final JarFile jarFile = entry.root.getJarFile();
+	   final JarEntry jarEntry = jarFile.getJarEntry(entry.name);
+	   if (jarEntry == null) { throw new IOException(entry.root.file.getPath() + "!/" + entry.name); }
+	   return jarFile.getInputStream(jarEntry);
+	} else {
+	   return new FileInputStream(new File(entry.root.file, entry.name));
+	}
+   }
+
+   /**
+    * @param resourceName
+    * @return <code>true</code> if the resource is remembered as not found by the class loader
+    */
+   boolean isNotFound(@NotNull final String resourceName) {
+	return notFound.contains(resourceName);
+   }
+
+   /**
+    * remember that the resource is not found by the class loader
+    *
+    * @param resourceName
+    */
+   void notFound(@NotNull final String resourceName) {
+	if (notFound.size() < MAX_NOT_FOUND) {
+	   notFound.add(resourceName);
+	}
+   }
+
+   /**
+    * @return indexed class loader
+    */
+   ClassLoader getClassLoader() {
+	return classLoader;
+   }
+
+   /**
+    * @return number of indexed resources
+    */
+   int size() {
+	return entries.size();
+   }
+
+   /**
+    * @return number of indexed classpath entries
+    */
+   int getRootCount() {
+	return roots.size();
+   }
+
+   /**
+    * close the opened jar files (they are opened again if needed)
+    */
+   void close() {
+	for (final Root root : roots) {
+	   root.close();
+	}
+   }
+
+   /*
+    * index the files of the directory and of its sub directories
+    */
+   private static void indexDirectory(final Root root, final File directory, final String prefix, final Map<String, Entry> entries) {
+	final File[] files = directory.listFiles();
+	if (files == null) { return; }
+	for (final File file : files) {
+	   final String name = prefix + file.getName();
+	   if (file.isDirectory()) {
+		indexDirectory(root, file, name + "/", entries);
+	   } else if (!entries.containsKey(name)) {
+		entries.put(name, new Entry(root, name, file.length(), file.lastModified()));
+	   }
+	}
+   }
+
+   /*
+    * index the entries of the jar file, returns the jar files of its manifest class path
+    */
+   private static List<File> indexJar(final Root root, final Map<String, Entry> entries) throws IOException {
+	final List<File> manifestClasspath = new ArrayList<File>();
+	final JarFile jarFile = new JarFile(root.file, false);
+	try {
+	   final Enumeration<JarEntry> jarEntries = jarFile.entries();
+	   while (jarEntries.hasMoreElements()) {
+		final JarEntry jarEntry = jarEntries.nextElement();
+		if (!jarEntry.isDirectory() && !entries.containsKey(jarEntry.getName())) {
+		   entries.put(jarEntry.getName(), new Entry(root, jarEntry.getName(), jarEntry.getSize(), jarEntry.getTime()));
+		}
+	   }
+
+	   final Manifest manifest = jarFile.getManifest();
+	   final String classpath = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) : null;
+	   if (classpath != null) {
+		final URL jarUrl = root.file.toURI().toURL();
+		final StringTokenizer tokens = new StringTokenizer(classpath);
+		while (tokens.hasMoreTokens()) {
+		   final File file = toFile(new URL(jarUrl, tokens.nextToken()));
+		   if (file != null) {
+			manifestClasspath.add(file);
+		   }
+		}
+	   }
+	} finally {
+	   jarFile.close();
+	}
+	return manifestClasspath;
+   }
+
+   /*
+    * local file of the url, null if it is not a local one
+    */
+   private static File toFile(final URL url) {
+	if (!"file".equals(url.getProtocol())) { return null; }
+	try {
+	   return new File(url.toURI());
+	} catch (final URISyntaxException use) {
+	   return new File(url.getPath());
+	} catch (final IllegalArgumentException iae) {
+	   return null;
+	}
+   }
+
+   /**
+    * An indexed resource
+    */
+   static final class Entry {
+	final Root root;
+	final String name;
+	final long size;
+	final long time;
+
+	Entry(final Root root, final String name, final long size, final long time) {
+	   this.root = root;
+	   this.name = name;
+	   this.size = size;
+	   this.time = time;
+	}
+   }
+
+   /**
+    * An indexed classpath entry, directory or jar file
+    */
+   static final class Root {
+	final File file;
+	final boolean jar;
+	private JarFile jarFile;
+
+	Root(final File file) {
+	   this.file = file;
+	   this.jar = file.isFile();
+	}
+
+	synchronized JarFile getJarFile() throws IOException {
+	   if (jarFile == null) {
+		jarFile = new JarFile(file, false);
+	   }
+	   return jarFile;
+	}
+
+	synchronized void close() {
+	   if (jarFile != null) {
+		try {
+		   jarFile.close();
+		} catch (final IOException ioe) {
+		}
+		jarFile = null;
+	   }
+	}
+   }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.Nullable;
+
+/**
+ * Compression codecs of the {@link FileStore} resources (see {@link FileStoreContextBuilder#Compression}).<br/>
+ * <br/>
+ * A compressed content is stored with a marker of the store and the id of its codec, followed by the content in the standard format of the
+ * codec. Only a content carrying this marker is decompressed, so a stored gzip file, or a text starting like a zlib header, is read as is,
+ * whatever the store is. The compression and the decompression are streamed, the content is never read at once.
+ * 
+ * @author jraduget
+ */
+public enum CompressionCodec {
+
+   /** gzip format (rfc 1952), a stored resource is a regular gzip file after its header */
+   gzip((byte) 'g') {
+	@Override
+	public InputStream compress(final InputStream in, final int level) {
+	   return new GzipCompressingInputStream(in, level);
+	}
+
+	@Override
+	public InputStream decompress(final InputStream in) throws IOException {
+	   return new GZIPInputStream(in, BUFFER_SIZE);
+	}
+   },
+
+   /** zlib format (rfc 1950), deflate with a two bytes header and an adler32 trailer */
+   deflate((byte) 'd') {
+	@Override
+	public InputStream compress(final InputStream in, final int level) {
+	   final Deflater deflater = new Deflater(level);
+	   return new DeflaterInputStream(in, deflater, BUFFER_SIZE) {
+		@Override
+		public void close() throws IOException {
+		   try {
+			super.close();
+		   } finally {
+			deflater.end();
+		   }
+		}
+	   };
+	}
+
+	@Override
+	public InputStream decompress(final InputStream in) {
+	   return new InflaterInputStream(in);
+	}
+   };
+
+   // marker of a compressed content, 0xc1 is never found in an utf-8 text
+   private static final byte[] MARKER = { (byte) 0xc1, 'k', 'f', 's', 'z' };
+
+   /** length of the header written before a compressed content : the marker, then the id of the codec */
+   static final int HEADER_LENGTH = MARKER.length + 1;
+
+   private static final int BUFFER_SIZE = 8192;
+
+   private final byte id;
+
+   CompressionCodec(final byte id) {
+	this.id = id;
+   }
+
+   /**
+    * @param in content to compress, it is closed with the returned stream
+    * @param level compression level, from 1 (fastest) to 9 (smallest), -1 for the default one
+    * @return compressed content stream
+    */
+   public abstract InputStream compress(@NotNull InputStream in, int level);
+
+   /**
+    * @param in compressed content, it is closed with the returned stream
+    * @return decompressed content stream
+    * @throws IOException
+    */
+   public abstract InputStream decompress(@NotNull InputStream in) throws IOException;
+
+   /**
+    * @param in content to store, it is closed with the returned stream
+    * @param level compression level, from 1 (fastest) to 9 (smallest), -1 for the default one
+    * @return the header of the codec (see {@link #HEADER_LENGTH}), followed by the compressed content
+    */
+   InputStream encode(@NotNull final InputStream in, final int level) {
+	final byte[] header = Arrays.copyOf(MARKER, HEADER_LENGTH);
+	header[MARKER.length] = id;
+	return new SequenceInputStream(new ByteArrayInputStream(header), compress(in, level));
+   }
+
+   /**
+    * @param header first bytes of a stored content
+    * @param length number of bytes of the header
+    * @return the codec of the content, <code>null</code> if it does not start with the header of a codec, see
+    *         {@link #encode(InputStream, int)}
+    */
+   @Nullable
+   public static CompressionCodec detect(@NotNull final byte[] header, final int length) {
+	if (length < HEADER_LENGTH) { return null; }
+	for (int i = 0; i < MARKER.length; i++) {
+	   if (header[i] != MARKER[i]) { return null; }
+	}
+	for (final CompressionCodec codec : values()) {
+	   if (codec.id == header[MARKER.length]) { return codec; }
+	}
+	return null;
+   }
+
+   /**
+    * Gzip compression of a stream : the gzip header, then the deflated content, then the crc32 / size trailer, which is computed once the
+    * whole content is read.
+    */
+   static class GzipCompressingInputStream extends InputStream {
+
+	// magic number, deflate method, no flag, no time, default extra flag, unknown os
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final CRC32 crc;
+	private final Deflater deflater;
+	private final InputStream deflated;
+	private InputStream part;
+	private int stage;
+
+	GzipCompressingInputStream(final InputStream in, final int level) {
+	   crc = new CRC32();
+	   deflater = new Deflater(level, true);
+	   deflated = new DeflaterInputStream(new CheckedInputStream(in, crc), deflater, BUFFER_SIZE);
+	   part = new ByteArrayInputStream(HEADER);
+	}
+
+	@Override
+	public int read() throws IOException {
+	   final byte[] b = new byte[1];
+	   return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   if (len == 0) { return 0; }
+	   while (part != null) {
+		final int count = part.read(b, off, len);
+		if (count > 0) { return count; }
+		if (count < 0) {
+		   nextPart();
+		}
+	   }
+	   return -1;
+	}
+
+	@Override
+	public void close() throws IOException {
+	   try {
+		deflated.close();
+	   } finally {
+		deflater.end();
+	   }
+	}
+
+	private void nextPart() {
+	   stage++;
+	   if (stage == 1) {
+		part = deflated;
+	   } else if (stage == 2) {
+		final long value = crc.getValue();
+		final long size = deflater.getBytesRead();
+		part = new ByteArrayInputStream(new byte[] { (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24),
+			(byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24) });
+	   } else {
+		part = null;
+	   }
+	}
+   }
+}
@@ -22,9 +22,12 @@ import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 import org.kaleidofoundry.core.context.Provider;
 import org.kaleidofoundry.core.context.Scope;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Stateless;
 import org.kaleidofoundry.core.plugin.Declare;
@@ -125,6 +128,19 @@ public interface FileStore extends Store<String, ResourceHandler> {
    @NotNull
    FileStore store(@NotNull ResourceHandler resource) throws ResourceException;
 
+   /**
+    * Store several resources together<br/>
+    * A store which supports it commits them all or none of them (see {@link FileSystemStore}, with atomic writes), other ones store them one
+    * by one.
+    * 
+    * @param resources resources to store
+    * @return current instance of the store
+    * @throws ResourceException
+    * @throws IllegalArgumentException if a resource uri is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   FileStore store(@NotNull Collection<ResourceHandler> resources) throws ResourceException;
+
    /**
     * Remove resource identify by its resource binding
     * 
@@ -150,7 +166,22 @@ public interface FileStore extends Store<String, ResourceHandler> {
    boolean exists(@NotNull String resourceRelativePath) throws ResourceException;
 
    /**
-    * Move a resource from a destination to another
+    * Get the meta datas of a resource (length, last modification, entity tag, mime type), without reading its content<br/>
+    * It is processed natively by the store when it can (http HEAD request, file attributes, jpa projection query...).
+    * 
+    * @param resourceRelativePath relative resource path (relative from the store root uri)
+    * @return meta datas of the resource
+    * @throws ResourceNotFoundException if resource can't be found for the uri
+    * @throws ResourceException other kind of error
+    * @throws IllegalArgumentException if resourceRelativePath parameter is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   ResourceMetadata stat(@NotNull String resourceRelativePath) throws ResourceNotFoundException, ResourceException;
+
+   /**
+    * Move a resource from a destination to another<br/>
+    * When the store can do it natively (file rename, database update...), the content is not transferred. Otherwise, the resource is copied
+    * to the destination, then removed.
     * 
     * @param origin relative original resource path (relative from the store root uri)
     * @param destination relative destination resource path (relative from the store root uri)
@@ -162,6 +193,155 @@ public interface FileStore extends Store<String, ResourceHandler> {
    @NotNull
    FileStore move(@NotNull String origin, @NotNull String destination) throws ResourceNotFoundException, ResourceException;
 
+   /**
+    * Copy a resource of this store to another store<br/>
+    * The content is streamed : the target store pulls it chunk by chunk, so only a chunk is held in memory whatever the resource size.<br/>
+    * Inside a single store, the copy is done natively when the store can.
+    * 
+    * @param origin relative original resource path (relative from the store root uri)
+    * @param targetStore store to copy the resource to (it can be the current one)
+    * @param destination relative destination resource path (relative from the target store root uri)
+    * @return current instance of the store
+    * @throws ResourceNotFoundException if resource can't be found for the uri
+    * @throws ResourceException
+    * @throws IllegalArgumentException if resourceRelativePath parameter is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   FileStore copy(@NotNull String origin, @NotNull FileStore targetStore, @NotNull String destination) throws ResourceNotFoundException,
+	   ResourceException;
+
+   /**
+    * Get several resources, processed in parallel (see {@link FileStoreContextBuilder#BatchParallelism})<br/>
+    * Once done, free each succeeded resource with {@link ResourceHandler#close()}
+    * 
+    * @param resourceRelativePaths relative resource paths (relative from the store root uri)
+    * @return resource handlers and errors, by resource path
+    */
+   @NotNull
+   BatchResult<ResourceHandler> getAll(@NotNull Collection<String> resourceRelativePaths);
+
+   /**
+    * Store several resources, processed in parallel (see {@link FileStoreContextBuilder#BatchParallelism})<br/>
+    * Unlike {@link #store(Collection)}, each resource is stored on its own : a failure does not prevent the other ones to be stored.
+    * 
+    * @param resources resources to store
+    * @return errors by resource path
+    */
+   @NotNull
+   BatchResult<Void> storeAll(@NotNull Collection<ResourceHandler> resources);
+
+   /**
+    * Remove several resources, processed in parallel (see {@link FileStoreContextBuilder#BatchParallelism})
+    * 
+    * @param resourceRelativePaths relative resource paths (relative from the store root uri)
+    * @return errors by resource path
+    */
+   @NotNull
+   BatchResult<Void> removeAll(@NotNull Collection<String> resourceRelativePaths);
+
+   /**
+    * Copy several resources of a tree to another store (or to another tree of this store), processed in parallel (see
+    * {@link FileStoreContextBuilder#BatchParallelism})
+    * 
+    * @param originRoot relative path of the origin tree root (relative from the store root uri)
+    * @param resourceRelativePaths resource paths, relative from the origin tree root
+    * @param targetStore store to copy the resources to (it can be the current one)
+    * @param destinationRoot relative path of the destination tree root (relative from the target store root uri)
+    * @return errors by resource path
+    */
+   @NotNull
+   BatchResult<Void> copyTree(@NotNull String originRoot, @NotNull Collection<String> resourceRelativePaths, @NotNull FileStore targetStore,
+	   @NotNull String destinationRoot);
+
+   /**
+    * List the direct children of a directory, without reading their content<br/>
+    * The listing is lazy, it has to be closed once consumed :
+    * 
+    * <pre>
+    * final IoIterable&lt;ResourceMetadata&gt; resources = store.list(&quot;reports/2021&quot;);
+    * try {
+    *    for (ResourceMetadata resource : resources) {
+    *       ...
+    *    }
+    * } finally {
+    *    resources.close();
+    * }
+    * </pre>
+    * 
+    * @param resourceRelativePath relative path of the directory (relative from the store root uri)
+    * @return meta datas of the direct children
+    * @throws ResourceNotFoundException if the directory can't be found
+    * @throws ResourceException if the store does not support listing, or if an error occurred
+    */
+   @NotNull
+   IoIterable<ResourceMetadata> list(@NotNull String resourceRelativePath) throws ResourceNotFoundException, ResourceException;
+
+   /**
+    * Walk the tree of a directory, without reading the content of its resources<br/>
+    * The traversal is lazy and depth first : a directory is listed only when the iteration reaches it. The walk has to be closed once
+    * consumed.
+    * 
+    * @param resourceRelativePath relative path of the directory (relative from the store root uri)
+    * @param maxDepth max depth of the walk, 1 for the direct children only, -1 for no limit
+    * @return meta datas of the resources of the tree, a directory comes before its children
+    * @throws ResourceNotFoundException if the directory can't be found
+    * @throws ResourceException if the store does not support listing, or if an error occurred
+    */
+   @NotNull
+   IoIterable<ResourceMetadata> walk(@NotNull String resourceRelativePath, int maxDepth) throws ResourceNotFoundException, ResourceException;
+
+   /**
+    * Asynchronous version of {@link #get(String)}<br/>
+    * The operation is run by the bounded executor of the store ({@link FileStoreContextBuilder#AsyncThreads}). A failed attempt is retried
+    * after an exponential backoff delay, without blocking any thread. The future fails with a {@link java.util.concurrent.TimeoutException}
+    * after {@link FileStoreContextBuilder#AsyncTimeout}.
+    * 
+    * @param resourceRelativePath relative resource path (relative from the store root uri)
+    * @return future resource handler
+    * @throws IllegalArgumentException if resourceRelativePath parameter is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   CompletableFuture<ResourceHandler> getAsync(@NotNull String resourceRelativePath);
+
+   /**
+    * Asynchronous version of {@link #store(ResourceHandler)}, see {@link #getAsync(String)}
+    * 
+    * @param resource resource to store
+    * @return future current instance of the store
+    * @throws IllegalArgumentException if the resource uri is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   CompletableFuture<FileStore> storeAsync(@NotNull ResourceHandler resource);
+
+   /**
+    * Asynchronous version of {@link #remove(String)}, see {@link #getAsync(String)}
+    * 
+    * @param resourceRelativePath relative resource path (relative from the store root uri)
+    * @return future current instance of the store
+    * @throws IllegalArgumentException if resourceRelativePath parameter is invalid - see ({@link URI#create(String)})
+    */
+   @NotNull
+   CompletableFuture<FileStore> removeAsync(@NotNull String resourceRelativePath);
+
+   /**
+    * Asynchronous version of {@link #move(String, String)}, see {@link #getAsync(String)}
+    * 
+    * @param origin relative original resource path (relative from the store root uri)
+    * @param destination relative destination resource path (relative from the store root uri)
+    * @return future current instance of the store
+    */
+   @NotNull
+   CompletableFuture<FileStore> moveAsync(@NotNull String origin, @NotNull String destination);
+
+   /**
+    * Asynchronous version of {@link #exists(String)}, see {@link #getAsync(String)}
+    * 
+    * @param resourceRelativePath relative resource path (relative from the store root uri)
+    * @return future existence of the resource
+    */
+   @NotNull
+   CompletableFuture<Boolean> existsAsync(@NotNull String resourceRelativePath);
+
    /**
     * Check the uri validity for the current store
     * 
@@ -16,29 +16,49 @@
 package org.kaleidofoundry.core.store;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.io.Serializable;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import javax.ejb.Stateless;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 
@@ -49,6 +69,15 @@ import org.kaleidofoundry.core.util.StringHelper;
 /**
  * Simulate some Unix command (like head, tail, ..) on a text file content (like logging, traces...) <br/>
  * <br/>
+ * For a resource of a {@link FileSystemStore} (not compressed), the file is accessed directly : {@link #tail(String, Map)} reads it
+ * backward from its end, {@link #extract(String, Map)} seeks the first line thanks to a sparse line index cached per registered resource, and
+ * {@link #follow(String, long, Map, StringBuilder)} only reads the lines appended since a previous call. The other resources are read from
+ * the beginning.<br/>
+ * <br/>
+ * {@link #search(Collection, String, Map)} looks for a literal text or a regular expression in the registered resources, like grep. The
+ * resources are scanned in parallel (the local files through memory mapped windows), and the scan stops as soon as the maximum number of
+ * matching lines is reached.<br/>
+ * <br/>
  * It can be used as :
  * <ul>
  * <li>a classic class, that you instantiate</li>
@@ -68,7 +97,9 @@ public class FileStoreConsoleController {
    public static enum Operation {
 	Head,
 	Tail,
-	Extract
+	Extract,
+	Follow,
+	Search
    }
 
    /** Argument to specify the operation type */
@@ -87,16 +118,58 @@ public class FileStoreConsoleController {
    public static final String CUTLINE_ARGS = "cut";
    /** Argument to specify if output must be rendered as html */
    public static final String HTML_ARGS = "html";
+   /** Argument to specify the byte position from which a resource is followed */
+   public static final String POSITION_ARGS = "position";
+   /** Argument to specify if the searched pattern is a regular expression, instead of a literal text */
+   public static final String REGEX_ARGS = "regex";
+   /** Argument to specify if the search ignores the case */
+   public static final String IGNORECASE_ARGS = "ignoreCase";
+   /** Argument to specify the number of context lines given before and after each matching line of a search */
+   public static final String CONTEXT_ARGS = "context";
+
+   /** Response header giving the byte position to use for the next follow request */
+   public static final String POSITION_HEADER = "X-Console-Position";
 
    /** The default line count result of a tail command. it will be used if {@link #MAXLINE_COUNT_ARGS} is not specified, */
    public static final Long DEFAULT_MAXLINE_COUNT = 10L;
 
+   /** The default number of matching lines of a search. it will be used if {@link #MAXLINE_COUNT_ARGS} is not specified, */
+   public static final Long DEFAULT_MAXMATCH_COUNT = 100L;
+
+   /** The maximum length of a searched pattern */
+   public static final int MAX_PATTERN_LENGTH = 256;
+
+   /** The maximum number of matching lines of a search, see {@link #MAXLINE_COUNT_ARGS} */
+   public static final long MAX_MATCH_COUNT = 10000L;
+
+   /** The maximum number of context lines given before and after each matching line of a search, see {@link #CONTEXT_ARGS} */
+   public static final int MAX_CONTEXT_LINES = 100;
+
+   /** The maximum duration of a search in milliseconds, the searches still running are then interrupted */
+   public static final long SEARCH_TIMEOUT = 10000L;
+
+   // shared executor of the searches (daemon threads) : a request does not create its own threads
+   private static final ExecutorService SEARCH_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+	   new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+		   final Thread thread = new Thread(runnable, "kaleido-console-search-" + count.incrementAndGet());
+		   thread.setDaemon(true);
+		   return thread;
+		}
+	   });
+
    /** Set of all parameters names */
    public static final Set<String> ARGS = Collections.synchronizedSet(new TreeSet<String>());
 
    /** All registered resources */
    public static final Set<String> REGISTERED_RESOURCES = Collections.synchronizedSet(new HashSet<String>());
 
+   /** Line indexes of the registered resources, which are local files */
+   static final ConcurrentMap<String, LineIndex> LINE_INDEXES = new ConcurrentHashMap<String, LineIndex>();
+
    static {
 	ARGS.add(BEGINLINE_ARGS);
 	ARGS.add(CHARSET_ARGS);
@@ -105,6 +178,10 @@ public class FileStoreConsoleController {
 	ARGS.add(OPERATION_ARGS);
 	ARGS.add(CUTLINE_ARGS);
 	ARGS.add(HTML_ARGS);
+	ARGS.add(POSITION_ARGS);
+	ARGS.add(REGEX_ARGS);
+	ARGS.add(IGNORECASE_ARGS);
+	ARGS.add(CONTEXT_ARGS);
    }
 
    /** injected and used to handle security context */
@@ -131,6 +208,10 @@ public class FileStoreConsoleController {
 	str.append("<li>").append(COUNTLINE_ARGS).append("=true|false</li>");
 	str.append("<li>").append(CUTLINE_ARGS).append("=120</li>");
 	str.append("<li>").append(HTML_ARGS).append("=true|false</li>");
+	str.append("<li>").append(POSITION_ARGS).append("=...byte position to follow from...</li>");
+	str.append("<li>").append(REGEX_ARGS).append("=true|false</li>");
+	str.append("<li>").append(IGNORECASE_ARGS).append("=true|false</li>");
+	str.append("<li>").append(CONTEXT_ARGS).append("=2</li>");
 	str.append("</ul>");
 	str.append("</p>");
 
@@ -210,8 +291,9 @@ public class FileStoreConsoleController {
    @Produces({ MediaType.TEXT_PLAIN, MediaType.TEXT_HTML })
    public synchronized String unregister(@QueryParam("resource") final String resource) throws ResourceNotFoundException {
 
-	if (!REGISTERED_RESOURCES.contains(resource)) {
+	if (REGISTERED_RESOURCES.contains(resource)) {
 	   REGISTERED_RESOURCES.remove(resource);
+	   LINE_INDEXES.remove(resource);
 	   return info();
 	} else {
 	   throw new ResourceNotFoundException(resource);
@@ -340,7 +422,18 @@ public class FileStoreConsoleController {
 	final Map<String, Serializable> typedParameters = typedParameters(parameters);
 	final Number maxLineCountArg = (Number) typedParameters.get(MAXLINE_COUNT_ARGS);
 	final long maxLine = maxLineCountArg != null ? maxLineCountArg.longValue() : DEFAULT_MAXLINE_COUNT;
-	final Reader reader = new InputStreamReader(in(resource, typedParameters).getInputStream());
+	final Charset charset = charset(typedParameters);
+
+	// local file, read backward from its end
+	final LineIndex lineIndex = lineIndex(resource, charset);
+	if (lineIndex != null) {
+	   final LinkedList<String> queue = new LinkedList<String>();
+	   lineIndex.readLines(lineIndex.tailOffset(maxLine), maxLine, charset, false, queue);
+	   final long fromIndex = Boolean.TRUE.equals(typedParameters.get(COUNTLINE_ARGS)) ? lineIndex.getLineCount() - queue.size() : 0;
+	   return format(queue, typedParameters, fromIndex).toString();
+	}
+
+	final Reader reader = new InputStreamReader(in(resource, typedParameters).getInputStream(), charset);
 	BufferedReader buffReader = null;
 
 	try {
@@ -407,7 +500,15 @@ public class FileStoreConsoleController {
 
 	final long beginLine = beginLineArg != null && beginLineArg.longValue() > 0 ? beginLineArg.longValue() : 1;
 	final long maxLine = maxLineCountArg != null ? maxLineCountArg.longValue() : DEFAULT_MAXLINE_COUNT;
-	final Charset charset = (Charset) typepParameters.get(CHARSET_ARGS);
+	final Charset charset = charset(typepParameters);
+
+	// local file, seek the first line using the line index
+	final LineIndex lineIndex = lineIndex(resource, charset);
+	if (lineIndex != null) {
+	   final LinkedList<String> queue = new LinkedList<String>();
+	   lineIndex.readLines(lineIndex.lineOffset(beginLine - 1), maxLine, charset, false, queue);
+	   return format(queue, typepParameters, beginLine - 1).toString();
+	}
 
 	Reader reader = null;
 	BufferedReader buffReader = null;
@@ -417,11 +518,7 @@ public class FileStoreConsoleController {
 	   long index = 1;
 	   LinkedList<String> queue = new LinkedList<String>();
 
-	   if (charset == null) {
-		reader = new InputStreamReader(in(resource, typepParameters).getInputStream());
-	   } else {
-		reader = new InputStreamReader(in(resource, typepParameters).getInputStream(), charset);
-	   }
+	   reader = new InputStreamReader(in(resource, typepParameters).getInputStream(), charset);
 	   buffReader = new BufferedReader(reader);
 
 	   while ((currentLine = buffReader.readLine()) != null && index < beginLine + maxLine) {
@@ -440,6 +537,197 @@ public class FileStoreConsoleController {
 	}
    }
 
+   /**
+    * follow command on a file resource (like <code>tail -f</code>), to be called periodically
+    * 
+    * @param resource the resource which we want to follow the contents
+    * @param position byte position returned by the previous call, or <code>-1</code> to begin with the last lines
+    * @return the lines appended since the position, the position to use for the next call is given by the {@link #POSITION_HEADER} header
+    * @throws ResourceException
+    * @throws IOException
+    */
+   @GET
+   @Path("follow")
+   @Produces({ MediaType.TEXT_PLAIN, MediaType.TEXT_HTML })
+   public Response follow(@QueryParam("resource") final String resource, @QueryParam(POSITION_ARGS) @DefaultValue("-1") final long position)
+	   throws ResourceException, IOException {
+	final Map<String, Serializable> parameters = new HashMap<String, Serializable>();
+	parameters.put(OPERATION_ARGS, Operation.Follow);
+	final StringBuilder output = new StringBuilder();
+	final long nextPosition = follow(resource, position, addUriParameters(parameters), output);
+	return Response.ok(output.toString()).header(POSITION_HEADER, nextPosition).build();
+   }
+
+   /**
+    * follow command on a file resource (like <code>tail -f</code>), to be called periodically.<br/>
+    * Only the complete lines are read, a line being written will be given by a next call.
+    * 
+    * @param resource the resource which we want to follow the contents
+    * @param position byte position returned by the previous call, or <code>-1</code> to begin with the last lines (see
+    *           {@link #MAXLINE_COUNT_ARGS})
+    * @param parameters
+    * @param output where to append the lines read
+    * @return the byte position to use for the next call
+    * @throws ResourceException
+    * @throws IOException
+    */
+   public long follow(final String resource, final long position, final Map<String, Serializable> parameters, final StringBuilder output)
+	   throws ResourceException, IOException {
+
+	final Map<String, Serializable> typedParameters = typedParameters(parameters);
+	final Number maxLineCountArg = (Number) typedParameters.get(MAXLINE_COUNT_ARGS);
+	final Charset charset = charset(typedParameters);
+	final LinkedList<String> queue = new LinkedList<String>();
+	final long nextPosition;
+
+	if (!LineIndex.isSupported(charset)) { throw new IllegalArgumentException("Parameter '" + CHARSET_ARGS + "' " + charset.name()
+		+ " is not supported by the follow command."); }
+	// lines numbers are unknown from a byte position
+	typedParameters.remove(COUNTLINE_ARGS);
+
+	final LineIndex lineIndex = lineIndex(resource, charset);
+	if (lineIndex != null) {
+	   long fromPosition = position;
+	   if (fromPosition < 0) {
+		fromPosition = lineIndex.tailOffset(maxLineCountArg != null ? maxLineCountArg.longValue() : DEFAULT_MAXLINE_COUNT);
+	   } else if (fromPosition > lineIndex.getFile().length()) {
+		// truncated or rotated file, follow it from its beginning
+		fromPosition = 0;
+	   }
+	   final long maxLine = position >= 0 && maxLineCountArg != null ? maxLineCountArg.longValue() : Long.MAX_VALUE;
+	   nextPosition = lineIndex.readLines(fromPosition, maxLine, charset, true, queue);
+	} else {
+	   // no direct access to the resource, it is read from its beginning
+	   final InputStream in = in(resource, typedParameters).getInputStream();
+	   try {
+		if (position < 0) {
+		   nextPosition = LineIndex.tailLines(in, 0, maxLineCountArg != null ? maxLineCountArg.longValue() : DEFAULT_MAXLINE_COUNT, charset, true, queue);
+		} else {
+		   long skipped = 0;
+		   long count;
+		   while (skipped < position && (count = in.skip(position - skipped)) > 0) {
+			skipped += count;
+		   }
+		   nextPosition = LineIndex.readLines(in, skipped, maxLineCountArg != null ? maxLineCountArg.longValue() : Long.MAX_VALUE, charset, true,
+			   queue);
+		}
+	   } finally {
+		in.close();
+	   }
+	}
+
+	output.append(format(queue, typedParameters, 0));
+	return nextPosition;
+   }
+
+   /**
+    * search command (like grep) on registered resources
+    * 
+    * @param pattern the literal text or regular expression (see {@link #REGEX_ARGS}) to look for
+    * @param resources the resources to search in, all the registered resources if none
+    * @return matching lines (prefixed by the resource name and the line number) and their context lines
+    * @throws ResourceException
+    * @throws IOException
+    */
+   @GET
+   @Path("search")
+   @Produces({ MediaType.TEXT_PLAIN, MediaType.TEXT_HTML })
+   public String search(@QueryParam("pattern") final String pattern, @QueryParam("resource") final List<String> resources) throws ResourceException,
+	   IOException {
+	final Map<String, Serializable> parameters = new HashMap<String, Serializable>();
+	parameters.put(OPERATION_ARGS, Operation.Search);
+	return search(resources, pattern, addUriParameters(parameters));
+   }
+
+   /**
+    * search command (like grep) on registered resources.<br/>
+    * The resources are scanned in parallel, and the scan stops when {@link #MAXLINE_COUNT_ARGS} matching lines (default
+    * {@link #DEFAULT_MAXMATCH_COUNT}) have been found. The pattern length is bounded by {@link #MAX_PATTERN_LENGTH}, the matching lines by
+    * {@link #MAX_MATCH_COUNT}, the context lines by {@link #MAX_CONTEXT_LINES}, and the search by {@link #SEARCH_TIMEOUT} : the result is
+    * kept in memory, and a regular expression given by a caller can backtrack for a very long time.
+    * 
+    * @param resources the resources to search in, all the registered resources if <code>null</code> or empty
+    * @param pattern the literal text or regular expression (see {@link #REGEX_ARGS}) to look for
+    * @param parameters
+    * @return matching lines (prefixed by the resource name and the line number) and their context lines
+    * @throws ResourceException
+    * @throws IOException
+    * @see #REGEX_ARGS
+    * @see #IGNORECASE_ARGS
+    * @see #CONTEXT_ARGS
+    * @see #MAXLINE_COUNT_ARGS
+    */
+   public String search(final Collection<String> resources, final String pattern, final Map<String, Serializable> parameters) throws ResourceException,
+	   IOException {
+
+	if (StringHelper.isEmpty(pattern)) { throw new IllegalArgumentException("Parameter 'pattern' is required."); }
+	if (pattern.length() > MAX_PATTERN_LENGTH) { throw new IllegalArgumentException("Parameter 'pattern' is limited to " + MAX_PATTERN_LENGTH
+		+ " characters."); }
+
+	final Map<String, Serializable> typedParameters = typedParameters(parameters);
+	final Number maxLineCountArg = (Number) typedParameters.get(MAXLINE_COUNT_ARGS);
+	final Number contextArg = (Number) typedParameters.get(CONTEXT_ARGS);
+	final long maxMatch = maxLineCountArg != null ? maxLineCountArg.longValue() : DEFAULT_MAXMATCH_COUNT;
+	final int context = contextArg != null ? contextArg.intValue() : 0;
+	if (maxMatch > MAX_MATCH_COUNT) { throw new IllegalArgumentException("Parameter '" + MAXLINE_COUNT_ARGS + "' is limited to " + MAX_MATCH_COUNT
+		+ " for a search."); }
+	if (context > MAX_CONTEXT_LINES) { throw new IllegalArgumentException("Parameter '" + CONTEXT_ARGS + "' is limited to " + MAX_CONTEXT_LINES
+		+ " lines."); }
+	final Charset charset = charset(typedParameters);
+
+	int flags = Boolean.TRUE.equals(typedParameters.get(REGEX_ARGS)) ? 0 : Pattern.LITERAL;
+	if (Boolean.TRUE.equals(typedParameters.get(IGNORECASE_ARGS))) {
+	   flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+	}
+	final Pattern compiledPattern = Pattern.compile(pattern, flags);
+
+	// searched resources, sorted for a stable output
+	final Set<String> searchedResources = new TreeSet<String>();
+	if (resources == null || resources.isEmpty()) {
+	   synchronized (REGISTERED_RESOURCES) {
+		searchedResources.addAll(REGISTERED_RESOURCES);
+	   }
+	} else {
+	   for (final String resource : resources) {
+		if (!REGISTERED_RESOURCES.contains(resource)) { throw new ResourceNotFoundException(resource); }
+		searchedResources.add(resource);
+	   }
+	}
+
+	// the matches count is shared by all the searches
+	final AtomicLong remainingMatches = new AtomicLong(maxMatch);
+	final List<LineSearch> searches = new ArrayList<LineSearch>();
+	for (final String resource : searchedResources) {
+	   final LineIndex lineIndex = lineIndex(resource, charset);
+	   searches.add(new LineSearch(resource, lineIndex != null ? lineIndex.getFile() : null, new Callable<InputStream>() {
+		@Override
+		public InputStream call() throws ResourceException {
+		   return in(resource, typedParameters).getInputStream();
+		}
+	   }, charset, compiledPattern, context, remainingMatches));
+	}
+
+	final Map<String, List<LineSearch.Line>> results = new LinkedHashMap<String, List<LineSearch.Line>>();
+	try {
+	   // the searches not completed in time are cancelled (interrupted)
+	   final List<Future<List<LineSearch.Line>>> futures = SEARCH_EXECUTOR.invokeAll(searches, SEARCH_TIMEOUT, TimeUnit.MILLISECONDS);
+	   for (int i = 0; i < searches.size(); i++) {
+		if (futures.get(i).isCancelled()) { throw new InterruptedIOException("search of '" + searches.get(i).getResource()
+			+ "' not completed in " + SEARCH_TIMEOUT + " ms"); }
+		results.put(searches.get(i).getResource(), futures.get(i).get());
+	   }
+	} catch (final ExecutionException ee) {
+	   throw searchError(ee.getCause());
+	} catch (final InterruptedException ie) {
+	   Thread.currentThread().interrupt();
+	   throw new InterruptedIOException(ie.getMessage());
+	} catch (final Exception e) {
+	   throw searchError(e);
+	}
+
+	return formatSearch(results, compiledPattern, typedParameters).toString();
+   }
+
    /**
     * Type the parameters input
     * 
@@ -588,6 +876,69 @@ public class FileStoreConsoleController {
 	   }
 	}
 
+	// Search pattern is a regular expression
+	{
+	   final Serializable regex = parameters.get(REGEX_ARGS);
+	   if (regex != null) {
+		if (regex instanceof Boolean) {
+		   isOk = true;
+		   typedParameters.put(REGEX_ARGS, regex);
+		} else {
+		   if (regex instanceof String) {
+			typedParameters.put(REGEX_ARGS, Boolean.valueOf((String) regex));
+			isOk = true;
+		   } else {
+			isOk = false;
+			msgErr = "Parameter '" + REGEX_ARGS + "' must be java.lang.Boolean instance.";
+		   }
+		}
+
+		if (!isOk) { throw new IllegalArgumentException(msgErr); }
+	   }
+	}
+
+	// Search ignoring the case
+	{
+	   final Serializable ignoreCase = parameters.get(IGNORECASE_ARGS);
+	   if (ignoreCase != null) {
+		if (ignoreCase instanceof Boolean) {
+		   isOk = true;
+		   typedParameters.put(IGNORECASE_ARGS, ignoreCase);
+		} else {
+		   if (ignoreCase instanceof String) {
+			typedParameters.put(IGNORECASE_ARGS, Boolean.valueOf((String) ignoreCase));
+			isOk = true;
+		   } else {
+			isOk = false;
+			msgErr = "Parameter '" + IGNORECASE_ARGS + "' must be java.lang.Boolean instance.";
+		   }
+		}
+
+		if (!isOk) { throw new IllegalArgumentException(msgErr); }
+	   }
+	}
+
+	// Search context lines
+	{
+	   final Serializable context = parameters.get(CONTEXT_ARGS);
+	   if (context != null) {
+		if (context instanceof Number) {
+		   isOk = true;
+		   typedParameters.put(CONTEXT_ARGS, context);
+		} else if (context instanceof String) {
+		   try {
+			typedParameters.put(CONTEXT_ARGS, Integer.valueOf((String) context));
+			isOk = true;
+		   } catch (final NumberFormatException nbe) {
+			isOk = false;
+			msgErr = "Parameter '" + CONTEXT_ARGS + "' must be java.lang.Number instance.";
+		   }
+		}
+
+		if (!isOk) { throw new IllegalArgumentException(msgErr); }
+	   }
+	}
+
 	return typedParameters;
    }
 
@@ -613,6 +964,46 @@ public class FileStoreConsoleController {
 	throw new ResourceNotFoundException(resource);
    }
 
+   /**
+    * line index of a resource which is a local file, readable with the given charset
+    * 
+    * @param resource the resource which we want to extract the contents
+    * @param charset
+    * @return line index of the resource file, or <code>null</code> if it has to be read through its store
+    */
+   LineIndex lineIndex(final String resource, final Charset charset) {
+	if (!LineIndex.isSupported(charset) || !REGISTERED_RESOURCES.contains(resource)) { return null; }
+
+	File file = null;
+	for (FileStore storeEntry : FileStoreFactory.getRegistry().values()) {
+	   if (resource.toLowerCase().contains(storeEntry.getBaseUri().toLowerCase())) {
+		// compressed resources are not readable directly
+		if (storeEntry instanceof FileSystemStore && ((FileSystemStore) storeEntry).getCompression() == null) {
+		   final String resourceUri = ((FileSystemStore) storeEntry).buildResourceURi(resource.substring(storeEntry.getBaseUri().length()));
+		   file = new File(URI.create(resourceUri).getPath());
+		}
+		break;
+	   }
+	}
+	if (file == null || !file.isFile()) { return null; }
+
+	LineIndex lineIndex = LINE_INDEXES.get(resource);
+	if (lineIndex == null || !lineIndex.getFile().equals(file)) {
+	   lineIndex = new LineIndex(file);
+	   LINE_INDEXES.put(resource, lineIndex);
+	}
+	return lineIndex;
+   }
+
+   /**
+    * @param typedParameters
+    * @return the charset of the parameters, or the default one
+    */
+   protected Charset charset(final Map<String, Serializable> typedParameters) {
+	final String charset = (String) typedParameters.get(CHARSET_ARGS);
+	return charset != null ? Charset.forName(charset) : Charset.defaultCharset();
+   }
+
    /**
     * format output queue
     * 
@@ -652,6 +1043,49 @@ public class FileStoreConsoleController {
 	return buffer;
    }
 
+   /**
+    * format search result
+    * 
+    * @param results matching and context lines, by resource
+    * @param pattern searched pattern
+    * @param parameters
+    * @return formated output (resource and line number prefix, highlight, cut parameter)
+    */
+   StringBuilder formatSearch(final Map<String, List<LineSearch.Line>> results, final Pattern pattern, final Map<String, Serializable> parameters) {
+	final StringBuilder buffer = new StringBuilder();
+	final Number cutLine = (Number) parameters.get(CUTLINE_ARGS);
+	final boolean html = Boolean.TRUE.equals(parameters.get(HTML_ARGS));
+	final String lineSeparator = html ? "<br/>" : "\n";
+
+	for (final Entry<String, List<LineSearch.Line>> result : results.entrySet()) {
+	   long previousNumber = -1;
+	   for (final LineSearch.Line line : result.getValue()) {
+		// separator between non contiguous groups of lines
+		if (buffer.length() > 0 && line.number != previousNumber + 1) {
+		   buffer.append("--").append(lineSeparator);
+		}
+		String text = cutLine == null ? line.text : StringHelper.truncate(line.text, cutLine.intValue());
+		if (html && line.match) {
+		   text = pattern.matcher(text).replaceAll("<span style=\"background-color:yellow;\">$0</span>");
+		}
+		final char separator = line.match ? ':' : '-';
+		buffer.append(result.getKey()).append(separator).append(line.number).append(separator).append(text).append(lineSeparator);
+		previousNumber = line.number;
+	   }
+	}
+	return buffer;
+   }
+
+   /*
+    * error of a resource search
+    */
+   private IOException searchError(final Throwable cause) {
+	if (cause instanceof IOException) { return (IOException) cause; }
+	if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+	if (cause instanceof Error) { throw (Error) cause; }
+	return new IOException(cause);
+   }
+
    /**
     * add uri parameter (if needed)
     * 
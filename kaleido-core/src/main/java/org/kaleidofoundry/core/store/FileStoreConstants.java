@@ -44,9 +44,73 @@ public interface FileStoreConstants {
    String ClobJpaStorePluginName = "fileStores.jpa";
    /** mocked in memory implementation plugin name */
    String MemoryStorePluginName = "fileStores.memory";
+   /** content addressed implementation store plugin name */
+   String CasStorePluginName = "fileStores.cas";
+   /** tiered implementation store plugin name */
+   String TieredStorePluginName = "fileStores.tiered";
 
 
    /** Default buffer size for reading / writing */
    int DEFAULT_BUFFER_SIZE = 512;
 
+   /** Default direct buffer size, for the channel copies */
+   int DEFAULT_CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+   /** Default file size from which a file resource is memory mapped, instead of being read in the heap (4 Mo) */
+   long DEFAULT_MAPPED_READ_THRESHOLD = 4 * 1024 * 1024;
+
+   /** Default max size of a resource put in the store cache, larger ones are streamed (1 Mo) */
+   long DEFAULT_CACHING_MAX_SIZE = 1024 * 1024;
+
+   /** Default size from which a resource is compressed, when compression is enabled */
+   long DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+
+   /** Default mime types of the compressed resources, when compression is enabled */
+   String DEFAULT_COMPRESSION_MIME_TYPES = "text/*,application/xml,application/json,application/javascript";
+
+   /** Default max time to sleep before a new attempt of an asynchronous operation (30s) */
+   int DEFAULT_MAX_SLEEP_TIME_BEFORE_RETRY = 30 * 1000;
+
+   /** Default max number of threads of a store, for the asynchronous operations */
+   int DEFAULT_ASYNC_THREADS = 4;
+
+   /** Default max number of asynchronous operations waiting for a thread */
+   int DEFAULT_ASYNC_QUEUE_SIZE = 1024;
+
+   /** Default number of resources fetched at once by a listing query */
+   int DEFAULT_LIST_PAGE_SIZE = 500;
+
+   /** Default size of a jpa content chunk (64K) */
+   int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+   /** Max size of a jpa content chunk, it is the length of the chunk lob column (1M) */
+   int MAX_CHUNK_SIZE = 1024 * 1024;
+
+   /** Default number of jpa content chunks fetched or written at once */
+   int DEFAULT_CHUNK_FETCH_SIZE = 4;
+
+   /** Default size of a content addressed chunk (1M) */
+   int DEFAULT_CAS_CHUNK_SIZE = 1024 * 1024;
+
+   /** Default number of consecutive failures, which opens the circuit breaker of a replica */
+   int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 3;
+
+   /** Default time during which an opened circuit breaker rejects the requests (30s) */
+   int DEFAULT_CIRCUIT_BREAKER_OPEN_TIME = 30 * 1000;
+
+   /** Default size up to which an uploaded file is kept in memory (64K) */
+   int DEFAULT_UPLOAD_MEMORY_THRESHOLD = 64 * 1024;
+
+   /** Default size of a content slab of a memory store (64K) */
+   int DEFAULT_MEMORY_SLAB_SIZE = 64 * 1024;
+
+   /** Default max number of connections of an ftp store to a host */
+   int DEFAULT_FTP_MAX_CONNECTIONS = 4;
+
+   /** Default time between two NOOP commands on an idle ftp connection (60s) */
+   int DEFAULT_FTP_KEEP_ALIVE_INTERVAL = 60 * 1000;
+
+   /** Default max time to wait for a free ftp connection, when the connect timeout is not set (30s) */
+   int DEFAULT_FTP_POOL_TIMEOUT = 30 * 1000;
+
 }
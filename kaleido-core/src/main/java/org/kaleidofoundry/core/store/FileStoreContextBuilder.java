@@ -22,6 +22,7 @@ import java.util.concurrent.ConcurrentMap;
 import org.kaleidofoundry.core.config.Configuration;
 import org.kaleidofoundry.core.context.AbstractRuntimeContextBuilder;
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.util.StringHelper;
 
 /**
  * File store base {@link RuntimeContext} builder & properties. <br/>
@@ -67,11 +68,55 @@ import org.kaleidofoundry.core.context.RuntimeContext;
  * disabled if not defined)</td>
  * </tr>
  * <tr>
+ * <td>maxSleepTimeBeforeRetryOnFailure</td>
+ * <td>all</td>
+ * <td>asynchronous operations : the time to sleep before a new attempt is doubled after each failure, with a random jitter, up to this
+ * max time in ms (30s by default)</td>
+ * </tr>
+ * <tr>
+ * <td>asyncThreads</td>
+ * <td>all</td>
+ * <td>max number of threads of the store, used by the asynchronous operations (4 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>asyncQueueSize</td>
+ * <td>all</td>
+ * <td>max number of asynchronous operations waiting for a thread, the next ones are rejected (1024 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>asyncTimeout</td>
+ * <td>all</td>
+ * <td>timeout in ms of an asynchronous operation, retries included (disabled if not defined)</td>
+ * </tr>
+ * <tr>
+ * <td>batchParallelism</td>
+ * <td>all</td>
+ * <td>max number of resources processed at the same time by a batch operation (getAll, storeAll, ...), 1 for a sequential processing in
+ * the caller thread (asyncThreads by default)</td>
+ * </tr>
+ * <tr>
  * <td>bufferSize</td>
  * <td>all</td>
  * <td>buffer size for writing (store) in output stream data</td>
  * </tr>
  * <tr>
+ * <td>mappedReadThreshold</td>
+ * <td>file</td>
+ * <td>file size in bytes from which a file resource is memory mapped by {@link ResourceHandler#getByteBuffer()}, instead of being read in
+ * the heap (4 Mo by default)</td>
+ * </tr>
+ * <tr>
+ * <td>atomicWrite</td>
+ * <td>file</td>
+ * <td><code>true|false</code> the content is written in a temporary file of the same directory, then moved atomically to the target file,
+ * so readers never see a partially written file (true by default)</td>
+ * </tr>
+ * <tr>
+ * <td>forceWrite</td>
+ * <td>file</td>
+ * <td><code>true|false</code> the written content is forced to the storage device before the file is committed (false by default)</td>
+ * </tr>
+ * <tr>
  * <td>charset</td>
  * <td>all</td>
  * <td>charset to use with a text that we want to read or store</td>
@@ -82,6 +127,39 @@ import org.kaleidofoundry.core.context.RuntimeContext;
  * <td>true|false it controls the caching of the store resources</td>
  * </tr>
  * <tr>
+ * <td>cachingMaxSize</td>
+ * <td>all</td>
+ * <td>if caching is enable - max size in bytes of a cached resource, a larger resource is streamed without being cached (1 Mo by
+ * default)</td>
+ * </tr>
+ * <tr>
+ * <td>cachingValidation</td>
+ * <td>all</td>
+ * <td>if caching is enable - validate a cached resource with a meta datas request (stat) before using it, a stale resource is reloaded
+ * (false by default)</td>
+ * </tr>
+ * <tr>
+ * <td>compression</td>
+ * <td>all</td>
+ * <td>codec used to compress the stored resources - usage <code>gzip|deflate</code> value (no compression by default)</td>
+ * </tr>
+ * <tr>
+ * <td>compressionLevel</td>
+ * <td>all</td>
+ * <td>if compression is enable - level from 1 (fastest) to 9 (smallest) (zlib default level by default)</td>
+ * </tr>
+ * <tr>
+ * <td>compressionMinSize</td>
+ * <td>all</td>
+ * <td>if compression is enable - size in bytes from which a resource of known size is compressed (1024 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>compressionMimeTypes</td>
+ * <td>all</td>
+ * <td>if compression is enable - mime types of the compressed resources, separators is comma, <code>text/*</code> matches all text types
+ * (text, xml, json and javascript types by default)</td>
+ * </tr>
+ * <tr>
  * <td>cacheManagerRef</td>
  * <td>all</td>
  * <td>the name of the custom cacheManager to use if you want to cache resources</td>
@@ -92,11 +170,132 @@ import org.kaleidofoundry.core.context.RuntimeContext;
  * <td>the class name, to get the class loader to use</td>
  * </tr>
  * <tr>
+ * <td>classpathIndex</td>
+ * <td>classpath</td>
+ * <td>index the resources of the class loader when the store is created, to read them without walking the class loader chain, true /
+ * false (false by default)</td>
+ * </tr>
+ * <tr>
  * <td>customResourceHandlerEntity</td>
  * <td>jpa</td>
  * <td>class name of a custom file handler entity (if you want to persist your own bean) - default one is ResourceHandlerEntity</td>
  * </tr>
  * <tr>
+ * <td>listPageSize</td>
+ * <td>jpa</td>
+ * <td>number of resources fetched at once by a listing query (500 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>chunkSize</td>
+ * <td>jpa</td>
+ * <td>size in bytes of a content chunk (64K by default, 0 to store the content in a single lob)</td>
+ * </tr>
+ * <tr>
+ * <td>chunkFetchSize</td>
+ * <td>jpa</td>
+ * <td>number of content chunks fetched or written at once (4 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>ftpMaxConnections</td>
+ * <td>ftp|ftps</td>
+ * <td>max number of connections to a host, a caller waits for a free connection beyond it (4 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>ftpKeepAliveInterval</td>
+ * <td>ftp|ftps</td>
+ * <td>time in ms between two NOOP commands sent on an idle connection (60000 by default, 0 to disable)</td>
+ * </tr>
+ * <tr>
+ * <td>backendStoreRef</td>
+ * <td>cas</td>
+ * <td>the name of the file store context, where the content and the index of the store are kept</td>
+ * </tr>
+ * <tr>
+ * <td>casChunkSize</td>
+ * <td>cas</td>
+ * <td>size in bytes of a content chunk (1M by default)</td>
+ * </tr>
+ * <tr>
+ * <td>fastStoreRef</td>
+ * <td>tiered</td>
+ * <td>the name of the file store context of the fast tier, which serves the resources first</td>
+ * </tr>
+ * <tr>
+ * <td>replicaStoreRefs</td>
+ * <td>tiered</td>
+ * <td>the names of the file store contexts of the slow tier replicas, by order of preference, separators is comma</td>
+ * </tr>
+ * <tr>
+ * <td>writeBehind</td>
+ * <td>tiered</td>
+ * <td>replicate the writes asynchronously (true by default), otherwise a write waits for its replication</td>
+ * </tr>
+ * <tr>
+ * <td>writeBehindJournal</td>
+ * <td>tiered</td>
+ * <td>directory of the journal of the pending replications (a directory of ${user.home}/.kaleido/tiered-journal by default)</td>
+ * </tr>
+ * <tr>
+ * <td>circuitBreakerThreshold</td>
+ * <td>tiered</td>
+ * <td>number of consecutive failures after which a replica is no more used (3 by default)</td>
+ * </tr>
+ * <tr>
+ * <td>circuitBreakerOpenTime</td>
+ * <td>tiered</td>
+ * <td>time in ms during which a failing replica is no more used, before a new trial (30s by default)</td>
+ * </tr>
+ * <tr>
+ * <td>uploadMemoryThreshold</td>
+ * <td>request</td>
+ * <td>size in bytes up to which an uploaded file is kept in memory, a larger one is written to a temporary file (64K by default)</td>
+ * </tr>
+ * <tr>
+ * <td>uploadMaxFileSize</td>
+ * <td>request</td>
+ * <td>max size in bytes of an uploaded file (no limit by default)</td>
+ * </tr>
+ * <tr>
+ * <td>uploadMaxRequestSize</td>
+ * <td>request</td>
+ * <td>max size in bytes of the whole upload request (no limit by default)</td>
+ * </tr>
+ * <tr>
+ * <td>uploadTempDirectory</td>
+ * <td>request</td>
+ * <td>directory of the temporary files of the large uploaded files (java temp directory by default)</td>
+ * </tr>
+ * <tr>
+ * <td>uploadSpillStoreRef</td>
+ * <td>request</td>
+ * <td>the name of the file store context, where the large uploaded files are written instead of temporary files</td>
+ * </tr>
+ * <tr>
+ * <td>memoryMaxSize</td>
+ * <td>memory</td>
+ * <td>max size in bytes of the stored resources (no limit by default)</td>
+ * </tr>
+ * <tr>
+ * <td>memoryEviction</td>
+ * <td>memory</td>
+ * <td>eviction policy of the resources when the max size is reached : lru|fifo|none (lru by default)</td>
+ * </tr>
+ * <tr>
+ * <td>memorySlabSize</td>
+ * <td>memory</td>
+ * <td>size in bytes of a content slab (64K by default)</td>
+ * </tr>
+ * <tr>
+ * <td>memoryOffHeap</td>
+ * <td>memory</td>
+ * <td>allocate the content slabs off-heap, true / false (false by default)</td>
+ * </tr>
+ * <tr>
+ * <td>memorySnapshotFile</td>
+ * <td>memory</td>
+ * <td>file of the store snapshot, restored when the store is created and saved when it is destroyed</td>
+ * </tr>
+ * <tr>
  * <th>Property name</th>
  * <th>Perimeter</th>
  * <th>Description</th>
@@ -205,21 +404,107 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
     * disabled if not defined)
     */
    public static final String SleepTimeBeforeRetryOnFailure = "sleepTimeBeforeRetryOnFailure";
+   /** max time to sleep in ms before a new attempt of an asynchronous operation (exponential backoff) */
+   public static final String MaxSleepTimeBeforeRetryOnFailure = "maxSleepTimeBeforeRetryOnFailure";
+   /** max number of threads used by the asynchronous operations */
+   public static final String AsyncThreads = "asyncThreads";
+   /** max number of asynchronous operations waiting for a thread */
+   public static final String AsyncQueueSize = "asyncQueueSize";
+   /** timeout in ms of an asynchronous operation */
+   public static final String AsyncTimeout = "asyncTimeout";
+   /** max number of resources processed at the same time by a batch operation */
+   public static final String BatchParallelism = "batchParallelism";
    /** buffer size for reading input stream data */
    public static final String BufferSize = "bufferSize";
+   /** file size in bytes from which a file resource is memory mapped, instead of being read in the heap */
+   public static final String MappedReadThreshold = "mappedReadThreshold";
+   /** atomic write of a file resource : temporary file, then atomic move */
+   public static final String AtomicWrite = "atomicWrite";
+   /** force the written content to the storage device */
+   public static final String ForceWrite = "forceWrite";
    /** the default charset to use for reading a resource as text */
    public static final String Charset = "charset";
    /** property name for setting the class name, to get the class loader to use */
    public static final String Classloader = "classloader";
+   /** index the resources of the class loader when the classpath store is created, true / false */
+   public static final String ClasspathIndex = "classpathIndex";
    /** enable the caching of resources */
    public static final String Caching = "caching";
    /** if caching is enable - this property can be used to set the cache manager to use */
    public static final String CacheManagerRef = "cacheManagerRef";
+   /** if caching is enable - max size in bytes of a cached resource */
+   public static final String CachingMaxSize = "cachingMaxSize";
+   /** if caching is enable - validate a cached resource with its meta datas, before using it */
+   public static final String CachingValidation = "cachingValidation";
+   /** codec used to compress the stored resources, see {@link CompressionCodec} (no compression if not defined) */
+   public static final String Compression = "compression";
+   /** if compression is enable - compression level, from 1 (fastest) to 9 (smallest) */
+   public static final String CompressionLevel = "compressionLevel";
+   /** if compression is enable - size in bytes from which a resource of known size is compressed */
+   public static final String CompressionMinSize = "compressionMinSize";
+   /** if compression is enable - comma separated mime types of the compressed resources (<code>text/*</code> is allowed) */
+   public static final String CompressionMimeTypes = "compressionMimeTypes";
 
 
    // * jpa settings property name ****************
    /** class name of a custom file handler entity used in jpa store */
    public static final String CustomResourceHandlerEntity = "customResourceHandlerEntity";
+   /** number of resources fetched at once by a listing query */
+   public static final String ListPageSize = "listPageSize";
+   /** size in bytes of a content chunk, 0 to store the content in a single lob */
+   public static final String ChunkSize = "chunkSize";
+   /** number of content chunks fetched by a query (jdbc fetch size), or written by a flush (jdbc batch) */
+   public static final String ChunkFetchSize = "chunkFetchSize";
+
+   // * ftp settings property name ****************
+   /** max number of connections of an ftp store to a host, a caller waits for a free connection beyond it */
+   public static final String FtpMaxConnections = "ftpMaxConnections";
+   /** time in ms between two NOOP commands sent on an idle ftp connection, to keep it alive (0 to disable) */
+   public static final String FtpKeepAliveInterval = "ftpKeepAliveInterval";
+
+   // * content addressed settings property name ****************
+   /** name of the file store context, where a store keeps its content and its index */
+   public static final String BackendStoreRef = "backendStoreRef";
+   /** size in bytes of a content chunk, identical chunks are stored once */
+   public static final String CasChunkSize = "casChunkSize";
+
+   // * tiered settings property name ****************
+   /** name of the file store context of the fast tier */
+   public static final String FastStoreRef = "fastStoreRef";
+   /** comma separated names of the file store contexts of the slow tier replicas, by order of preference */
+   public static final String ReplicaStoreRefs = "replicaStoreRefs";
+   /** replicate the writes asynchronously, true / false */
+   public static final String WriteBehind = "writeBehind";
+   /** directory of the journal of the pending replications */
+   public static final String WriteBehindJournal = "writeBehindJournal";
+   /** number of consecutive failures after which a replica is no more used */
+   public static final String CircuitBreakerThreshold = "circuitBreakerThreshold";
+   /** time in ms during which a failing replica is no more used */
+   public static final String CircuitBreakerOpenTime = "circuitBreakerOpenTime";
+
+   // * upload request settings property name ****************
+   /** size in bytes up to which an uploaded file is kept in memory */
+   public static final String UploadMemoryThreshold = "uploadMemoryThreshold";
+   /** max size in bytes of an uploaded file */
+   public static final String UploadMaxFileSize = "uploadMaxFileSize";
+   /** max size in bytes of the whole upload request */
+   public static final String UploadMaxRequestSize = "uploadMaxRequestSize";
+   /** directory of the temporary files of the large uploaded files */
+   public static final String UploadTempDirectory = "uploadTempDirectory";
+   /** name of the file store context, where the large uploaded files are written instead of temporary files */
+   public static final String UploadSpillStoreRef = "uploadSpillStoreRef";
+
+   // * memory settings property name ****************
+   /** max size in bytes of the resources of a memory store */
+   public static final String MemoryMaxSize = "memoryMaxSize";
+   /** eviction policy of a memory store when its max size is reached : lru|fifo|none */
+   public static final String MemoryEviction = "memoryEviction";
+   /** size in bytes of a content slab of a memory store */
+   public static final String MemorySlabSize = "memorySlabSize";
+   /** allocate the content slabs of a memory store off-heap, true / false */
+   public static final String MemoryOffHeap = "memoryOffHeap";
+   /** snapshot file of a memory store, restored when the store is created and saved when it is destroyed */
+   public static final String MemorySnapshotFile = "memorySnapshotFile";
 
    // * connection settings for ftp, http ... if needed ******************
    /** the connection user when file store needs authentication */
@@ -400,6 +685,56 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param maxSleepTimeBeforeRetryOnFailure
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MaxSleepTimeBeforeRetryOnFailure
+    */
+   public FileStoreContextBuilder withMaxSleepTimeBeforeRetryOnFailure(final int maxSleepTimeBeforeRetryOnFailure) {
+	getContextParameters().put(MaxSleepTimeBeforeRetryOnFailure, String.valueOf(maxSleepTimeBeforeRetryOnFailure));
+	return this;
+   }
+
+   /**
+    * @param asyncThreads
+    * @return current builder instance
+    * @see FileStoreContextBuilder#AsyncThreads
+    */
+   public FileStoreContextBuilder withAsyncThreads(final int asyncThreads) {
+	getContextParameters().put(AsyncThreads, String.valueOf(asyncThreads));
+	return this;
+   }
+
+   /**
+    * @param asyncQueueSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#AsyncQueueSize
+    */
+   public FileStoreContextBuilder withAsyncQueueSize(final int asyncQueueSize) {
+	getContextParameters().put(AsyncQueueSize, String.valueOf(asyncQueueSize));
+	return this;
+   }
+
+   /**
+    * @param asyncTimeout
+    * @return current builder instance
+    * @see FileStoreContextBuilder#AsyncTimeout
+    */
+   public FileStoreContextBuilder withAsyncTimeout(final int asyncTimeout) {
+	getContextParameters().put(AsyncTimeout, String.valueOf(asyncTimeout));
+	return this;
+   }
+
+   /**
+    * @param batchParallelism
+    * @return current builder instance
+    * @see FileStoreContextBuilder#BatchParallelism
+    */
+   public FileStoreContextBuilder withBatchParallelism(final int batchParallelism) {
+	getContextParameters().put(BatchParallelism, String.valueOf(batchParallelism));
+	return this;
+   }
+
    /**
     * @param username
     * @return current builder instance
@@ -509,6 +844,16 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param classpathIndex
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ClasspathIndex
+    */
+   public FileStoreContextBuilder withClasspathIndex(final boolean classpathIndex) {
+	getContextParameters().put(ClasspathIndex, String.valueOf(classpathIndex));
+	return this;
+   }
+
    /**
     * @param caching
     * @return set caching context parameter
@@ -518,6 +863,26 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param cachingMaxSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CachingMaxSize
+    */
+   public FileStoreContextBuilder withCachingMaxSize(final String cachingMaxSize) {
+	getContextParameters().put(CachingMaxSize, cachingMaxSize);
+	return this;
+   }
+
+   /**
+    * @param cachingValidation
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CachingValidation
+    */
+   public FileStoreContextBuilder withCachingValidation(final String cachingValidation) {
+	getContextParameters().put(CachingValidation, cachingValidation);
+	return this;
+   }
+
    /**
     * @param cacheManagerRef
     * @return set cacheManagerRef context parameter
@@ -527,6 +892,46 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param compression
+    * @return current builder instance
+    * @see FileStoreContextBuilder#Compression
+    */
+   public FileStoreContextBuilder withCompression(final String compression) {
+	getContextParameters().put(Compression, compression);
+	return this;
+   }
+
+   /**
+    * @param compressionLevel
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CompressionLevel
+    */
+   public FileStoreContextBuilder withCompressionLevel(final int compressionLevel) {
+	getContextParameters().put(CompressionLevel, String.valueOf(compressionLevel));
+	return this;
+   }
+
+   /**
+    * @param compressionMinSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CompressionMinSize
+    */
+   public FileStoreContextBuilder withCompressionMinSize(final long compressionMinSize) {
+	getContextParameters().put(CompressionMinSize, String.valueOf(compressionMinSize));
+	return this;
+   }
+
+   /**
+    * @param compressionMimeTypes
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CompressionMimeTypes
+    */
+   public FileStoreContextBuilder withCompressionMimeTypes(final String compressionMimeTypes) {
+	getContextParameters().put(CompressionMimeTypes, compressionMimeTypes);
+	return this;
+   }
+
    /**
     * @param customResourceHandlerEntity
     * @return current builder instance
@@ -537,6 +942,236 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param listPageSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ListPageSize
+    */
+   public FileStoreContextBuilder withListPageSize(final int listPageSize) {
+	getContextParameters().put(ListPageSize, String.valueOf(listPageSize));
+	return this;
+   }
+
+   /**
+    * @param chunkSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ChunkSize
+    */
+   public FileStoreContextBuilder withChunkSize(final int chunkSize) {
+	getContextParameters().put(ChunkSize, String.valueOf(chunkSize));
+	return this;
+   }
+
+   /**
+    * @param chunkFetchSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ChunkFetchSize
+    */
+   public FileStoreContextBuilder withChunkFetchSize(final int chunkFetchSize) {
+	getContextParameters().put(ChunkFetchSize, String.valueOf(chunkFetchSize));
+	return this;
+   }
+
+   /**
+    * @param ftpMaxConnections
+    * @return current builder instance
+    * @see FileStoreContextBuilder#FtpMaxConnections
+    */
+   public FileStoreContextBuilder withFtpMaxConnections(final int ftpMaxConnections) {
+	getContextParameters().put(FtpMaxConnections, String.valueOf(ftpMaxConnections));
+	return this;
+   }
+
+   /**
+    * @param ftpKeepAliveInterval
+    * @return current builder instance
+    * @see FileStoreContextBuilder#FtpKeepAliveInterval
+    */
+   public FileStoreContextBuilder withFtpKeepAliveInterval(final int ftpKeepAliveInterval) {
+	getContextParameters().put(FtpKeepAliveInterval, String.valueOf(ftpKeepAliveInterval));
+	return this;
+   }
+
+   /**
+    * @param backendStoreRef
+    * @return current builder instance
+    * @see FileStoreContextBuilder#BackendStoreRef
+    */
+   public FileStoreContextBuilder withBackendStoreRef(final String backendStoreRef) {
+	getContextParameters().put(BackendStoreRef, backendStoreRef);
+	return this;
+   }
+
+   /**
+    * @param casChunkSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CasChunkSize
+    */
+   public FileStoreContextBuilder withCasChunkSize(final int casChunkSize) {
+	getContextParameters().put(CasChunkSize, String.valueOf(casChunkSize));
+	return this;
+   }
+
+   /**
+    * @param fastStoreRef
+    * @return current builder instance
+    * @see FileStoreContextBuilder#FastStoreRef
+    */
+   public FileStoreContextBuilder withFastStoreRef(final String fastStoreRef) {
+	getContextParameters().put(FastStoreRef, fastStoreRef);
+	return this;
+   }
+
+   /**
+    * @param replicaStoreRefs
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ReplicaStoreRefs
+    */
+   public FileStoreContextBuilder withReplicaStoreRefs(final String... replicaStoreRefs) {
+	getContextParameters().put(ReplicaStoreRefs, StringHelper.unsplit(",", (Object[]) replicaStoreRefs));
+	return this;
+   }
+
+   /**
+    * @param writeBehind
+    * @return current builder instance
+    * @see FileStoreContextBuilder#WriteBehind
+    */
+   public FileStoreContextBuilder withWriteBehind(final boolean writeBehind) {
+	getContextParameters().put(WriteBehind, String.valueOf(writeBehind));
+	return this;
+   }
+
+   /**
+    * @param writeBehindJournal
+    * @return current builder instance
+    * @see FileStoreContextBuilder#WriteBehindJournal
+    */
+   public FileStoreContextBuilder withWriteBehindJournal(final String writeBehindJournal) {
+	getContextParameters().put(WriteBehindJournal, writeBehindJournal);
+	return this;
+   }
+
+   /**
+    * @param circuitBreakerThreshold
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CircuitBreakerThreshold
+    */
+   public FileStoreContextBuilder withCircuitBreakerThreshold(final int circuitBreakerThreshold) {
+	getContextParameters().put(CircuitBreakerThreshold, String.valueOf(circuitBreakerThreshold));
+	return this;
+   }
+
+   /**
+    * @param circuitBreakerOpenTime
+    * @return current builder instance
+    * @see FileStoreContextBuilder#CircuitBreakerOpenTime
+    */
+   public FileStoreContextBuilder withCircuitBreakerOpenTime(final int circuitBreakerOpenTime) {
+	getContextParameters().put(CircuitBreakerOpenTime, String.valueOf(circuitBreakerOpenTime));
+	return this;
+   }
+
+   /**
+    * @param uploadMemoryThreshold
+    * @return current builder instance
+    * @see FileStoreContextBuilder#UploadMemoryThreshold
+    */
+   public FileStoreContextBuilder withUploadMemoryThreshold(final int uploadMemoryThreshold) {
+	getContextParameters().put(UploadMemoryThreshold, String.valueOf(uploadMemoryThreshold));
+	return this;
+   }
+
+   /**
+    * @param uploadMaxFileSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#UploadMaxFileSize
+    */
+   public FileStoreContextBuilder withUploadMaxFileSize(final long uploadMaxFileSize) {
+	getContextParameters().put(UploadMaxFileSize, String.valueOf(uploadMaxFileSize));
+	return this;
+   }
+
+   /**
+    * @param uploadMaxRequestSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#UploadMaxRequestSize
+    */
+   public FileStoreContextBuilder withUploadMaxRequestSize(final long uploadMaxRequestSize) {
+	getContextParameters().put(UploadMaxRequestSize, String.valueOf(uploadMaxRequestSize));
+	return this;
+   }
+
+   /**
+    * @param uploadTempDirectory
+    * @return current builder instance
+    * @see FileStoreContextBuilder#UploadTempDirectory
+    */
+   public FileStoreContextBuilder withUploadTempDirectory(final String uploadTempDirectory) {
+	getContextParameters().put(UploadTempDirectory, uploadTempDirectory);
+	return this;
+   }
+
+   /**
+    * @param uploadSpillStoreRef
+    * @return current builder instance
+    * @see FileStoreContextBuilder#UploadSpillStoreRef
+    */
+   public FileStoreContextBuilder withUploadSpillStoreRef(final String uploadSpillStoreRef) {
+	getContextParameters().put(UploadSpillStoreRef, uploadSpillStoreRef);
+	return this;
+   }
+
+   /**
+    * @param memoryMaxSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MemoryMaxSize
+    */
+   public FileStoreContextBuilder withMemoryMaxSize(final long memoryMaxSize) {
+	getContextParameters().put(MemoryMaxSize, String.valueOf(memoryMaxSize));
+	return this;
+   }
+
+   /**
+    * @param memoryEviction
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MemoryEviction
+    */
+   public FileStoreContextBuilder withMemoryEviction(final String memoryEviction) {
+	getContextParameters().put(MemoryEviction, memoryEviction);
+	return this;
+   }
+
+   /**
+    * @param memorySlabSize
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MemorySlabSize
+    */
+   public FileStoreContextBuilder withMemorySlabSize(final int memorySlabSize) {
+	getContextParameters().put(MemorySlabSize, String.valueOf(memorySlabSize));
+	return this;
+   }
+
+   /**
+    * @param memoryOffHeap
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MemoryOffHeap
+    */
+   public FileStoreContextBuilder withMemoryOffHeap(final boolean memoryOffHeap) {
+	getContextParameters().put(MemoryOffHeap, String.valueOf(memoryOffHeap));
+	return this;
+   }
+
+   /**
+    * @param memorySnapshotFile
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MemorySnapshotFile
+    */
+   public FileStoreContextBuilder withMemorySnapshotFile(final String memorySnapshotFile) {
+	getContextParameters().put(MemorySnapshotFile, memorySnapshotFile);
+	return this;
+   }
+
    /**
     * @param bufferSize
     * @return current builder instance
@@ -547,6 +1182,36 @@ public class FileStoreContextBuilder extends AbstractRuntimeContextBuilder<FileS
 	return this;
    }
 
+   /**
+    * @param mappedReadThreshold
+    * @return current builder instance
+    * @see FileStoreContextBuilder#MappedReadThreshold
+    */
+   public FileStoreContextBuilder withMappedReadThreshold(final String mappedReadThreshold) {
+	getContextParameters().put(MappedReadThreshold, mappedReadThreshold);
+	return this;
+   }
+
+   /**
+    * @param atomicWrite
+    * @return current builder instance
+    * @see FileStoreContextBuilder#AtomicWrite
+    */
+   public FileStoreContextBuilder withAtomicWrite(final String atomicWrite) {
+	getContextParameters().put(AtomicWrite, atomicWrite);
+	return this;
+   }
+
+   /**
+    * @param forceWrite
+    * @return current builder instance
+    * @see FileStoreContextBuilder#ForceWrite
+    */
+   public FileStoreContextBuilder withForceWrite(final String forceWrite) {
+	getContextParameters().put(ForceWrite, forceWrite);
+	return this;
+   }
+
    /**
     * @param charset
     * @return current builder instance
@@ -15,7 +15,10 @@
  */
 package org.kaleidofoundry.core.store;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -33,11 +36,14 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import javax.xml.bind.annotation.XmlElementWrapper;
 
+import org.kaleidofoundry.core.io.IOHelper;
 import org.kaleidofoundry.core.store.model.FileStoreEntry;
 import org.kaleidofoundry.core.store.model.ResourceHandlerEntity;
 import org.kaleidofoundry.core.util.locale.LocaleFactory;
@@ -84,12 +90,28 @@ public class FileStoreController {
    public Response getResourceContent(final @PathParam("store") String store, final @PathParam("resource") String resource) throws FileStoreNotFoundException,
 	   ResourceNotFoundException, ResourceException {
 
-	ResourceHandler rs = findFileStore(store).get(resource);
-	return Response.ok(rs.getBytes()).type(rs.getMimeType()).location(URI.create(rs.getUri())).lastModified(new Date(rs.getLastModified()))
-		.header(HttpHeaders.CONTENT_TYPE, rs.getMimeType() + "; " + rs.getCharset())
-		// .cacheControl(CacheControl.valueOf(value))
-		// .expires(date)
-		.status(Status.OK).build();
+	final ResourceHandler rs = findFileStore(store).get(resource);
+
+	// the content is streamed from the resource channel, it is never fully loaded in memory
+	final StreamingOutput content = new StreamingOutput() {
+	   @Override
+	   public void write(final OutputStream output) throws IOException {
+		try {
+		   IOHelper.copy(rs.getChannel(), Channels.newChannel(output), FileStoreConstants.DEFAULT_CHANNEL_BUFFER_SIZE);
+		} finally {
+		   rs.close();
+		}
+	   }
+	};
+
+	final ResponseBuilder response = Response.ok(content).type(rs.getMimeType()).location(URI.create(rs.getUri()))
+		.lastModified(new Date(rs.getLastModified())).header(HttpHeaders.CONTENT_TYPE, rs.getMimeType() + "; " + rs.getCharset());
+	// .cacheControl(CacheControl.valueOf(value))
+	// .expires(date)
+	if (rs.getLength() >= 0) {
+	   response.header(HttpHeaders.CONTENT_LENGTH, rs.getLength());
+	}
+	return response.status(Status.OK).build();
    }
 
    /**
@@ -18,7 +18,7 @@ package org.kaleidofoundry.core.store;
 import static org.kaleidofoundry.core.env.model.EnvironmentConstants.DEFAULT_BASE_DIR_PROPERTY;
 import static org.kaleidofoundry.core.env.model.EnvironmentConstants.STATIC_ENV_PARAMETERS;
 import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
-import static org.kaleidofoundry.core.store.AbstractFileStore.LOGGER;
+import static org.kaleidofoundry.core.store.AbstractFileStore.I18N_LOGGER;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -73,7 +73,7 @@ public class FileStoreProvider extends AbstractProviderService<FileStore> {
 	   STATIC_ENV_PARAMETERS.put("default.basedir", DEFAULT_BASE_DIR);
 	   STATIC_ENV_PARAMETERS.put(DEFAULT_BASE_DIR_PROPERTY, DEFAULT_BASE_DIR);
 
-	   LOGGER.info(StoreMessageBundle.getMessage("store.basedir.info", "basedir", DEFAULT_BASE_DIR));
+	   I18N_LOGGER.info("store.basedir.info", "basedir", DEFAULT_BASE_DIR);
 
 	   INIT_LOADED = true;
 	}
@@ -44,6 +44,9 @@ public enum FileStoreTypeEnum implements FileStoreType {
    /** ftp resource scheme */
    ftp,
 
+   /** ftp over explicit tls resource scheme */
+   ftps,
+
    /** sftp resource scheme */
    sftp,
 
@@ -63,7 +66,13 @@ public enum FileStoreTypeEnum implements FileStoreType {
    gs,
 
    /** http servlet request scheme */
-   request
+   request,
+
+   /** content addressed scheme */
+   cas,
+
+   /** tiered / replicated scheme */
+   tiered
    ;
 
    private final boolean custom = false;
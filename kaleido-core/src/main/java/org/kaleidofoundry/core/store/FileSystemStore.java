@@ -15,9 +15,11 @@
  */
 package org.kaleidofoundry.core.store;
 
-import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_BUFFER_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHANNEL_BUFFER_SIZE;
 import static org.kaleidofoundry.core.store.FileStoreConstants.FileSystemStorePluginName;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.AtomicWrite;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BufferSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ForceWrite;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -25,9 +27,35 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IOHelper;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.io.MimeTypeResolverFactory;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
@@ -54,6 +82,15 @@ import org.kaleidofoundry.core.plugin.Declare;
 @Declare(FileSystemStorePluginName)
 public class FileSystemStore extends AbstractFileStore implements FileStore {
 
+   // write locks by file path (striped), shared by all the instances which could write the same file
+   static final ReentrantLock[] WRITE_LOCKS = new ReentrantLock[64];
+
+   static {
+	for (int i = 0; i < WRITE_LOCKS.length; i++) {
+	   WRITE_LOCKS[i] = new ReentrantLock();
+	}
+   }
+
    /**
     * @param context
     */
@@ -111,7 +148,13 @@ public class FileSystemStore extends AbstractFileStore implements FileStore {
 	if (file.isDirectory()) {
 	   throw new ResourceException("store.remove.directory", resourceUri.toString());
 	} else {
-	   if (!file.delete()) { throw new ResourceException("store.remove.illegal", resourceUri.toString()); }
+	   final Lock lock = getWriteLock(file);
+	   lock.lock();
+	   try {
+		if (!file.delete()) { throw new ResourceException("store.remove.illegal", resourceUri.toString()); }
+	   } finally {
+		lock.unlock();
+	   }
 	}
 
    }
@@ -123,18 +166,306 @@ public class FileSystemStore extends AbstractFileStore implements FileStore {
    @Override
    protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
 
-	File file;
+	final File file = new File(resourceUri.getPath());
+	createParentDirectories(resourceUri, file);
+
+	if (isAtomicWrite()) {
+	   // the content is written aside, then the file is replaced at once
+	   final File tempFile = writeTempFile(resourceUri, file, resource);
+	   final Lock lock = getWriteLock(file);
+	   lock.lock();
+	   try {
+		commit(resourceUri, tempFile, file);
+	   } finally {
+		lock.unlock();
+	   }
+	} else {
+	   final Lock lock = getWriteLock(file);
+	   lock.lock();
+	   try {
+		write(resourceUri, file, resource);
+	   } finally {
+		lock.unlock();
+	   }
+	}
+   }
+
+   /**
+    * The resources are all written in temporary files first : if one of them fails, none of the resources is stored.<br/>
+    * Then the files are replaced one after the other, holding the write locks of all of them. The replaced files are kept aside (hard links
+    * when the file system supports it) until the last one is replaced : if a replacement fails, the files already replaced are restored,
+    * and the new ones are removed.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStore(java.util.Map)
+    */
+   @Override
+   protected void doStore(final Map<URI, ResourceHandler> resources) throws ResourceException {
+
+	if (!isAtomicWrite()) {
+	   super.doStore(resources);
+	   return;
+	}
+
+	// 1. write phase
+	final Map<URI, File> tempFiles = new LinkedHashMap<URI, File>();
+	try {
+	   for (final Entry<URI, ResourceHandler> resource : resources.entrySet()) {
+		tempFiles.put(resource.getKey(), writeTempFile(resource.getKey(), new File(resource.getKey().getPath()), resource.getValue()));
+	   }
+	} catch (final ResourceException rse) {
+	   for (final File tempFile : tempFiles.values()) {
+		tempFile.delete();
+	   }
+	   throw rse;
+	}
+
+	// 2. commit phase
+	final List<File> files = new ArrayList<File>();
+	for (final URI resourceUri : tempFiles.keySet()) {
+	   files.add(new File(resourceUri.getPath()));
+	}
+	final SortedSet<Integer> lockIndexes = lockAll(files);
+	final Map<URI, File> backups = new HashMap<URI, File>();
+	final List<URI> committed = new ArrayList<URI>();
+	try {
+	   for (final Entry<URI, File> tempFile : tempFiles.entrySet()) {
+		final File file = new File(tempFile.getKey().getPath());
+		if (file.exists()) {
+		   backups.put(tempFile.getKey(), backup(tempFile.getKey(), file));
+		}
+		commit(tempFile.getKey(), tempFile.getValue(), file);
+		committed.add(tempFile.getKey());
+	   }
+	} catch (final ResourceException rse) {
+	   rollback(committed, backups);
+	   for (final File tempFile : tempFiles.values()) {
+		tempFile.delete();
+	   }
+	   throw rse;
+	} finally {
+	   try {
+		for (final File backup : backups.values()) {
+		   backup.delete();
+		}
+	   } finally {
+		unlockAll(lockIndexes);
+	   }
+	}
+   }
+
+   /*
+    * keep a file to replace aside, by a hard link when the file system supports it, otherwise by a copy
+    */
+   private File backup(final URI resourceUri, final File file) throws ResourceException {
+	// named like a temporary file, so it is not listed
+	final File backup = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + "." + UUID.randomUUID() + ".bak.tmp");
+	try {
+	   try {
+		Files.createLink(backup.toPath(), file.toPath());
+	   } catch (final UnsupportedOperationException uoe) {
+		Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+	   } catch (final FileSystemException fse) {
+		LOGGER.debug("hard link is not supported for {}, the file is copied", resourceUri);
+		Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+	   }
+	   return backup;
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+   }
+
+   /*
+    * restore the files replaced by a failed batch store, and remove the new ones
+    */
+   private void rollback(final List<URI> committed, final Map<URI, File> backups) {
+	for (final URI resourceUri : committed) {
+	   final File file = new File(resourceUri.getPath());
+	   final File backup = backups.remove(resourceUri);
+	   try {
+		if (backup != null) {
+		   Files.move(backup.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} else {
+		   Files.deleteIfExists(file.toPath());
+		}
+	   } catch (final IOException ioe) {
+		LOGGER.error("the resource {} can't be restored after a failed batch store", resourceUri, ioe);
+	   }
+	}
+   }
+
+   /**
+    * create the missing parent directories of a file to write
+    * 
+    * @param resourceUri
+    * @param file
+    * @throws ResourceException
+    */
+   void createParentDirectories(final URI resourceUri, final File file) throws ResourceException {
+	final File parent = file.getAbsoluteFile().getParentFile();
+	if (parent != null && !parent.isDirectory()) {
+	   try {
+		Files.createDirectories(parent.toPath());
+	   } catch (final IOException ioe) {
+		throw new ResourceException(ioe, resourceUri.toString());
+	   }
+	}
+   }
+
+   /**
+    * The file is renamed (atomically when the file system supports it), its content is not copied.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doMove(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doMove(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	final File origin = new File(originUri.getPath());
+	final File destination = new File(destinationUri.getPath());
+	if (!origin.exists()) { throw new ResourceNotFoundException(originUri.toString()); }
+	createParentDirectories(destinationUri, destination);
+
+	final SortedSet<Integer> lockIndexes = lockAll(Arrays.asList(origin, destination));
+	try {
+	   try {
+		Files.move(origin.toPath(), destination.toPath(), StandardCopyOption.ATOMIC_MOVE);
+	   } catch (final AtomicMoveNotSupportedException amnse) {
+		LOGGER.debug("atomic move is not supported for {}, the file is moved", originUri);
+		Files.move(origin.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	   }
+	   return true;
+	} catch (final NoSuchFileException nsfe) {
+	   throw new ResourceNotFoundException(originUri.toString());
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, originUri.toString());
+	} finally {
+	   unlockAll(lockIndexes);
+	}
+   }
+
+   /**
+    * The file is copied by the file system (in kernel copy when the os supports it) in a temporary file, which then replaces the
+    * destination.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doCopy(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doCopy(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	final File origin = new File(originUri.getPath());
+	final File destination = new File(destinationUri.getPath());
+	if (!origin.isFile()) { throw new ResourceNotFoundException(originUri.toString()); }
+	createParentDirectories(destinationUri, destination);
+
+	final File tempFile;
+	try {
+	   tempFile = File.createTempFile("." + destination.getName() + ".", ".tmp", destination.getAbsoluteFile().getParentFile());
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, destinationUri.toString());
+	}
+	try {
+	   Files.copy(origin.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	} catch (final IOException ioe) {
+	   tempFile.delete();
+	   if (ioe instanceof NoSuchFileException) { throw new ResourceNotFoundException(originUri.toString()); }
+	   throw new ResourceException(ioe, originUri.toString());
+	}
+
+	final Lock lock = getWriteLock(destination);
+	lock.lock();
+	try {
+	   commit(destinationUri, tempFile, destination);
+	} finally {
+	   lock.unlock();
+	}
+	return true;
+   }
+
+   /**
+    * @return is the atomic write mode enabled (enabled by default)
+    * @see FileStoreContextBuilder#AtomicWrite
+    */
+   protected boolean isAtomicWrite() {
+	return context.getBoolean(AtomicWrite, true);
+   }
+
+   /**
+    * write the resource content in a temporary file, created in the same directory than the target file
+    * 
+    * @param resourceUri
+    * @param file target file
+    * @param resource
+    * @return the temporary file
+    * @throws ResourceException
+    */
+   File writeTempFile(final URI resourceUri, final File file, final ResourceHandler resource) throws ResourceException {
+	final File tempFile;
+	try {
+	   tempFile = File.createTempFile("." + file.getName() + ".", ".tmp", file.getAbsoluteFile().getParentFile());
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+	boolean written = false;
+	try {
+	   write(resourceUri, tempFile, resource);
+	   written = true;
+	   return tempFile;
+	} finally {
+	   if (!written) {
+		tempFile.delete();
+	   }
+	}
+   }
+
+   /**
+    * replace the target file by the temporary one, with an atomic move when the file system supports it
+    * 
+    * @param resourceUri
+    * @param tempFile
+    * @param file target file
+    * @throws ResourceException
+    */
+   void commit(final URI resourceUri, final File tempFile, final File file) throws ResourceException {
+	try {
+	   try {
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+	   } catch (final AtomicMoveNotSupportedException amnse) {
+		LOGGER.debug("atomic move is not supported for {}, the file is replaced", resourceUri);
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	   }
+	} catch (final IOException ioe) {
+	   tempFile.delete();
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+   }
+
+   /**
+    * write the resource content in the given file
+    * 
+    * @param resourceUri
+    * @param file
+    * @param resource
+    * @throws ResourceException
+    */
+   void write(final URI resourceUri, final File file, final ResourceHandler resource) throws ResourceException {
+
 	FileOutputStream out = null;
 
 	try {
-	   file = new File(resourceUri.getPath());
 	   out = new FileOutputStream(file, false);
+	   final FileChannel outChannel = out.getChannel();
+
+	   if (resource instanceof ResourceHandlerBean && ((ResourceHandlerBean) resource).isInMemory()) {
+		// content already in memory, written as is
+		final ByteBuffer content = resource.getByteBuffer();
+		while (content.hasRemaining()) {
+		   outChannel.write(content);
+		}
+	   } else {
+		// file to file transfer (zero copy), or streamed copy through the channels
+		IOHelper.copy(resource.getChannel(), outChannel, context.getInteger(BufferSize, DEFAULT_CHANNEL_BUFFER_SIZE));
+	   }
 
-	   final byte[] buff = new byte[context.getInteger(BufferSize, DEFAULT_BUFFER_SIZE)];
-	   int lengthToWrite = resource.getInputStream().read(buff);
-	   while (lengthToWrite != -1) {
-		out.write(buff, 0, lengthToWrite);
-		lengthToWrite = resource.getInputStream().read(buff);
+	   // durable write, the content is on the disk before the file is visible
+	   if (context.getBoolean(ForceWrite, false)) {
+		outChannel.force(true);
 	   }
 
 	   out.flush();
@@ -152,6 +483,125 @@ public class FileSystemStore extends AbstractFileStore implements FileStore {
 	}
    }
 
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	try {
+	   final BasicFileAttributes attributes = Files.readAttributes(new File(resourceUri.getPath()).toPath(), BasicFileAttributes.class);
+	   return createResourceMetadata(resourceUri.toString(), attributes.isDirectory(), attributes.isDirectory() ? -1 : attributes.size(),
+		   attributes.lastModifiedTime().toMillis());
+	} catch (final NoSuchFileException nsfe) {
+	   throw new ResourceNotFoundException(resourceUri.toString());
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	}
+   }
+
+   /**
+    * The directory is read lazily by a {@link DirectoryStream}, the attributes of each file are read when the iteration reaches it.<br/>
+    * The temporary files of the atomic writes in progress are skipped.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+
+	final File directory = new File(directoryUri.getPath());
+	if (!directory.isDirectory()) { throw new ResourceNotFoundException(directoryUri.toString()); }
+
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	final DirectoryStream<Path> stream;
+	try {
+	   stream = Files.newDirectoryStream(directory.toPath(), new DirectoryStream.Filter<Path>() {
+		@Override
+		public boolean accept(final Path entry) {
+		   final String name = entry.getFileName().toString();
+		   return !(name.startsWith(".") && name.endsWith(".tmp"));
+		}
+	   });
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, directoryUri.toString());
+	}
+
+	return new IoIterable<ResourceMetadata>() {
+	   @Override
+	   public Iterator<ResourceMetadata> iterator() {
+		final Iterator<Path> paths = stream.iterator();
+		return new Iterator<ResourceMetadata>() {
+		   @Override
+		   public boolean hasNext() {
+			return paths.hasNext();
+		   }
+
+		   @Override
+		   public ResourceMetadata next() {
+			final Path path = paths.next();
+			final String uri = parentUri + path.getFileName().toString().replace(" ", "%20");
+			try {
+			   final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			   return createResourceMetadata(uri, attributes.isDirectory(), attributes.isDirectory() ? -1 : attributes.size(), attributes
+				   .lastModifiedTime().toMillis());
+			} catch (final IOException ioe) {
+			   // file removed meanwhile
+			   return createResourceMetadata(uri, false, -1, 0);
+			}
+		   }
+
+		   @Override
+		   public void remove() {
+			throw new UnsupportedOperationException();
+		   }
+		};
+	   }
+
+	   @Override
+	   public void close() throws IOException {
+		stream.close();
+	   }
+	};
+   }
+
+   /**
+    * @param file
+    * @return the write lock of the file, shared by all the store instances
+    */
+   static Lock getWriteLock(final File file) {
+	return WRITE_LOCKS[getWriteLockIndex(file)];
+   }
+
+   static int getWriteLockIndex(final File file) {
+	return (file.getAbsolutePath().hashCode() & Integer.MAX_VALUE) % WRITE_LOCKS.length;
+   }
+
+   /**
+    * take the write locks of several files, in the same order for all the threads
+    * 
+    * @param files
+    * @return indexes of the locks taken
+    */
+   static SortedSet<Integer> lockAll(final Collection<File> files) {
+	final SortedSet<Integer> lockIndexes = new TreeSet<Integer>();
+	for (final File file : files) {
+	   lockIndexes.add(getWriteLockIndex(file));
+	}
+	for (final Integer lockIndex : lockIndexes) {
+	   WRITE_LOCKS[lockIndex].lock();
+	}
+	return lockIndexes;
+   }
+
+   /**
+    * @param lockIndexes indexes of the locks to release
+    */
+   static void unlockAll(final SortedSet<Integer> lockIndexes) {
+	for (final Integer lockIndex : lockIndexes) {
+	   WRITE_LOCKS[lockIndex].unlock();
+	}
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.store.AbstractFileStore#getStoreType()
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.kaleidofoundry.core.lang.annotation.NotThreadSafe;
+
+/**
+ * Authenticated control connection to an ftp server, used by {@link FtpEngine}<br/>
+ * <br/>
+ * The transfers are done in binary mode, through passive data connections (PASV, or EPSV if PASV is refused). With explicit ftps (
+ * <code>AUTH TLS</code>), the control and data connections are encrypted.<br/>
+ * A connection serves a single command at a time : it is borrowed from the pool of the engine, then given back once the command is
+ * completed.
+ * 
+ * @author jraduget
+ */
+@NotThreadSafe
+class FtpConnection implements Closeable {
+
+   /** reply code : the file is unavailable (not found, no access) */
+   static final int FILE_UNAVAILABLE = 550;
+   /** reply code : the file is temporary unavailable (some servers use it for a missing directory) */
+   static final int FILE_BUSY = 450;
+
+   // 227 Entering Passive Mode (h1,h2,h3,h4,p1,p2)
+   private static final Pattern PASV_REPLY = Pattern.compile("(\\d+),(\\d+),(\\d+),(\\d+),(\\d+),(\\d+)");
+   // 229 Entering Extended Passive Mode (|||port|)
+   private static final Pattern EPSV_REPLY = Pattern.compile("\\((.)\\1\\1(\\d+)\\1\\)");
+
+   private final String host;
+   private final int port;
+   private final boolean secure;
+   private final int connectTimeout;
+   private final int readTimeout;
+
+   private Socket socket;
+   private BufferedReader reader;
+   private Writer writer;
+   // time of the last command, in milliseconds
+   private volatile long lastUsed;
+
+   /**
+    * @param host
+    * @param port
+    * @param secure explicit ftps (AUTH TLS)
+    * @param connectTimeout in ms, 0 for no timeout
+    * @param readTimeout in ms, 0 for no timeout
+    */
+   FtpConnection(final String host, final int port, final boolean secure, final int connectTimeout, final int readTimeout) {
+	this.host = host;
+	this.port = port;
+	this.secure = secure;
+	this.connectTimeout = connectTimeout;
+	this.readTimeout = readTimeout;
+   }
+
+   /**
+    * connect to the server, and log in
+    * 
+    * @param user
+    * @param password
+    * @throws IOException
+    */
+   void open(final String user, final String password) throws IOException {
+	socket = new Socket();
+	socket.connect(new InetSocketAddress(host, port), connectTimeout);
+	socket.setSoTimeout(readTimeout);
+	bindStreams();
+	expect(readReply(), 2);
+
+	if (secure) {
+	   expect(command("AUTH TLS"), 2);
+	   final SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(socket, host, port, true);
+	   sslSocket.setUseClientMode(true);
+	   identifyEndpoint(sslSocket);
+	   sslSocket.startHandshake();
+	   socket = sslSocket;
+	   bindStreams();
+	}
+
+	Reply reply = command("USER " + user);
+	if (reply.code == 331) {
+	   reply = command("PASS " + password);
+	}
+	expect(reply, 2);
+
+	if (secure) {
+	   expect(command("PBSZ 0"), 2);
+	   expect(command("PROT P"), 2);
+	}
+	expect(command("TYPE I"), 2);
+   }
+
+   /**
+    * send a command, and read its reply
+    * 
+    * @param command
+    * @return reply of the server
+    * @throws IOException
+    */
+   Reply command(final String command) throws IOException {
+	checkArgument(command);
+	lastUsed = System.currentTimeMillis();
+	writer.write(command);
+	writer.write("\r\n");
+	writer.flush();
+	return readReply();
+   }
+
+   /**
+    * send a command, and read its reply within the given timeout, whatever the read timeout of the connection
+    * 
+    * @param command
+    * @param timeout in ms, greater than 0
+    * @return reply of the server
+    * @throws java.net.SocketTimeoutException if the reply is not read within the timeout
+    * @throws IOException
+    */
+   Reply command(final String command, final int timeout) throws IOException {
+	final int soTimeout = socket.getSoTimeout();
+	socket.setSoTimeout(soTimeout > 0 ? Math.min(soTimeout, timeout) : timeout);
+	try {
+	   return command(command);
+	} finally {
+	   socket.setSoTimeout(soTimeout);
+	}
+   }
+
+   /**
+    * send a transfer command (RETR, STOR, LIST...) through a new passive data connection
+    * 
+    * @param command
+    * @return the opened data connection
+    * @throws FileNotFoundException if the file is unavailable
+    * @throws IOException
+    */
+   Socket openDataConnection(final String command) throws IOException {
+	final Socket dataSocket = new Socket();
+	dataSocket.connect(getPassiveAddress(), connectTimeout);
+	dataSocket.setSoTimeout(readTimeout);
+
+	final Reply reply;
+	try {
+	   reply = command(command);
+	   expect(reply, 1);
+	} catch (final IOException ioe) {
+	   dataSocket.close();
+	   throw ioe;
+	}
+
+	if (!secure) { return dataSocket; }
+	final SSLSocket sslDataSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(dataSocket, host,
+		dataSocket.getPort(), true);
+	sslDataSocket.setUseClientMode(true);
+	identifyEndpoint(sslDataSocket);
+	sslDataSocket.startHandshake();
+	return sslDataSocket;
+   }
+
+   /*
+    * the server certificate have to match the host name, otherwise the handshake fails
+    */
+   static void identifyEndpoint(final SSLSocket sslSocket) {
+	final SSLParameters sslParameters = sslSocket.getSSLParameters();
+	sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+	sslSocket.setSSLParameters(sslParameters);
+   }
+
+   /**
+    * read the reply which ends a transfer, once its data connection is closed
+    * 
+    * @throws IOException
+    */
+   void completeTransfer() throws IOException {
+	expect(readReply(), 2);
+   }
+
+   /**
+    * @return time of the last command, in milliseconds
+    */
+   long getLastUsed() {
+	return lastUsed;
+   }
+
+   /**
+    * @return <code>true</code> if the control connection is still opened
+    */
+   boolean isOpened() {
+	return socket != null && socket.isConnected() && !socket.isClosed();
+   }
+
+   /**
+    * log out, then close the control connection
+    */
+   @Override
+   public void close() {
+	if (socket == null) { return; }
+	try {
+	   if (!socket.isClosed()) {
+		command("QUIT");
+	   }
+	} catch (final IOException ioe) {
+	   // the connection is closed anyway
+	} finally {
+	   try {
+		socket.close();
+	   } catch (final IOException ioe) {
+	   }
+	}
+   }
+
+   /**
+    * ask the server for a passive data port (PASV, then EPSV)<br/>
+    * The data connection is opened to the host of the control connection : the address given by PASV is often a private one, behind a NAT.
+    */
+   InetSocketAddress getPassiveAddress() throws IOException {
+	final Reply pasvReply = command("PASV");
+	if (pasvReply.code == 227) {
+	   final Matcher matcher = PASV_REPLY.matcher(pasvReply.text);
+	   if (matcher.find()) { return new InetSocketAddress(socket.getInetAddress(), Integer.parseInt(matcher.group(5)) * 256
+		   + Integer.parseInt(matcher.group(6))); }
+	}
+	final Reply epsvReply = command("EPSV");
+	if (epsvReply.code == 229) {
+	   final Matcher matcher = EPSV_REPLY.matcher(epsvReply.text);
+	   if (matcher.find()) { return new InetSocketAddress(socket.getInetAddress(), Integer.parseInt(matcher.group(2))); }
+	}
+	throw new IOException("passive mode refused by " + host + " : " + epsvReply);
+   }
+
+   /*
+    * read a reply, single or multiple lines (123-first line ... 123 last line)
+    */
+   Reply readReply() throws IOException {
+	String line = reader.readLine();
+	if (line == null || line.length() < 3) { throw new IOException("connection closed by " + host); }
+	final StringBuilder text = new StringBuilder(line);
+	if (line.length() > 3 && line.charAt(3) == '-') {
+	   final String end = line.substring(0, 3) + " ";
+	   do {
+		line = reader.readLine();
+		if (line == null) { throw new IOException("connection closed by " + host); }
+		text.append('\n').append(line);
+	   } while (!line.startsWith(end));
+	}
+	try {
+	   return new Reply(Integer.parseInt(line.substring(0, 3)), text.toString());
+	} catch (final NumberFormatException nfe) {
+	   throw new IOException("illegal reply from " + host + " : " + text);
+	}
+   }
+
+   /**
+    * @param argument a command, or one of its arguments
+    * @throws IOException if it contains a line break or a NUL character, which are the ends of a command for the server
+    */
+   static void checkArgument(final String argument) throws IOException {
+	for (int i = 0; i < argument.length(); i++) {
+	   final char c = argument.charAt(i);
+	   // the argument is not part of the message, it may be a password
+	   if (c == '\r' || c == '\n' || c == '\0') { throw new IOException("illegal line break or NUL character in an ftp command argument"); }
+	}
+   }
+
+   /*
+    * check the reply class (1xx, 2xx, 3xx...)
+    */
+   static Reply expect(final Reply reply, final int replyClass) throws IOException {
+	if (reply.code / 100 == replyClass) { return reply; }
+	if (reply.code == FILE_UNAVAILABLE || reply.code == FILE_BUSY) { throw new FileNotFoundException(reply.toString()); }
+	throw new IOException(reply.toString());
+   }
+
+   private void bindStreams() throws IOException {
+	reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+	final OutputStream out = socket.getOutputStream();
+	writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * reply of the ftp server
+    */
+   static class Reply {
+	final int code;
+	final String text;
+
+	Reply(final int code, final String text) {
+	   this.code = code;
+	   this.text = text;
+	}
+
+	@Override
+	public String toString() {
+	   return text;
+	}
+   }
+}
@@ -17,8 +17,10 @@ package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.store.FileStoreConstants.FtpStorePluginName;
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.Authenticator;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
@@ -28,10 +30,15 @@ import java.net.Proxy;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.i18n.InternalBundleHelper;
 import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.io.MimeTypeResolverFactory;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
@@ -39,9 +46,13 @@ import org.kaleidofoundry.core.plugin.Declare;
 import org.kaleidofoundry.core.util.StringHelper;
 
 /**
- * FTP {@link FileStore} implementation 
+ * FTP / FTPS {@link FileStore} implementation 
  * <br/>
- * <b>This implementation is only for read only use</b> - the methods store, remove, move will throws {@link ResourceException}<br/>
+ * The commands are sent by the {@link FtpEngine} of the store : pooled and authenticated connections kept alive, binary passive transfers.
+ * The resources can be got, stored, removed, moved (renamed on the server), listed, and their meta datas are got without transfer.<br/>
+ * <br/>
+ * <b>Through a proxy</b> (see {@link FileStoreContextBuilder#ProxySet}), the jdk ftp over http support is used : the store is read only, and
+ * the directory listing only gives the names.<br/>
  * <br/>
  * You can create your own store, by extending this class and overriding methods :
  * <ul>
@@ -57,6 +68,8 @@ import org.kaleidofoundry.core.util.StringHelper;
 @Declare(FtpStorePluginName)
 public class FtpStore extends AbstractFileStore implements FileStore {
 
+   private volatile FtpEngine ftpEngine;
+
    /**
     * @param context
     */
@@ -85,134 +98,342 @@ public class FtpStore extends AbstractFileStore implements FileStore {
     */
    @Override
    public FileStoreType[] getStoreType() {
-	return new FileStoreType[] { FileStoreTypeEnum.ftp };
+	return new FileStoreType[] { FileStoreTypeEnum.ftp, FileStoreTypeEnum.ftps };
    }
 
    /*
     * (non-Javadoc)
-    * @see org.kaleidofoundry.core.store.AbstractFileStore#isReadOnly()
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doLoad(java.net.URI)
     */
    @Override
-   public boolean isReadOnly() {
-	return true;
+   protected ResourceHandler doGet(final URI resourceUri) throws ResourceException {
+	checkHost(resourceUri);
+	if (isProxied()) { return doGetThroughProxy(resourceUri); }
+
+	try {
+	   final ResourceHandler resource = createResourceHandler(resourceUri.toString(), getFtpEngine().retrieve(resourceUri));
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(
+			FileHelper.getFileNameExtension(resourceUri.getPath())));
+	   }
+	   return resource;
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, resourceUri);
+	}
+   }
+
+   /**
+    * The meta datas are got with the SIZE and MDTM commands (or LIST if the server does not support them), nothing is transfered.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	checkHost(resourceUri);
+	if (isProxied()) { return super.doStat(resourceUri); }
+
+	try {
+	   final FtpEngine.Entry entry = getFtpEngine().stat(resourceUri);
+	   return createResourceMetadata(resourceUri.toString(), entry.isDirectory(), entry.getLength(), entry.getLastModified());
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, resourceUri);
+	}
    }
 
    /*
     * (non-Javadoc)
-    * @see org.kaleidofoundry.core.store.AbstractFileStore#doLoad(java.net.URI)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStore(java.net.URI, org.kaleidofoundry.core.store.ResourceHandler)
     */
    @Override
-   protected ResourceHandler doGet(final URI resourceUri) throws ResourceException {
-	if (resourceUri.getHost() == null) { throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.ftp.illegal",
-		resourceUri.toString())); }
+   protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
+	checkHost(resourceUri);
+	if (isProxied()) { throw new ResourceException("store.readonly.illegal", context.getName()); }
 
 	try {
+	   getFtpEngine().store(resourceUri, resource.getInputStream());
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, resourceUri);
+	}
+   }
 
-	   /*
-	    * # java env. variable to defined proxy globally
-	    * # http://download.oracle.com/docs/cd/E17409_01/javase/6/docs/technotes/guides/net/properties.html
-	    * http.proxyHost (default: <none>)
-	    * http.proxyPort (default: 80 if http.proxyHost specified)
-	    * http.nonProxyHosts (default: <none>)
-	    */
-
-	   final URL configUrl = resourceUri.toURL();
-	   final URLConnection urlConnection;
-	   Proxy httpProxy = null;
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doRemove(java.net.URI)
+    */
+   @Override
+   protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	checkHost(resourceUri);
+	if (isProxied()) { throw new ResourceException("store.readonly.illegal", context.getName()); }
 
-	   // if a proxy is set & active
-	   if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxySet))) {
-		if (context.getBoolean(FileStoreContextBuilder.ProxySet)) {
+	try {
+	   getFtpEngine().delete(resourceUri);
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, resourceUri);
+	}
+   }
 
-		   final String proxyHost = context.getString(FileStoreContextBuilder.ProxyHost);
-		   final String proxyPort = context.getString(FileStoreContextBuilder.ProxyPort);
+   /**
+    * The resource is renamed on the server (RNFR / RNTO commands), nothing is transfered.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doMove(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doMove(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	checkHost(originUri);
+	if (isProxied()) { throw new ResourceException("store.readonly.illegal", context.getName()); }
 
-		   if (!StringHelper.isEmpty(proxyHost)) {
-			httpProxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, !StringHelper.isEmpty(proxyPort) ? Integer.parseInt(proxyPort) : 80));
+	try {
+	   getFtpEngine().rename(originUri, destinationUri);
+	   return true;
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, originUri);
+	}
+   }
 
-			if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.NonProxyHosts))) {
-			   // :( global...
-			   System.getProperties().put("ftp.nonProxyHosts", context.getProperty(FileStoreContextBuilder.NonProxyHosts));
-			}
+   /**
+    * The directory is listed by a LIST command, unix and dos listing formats are parsed.<br/>
+    * Through a proxy, the directory is listed by a NLST command (<code>;type=d</code> url suffix) : the length and the last modification date
+    * are unknown, and the sub directories can't be distinguished from the files.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	checkHost(directoryUri);
+	if (isProxied()) { return doListThroughProxy(directoryUri); }
 
-			if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyUser))
-				&& !StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyPassword))) {
-
-			   // Authenticator is global... :(
-			   // other way : urlConnection.setRequestProperty("Proxy-Authorization", Base64.encodeObject(username));
-			   // http://en.wikipedia.org/wiki/Base64
-			   Authenticator.setDefault(new Authenticator() {
-				@Override
-				protected PasswordAuthentication getPasswordAuthentication() {
-				   return new PasswordAuthentication(context.getString(FileStoreContextBuilder.ProxyUser), context.getString(
-					   FileStoreContextBuilder.ProxyPassword).toCharArray());
-				}
-			   });
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	try {
+	   final List<ResourceMetadata> resources = new ArrayList<ResourceMetadata>();
+	   for (final FtpEngine.Entry entry : getFtpEngine().list(directoryUri)) {
+		resources.add(createResourceMetadata(parentUri + entry.getName().replace(" ", "%20"), entry.isDirectory(), entry.getLength(),
+			entry.getLastModified()));
+	   }
+	   return ioIterable(resources);
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, directoryUri);
+	}
+   }
 
-			}
-		   }
+   /**
+    * @return the ftp engine of the store, created on first use
+    * @see #createFtpEngine()
+    */
+   protected FtpEngine getFtpEngine() {
+	if (ftpEngine == null) {
+	   synchronized (this) {
+		if (ftpEngine == null) {
+		   ftpEngine = createFtpEngine();
 		}
 	   }
+	}
+	return ftpEngine;
+   }
 
-	   if (httpProxy == null) {
-		// open connection with proxy settings
-		urlConnection = configUrl.openConnection();
-	   } else {
-		// open connection with default proxy settings
-		urlConnection = configUrl.openConnection(httpProxy);
-	   }
+   /**
+    * override it to use your own ftp engine
+    * 
+    * @return a new ftp engine, configured with the store context
+    */
+   protected FtpEngine createFtpEngine() {
+	return new FtpEngine(context);
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#destroy()
+    */
+   @Override
+   public void destroy() {
+	if (ftpEngine != null) {
+	   ftpEngine.close();
+	}
+	super.destroy();
+   }
 
-	   // set commons connection settings
-	   setUrlConnectionSettings(urlConnection);
+   /**
+    * @return <code>true</code> if a proxy is set and active in the store context
+    */
+   protected boolean isProxied() {
+	return context.getBoolean(FileStoreContextBuilder.ProxySet, false)
+		&& !StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyHost));
+   }
+
+   /*
+    * get the resource with the jdk ftp over http proxy support
+    */
+   ResourceHandler doGetThroughProxy(final URI resourceUri) throws ResourceException {
+	try {
+	   final URLConnection urlConnection = openConnection(resourceUri.toURL());
 	   // connection
 	   urlConnection.connect();
 
-	   try {
-		ResourceHandler resource = createResourceHandler(resourceUri.toString(), urlConnection.getInputStream());
+	   ResourceHandler resource = createResourceHandler(resourceUri.toString(), urlConnection.getInputStream());
 
-		// Set some meta datas
-		if (resource instanceof ResourceHandlerBean) {
-		   ((ResourceHandlerBean) resource).setLastModified(urlConnection.getLastModified());
-		   ((ResourceHandlerBean) resource).setLength(urlConnection.getContentLength());		   
-		   ((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(
-			   FileHelper.getFileNameExtension(resourceUri.getPath())));
-		}
+	   // Set some meta datas
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) resource).setLastModified(urlConnection.getLastModified());
+		((ResourceHandlerBean) resource).setLength(urlConnection.getContentLength());
+		((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(
+			FileHelper.getFileNameExtension(resourceUri.getPath())));
+	   }
 
-		return resource;
+	   return resource;
 
-	   } catch (final FileNotFoundException fnfe) {
-		throw new ResourceNotFoundException(resourceUri.toString());
-	   }
+	} catch (final IOException ioe) {
+	   throw toResourceException(ioe, resourceUri);
+	}
+   }
 
-	} catch (final MalformedURLException mure) {
+   static void checkHost(final URI resourceUri) {
+	if (resourceUri.getHost() == null) { throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.ftp.illegal",
+		resourceUri.toString())); }
+   }
+
+   static ResourceException toResourceException(final IOException ioe, final URI resourceUri) {
+	if (ioe instanceof ResourceException) {
+	   return (ResourceException) ioe;
+	} else if (ioe instanceof FileNotFoundException) {
+	   return new ResourceNotFoundException(resourceUri.toString());
+	} else if (ioe instanceof MalformedURLException) {
 	   throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.malformed", resourceUri.toString()));
-	} catch (final ConnectException ce) {
-	   throw new ResourceException("store.connection.error", ce, resourceUri.toString());
-	} catch (final IOException ioe) {
-	   if (ioe instanceof ResourceException) {
-		throw (ResourceException) ioe;
-	   } else {
-		throw new ResourceException(ioe, resourceUri.toString());
-	   }
+	} else if (ioe instanceof ConnectException) {
+	   return new ResourceException("store.connection.error", ioe, resourceUri.toString());
+	} else {
+	   return new ResourceException(ioe, resourceUri.toString());
 	}
    }
 
-   /*
-    * (non-Javadoc)
-    * @see org.kaleidofoundry.core.store.AbstractFileStore#doRemove(java.net.URI)
+   /**
+    * open a connection to the url, with the proxy settings of the store context<br/>
+    * the connection is not connected yet
+    * 
+    * @param url
+    * @return url connection
+    * @throws IOException
     */
-   @Override
-   protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
-	throw new ResourceException("store.readonly.illegal", context.getName());
+   protected URLConnection openConnection(final URL url) throws IOException {
+
+	/*
+	 * # java env. variable to defined proxy globally
+	 * # http://download.oracle.com/docs/cd/E17409_01/javase/6/docs/technotes/guides/net/properties.html
+	 * http.proxyHost (default: <none>)
+	 * http.proxyPort (default: 80 if http.proxyHost specified)
+	 * http.nonProxyHosts (default: <none>)
+	 */
+
+	final URLConnection urlConnection;
+	Proxy httpProxy = null;
+
+	// if a proxy is set & active
+	if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxySet))) {
+	   if (context.getBoolean(FileStoreContextBuilder.ProxySet)) {
+
+		final String proxyHost = context.getString(FileStoreContextBuilder.ProxyHost);
+		final String proxyPort = context.getString(FileStoreContextBuilder.ProxyPort);
+
+		if (!StringHelper.isEmpty(proxyHost)) {
+		   httpProxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, !StringHelper.isEmpty(proxyPort) ? Integer.parseInt(proxyPort) : 80));
+
+		   if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.NonProxyHosts))) {
+			// :( global...
+			System.getProperties().put("ftp.nonProxyHosts", context.getProperty(FileStoreContextBuilder.NonProxyHosts));
+		   }
+
+		   if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyUser))
+			   && !StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyPassword))) {
+
+			// Authenticator is global... :(
+			// other way : urlConnection.setRequestProperty("Proxy-Authorization", Base64.encodeObject(username));
+			// http://en.wikipedia.org/wiki/Base64
+			Authenticator.setDefault(new Authenticator() {
+			   @Override
+			   protected PasswordAuthentication getPasswordAuthentication() {
+				return new PasswordAuthentication(context.getString(FileStoreContextBuilder.ProxyUser), context.getString(
+					FileStoreContextBuilder.ProxyPassword).toCharArray());
+			   }
+			});
+
+		   }
+		}
+	   }
+	}
+
+	if (httpProxy == null) {
+	   // open connection with proxy settings
+	   urlConnection = url.openConnection();
+	} else {
+	   // open connection with default proxy settings
+	   urlConnection = url.openConnection(httpProxy);
+	}
+
+	// set commons connection settings
+	setUrlConnectionSettings(urlConnection);
+	return urlConnection;
    }
 
    /*
-    * (non-Javadoc)
-    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStore(java.net.URI, org.kaleidofoundry.core.store.ResourceHandler)
+    * list the directory with the jdk ftp over http proxy support, its lines are read lazily
     */
-   @Override
-   protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
-	throw new ResourceException("store.readonly.illegal", context.getName());
+   IoIterable<ResourceMetadata> doListThroughProxy(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	final BufferedReader reader;
+	try {
+	   final URLConnection urlConnection = openConnection(new URL(parentUri + ";type=d"));
+	   urlConnection.connect();
+	   reader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream(), "UTF-8"));
+	} catch (final FileNotFoundException fnfe) {
+	   throw new ResourceNotFoundException(directoryUri.toString());
+	} catch (final ConnectException ce) {
+	   throw new ResourceException("store.connection.error", ce, directoryUri.toString());
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, directoryUri.toString());
+	}
+
+	return new IoIterable<ResourceMetadata>() {
+	   @Override
+	   public Iterator<ResourceMetadata> iterator() {
+		return new Iterator<ResourceMetadata>() {
+		   private String nextLine;
+
+		   @Override
+		   public boolean hasNext() {
+			try {
+			   while (nextLine == null) {
+				final String line = reader.readLine();
+				if (line == null) { return false; }
+				// some servers give the path of the file, not only its name
+				final String name = line.trim().substring(line.trim().lastIndexOf('/') + 1);
+				if (name.length() > 0 && !".".equals(name) && !"..".equals(name)) {
+				   nextLine = name;
+				}
+			   }
+			   return true;
+			} catch (final IOException ioe) {
+			   throw new IllegalStateException(ioe.getMessage(), ioe);
+			}
+		   }
+
+		   @Override
+		   public ResourceMetadata next() {
+			if (!hasNext()) { throw new NoSuchElementException(); }
+			final String name = nextLine;
+			nextLine = null;
+			return createResourceMetadata(parentUri + name.replace(" ", "%20"), false, -1, 0);
+		   }
+
+		   @Override
+		   public void remove() {
+			throw new UnsupportedOperationException();
+		   }
+		};
+	   }
+
+	   @Override
+	   public void close() throws IOException {
+		reader.close();
+	   }
+	};
    }
 
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Http client engine used by {@link HttpFileStore} to send its requests.<br/>
+ * <br/>
+ * An engine is created by store, it holds the connections settings of the store context (proxy, credentials, timeouts...) and it reuses
+ * the connections (keep-alive) from a request to another.<br/>
+ * The default implementation is {@link UrlConnectionHttpEngine}, override {@link HttpFileStore#createHttpEngine()} to use another one.
+ * 
+ * @author jraduget
+ */
+@ThreadSafe
+public interface HttpEngine extends Closeable {
+
+   /**
+    * send a request and get its response headers<br/>
+    * The body of the response have to be read (or not), then the response have to be closed, to give back the connection for the next
+    * requests.
+    * 
+    * @param method http method (GET, HEAD...)
+    * @param uri uri of the resource
+    * @param headers extra request headers (conditional or range headers...), can be empty
+    * @return the response of the server, whatever its status
+    * @throws IOException
+    */
+   @NotNull
+   Response execute(@NotNull String method, @NotNull URI uri, @NotNull Map<String, String> headers) throws IOException;
+
+   /**
+    * release the connections kept alive by the engine
+    */
+   @Override
+   void close();
+
+   /**
+    * Response of an http request
+    */
+   interface Response extends Closeable {
+
+	/**
+	 * @return http status code of the response
+	 */
+	int getStatusCode();
+
+	/**
+	 * @param name header name (case insensitive)
+	 * @return value of the header, null if the response does not contain it
+	 */
+	String getHeader(@NotNull String name);
+
+	/**
+	 * @return length of the decoded content, -1 if it is unknown (chunked or encoded content)
+	 */
+	long getContentLength();
+
+	/**
+	 * @return value of the Last-Modified header in milliseconds, 0 if it is unknown
+	 */
+	long getLastModified();
+
+	/**
+	 * @return decoded content of the response (gzip and deflate content encodings are handled). Empty for a response without body.
+	 * @throws IOException
+	 */
+	@NotNull
+	InputStream getInputStream() throws IOException;
+
+	/**
+	 * give back the connection for the next requests. The unread content is skipped (up to a limit) to keep the connection alive.
+	 */
+	@Override
+	void close();
+   }
+}
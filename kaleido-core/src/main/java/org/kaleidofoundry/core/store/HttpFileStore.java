@@ -17,17 +17,19 @@ package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.store.FileStoreConstants.HttpStorePluginName;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.Authenticator;
+import java.io.InputStream;
 import java.net.ConnectException;
-import java.net.InetSocketAddress;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.PasswordAuthentication;
-import java.net.Proxy;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLConnection;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.i18n.InternalBundleHelper;
@@ -37,7 +39,6 @@ import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.lang.annotation.TaskLabel;
 import org.kaleidofoundry.core.plugin.Declare;
-import org.kaleidofoundry.core.util.StringHelper;
 
 /**
  * Http & https {@link FileStore} implementation
@@ -45,6 +46,11 @@ import org.kaleidofoundry.core.util.StringHelper;
  * <br/>
  * <b>This implementation is only for read only use</b> - the methods store, remove, move will throws {@link ResourceException}<br/>
  * <br/>
+ * The requests are sent by the {@link HttpEngine} of the store (see {@link #createHttpEngine()}) : connections kept alive, proxy settings
+ * of the store context, gzip / deflate content encodings.<br/>
+ * When {@link FileStoreContextBuilder#CachingValidation} is enabled, a cached resource is validated by a conditional request, and a range
+ * of a resource can be got with {@link #getRange(String, long, long)}.<br/>
+ * <br/>
  * You can create your own store, by extending this class and overriding methods :
  * <ul>
  * <li>{@link #doRemove(URI)}</li>
@@ -59,6 +65,11 @@ import org.kaleidofoundry.core.util.StringHelper;
 @Task(labels = TaskLabel.Enhancement, comment = "Create an implementation using commons http client + servlet for store / move / remove methods")
 public class HttpFileStore extends AbstractFileStore implements FileStore {
 
+   /** http status of a range which can't be satisfied */
+   static final int HTTP_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+   private volatile HttpEngine httpEngine;
+
    /**
     * @param context
     */
@@ -105,98 +116,232 @@ public class HttpFileStore extends AbstractFileStore implements FileStore {
     */
    @Override
    protected ResourceHandler doGet(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
-	if (resourceUri.getHost() == null) { throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.http.illegal",
-		resourceUri.toString())); }
+	return get(resourceUri, Collections.<String, String> emptyMap());
+   }
+
+   /**
+    * The meta datas are got with a HEAD request, no content is transfered.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final HttpEngine.Response response = execute("HEAD", resourceUri, Collections.<String, String> emptyMap());
 	try {
+	   checkStatus(response, resourceUri);
+	   final String contentType = response.getHeader("Content-Type");
+	   return createResourceMetadata(resourceUri.toString(), false, response.getContentLength(), response.getLastModified(),
+		   contentType != null ? contentType.split(";")[0].trim() : null, response.getHeader("ETag"));
+	} finally {
+	   response.close();
+	}
+   }
 
-	   /*
-	    * # java env. variable to defined proxy globally
-	    * # http://download.oracle.com/docs/cd/E17409_01/javase/6/docs/technotes/guides/net/properties.html
-	    * http.proxyHost (default: <none>)
-	    * http.proxyPort (default: 80 if http.proxyHost specified)
-	    * http.nonProxyHosts (default: <none>)
-	    */
-
-	   final URL configUrl = resourceUri.toURL();
-	   final URLConnection urlConnection;
-	   Proxy httpProxy = null;
-
-	   // if a proxy is set & active
-	   if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxySet))) {
-		if (context.getBoolean(FileStoreContextBuilder.ProxySet)) {
-
-		   final String proxyHost = context.getString(FileStoreContextBuilder.ProxyHost);
-		   final String proxyPort = context.getString(FileStoreContextBuilder.ProxyPort);
-
-		   if (!StringHelper.isEmpty(proxyHost)) {
-			httpProxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, !StringHelper.isEmpty(proxyPort) ? Integer.parseInt(proxyPort) : 80));
-
-			if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.NonProxyHosts))) {
-			   // :( global...
-			   System.getProperties().put("http.nonProxyHosts", context.getProperty(FileStoreContextBuilder.NonProxyHosts));
-			}
-
-			if (!StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyUser))
-				&& !StringHelper.isEmpty(context.getString(FileStoreContextBuilder.ProxyPassword))) {
-
-			   // Authenticator is global... :(
-			   // other way : urlConnection.setRequestProperty("Proxy-Authorization", Base64.encodeObject(username));
-			   // http://en.wikipedia.org/wiki/Base64
-			   Authenticator.setDefault(new Authenticator() {
-				@Override
-				protected PasswordAuthentication getPasswordAuthentication() {
-				   return new PasswordAuthentication(context.getString(FileStoreContextBuilder.ProxyUser), context.getString(
-					   FileStoreContextBuilder.ProxyPassword).toCharArray());
-				}
-			   });
-
-			}
+   /**
+    * The cached resource is validated by a conditional GET request (<code>If-None-Match</code> / <code>If-Modified-Since</code>) : an
+    * unchanged resource costs a <code>304 Not Modified</code> response, without content.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doGetIfModified(java.net.URI, org.kaleidofoundry.core.store.ResourceHandler)
+    */
+   @Override
+   protected ResourceHandler doGetIfModified(final URI resourceUri, final ResourceHandler cachedResource) throws ResourceNotFoundException,
+	   ResourceException {
+	final Map<String, String> headers = new HashMap<String, String>();
+	final String etag = cachedResource instanceof ResourceHandlerBean ? ((ResourceHandlerBean) cachedResource).getEtag() : null;
+	if (etag != null) {
+	   headers.put("If-None-Match", etag);
+	}
+	if (cachedResource.getLastModified() > 0) {
+	   final ZonedDateTime lastModified = ZonedDateTime.ofInstant(Instant.ofEpochMilli(cachedResource.getLastModified()), ZoneOffset.UTC);
+	   headers.put("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified));
+	}
+	// no validator, the meta datas are compared
+	if (headers.isEmpty()) { return super.doGetIfModified(resourceUri, cachedResource); }
+
+	return get(resourceUri, headers);
+   }
+
+   /**
+    * Get a range of the content of a resource, with an http range request (<code>Range: bytes=offset-end</code>).<br/>
+    * If the server does not support range requests, the whole content is transfered, and skipped up to the offset.<br/>
+    * The range is not cached, and there is no fail-over.
+    * 
+    * @param resourceRelativePath
+    * @param offset position of the first byte to get
+    * @param length max number of bytes to get, -1 to get up to the end
+    * @return resource handler of the range content
+    * @throws ResourceNotFoundException
+    * @throws ResourceException
+    */
+   public ResourceHandler getRange(@NotNull final String resourceRelativePath, final long offset, final long length)
+	   throws ResourceNotFoundException, ResourceException {
+	if (offset < 0) { throw new IllegalArgumentException("offset must be positive"); }
+	final String resourceUri = buildManageableResourceURi(resourceRelativePath);
+	if (length == 0) { return createResourceHandler(resourceUri, new byte[0]); }
+
+	final Map<String, String> headers = new HashMap<String, String>();
+	headers.put("Range", "bytes=" + offset + "-" + (length > 0 ? String.valueOf(offset + length - 1) : ""));
+	// a range applies to the encoded content
+	headers.put("Accept-Encoding", "identity");
+
+	final URI uri = URI.create(resourceUri);
+	final HttpEngine.Response response = execute("GET", uri, headers);
+	boolean opened = false;
+	try {
+	   // the offset is beyond the end of the content
+	   if (response.getStatusCode() == HTTP_REQUESTED_RANGE_NOT_SATISFIABLE) { return createResourceHandler(resourceUri, new byte[0]); }
+	   checkStatus(response, uri);
+
+	   InputStream in = response.getInputStream();
+	   long rangeLength = response.getContentLength();
+	   if (response.getStatusCode() != HttpURLConnection.HTTP_PARTIAL) {
+		// the whole content is sent
+		long toSkip = offset;
+		while (toSkip > 0) {
+		   final long skipped = in.skip(toSkip);
+		   if (skipped > 0) {
+			toSkip -= skipped;
+		   } else if (in.read() >= 0) {
+			toSkip--;
+		   } else {
+			break;
 		   }
 		}
+		if (length > 0) {
+		   in = new ResourceHandlerBean.RangeInputStream(in, length);
+		}
+		rangeLength = rangeLength >= 0 ? Math.max(0, rangeLength - offset) : -1;
+		rangeLength = length > 0 && rangeLength >= 0 ? Math.min(rangeLength, length) : rangeLength;
+	   }
+
+	   final ResourceHandler resource = createResourceHandler(resourceUri, in);
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) resource).setLastModified(response.getLastModified());
+		((ResourceHandlerBean) resource).setLength(rangeLength);
+		((ResourceHandlerBean) resource).setEtag(response.getHeader("ETag"));
 	   }
+	   opened = true;
+	   return resource;
+	} catch (final IOException ioe) {
+	   throw ioe instanceof ResourceException ? (ResourceException) ioe : new ResourceException(ioe, resourceUri);
+	} finally {
+	   if (!opened) {
+		response.close();
+	   }
+	}
+   }
 
-	   if (httpProxy == null) {
-		// open connection with proxy settings
-		urlConnection = configUrl.openConnection();
-	   } else {
-		// open connection with default proxy settings
-		urlConnection = configUrl.openConnection(httpProxy);
+   /**
+    * @return the http engine of the store, created on first use
+    * @see #createHttpEngine()
+    */
+   protected HttpEngine getHttpEngine() {
+	if (httpEngine == null) {
+	   synchronized (this) {
+		if (httpEngine == null) {
+		   httpEngine = createHttpEngine();
+		}
 	   }
+	}
+	return httpEngine;
+   }
 
-	   // set commons connection settings
-	   setUrlConnectionSettings(urlConnection);
-	   // connection
-	   urlConnection.connect();
+   /**
+    * override it to use your own http client
+    * 
+    * @return a new http engine, configured with the store context
+    */
+   protected HttpEngine createHttpEngine() {
+	return new UrlConnectionHttpEngine(context);
+   }
 
-	   try {
-		ResourceHandler resource = createResourceHandler(resourceUri.toString(), urlConnection.getInputStream());
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#destroy()
+    */
+   @Override
+   public void destroy() {
+	if (httpEngine != null) {
+	   httpEngine.close();
+	}
+	super.destroy();
+   }
 
-		// Set some meta datas
-		if (resource instanceof ResourceHandlerBean) {
-		   ((ResourceHandlerBean) resource).setLastModified(urlConnection.getLastModified());
-		   ((ResourceHandlerBean) resource).setLength(urlConnection.getContentLength());
-		   ((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(
-			   FileHelper.getFileNameExtension(resourceUri.getPath())));
-		}
+   /**
+    * GET request of the resource
+    * 
+    * @param resourceUri
+    * @param headers extra request headers
+    * @return the resource, or <code>null</code> if the server answers that the resource is not modified
+    * @throws ResourceNotFoundException
+    * @throws ResourceException
+    */
+   ResourceHandler get(final URI resourceUri, final Map<String, String> headers) throws ResourceNotFoundException, ResourceException {
+	final HttpEngine.Response response = execute("GET", resourceUri, headers);
+	boolean opened = false;
+	try {
+	   if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) { return null; }
+	   checkStatus(response, resourceUri);
+
+	   // the response is closed with the resource
+	   final ResourceHandler resource = createResourceHandler(resourceUri.toString(), response.getInputStream());
+	   opened = true;
 
-		return resource;
-	   } catch (final FileNotFoundException fnfe) {
-		throw new ResourceNotFoundException(resourceUri.toString());
+	   // Set some meta datas
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) resource).setLastModified(response.getLastModified());
+		((ResourceHandlerBean) resource).setLength(response.getContentLength());
+		((ResourceHandlerBean) resource).setMimeType(MimeTypeResolverFactory.getService().getMimeType(
+			FileHelper.getFileNameExtension(resourceUri.getPath())));
+		((ResourceHandlerBean) resource).setEtag(response.getHeader("ETag"));
+	   }
+	   return resource;
+	} catch (final IOException ioe) {
+	   throw ioe instanceof ResourceException ? (ResourceException) ioe : new ResourceException(ioe, resourceUri.toString());
+	} finally {
+	   if (!opened) {
+		response.close();
 	   }
+	}
+   }
 
+   /**
+    * send a request with the http engine of the store
+    * 
+    * @param method
+    * @param resourceUri
+    * @param headers
+    * @return response
+    * @throws ResourceException
+    */
+   HttpEngine.Response execute(final String method, final URI resourceUri, final Map<String, String> headers) throws ResourceException {
+	if (resourceUri.getHost() == null) { throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.http.illegal",
+		resourceUri.toString())); }
+	try {
+	   return getHttpEngine().execute(method, resourceUri, headers);
 	} catch (final MalformedURLException mure) {
 	   throw new IllegalStateException(InternalBundleHelper.StoreMessageBundle.getMessage("store.uri.malformed", resourceUri.toString()));
 	} catch (final ConnectException ce) {
 	   throw new ResourceException("store.connection.error", ce, resourceUri.toString());
 	} catch (final IOException ioe) {
-	   if (ioe instanceof ResourceException) {
-		throw (ResourceException) ioe;
-	   } else {
-		throw new ResourceException(ioe, resourceUri.toString());
-	   }
+	   throw new ResourceException(ioe, resourceUri.toString());
 	}
    }
 
+   /**
+    * @param response
+    * @param resourceUri
+    * @throws ResourceNotFoundException for a 404 or 410 status
+    * @throws ResourceException for an other error status
+    */
+   static void checkStatus(final HttpEngine.Response response, final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final int statusCode = response.getStatusCode();
+	if (statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_GONE) { throw new ResourceNotFoundException(
+		resourceUri.toString()); }
+	if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) { throw new ResourceException(new IOException("http status " + statusCode),
+		resourceUri.toString()); }
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.store.AbstractFileStore#doRemove(java.net.URI)
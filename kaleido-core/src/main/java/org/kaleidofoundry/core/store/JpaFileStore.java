@@ -18,26 +18,50 @@ package org.kaleidofoundry.core.store;
 import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
 import static org.kaleidofoundry.core.env.model.EnvironmentConstants.KALEIDO_PERSISTENT_UNIT_NAME;
 import static org.kaleidofoundry.core.store.FileStoreConstants.ClobJpaStorePluginName;
-import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_BUFFER_SIZE;
-import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BufferSize;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHUNK_FETCH_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHUNK_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_LIST_PAGE_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreConstants.MAX_CHUNK_SIZE;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ChunkFetchSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ChunkSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ListPageSize;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IoIterable;
 import org.kaleidofoundry.core.io.MimeTypeResolverFactory;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.plugin.Declare;
+import org.kaleidofoundry.core.store.model.ResourceChunkEntity;
 import org.kaleidofoundry.core.store.model.ResourceHandlerEntity;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ChunksByUri;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_MoveChunks;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_MoveResource;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_RemoveChunks;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_RemoveResource;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ResourceMetadataByUri;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ResourcesByUriPrefix;
 import org.kaleidofoundry.core.util.StringHelper;
 import org.kaleidofoundry.core.util.locale.LocaleFactory;
 
@@ -46,6 +70,13 @@ import org.kaleidofoundry.core.util.locale.LocaleFactory;
  * <br/>
  * 
  * The esource content will be stored in clob or / blob database<br/>
+ * <br/>
+ * By default, the content is split into fixed size {@link ResourceChunkEntity} rows (see {@link FileStoreContextBuilder#ChunkSize}) : it
+ * is written and read chunk by chunk, so the heap used by a resource does not depend on its size. The chunks are read
+ * {@link FileStoreContextBuilder#ChunkFetchSize} at a time, which is also given as jdbc fetch size hint. They are written by flushes of
+ * the same count, which are sent as a single jdbc batch when the persistence unit enables it (<code>eclipselink.jdbc.batch-writing</code>,
+ * <code>hibernate.jdbc.batch_size</code>...).<br/>
+ * The resources stored in a single lob (previous versions, or a chunk size of 0) are still read as is.<br/>
  * 
  * @author jraduget
  * @see FileStoreContextBuilder enum of context configuration properties available
@@ -54,6 +85,10 @@ import org.kaleidofoundry.core.util.locale.LocaleFactory;
 @Task(comment = "Annotate it as @Stateless ejb to enable ejb exposition + injection - import right ejb 3.x library - problem : coupling it to ejb3")
 public class JpaFileStore extends AbstractFileStore implements FileStore {
 
+   // jdbc fetch size query hints of the main providers
+   static final String ECLIPSELINK_FETCH_SIZE_HINT = "eclipselink.jdbc.fetch-size";
+   static final String HIBERNATE_FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+
    @PersistenceContext(unitName = KALEIDO_PERSISTENT_UNIT_NAME)
    private EntityManager em;
 
@@ -101,6 +136,16 @@ public class JpaFileStore extends AbstractFileStore implements FileStore {
 	super();
    }
 
+   /**
+    * the entity manager is bound to the caller thread, batch operations are processed sequentially in it
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#getBatchParallelism()
+    */
+   @Override
+   protected int getBatchParallelism() {
+	return 1;
+   }
+
    /*
     * (non-Javadoc)
     * @see org.kaleidofoundry.core.store.AbstractFileStore#getStoreType()
@@ -120,7 +165,13 @@ public class JpaFileStore extends AbstractFileStore implements FileStore {
 	if (entity == null) {
 	   throw new ResourceNotFoundException(resourceUri.toString());
 	} else {
-	   final ResourceHandler resource = createResourceHandler(resourceUri.toString(), new ByteArrayInputStream(entity.getContent()));
+	   final InputStream content;
+	   if (entity.getChunks() != null) {
+		content = new ChunkInputStream(resourceUri.toString(), entity.getChunks());
+	   } else {
+		content = new ByteArrayInputStream(entity.getContent() != null ? entity.getContent() : new byte[0]);
+	   }
+	   final ResourceHandler resource = createResourceHandler(resourceUri.toString(), content);
 	   // Set some meta datas
 	   if (resource instanceof ResourceHandlerBean) {
 		if (entity.getUpdatedDate() != null) {
@@ -130,6 +181,7 @@ public class JpaFileStore extends AbstractFileStore implements FileStore {
 		}
 		((ResourceHandlerBean) resource).setMimeType(entity.getMimeType());
 		((ResourceHandlerBean) resource).setLength(entity.getSize());
+		((ResourceHandlerBean) resource).setEtag(entity.getVersion() != null ? String.valueOf(entity.getVersion()) : null);
 	   }
 	   return resource;
 	}
@@ -145,6 +197,9 @@ public class JpaFileStore extends AbstractFileStore implements FileStore {
 	if (entity == null) {
 	   throw new ResourceNotFoundException(resourceUri.toString());
 	} else {
+	   if (entity.getChunks() != null) {
+		removeChunks(resourceUri.toString());
+	   }
 	   getEntityManager().remove(entity);
 	}
    }
@@ -176,31 +231,384 @@ public class JpaFileStore extends AbstractFileStore implements FileStore {
 	   isNew = false;
 	}
 
-	if (resource.getInputStream() != null) {
+	if (!resource.isEmpty()) {
 
-	   final byte[] buffer = new byte[context.getInteger(BufferSize, DEFAULT_BUFFER_SIZE)];
-	   final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	   final int chunkSize = getChunkSize();
 
-	   try {
-		int lengthToWrite = resource.getInputStream().read(buffer);
+	   // previous content chunks
+	   if (!isNew && storeEntity.getChunks() != null) {
+		removeChunks(resourceUri.toString());
+	   }
 
-		while (lengthToWrite != -1) {
-		   outputStream.write(buffer, 0, lengthToWrite);
-		   lengthToWrite = resource.getInputStream().read(buffer);
-		}
-		storeEntity.setContent(outputStream.toByteArray());
+	   if (chunkSize > 0) {
+		storeEntity.setContent(null);
+		storeChunks(resourceUri, resource, storeEntity, chunkSize);
+	   } else {
+		// the entity content is a byte array : in memory content is used as is, a file is read at once in an array of its size
+		storeEntity.setContent(resource.getBytes());
+		storeEntity.setChunks(null);
+	   }
 
-		if (isNew) {
-		   getEntityManager().persist(storeEntity);
-		   getEntityManager().flush(); // to remove
-		} else {
-		   getEntityManager().merge(storeEntity);
-		   getEntityManager().flush(); // to remove
+	   if (isNew) {
+		getEntityManager().persist(storeEntity);
+		getEntityManager().flush(); // to remove
+	   } else {
+		getEntityManager().merge(storeEntity);
+		getEntityManager().flush(); // to remove
+	   }
+	}
+   }
+
+   /**
+    * The content is read chunk by chunk from the resource input stream. The persisted chunks are flushed and detached by
+    * {@link FileStoreContextBuilder#ChunkFetchSize}, so the persistence context never holds the whole content.
+    * 
+    * @param resourceUri
+    * @param resource
+    * @param storeEntity entity of the resource, its size and chunk count are set
+    * @param chunkSize
+    * @throws ResourceException
+    */
+   protected void storeChunks(final URI resourceUri, final ResourceHandler resource, final ResourceHandlerEntity storeEntity,
+	   final int chunkSize) throws ResourceException {
+
+	final EntityManager em = getEntityManager();
+	final int batchSize = getChunkFetchSize();
+	final List<ResourceChunkEntity> batch = new ArrayList<ResourceChunkEntity>(batchSize);
+	final byte[] buffer = new byte[chunkSize];
+	final InputStream in = resource.getInputStream();
+	long size = 0;
+	int seq = 0;
+
+	try {
+	   int count;
+	   while ((count = readChunk(in, buffer)) > 0) {
+		final ResourceChunkEntity chunk = new ResourceChunkEntity(resourceUri.toString(), seq++, Arrays.copyOf(buffer, count));
+		em.persist(chunk);
+		batch.add(chunk);
+		size += count;
+		if (batch.size() >= batchSize) {
+		   flushChunks(batch);
 		}
+	   }
+	   flushChunks(batch);
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, resourceUri.toString());
+	} finally {
+	   resource.close();
+	}
+
+	storeEntity.setSize(size);
+	storeEntity.setChunks(seq);
+   }
+
+   /*
+    * write the pending chunks, then free them from the persistence context
+    */
+   private void flushChunks(final List<ResourceChunkEntity> batch) {
+	if (!batch.isEmpty()) {
+	   getEntityManager().flush();
+	   for (final ResourceChunkEntity chunk : batch) {
+		getEntityManager().detach(chunk);
+	   }
+	   batch.clear();
+	}
+   }
 
-	   } catch (final IOException ioe) {
-		throw new ResourceException(ioe, resourceUri.toString());
+   /**
+    * @param resourceUri
+    * @return number of removed chunks
+    */
+   protected int removeChunks(final String resourceUri) {
+	final Query query = getEntityManager().createNamedQuery(Query_RemoveChunks.Name);
+	query.setParameter(Query_RemoveChunks.Parameter_Uri, resourceUri);
+	return query.executeUpdate();
+   }
+
+   /**
+    * @param resourceUri
+    * @param fromSeq position of the first chunk
+    * @param toSeq position after the last chunk
+    * @return bytes of the chunks, ordered by position
+    */
+   @SuppressWarnings("unchecked")
+   protected List<byte[]> findChunks(final String resourceUri, final int fromSeq, final int toSeq) {
+	final Query query = getEntityManager().createNamedQuery(Query_ChunksByUri.Name);
+	query.setParameter(Query_ChunksByUri.Parameter_Uri, resourceUri);
+	query.setParameter(Query_ChunksByUri.Parameter_FromSeq, fromSeq);
+	query.setParameter(Query_ChunksByUri.Parameter_ToSeq, toSeq);
+	// jdbc fetch size, an unknown hint is ignored by the provider
+	query.setHint(ECLIPSELINK_FETCH_SIZE_HINT, toSeq - fromSeq);
+	query.setHint(HIBERNATE_FETCH_SIZE_HINT, toSeq - fromSeq);
+	return query.getResultList();
+   }
+
+   /**
+    * @return size in bytes of a content chunk, 0 if the content is stored in the entity lob
+    */
+   protected int getChunkSize() {
+	final int chunkSize = context.getInteger(ChunkSize, DEFAULT_CHUNK_SIZE);
+	if (chunkSize > MAX_CHUNK_SIZE) { throw new IllegalStateException("chunk size " + chunkSize + " is greater than " + MAX_CHUNK_SIZE); }
+	return chunkSize;
+   }
+
+   /**
+    * @return number of content chunks fetched or written at once
+    */
+   protected int getChunkFetchSize() {
+	return Math.max(1, context.getInteger(ChunkFetchSize, DEFAULT_CHUNK_FETCH_SIZE));
+   }
+
+   /**
+    * The resource is moved by bulk queries : the content is not loaded, the primary key of the entity is updated.<br/>
+    * The entity manager is flushed before, and the entities of the two resources are detached after, because the bulk queries do not update
+    * its managed instances. A missing origin is detected before any update, so the destination is left as is.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doMove(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doMove(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	final EntityManager em = getEntityManager();
+	em.flush();
+	// the bulk queries bypass the persistence context, which may be shared : only the entities of the two resources are detached from it
+	final ResourceHandlerEntity origin = em.find(ResourceHandlerEntity.class, originUri.toString());
+	final ResourceHandlerEntity destination = em.find(ResourceHandlerEntity.class, destinationUri.toString());
+	if (origin == null) { throw new ResourceNotFoundException(originUri.toString()); }
+
+	final Query removeQuery = em.createNamedQuery(Query_RemoveResource.Name);
+	removeQuery.setParameter(Query_RemoveResource.Parameter_Uri, destinationUri.toString());
+	removeQuery.executeUpdate();
+	removeChunks(destinationUri.toString());
+
+	final String filename = destinationUri.getPath().substring(1);
+	final Query moveQuery = em.createNamedQuery(Query_MoveResource.Name);
+	moveQuery.setParameter(Query_MoveResource.Parameter_Uri, originUri.toString());
+	moveQuery.setParameter(Query_MoveResource.Parameter_NewUri, destinationUri.toString());
+	moveQuery.setParameter(Query_MoveResource.Parameter_NewName, FileHelper.getFileName(filename));
+	moveQuery.setParameter(Query_MoveResource.Parameter_NewPath, filename);
+	moveQuery.setParameter(Query_MoveResource.Parameter_UpdatedDate, Calendar.getInstance(LocaleFactory.getDefaultFactory().getCurrentLocale())
+		.getTime());
+	final int moved = moveQuery.executeUpdate();
+	if (moved > 0) {
+	   final Query moveChunksQuery = em.createNamedQuery(Query_MoveChunks.Name);
+	   moveChunksQuery.setParameter(Query_MoveChunks.Parameter_Uri, originUri.toString());
+	   moveChunksQuery.setParameter(Query_MoveChunks.Parameter_NewUri, destinationUri.toString());
+	   moveChunksQuery.executeUpdate();
+	}
+	em.detach(origin);
+	if (destination != null) {
+	   em.detach(destination);
+	}
+	if (moved == 0) { throw new ResourceNotFoundException(originUri.toString()); }
+
+	// bulk queries bypass the second level cache
+	if (em.getEntityManagerFactory().getCache() != null) {
+	   em.getEntityManagerFactory().getCache().evict(ResourceHandlerEntity.class, originUri.toString());
+	   em.getEntityManagerFactory().getCache().evict(ResourceHandlerEntity.class, destinationUri.toString());
+	}
+	return true;
+   }
+
+   /**
+    * The meta datas are got by a projection query, the content is not loaded. The entity version is used as entity tag.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final Query query = getEntityManager().createNamedQuery(Query_ResourceMetadataByUri.Name);
+	query.setParameter(Query_ResourceMetadataByUri.Parameter_Uri, resourceUri.toString());
+	final List<?> result = query.getResultList();
+	if (result.isEmpty()) { throw new ResourceNotFoundException(resourceUri.toString()); }
+
+	final Object[] row = (Object[]) result.get(0);
+	final Date lastModified = row[2] != null ? (Date) row[2] : (Date) row[1];
+	return createResourceMetadata(resourceUri.toString(), false, row[0] != null ? ((Number) row[0]).longValue() : -1,
+		lastModified != null ? lastModified.getTime() : 0, (String) row[3], row[4] != null ? String.valueOf(row[4]) : null);
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	return doWalk(directoryUri, 1);
+   }
+
+   /**
+    * The whole tree is fetched by a single uri prefix query, paged by {@link FileStoreContextBuilder#ListPageSize} and ordered by uri.
+    * The directories are deduced from the resource uris, the content of the resources is never loaded.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doWalk(java.net.URI, int)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doWalk(final URI directoryUri, final int maxDepth) throws ResourceNotFoundException,
+	   ResourceException {
+
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	final String uriPrefix = parentUri.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	final int pageSize = context.getInteger(ListPageSize, DEFAULT_LIST_PAGE_SIZE);
+
+	final List<Object[]> firstPage = findResources(uriPrefix, 0, pageSize);
+	if (firstPage.isEmpty()) { throw new ResourceNotFoundException(directoryUri.toString()); }
+
+	return new IoIterable<ResourceMetadata>() {
+	   @Override
+	   public Iterator<ResourceMetadata> iterator() {
+		return new Iterator<ResourceMetadata>() {
+		   private List<Object[]> page = firstPage;
+		   private int firstResult = 0;
+		   private int index = 0;
+		   // directories already returned, relative from the walked directory
+		   private final Set<String> directories = new HashSet<String>();
+		   private final LinkedList<ResourceMetadata> pending = new LinkedList<ResourceMetadata>();
+
+		   @Override
+		   public boolean hasNext() {
+			while (pending.isEmpty()) {
+			   if (index >= page.size()) {
+				if (page.size() < pageSize) { return false; }
+				firstResult += page.size();
+				page = findResources(uriPrefix, firstResult, pageSize);
+				index = 0;
+				if (page.isEmpty()) { return false; }
+			   }
+			   add(page.get(index++));
+			}
+			return true;
+		   }
+
+		   @Override
+		   public ResourceMetadata next() {
+			if (!hasNext()) { throw new NoSuchElementException(); }
+			return pending.removeFirst();
+		   }
+
+		   @Override
+		   public void remove() {
+			throw new UnsupportedOperationException();
+		   }
+
+		   // queue the resource, and its parent directories which have not been returned yet
+		   private void add(final Object[] row) {
+			final String uri = (String) row[0];
+			final String[] names = uri.substring(parentUri.length()).split("/");
+			final StringBuilder directory = new StringBuilder();
+			for (int depth = 1; depth < names.length && depth <= maxDepth; depth++) {
+			   directory.append(names[depth - 1]);
+			   if (directories.add(directory.toString())) {
+				pending.add(createResourceMetadata(parentUri + directory, true, -1, 0));
+			   }
+			   directory.append("/");
+			}
+			if (names.length <= maxDepth) {
+			   final Date lastModified = row[3] != null ? (Date) row[3] : (Date) row[2];
+			   pending.add(createResourceMetadata(uri, false, row[1] != null ? ((Number) row[1]).longValue() : -1,
+				   lastModified != null ? lastModified.getTime() : 0));
+			}
+		   }
+		};
+	   }
+
+	   @Override
+	   public void close() {
+	   }
+	};
+   }
+
+   /**
+    * @param uriPrefix escaped uri prefix
+    * @param firstResult position of the first result of the page
+    * @param maxResults size of the page
+    * @return uri, size, creation and update dates of the resources
+    */
+   @SuppressWarnings("unchecked")
+   protected List<Object[]> findResources(final String uriPrefix, final int firstResult, final int maxResults) {
+	final Query query = getEntityManager().createNamedQuery(Query_ResourcesByUriPrefix.Name);
+	query.setParameter(Query_ResourcesByUriPrefix.Parameter_UriPrefix, uriPrefix);
+	query.setFirstResult(firstResult);
+	query.setMaxResults(maxResults);
+	return query.getResultList();
+   }
+
+   /**
+    * Content of a chunked resource, the chunks are fetched on demand by range queries of {@link FileStoreContextBuilder#ChunkFetchSize}
+    * chunks. The query is a projection : the fetched chunks are not managed by the entity manager, only the current range is in the
+    * heap.<br/>
+    * The stream has to be read while the entity manager of the store is still opened.
+    */
+   class ChunkInputStream extends InputStream {
+
+	private final String resourceUri;
+	private final int chunks;
+	private final LinkedList<byte[]> fetched;
+	private int nextSeq;
+	private byte[] current;
+	private int position;
+
+	ChunkInputStream(final String resourceUri, final int chunks) {
+	   this.resourceUri = resourceUri;
+	   this.chunks = chunks;
+	   this.fetched = new LinkedList<byte[]>();
+	}
+
+	@Override
+	public int read() throws IOException {
+	   if (!nextChunk()) { return -1; }
+	   return current[position++] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   if (len == 0) { return 0; }
+	   if (!nextChunk()) { return -1; }
+	   final int count = Math.min(len, current.length - position);
+	   System.arraycopy(current, position, b, off, count);
+	   position += count;
+	   return count;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+	   long skipped = 0;
+	   while (skipped < n && nextChunk()) {
+		final int count = (int) Math.min(n - skipped, current.length - position);
+		position += count;
+		skipped += count;
+	   }
+	   return skipped;
+	}
+
+	@Override
+	public int available() {
+	   return current != null ? current.length - position : 0;
+	}
+
+	@Override
+	public void close() {
+	   fetched.clear();
+	   current = null;
+	   nextSeq = chunks;
+	}
+
+	/*
+	 * @return false at the end of the content
+	 */
+	private boolean nextChunk() throws IOException {
+	   while (current == null || position >= current.length) {
+		if (fetched.isEmpty()) {
+		   if (nextSeq >= chunks) { return false; }
+		   final int toSeq = Math.min(chunks, nextSeq + getChunkFetchSize());
+		   final List<byte[]> range = findChunks(resourceUri, nextSeq, toSeq);
+		   if (range.size() != toSeq - nextSeq) { throw new IOException("missing content chunks of " + resourceUri); }
+		   fetched.addAll(range);
+		   nextSeq = toSeq;
+		}
+		current = fetched.removeFirst();
+		position = 0;
 	   }
+	   return true;
 	}
    }
 
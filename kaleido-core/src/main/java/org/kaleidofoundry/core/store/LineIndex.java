@@ -0,0 +1,356 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Sparse line index of a local text file, used by {@link FileStoreConsoleController} to reach a line without reading the whole file.<br/>
+ * <br/>
+ * The byte offset of one line every {@link #getStep()} lines is kept. The index is built on demand, and only the bytes appended since the
+ * last use are scanned (log files...). It is reset if the file is truncated or replaced (log rotation).<br/>
+ * <br/>
+ * Lines are delimited by a '\n' byte (an ending '\r' is removed), so the charset must encode them as single bytes, see
+ * {@link #isSupported(Charset)}.
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+class LineIndex {
+
+   /** default number of lines between two indexed offsets */
+   static final int DEFAULT_STEP = 1000;
+   /** size of the blocks read from the file */
+   static final int BLOCK_SIZE = 8192;
+
+   private final File file;
+   private final int step;
+
+   // offsets[k] is the byte offset of the line k * step
+   private long[] offsets;
+   private int offsetCount;
+   // number of bytes already indexed
+   private long indexedLength;
+   // number of '\n' found in the indexed bytes
+   private long indexedLines;
+   // byte offset following the last '\n' found
+   private long lastLineOffset;
+   // identity of the indexed file (inode...), to detect a rotation
+   private Object fileKey;
+
+   /**
+    * @param file
+    */
+   LineIndex(@NotNull final File file) {
+	this(file, DEFAULT_STEP);
+   }
+
+   /**
+    * @param file
+    * @param step number of lines between two indexed offsets
+    */
+   LineIndex(@NotNull final File file, final int step) {
+	this.file = file;
+	this.step = step;
+	reset();
+   }
+
+   /**
+    * @param charset
+    * @return <code>true</code> if the line delimiters of the charset are the single ascii bytes
+    */
+   static boolean isSupported(@NotNull final Charset charset) {
+	return Arrays.equals(new byte[] { '\r', '\n' }, "\r\n".getBytes(charset));
+   }
+
+   /**
+    * @return indexed file
+    */
+   File getFile() {
+	return file;
+   }
+
+   /**
+    * @return number of lines between two indexed offsets
+    */
+   int getStep() {
+	return step;
+   }
+
+   /**
+    * @return number of lines of the file, a last line without ending '\n' included
+    * @throws IOException
+    */
+   synchronized long getLineCount() throws IOException {
+	update();
+	return indexedLines + (indexedLength > lastLineOffset ? 1 : 0);
+   }
+
+   /**
+    * @param line line number (0 based)
+    * @return byte offset of the line, or the indexed length if the file does not have so many lines
+    * @throws IOException
+    */
+   synchronized long lineOffset(final long line) throws IOException {
+	update();
+	if (line <= 0) { return 0; }
+	if (line > indexedLines) { return indexedLength; }
+
+	// nearest indexed line, then the remaining lines are skipped
+	final int k = (int) Math.min(line / step, offsetCount - 1);
+	long toSkip = line - (long) k * step;
+	long position = offsets[k];
+	if (toSkip == 0) { return position; }
+
+	final InputStream in = open(position);
+	try {
+	   final byte[] block = new byte[BLOCK_SIZE];
+	   int count;
+	   while ((count = in.read(block)) > 0) {
+		for (int i = 0; i < count; i++) {
+		   if (block[i] == '\n' && --toSkip == 0) { return position + i + 1; }
+		}
+		position += count;
+	   }
+	} finally {
+	   in.close();
+	}
+	// the file has been replaced meanwhile
+	return position;
+   }
+
+   /**
+    * find the beginning of the last lines, by reading the file backward
+    * 
+    * @param maxLine number of last lines
+    * @return byte offset of the first of the last lines
+    * @throws IOException
+    */
+   long tailOffset(final long maxLine) throws IOException {
+	final RandomAccessFile raf = new RandomAccessFile(file, "r");
+	try {
+	   final long length = raf.length();
+	   if (maxLine <= 0) { return length; }
+
+	   final byte[] block = new byte[BLOCK_SIZE];
+	   long end = length;
+	   long found = 0;
+	   while (end > 0) {
+		final int size = (int) Math.min(block.length, end);
+		final long start = end - size;
+		raf.seek(start);
+		raf.readFully(block, 0, size);
+		for (int i = size - 1; i >= 0; i--) {
+		   // the ending '\n' of the file does not begin a new line
+		   if (block[i] == '\n' && start + i != length - 1 && ++found == maxLine) { return start + i + 1; }
+		}
+		end = start;
+	   }
+	   return 0;
+	} finally {
+	   raf.close();
+	}
+   }
+
+   /**
+    * read the lines of the file from a byte offset
+    * 
+    * @param offset byte offset of the first line
+    * @param maxLine maximum number of lines to read
+    * @param charset
+    * @param completeOnly if <code>true</code> a last line without ending '\n' (being written) is not read
+    * @param lines list where to add the lines read
+    * @return byte offset following the last line read
+    * @throws IOException
+    */
+   long readLines(final long offset, final long maxLine, @NotNull final Charset charset, final boolean completeOnly, @NotNull final List<String> lines)
+	   throws IOException {
+	if (maxLine <= 0) { return offset; }
+	final InputStream in = open(offset);
+	try {
+	   return readLines(in, offset, maxLine, charset, completeOnly, lines);
+	} finally {
+	   in.close();
+	}
+   }
+
+   /**
+    * @param in input stream, positioned at the offset
+    * @param offset byte offset of the first line
+    * @param maxLine maximum number of lines to read
+    * @param charset
+    * @param completeOnly if <code>true</code> a last line without ending '\n' is not read
+    * @param lines list where to add the lines read
+    * @return byte offset following the last line read
+    * @throws IOException
+    */
+   static long readLines(@NotNull final InputStream in, final long offset, final long maxLine, @NotNull final Charset charset, final boolean completeOnly,
+	   @NotNull final List<String> lines) throws IOException {
+	return readLines(in, offset, maxLine, false, charset, completeOnly, lines);
+   }
+
+   /**
+    * read all the lines of a stream, keeping only the last ones
+    * 
+    * @param in input stream, positioned at the offset
+    * @param offset byte offset of the first line
+    * @param maxLine number of last lines to keep
+    * @param charset
+    * @param completeOnly if <code>true</code> a last line without ending '\n' is not read
+    * @param lines list where to add the last lines
+    * @return byte offset following the last line read
+    * @throws IOException
+    */
+   static long tailLines(@NotNull final InputStream in, final long offset, final long maxLine, @NotNull final Charset charset, final boolean completeOnly,
+	   @NotNull final LinkedList<String> lines) throws IOException {
+	return readLines(in, offset, maxLine, true, charset, completeOnly, lines);
+   }
+
+   private static long readLines(final InputStream in, final long offset, final long maxLine, final boolean keepLast, final Charset charset,
+	   final boolean completeOnly, final List<String> lines) throws IOException {
+	if (maxLine <= 0) { return offset; }
+	final byte[] block = new byte[BLOCK_SIZE];
+	final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+	final int initialSize = lines.size();
+	long read = offset;
+	long position = offset;
+	int count;
+
+	reading: while ((keepLast || lines.size() - initialSize < maxLine) && (count = in.read(block)) > 0) {
+	   int start = 0;
+	   for (int i = 0; i < count; i++) {
+		if (block[i] == '\n') {
+		   line.write(block, start, i - start);
+		   lines.add(decode(line, charset));
+		   line.reset();
+		   start = i + 1;
+		   position = read + i + 1;
+		   if (lines.size() - initialSize > maxLine) {
+			lines.remove(initialSize);
+		   } else if (!keepLast && lines.size() - initialSize >= maxLine) {
+			break reading;
+		   }
+		}
+	   }
+	   line.write(block, start, count - start);
+	   read += count;
+	}
+
+	if (!completeOnly && line.size() > 0 && (keepLast || lines.size() - initialSize < maxLine)) {
+	   lines.add(decode(line, charset));
+	   position = read;
+	   if (lines.size() - initialSize > maxLine) {
+		lines.remove(initialSize);
+	   }
+	}
+	return position;
+   }
+
+   /**
+    * index the bytes appended since the last update
+    * 
+    * @throws IOException
+    */
+   synchronized void update() throws IOException {
+	final long length = file.length();
+	final Object currentFileKey = fileKey();
+	if (length < indexedLength || (currentFileKey != null && !currentFileKey.equals(fileKey))) {
+	   reset();
+	}
+	fileKey = currentFileKey;
+	if (length <= indexedLength) { return; }
+
+	final InputStream in = open(indexedLength);
+	try {
+	   final byte[] block = new byte[BLOCK_SIZE];
+	   long position = indexedLength;
+	   int count;
+	   while (position < length && (count = in.read(block, 0, (int) Math.min(block.length, length - position))) > 0) {
+		for (int i = 0; i < count; i++) {
+		   if (block[i] == '\n') {
+			indexedLines++;
+			lastLineOffset = position + i + 1;
+			if (indexedLines % step == 0) {
+			   addOffset(lastLineOffset);
+			}
+		   }
+		}
+		position += count;
+	   }
+	   indexedLength = position;
+	} finally {
+	   in.close();
+	}
+   }
+
+   synchronized void reset() {
+	offsets = new long[16];
+	offsets[0] = 0;
+	offsetCount = 1;
+	indexedLength = 0;
+	indexedLines = 0;
+	lastLineOffset = 0;
+	fileKey = null;
+   }
+
+   private void addOffset(final long offset) {
+	if (offsetCount == offsets.length) {
+	   offsets = Arrays.copyOf(offsets, offsets.length * 2);
+	}
+	offsets[offsetCount++] = offset;
+   }
+
+   private Object fileKey() {
+	try {
+	   return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+	} catch (final IOException ioe) {
+	   return null;
+	}
+   }
+
+   private InputStream open(final long offset) throws IOException {
+	final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	try {
+	   channel.position(offset);
+	} catch (final IOException ioe) {
+	   channel.close();
+	   throw ioe;
+	}
+	return Channels.newInputStream(channel);
+   }
+
+   private static String decode(final ByteArrayOutputStream line, final Charset charset) {
+	final byte[] bytes = line.toByteArray();
+	final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+	return new String(bytes, 0, length, charset);
+   }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.NotThreadSafe;
+
+/**
+ * Grep like search of the lines of a console resource, used by {@link FileStoreConsoleController}.<br/>
+ * <br/>
+ * A local file is read sequentially through memory mapped windows of {@link #MAPPED_WINDOW_SIZE} bytes, only the bytes of a line are decoded.
+ * The other resources are read with a {@link BufferedReader}.<br/>
+ * The number of matches is bounded by a counter, which can be shared by the searches of several resources : the search stops as soon as it
+ * is exhausted (after the context lines of the last match).<br/>
+ * The search stops when its thread is interrupted, even in the middle of the match of a line (a regular expression can backtrack for a
+ * very long time).
+ *
+ * @author jraduget
+ */
+@NotThreadSafe
+class LineSearch implements Callable<List<LineSearch.Line>> {
+
+   /** size of the memory mapped windows of a file */
+   static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+   /**
+    * A line of the search result, matching or being a context line
+    */
+   static class Line {
+	final long number;
+	final String text;
+	final boolean match;
+
+	Line(final long number, final String text, final boolean match) {
+	   this.number = number;
+	   this.text = text;
+	   this.match = match;
+	}
+
+	@Override
+	public String toString() {
+	   return number + (match ? ":" : "-") + text;
+	}
+   }
+
+   private final String resource;
+   private final File file;
+   private final Callable<InputStream> input;
+   private final Charset charset;
+   private final Matcher matcher;
+   private final int context;
+   private final AtomicLong remainingMatches;
+
+   private final List<Line> lines;
+   // context lines preceding the current line
+   private final LinkedList<Line> before;
+   // number of context lines still to add after the last match
+   private int after;
+   private long lineNumber;
+   private boolean stopped;
+
+   /**
+    * @param resource searched resource name
+    * @param file local file of the resource, or <code>null</code> if it has to be read from its input
+    * @param input resource input stream, used if file is <code>null</code>
+    * @param charset
+    * @param pattern
+    * @param context number of context lines before and after each match, bounded by {@link FileStoreConsoleController#MAX_CONTEXT_LINES}
+    * @param remainingMatches number of matches still to find
+    */
+   LineSearch(@NotNull final String resource, final File file, final Callable<InputStream> input, @NotNull final Charset charset,
+	   @NotNull final Pattern pattern, final int context, @NotNull final AtomicLong remainingMatches) {
+	this.resource = resource;
+	this.file = file;
+	this.input = input;
+	this.charset = charset;
+	this.matcher = pattern.matcher("");
+	this.context = Math.min(Math.max(context, 0), FileStoreConsoleController.MAX_CONTEXT_LINES);
+	this.remainingMatches = remainingMatches;
+	this.lines = new ArrayList<Line>();
+	this.before = new LinkedList<Line>();
+   }
+
+   /**
+    * @return name of the searched resource
+    */
+   String getResource() {
+	return resource;
+   }
+
+   /**
+    * @return the matching lines, with their context lines
+    * @throws Exception
+    */
+   @Override
+   public List<Line> call() throws Exception {
+	if (file != null && LineIndex.isSupported(charset)) {
+	   searchMapped();
+	} else {
+	   final InputStream in = file != null ? new FileInputStream(file) : input.call();
+	   final BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+	   try {
+		String line;
+		while (!stopped && (line = reader.readLine()) != null) {
+		   line(line);
+		}
+	   } finally {
+		reader.close();
+	   }
+	}
+	return lines;
+   }
+
+   /*
+    * sequential read of the file, by memory mapped windows which begins at a line start
+    */
+   void searchMapped() throws IOException {
+	final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	try {
+	   final long size = channel.size();
+	   long position = 0;
+	   while (!stopped && position < size) {
+		final int windowSize = (int) Math.min(MAPPED_WINDOW_SIZE, size - position);
+		final MappedByteBuffer window = channel.map(MapMode.READ_ONLY, position, windowSize);
+		int start = 0;
+		for (int i = 0; i < windowSize && !stopped; i++) {
+		   if (window.get(i) == '\n') {
+			line(window, start, i);
+			start = i + 1;
+		   }
+		}
+		if (stopped) {
+		   break;
+		}
+		if (position + windowSize == size) {
+		   // last line, without ending '\n'
+		   if (start < windowSize) {
+			line(window, start, windowSize);
+		   }
+		   position = size;
+		} else if (start == 0) {
+		   // line longer than a window, it is split
+		   line(window, 0, windowSize);
+		   position += windowSize;
+		} else {
+		   // the next window begins with the pending line
+		   position += start;
+		}
+	   }
+	} finally {
+	   channel.close();
+	}
+   }
+
+   private void line(final ByteBuffer window, final int start, final int end) {
+	final ByteBuffer bytes = window.duplicate();
+	bytes.limit(end > start && window.get(end - 1) == '\r' ? end - 1 : end);
+	bytes.position(start);
+	line(charset.decode(bytes).toString());
+   }
+
+   /*
+    * process a line of the resource
+    */
+   void line(final String text) {
+	lineNumber++;
+	if (Thread.currentThread().isInterrupted()) {
+	   stopped = true;
+	   return;
+	}
+
+	if (!isExhausted() && matcher.reset(new InterruptibleCharSequence(text)).find()) {
+	   if (remainingMatches.getAndDecrement() > 0) {
+		lines.addAll(before);
+		before.clear();
+		lines.add(new Line(lineNumber, text, true));
+		after = context;
+		return;
+	   }
+	}
+
+	if (after > 0) {
+	   lines.add(new Line(lineNumber, text, false));
+	   after--;
+	} else if (isExhausted()) {
+	   // no more match to find and no more context line to add
+	   stopped = true;
+	} else if (context > 0) {
+	   before.add(new Line(lineNumber, text, false));
+	   if (before.size() > context) {
+		before.remove();
+	   }
+	}
+   }
+
+   private boolean isExhausted() {
+	return remainingMatches.get() <= 0;
+   }
+
+   /*
+    * text of a line, which makes the matcher fail when the thread is interrupted
+    */
+   static final class InterruptibleCharSequence implements CharSequence {
+	private final CharSequence text;
+
+	InterruptibleCharSequence(final CharSequence text) {
+	   this.text = text;
+	}
+
+	@Override
+	public char charAt(final int index) {
+	   if (Thread.currentThread().isInterrupted()) { throw new CancellationException("search interrupted"); }
+	   return text.charAt(index);
+	}
+
+	@Override
+	public int length() {
+	   return text.length();
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+	   return new InterruptibleCharSequence(text.subSequence(start, end));
+	}
+
+	@Override
+	public String toString() {
+	   return text.toString();
+	}
+   }
+}
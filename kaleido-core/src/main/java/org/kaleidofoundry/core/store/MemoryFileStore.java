@@ -1,5 +1,5 @@
-/*  
- * Copyright 2008-2021 the original author or authors 
+/*
+ * Copyright 2008-2021 the original author or authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,36 +15,102 @@
  */
 package org.kaleidofoundry.core.store;
 
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_MEMORY_SLAB_SIZE;
 import static org.kaleidofoundry.core.store.FileStoreConstants.MemoryStorePluginName;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MemoryEviction;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MemoryMaxSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MemoryOffHeap;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MemorySlabSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MemorySnapshotFile;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.io.IoIterable;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
 import org.kaleidofoundry.core.plugin.Declare;
+import org.kaleidofoundry.core.util.StringHelper;
 
 /**
- * Memory internal {@link FileStore} implementations.
+ * Memory internal {@link FileStore} implementations.<br/>
  * <br/>
- * <b>only use it for small binary or text data, without multi-threading<br/>
- * Be careful {@link ResourceHandler} is not thread safe. Internally, you can create {@link ResourceHandlerBean} giving an
- * {@link ByteArrayInputStream} in argument to use it. By this way, your binary data will be kept in memory
- * 
+ * The content of a stored resource is copied at once into compact byte slabs (see {@link FileStoreContextBuilder#MemorySlabSize}), in the
+ * heap or off-heap (see {@link FileStoreContextBuilder#MemoryOffHeap}). A get serves a new stream over the slabs, so the resources can
+ * be read concurrently and as many times as needed.<br/>
+ * <br/>
+ * The total size of the stored resources can be bounded (see {@link FileStoreContextBuilder#MemoryMaxSize}). Beyond it, the least
+ * recently used or the oldest resources are evicted, or the store fails (see {@link FileStoreContextBuilder#MemoryEviction}).<br/>
+ * <br/>
+ * The stored resources can be saved to a file and restored from it ({@link #snapshot(File)}, {@link #restore(File)}). If a snapshot file
+ * is configured (see {@link FileStoreContextBuilder#MemorySnapshotFile}), it is restored by the constructor, and saved by
+ * {@link #destroy()}.<br/>
+ * <br/>
+ * A resource which have never been stored is read as an empty content (the memory configurations rely on it), but it is not inserted in
+ * the store : {@link #exists(String)}, {@link #stat(String)} and {@link #list(String)} don't see it.
+ *
  * @author jraduget
  * @see FileStoreContextBuilder enum of context configuration properties available
  */
 @Declare(MemoryStorePluginName)
+@ThreadSafe
 public class MemoryFileStore extends AbstractFileStore {
 
-   private final ConcurrentMap<URI, ResourceHandler> memoryResources = new ConcurrentHashMap<URI, ResourceHandler>();
+   /**
+    * Eviction policies of the resources, when the max size of the store is reached
+    *
+    * @see FileStoreContextBuilder#MemoryEviction
+    */
+   public static enum Eviction {
+	/** the least recently read or stored resources are evicted first */
+	lru,
+	/** the oldest stored resources are evicted first */
+	fifo,
+	/** nothing is evicted, the store fails */
+	none
+   }
+
+   // header of the snapshot files ("KMS" + format version)
+   static final int SNAPSHOT_MAGIC = 0x4b4d5301;
+
+   private final ConcurrentMap<URI, MemoryResource> memoryResources = new ConcurrentHashMap<URI, MemoryResource>();
+   // size in bytes of the stored resources
+   private final AtomicLong usedSize = new AtomicLong();
+   // logical clock of the reads and writes, used by the eviction
+   private final AtomicLong clock = new AtomicLong();
+   // uris of the resources of a bounded store, by logical time of their last read (lru) or of their store (fifo) : the head is evicted first
+   private final ConcurrentNavigableMap<Long, URI> evictionOrder = new ConcurrentSkipListMap<Long, URI>();
+   // the evictions are serialized
+   private final Object evictionLock = new Object();
 
    /**
     * @param context
     */
    public MemoryFileStore(final RuntimeContext<FileStore> context) {
 	super(context);
+	restoreSnapshot();
    }
 
    /**
@@ -53,6 +119,7 @@ public class MemoryFileStore extends AbstractFileStore {
     */
    public MemoryFileStore(final String baseUri, final RuntimeContext<FileStore> context) {
 	super(baseUri, context);
+	restoreSnapshot();
    }
 
    /**
@@ -64,24 +131,111 @@ public class MemoryFileStore extends AbstractFileStore {
 
    @Override
    protected ResourceHandler doGet(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
-	ResourceHandler rh = memoryResources.get(resourceUri);
-	if (rh == null) {
-	   rh = createResourceHandler(resourceUri.toString(), new ByteArrayInputStream(new byte[0]));
-	   memoryResources.put(resourceUri, rh);
+	final MemoryResource mr = memoryResources.get(resourceUri);
+	if (mr == null) {
+	   // never stored, read as an empty content
+	   return createResourceHandler(resourceUri.toString(), new SlabInputStream(new ByteBuffer[0]));
 	}
-	return rh;
-
+	if (getMaxSize() >= 0 && getEviction() == Eviction.lru) {
+	   touch(resourceUri, mr);
+	}
+	return toResourceHandler(resourceUri, mr);
    }
 
    @Override
    protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
-	memoryResources.remove(resourceUri);
+	final MemoryResource mr = memoryResources.remove(resourceUri);
+	if (mr != null) {
+	   usedSize.addAndGet(-mr.length);
+	   evictionOrder.remove(mr.tick.get(), resourceUri);
+	}
    }
 
    @Override
    protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
-	memoryResources.put(resourceUri, resource);
+	final MemoryResource mr;
+	final InputStream in = resource.getInputStream();
+	try {
+	   mr = new MemoryResource(copy(in, resourceUri), resource.getLastModified(), resource.getMimeType(), resource.getCharset(), clock
+		   .incrementAndGet());
+	} catch (final IOException ioe) {
+	   if (ioe instanceof ResourceException) { throw (ResourceException) ioe; }
+	   throw new ResourceException(ioe, resourceUri.toString());
+	} finally {
+	   resource.close();
+	}
+	put(resourceUri, mr);
+   }
 
+   /**
+    * The content is not copied, the resource is bound to its new uri.
+    *
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doMove(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doMove(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	final MemoryResource mr = memoryResources.remove(originUri);
+	if (mr == null) { throw new ResourceNotFoundException(originUri.toString()); }
+	final MemoryResource previous = memoryResources.put(destinationUri, mr);
+	if (previous != null) {
+	   usedSize.addAndGet(-previous.length);
+	   evictionOrder.remove(previous.tick.get(), destinationUri);
+	}
+	// the moved resource keeps its place in the eviction order
+	final long tick = mr.tick.get();
+	if (evictionOrder.remove(tick, originUri)) {
+	   evictionOrder.put(tick, destinationUri);
+	}
+	return true;
+   }
+
+   /**
+    * The slabs are shared by the origin and the destination, but the size of the copy is accounted as well.
+    *
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doCopy(java.net.URI, java.net.URI)
+    */
+   @Override
+   protected boolean doCopy(final URI originUri, final URI destinationUri) throws ResourceNotFoundException, ResourceException {
+	final MemoryResource mr = memoryResources.get(originUri);
+	if (mr == null) { throw new ResourceNotFoundException(originUri.toString()); }
+	put(destinationUri, new MemoryResource(mr.slabs, mr.lastModified, mr.mimeType, mr.charset, clock.incrementAndGet()));
+	return true;
+   }
+
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final MemoryResource mr = memoryResources.get(resourceUri);
+	if (mr == null) { throw new ResourceNotFoundException(resourceUri.toString()); }
+	return createResourceMetadata(resourceUri.toString(), false, mr.length, mr.lastModified, mr.mimeType, null);
+   }
+
+   /**
+    * The listing is a snapshot of the stored resources, the directories are deduced from the resource uris.
+    *
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	final String parentUri = directoryUri.toString().endsWith("/") ? directoryUri.toString() : directoryUri.toString() + "/";
+	final Map<String, ResourceMetadata> children = new TreeMap<String, ResourceMetadata>();
+
+	for (final Entry<URI, MemoryResource> entry : memoryResources.entrySet()) {
+	   final String uri = entry.getKey().toString();
+	   if (uri.startsWith(parentUri) && uri.length() > parentUri.length()) {
+		final int separator = uri.indexOf('/', parentUri.length());
+		if (separator < 0) {
+		   children.put(uri, createResourceMetadata(uri, false, entry.getValue().length, entry.getValue().lastModified));
+		} else {
+		   final String childUri = uri.substring(0, separator);
+		   if (!children.containsKey(childUri)) {
+			children.put(childUri, createResourceMetadata(childUri, true, -1, 0));
+		   }
+		}
+	   }
+	}
+
+	if (children.isEmpty()) { throw new ResourceNotFoundException(directoryUri.toString()); }
+	return ioIterable(children.values());
    }
 
    @Override
@@ -89,4 +243,454 @@ public class MemoryFileStore extends AbstractFileStore {
 	return new FileStoreType[] { FileStoreTypeEnum.memory };
    }
 
+   /**
+    * the snapshot file is saved, if one is configured
+    *
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#destroy()
+    */
+   @Override
+   public void destroy() {
+	final File snapshotFile = getSnapshotFile();
+	if (snapshotFile != null) {
+	   try {
+		snapshot(snapshotFile);
+	   } catch (final ResourceException rse) {
+		I18N_LOGGER.error("store.memory.snapshot.error", snapshotFile.getPath(), rse);
+	   }
+	}
+	super.destroy();
+   }
+
+   /**
+    * @return size in bytes of the stored resources
+    */
+   public long getUsedSize() {
+	return usedSize.get();
+   }
+
+   /**
+    * @return max size in bytes of the stored resources, -1 if there is no limit
+    * @see FileStoreContextBuilder#MemoryMaxSize
+    */
+   public long getMaxSize() {
+	return context != null ? context.getLong(MemoryMaxSize, -1L) : -1L;
+   }
+
+   /**
+    * @return eviction policy of the resources, when the max size is reached
+    * @see FileStoreContextBuilder#MemoryEviction
+    */
+   public Eviction getEviction() {
+	final String eviction = context != null ? context.getString(MemoryEviction) : null;
+	return !StringHelper.isEmpty(eviction) ? Eviction.valueOf(eviction.trim().toLowerCase()) : Eviction.lru;
+   }
+
+   /**
+    * @return size in bytes of a content slab
+    * @see FileStoreContextBuilder#MemorySlabSize
+    */
+   protected int getSlabSize() {
+	return Math.max(1, context != null ? context.getInteger(MemorySlabSize, DEFAULT_MEMORY_SLAB_SIZE) : DEFAULT_MEMORY_SLAB_SIZE);
+   }
+
+   /**
+    * @return are the slabs allocated off-heap
+    * @see FileStoreContextBuilder#MemoryOffHeap
+    */
+   protected boolean isOffHeap() {
+	return context != null && context.getBoolean(MemoryOffHeap, false);
+   }
+
+   /**
+    * @return snapshot file of the store, <code>null</code> if none is configured
+    * @see FileStoreContextBuilder#MemorySnapshotFile
+    */
+   protected File getSnapshotFile() {
+	final String snapshotFile = context != null ? context.getString(MemorySnapshotFile) : null;
+	return !StringHelper.isEmpty(snapshotFile) ? new File(snapshotFile) : null;
+   }
+
+   /**
+    * save all the stored resources to the given file (it is replaced atomically when possible)
+    *
+    * @param snapshotFile
+    * @return number of saved resources
+    * @throws ResourceException
+    */
+   public int snapshot(@NotNull final File snapshotFile) throws ResourceException {
+	final File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+	final int count;
+	OutputStream out = null;
+	try {
+	   if (snapshotFile.getParentFile() != null) {
+		snapshotFile.getParentFile().mkdirs();
+	   }
+	   out = new FileOutputStream(tmpFile);
+	   count = snapshot(out);
+	   out.close();
+	   out = null;
+	   if (!tmpFile.renameTo(snapshotFile)) {
+		snapshotFile.delete();
+		if (!tmpFile.renameTo(snapshotFile)) { throw new IOException(tmpFile.getPath()); }
+	   }
+	} catch (final IOException ioe) {
+	   throw new ResourceException("store.memory.snapshot.error", ioe, snapshotFile.getPath());
+	} finally {
+	   if (out != null) {
+		try {
+		   out.close();
+		} catch (final IOException ioe) {
+		}
+		tmpFile.delete();
+	   }
+	}
+	LOGGER.info("memory store \"{}\" : {} resources saved to {}", new Object[] { getBaseUri(), count, snapshotFile.getPath() });
+	return count;
+   }
+
+   /**
+    * write all the stored resources to the given output stream, which is not closed
+    *
+    * @param output
+    * @return number of written resources
+    * @throws IOException
+    */
+   public int snapshot(@NotNull final OutputStream output) throws IOException {
+	final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+	final byte[] buffer = new byte[8192];
+	int count = 0;
+
+	out.writeInt(SNAPSHOT_MAGIC);
+	for (final Entry<URI, MemoryResource> entry : memoryResources.entrySet()) {
+	   final MemoryResource mr = entry.getValue();
+	   out.writeBoolean(true);
+	   out.writeUTF(entry.getKey().toString());
+	   out.writeLong(mr.lastModified);
+	   writeNullableUTF(out, mr.mimeType);
+	   writeNullableUTF(out, mr.charset);
+	   out.writeLong(mr.length);
+	   for (final ByteBuffer slab : mr.slabs) {
+		final ByteBuffer content = slab.duplicate();
+		while (content.hasRemaining()) {
+		   final int length = Math.min(buffer.length, content.remaining());
+		   content.get(buffer, 0, length);
+		   out.write(buffer, 0, length);
+		}
+	   }
+	   count++;
+	}
+	out.writeBoolean(false);
+	out.flush();
+	return count;
+   }
+
+   /**
+    * restore the resources of the given snapshot file, the stored resources with the same uri are replaced
+    *
+    * @param snapshotFile
+    * @return number of restored resources
+    * @throws ResourceException
+    */
+   public int restore(@NotNull final File snapshotFile) throws ResourceException {
+	final int count;
+	InputStream in = null;
+	try {
+	   in = new FileInputStream(snapshotFile);
+	   count = restore(in);
+	} catch (final IOException ioe) {
+	   if (ioe instanceof ResourceException) { throw (ResourceException) ioe; }
+	   throw new ResourceException("store.memory.snapshot.error", ioe, snapshotFile.getPath());
+	} finally {
+	   if (in != null) {
+		try {
+		   in.close();
+		} catch (final IOException ioe) {
+		}
+	   }
+	}
+	LOGGER.info("memory store \"{}\" : {} resources restored from {}", new Object[] { getBaseUri(), count, snapshotFile.getPath() });
+	return count;
+   }
+
+   /**
+    * restore the resources written by {@link #snapshot(OutputStream)}, the stored resources with the same uri are replaced
+    *
+    * @param input
+    * @return number of restored resources
+    * @throws IOException
+    */
+   public int restore(@NotNull final InputStream input) throws IOException {
+	final DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+	int count = 0;
+
+	if (in.readInt() != SNAPSHOT_MAGIC) { throw new IOException("not a memory store snapshot"); }
+	while (in.readBoolean()) {
+	   final URI resourceUri = URI.create(in.readUTF());
+	   final long lastModified = in.readLong();
+	   final String mimeType = readNullableUTF(in);
+	   final String charset = readNullableUTF(in);
+	   final long length = in.readLong();
+	   final ByteBuffer[] slabs = copy(new ResourceHandlerBean.RangeInputStream(in, length), resourceUri);
+	   if (slabLength(slabs) != length) { throw new IOException("truncated memory store snapshot"); }
+	   put(resourceUri, new MemoryResource(slabs, lastModified, mimeType, charset, clock.incrementAndGet()));
+	   count++;
+	}
+	return count;
+   }
+
+   /*
+    * restore the configured snapshot file, if it exists
+    */
+   private void restoreSnapshot() {
+	final File snapshotFile = getSnapshotFile();
+	if (snapshotFile != null && snapshotFile.exists()) {
+	   try {
+		restore(snapshotFile);
+	   } catch (final ResourceException rse) {
+		I18N_LOGGER.error("store.memory.snapshot.error", snapshotFile.getPath(), rse);
+	   }
+	}
+   }
+
+   /*
+    * new resource handler reading the slabs of the memory resource
+    */
+   private ResourceHandler toResourceHandler(final URI resourceUri, final MemoryResource mr) {
+	final ResourceHandlerBean resource = new ResourceHandlerBean(this, resourceUri.toString(), new SlabInputStream(mr.slabs));
+	resource.setLength(mr.length);
+	resource.setLastModified(mr.lastModified);
+	resource.setMimeType(mr.mimeType);
+	resource.setCharset(mr.charset);
+	return resource;
+   }
+
+   /**
+    * bind the memory resource to the uri, evicting other resources if the max size is reached
+    *
+    * @param resourceUri
+    * @param mr
+    * @throws ResourceException if the max size is reached, and nothing can be evicted
+    */
+   void put(final URI resourceUri, final MemoryResource mr) throws ResourceException {
+	final long maxSize = getMaxSize();
+	if (maxSize >= 0) {
+	   if (mr.length > maxSize) { throw new ResourceException("store.memory.full", resourceUri.toString(), String.valueOf(maxSize)); }
+	   synchronized (evictionLock) {
+		// the replaced resource is released by the put
+		final MemoryResource replaced = memoryResources.get(resourceUri);
+		final long required = usedSize.get() - (replaced != null ? replaced.length : 0) + mr.length - maxSize;
+		if (required > 0) {
+		   evict(resourceUri, required);
+		}
+		usedSize.addAndGet(mr.length);
+		final MemoryResource previous = memoryResources.put(resourceUri, mr);
+		evictionOrder.put(mr.tick.get(), resourceUri);
+		if (previous != null) {
+		   usedSize.addAndGet(-previous.length);
+		   evictionOrder.remove(previous.tick.get(), resourceUri);
+		}
+	   }
+	} else {
+	   usedSize.addAndGet(mr.length);
+	   final MemoryResource previous = memoryResources.put(resourceUri, mr);
+	   if (previous != null) {
+		usedSize.addAndGet(-previous.length);
+	   }
+	}
+   }
+
+   /*
+    * evict at least the given size, according to the eviction policy (the eviction lock is held)
+    */
+   private void evict(final URI resourceUri, final long size) throws ResourceException {
+	final Eviction eviction = getEviction();
+	if (eviction == Eviction.none) { throw new ResourceException("store.memory.full", resourceUri.toString(), String.valueOf(getMaxSize())); }
+
+	// the candidates are taken from the head of the eviction order, until enough size is released
+	long released = 0;
+	final Iterator<Entry<Long, URI>> candidates = evictionOrder.entrySet().iterator();
+	while (released < size && candidates.hasNext()) {
+	   final Entry<Long, URI> candidate = candidates.next();
+	   if (candidate.getValue().equals(resourceUri)) {
+		continue;
+	   }
+	   final MemoryResource mr = memoryResources.get(candidate.getValue());
+	   if (mr == null || mr.tick.get() != candidate.getKey()) {
+		// read, replaced or removed meanwhile
+		candidates.remove();
+	   } else if (memoryResources.remove(candidate.getValue(), mr)) {
+		candidates.remove();
+		usedSize.addAndGet(-mr.length);
+		released += mr.length;
+		LOGGER.debug("memory store \"{}\" : resource {} evicted", getBaseUri(), candidate.getValue());
+	   }
+	}
+	if (released < size) { throw new ResourceException("store.memory.full", resourceUri.toString(), String.valueOf(getMaxSize())); }
+   }
+
+   /*
+    * move a read resource to the tail of the eviction order (lru eviction)
+    */
+   private void touch(final URI resourceUri, final MemoryResource mr) {
+	final long previous = mr.tick.get();
+	final long tick = clock.incrementAndGet();
+	// a concurrent read of the resource has just moved it
+	if (!mr.tick.compareAndSet(previous, tick)) { return; }
+	evictionOrder.put(tick, resourceUri);
+	evictionOrder.remove(previous, resourceUri);
+	// read again, or removed meanwhile : the entry is no more the one of the resource
+	if (mr.tick.get() != tick || memoryResources.get(resourceUri) != mr) {
+	   evictionOrder.remove(tick, resourceUri);
+	}
+   }
+
+   /**
+    * copy the input into new slabs, the last one is trimmed to its content
+    *
+    * @param in
+    * @param resourceUri
+    * @return the content slabs
+    * @throws IOException
+    * @throws ResourceException if the content is larger than the max size of the store
+    */
+   ByteBuffer[] copy(final InputStream in, final URI resourceUri) throws IOException {
+	final int slabSize = getSlabSize();
+	final boolean offHeap = isOffHeap();
+	final long maxSize = getMaxSize();
+	final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+	final byte[] buffer = new byte[slabSize];
+	long length = 0;
+
+	while (true) {
+	   // fill a whole slab
+	   int filled = 0;
+	   int read = 0;
+	   while (filled < slabSize && (read = in.read(buffer, filled, slabSize - filled)) >= 0) {
+		filled += read;
+	   }
+	   if (filled > 0) {
+		length += filled;
+		if (maxSize >= 0 && length > maxSize) { throw new ResourceException("store.memory.full", resourceUri.toString(), String.valueOf(maxSize)); }
+		slabs.add(slab(buffer, filled, offHeap));
+	   }
+	   if (read < 0) {
+		break;
+	   }
+	}
+	return slabs.toArray(new ByteBuffer[slabs.size()]);
+   }
+
+   /*
+    * new read only slab, with a copy of the buffer content
+    */
+   private static ByteBuffer slab(final byte[] buffer, final int length, final boolean offHeap) {
+	final ByteBuffer slab = offHeap ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+	slab.put(buffer, 0, length);
+	slab.flip();
+	return slab.asReadOnlyBuffer();
+   }
+
+   private static long slabLength(final ByteBuffer[] slabs) {
+	long length = 0;
+	for (final ByteBuffer slab : slabs) {
+	   length += slab.remaining();
+	}
+	return length;
+   }
+
+   private static void writeNullableUTF(final DataOutputStream out, final String value) throws IOException {
+	out.writeBoolean(value != null);
+	if (value != null) {
+	   out.writeUTF(value);
+	}
+   }
+
+   private static String readNullableUTF(final DataInputStream in) throws IOException {
+	return in.readBoolean() ? in.readUTF() : null;
+   }
+
+   /**
+    * Content and meta datas of a stored resource, the slabs are never modified
+    */
+   static final class MemoryResource {
+	final ByteBuffer[] slabs;
+	final long length;
+	final long lastModified;
+	final String mimeType;
+	final String charset;
+	// logical time of the last read (lru eviction) or of the store
+	final AtomicLong tick;
+
+	MemoryResource(final ByteBuffer[] slabs, final long lastModified, final String mimeType, final String charset, final long created) {
+	   this.slabs = slabs;
+	   this.length = slabLength(slabs);
+	   this.lastModified = lastModified;
+	   this.mimeType = mimeType;
+	   this.charset = charset;
+	   this.tick = new AtomicLong(created);
+	}
+   }
+
+   /**
+    * Input stream over the content slabs, each stream has its own position
+    */
+   static final class SlabInputStream extends InputStream {
+	private final ByteBuffer[] slabs;
+	private int index;
+	private ByteBuffer current;
+
+	SlabInputStream(final ByteBuffer[] slabs) {
+	   this.slabs = slabs;
+	   this.index = -1;
+	   this.current = null;
+	}
+
+	/*
+	 * current slab with remaining bytes, null at the end of the content
+	 */
+	private ByteBuffer current() {
+	   while (current == null || !current.hasRemaining()) {
+		if (index + 1 >= slabs.length) { return null; }
+		current = slabs[++index].duplicate();
+	   }
+	   return current;
+	}
+
+	@Override
+	public int read() {
+	   final ByteBuffer slab = current();
+	   return slab != null ? slab.get() & 0xff : -1;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) {
+	   if (len == 0) { return 0; }
+	   int count = 0;
+	   ByteBuffer slab;
+	   while (count < len && (slab = current()) != null) {
+		final int length = Math.min(len - count, slab.remaining());
+		slab.get(b, off + count, length);
+		count += length;
+	   }
+	   return count > 0 ? count : -1;
+	}
+
+	@Override
+	public long skip(final long n) {
+	   long skipped = 0;
+	   ByteBuffer slab;
+	   while (skipped < n && (slab = current()) != null) {
+		final int length = (int) Math.min(n - skipped, slab.remaining());
+		slab.position(slab.position() + length);
+		skipped += length;
+	   }
+	   return skipped;
+	}
+
+	@Override
+	public int available() {
+	   final ByteBuffer slab = current();
+	   return slab != null ? slab.remaining() : 0;
+	}
+   }
 }
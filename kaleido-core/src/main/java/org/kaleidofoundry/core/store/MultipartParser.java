@@ -0,0 +1,427 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.NotThreadSafe;
+import org.kaleidofoundry.core.lang.annotation.Nullable;
+
+/**
+ * Streaming parser of a multipart content (rfc 2046 / rfc 7578), like a <code>multipart/form-data</code> upload request.<br/>
+ * <br/>
+ * The parts are read one after the other from the underlying stream, through a single fixed size buffer : the content of a part is never
+ * held in memory, the caller decides where it goes while it reads it. A part which is not fully read is skipped by the next call to
+ * {@link #nextPart()}.
+ * 
+ * <pre>
+ * MultipartParser parser = new MultipartParser(request.getInputStream(), MultipartParser.getBoundary(request.getContentType()), -1, -1);
+ * for (MultipartParser.Part part; (part = parser.nextPart()) != null;) {
+ *    ... part.getName(), part.getFileName(), part.getInputStream() ...
+ * }
+ * </pre>
+ * 
+ * @author jraduget
+ */
+@NotThreadSafe
+public class MultipartParser {
+
+   /** size of the read buffer */
+   static final int BUFFER_SIZE = 8192;
+   /** max size of the headers of a part */
+   static final int MAX_HEADERS_SIZE = 16 * 1024;
+
+   private static final byte CR = '\r';
+   private static final byte LF = '\n';
+   private static final byte DASH = '-';
+
+   private final InputStream in;
+   // CRLF--boundary
+   private final byte[] delimiter;
+   private final long maxPartSize;
+   private final long maxSize;
+
+   private final byte[] buffer;
+   private int head;
+   private int tail;
+   private boolean eof;
+   // number of bytes read from the underlying stream
+   private long size;
+
+   private Part current;
+   private boolean finished;
+
+   /**
+    * @param in multipart content
+    * @param boundary boundary of the parts, as given by the content type
+    * @param maxPartSize max size in bytes of the content of a part, -1 for no limit
+    * @param maxSize max size in bytes of the whole multipart content, -1 for no limit
+    */
+   public MultipartParser(@NotNull final InputStream in, @NotNull final String boundary, final long maxPartSize, final long maxSize) {
+	if (boundary.length() == 0 || boundary.length() > 200) { throw new IllegalArgumentException("illegal multipart boundary \"" + boundary + "\""); }
+	this.in = in;
+	this.maxPartSize = maxPartSize;
+	this.maxSize = maxSize;
+	delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+	buffer = new byte[BUFFER_SIZE];
+	// the first boundary may be at the very beginning of the content, without a preceding line break
+	buffer[0] = CR;
+	buffer[1] = LF;
+	tail = 2;
+   }
+
+   /**
+    * @param contentType content type of a multipart content
+    * @return boundary of the parts, <code>null</code> if the content type does not define one
+    */
+   @Nullable
+   public static String getBoundary(@Nullable final String contentType) {
+	if (contentType == null) { return null; }
+	return parseParameters(contentType).get("boundary");
+   }
+
+   /**
+    * @return the next part, <code>null</code> at the end of the content. The previous part is skipped if it is not fully read.
+    * @throws IOException if the content is malformed or too large (see {@link ResourceException}), or can't be read
+    */
+   @Nullable
+   public Part nextPart() throws IOException {
+	if (finished) { return null; }
+
+	if (current == null) {
+	   // preamble
+	   new PartInputStream(null).skipAll();
+	} else {
+	   current.in.skipAll();
+	}
+	current = null;
+
+	// after a boundary : "--" for the last one, otherwise a line break (with an optional padding)
+	if (!ensure(2)) { throw malformed("unexpected end of content after a boundary"); }
+	if (buffer[head] == DASH && buffer[head + 1] == DASH) {
+	   finished = true;
+	   return null;
+	}
+	while (ensure(1) && (buffer[head] == ' ' || buffer[head] == '\t')) {
+	   head++;
+	}
+	if (!ensure(2) || buffer[head] != CR || buffer[head + 1] != LF) { throw malformed("missing line break after a boundary"); }
+	head += 2;
+
+	current = new Part(readHeaders());
+	return current;
+   }
+
+   /**
+    * @return number of bytes read from the underlying stream
+    */
+   public long getSize() {
+	return size;
+   }
+
+   /*
+    * headers of a part, until the empty line
+    */
+   private Map<String, String> readHeaders() throws IOException {
+	final Map<String, String> headers = new LinkedHashMap<String, String>();
+	int length = 0;
+	String name = null;
+	String line;
+	while ((line = readLine(MAX_HEADERS_SIZE - length)).length() > 0) {
+	   length += line.length() + 2;
+	   if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && name != null) {
+		// folded header
+		headers.put(name, headers.get(name) + " " + line.trim());
+		continue;
+	   }
+	   final int colon = line.indexOf(':');
+	   if (colon <= 0) { throw malformed("illegal part header \"" + line + "\""); }
+	   name = line.substring(0, colon).trim().toLowerCase();
+	   headers.put(name, line.substring(colon + 1).trim());
+	}
+	return headers;
+   }
+
+   /*
+    * a header line, without its line break
+    */
+   private String readLine(final int maxLength) throws IOException {
+	final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+	while (true) {
+	   if (!ensure(2)) { throw malformed("unexpected end of content in the part headers"); }
+	   if (buffer[head] == CR && buffer[head + 1] == LF) {
+		head += 2;
+		// browsers send the non ascii file names in utf-8
+		return new String(line.toByteArray(), StandardCharsets.UTF_8);
+	   }
+	   line.write(buffer[head++]);
+	   if (line.size() > maxLength) { throw malformed("part headers too large"); }
+	}
+   }
+
+   /*
+    * ensure that the buffer holds at least the given number of bytes
+    * @return false if the end of the content is reached before
+    */
+   private boolean ensure(final int count) throws IOException {
+	while (tail - head < count) {
+	   if (!fill()) { return false; }
+	}
+	return true;
+   }
+
+   /*
+    * read more bytes at the end of the buffer, after moving the unread bytes at its beginning
+    * @return false at the end of the underlying stream
+    */
+   private boolean fill() throws IOException {
+	if (eof) { return false; }
+	if (head > 0) {
+	   System.arraycopy(buffer, head, buffer, 0, tail - head);
+	   tail -= head;
+	   head = 0;
+	}
+	if (tail == buffer.length) { return true; }
+	final int count = in.read(buffer, tail, buffer.length - tail);
+	if (count < 0) {
+	   eof = true;
+	   return false;
+	}
+	tail += count;
+	size += count;
+	if (maxSize >= 0 && size > maxSize) { throw new ResourceException("store.upload.request.toolarge", String.valueOf(maxSize)); }
+	return true;
+   }
+
+   private ResourceException malformed(final String reason) {
+	return new ResourceException("store.upload.malformed", reason);
+   }
+
+   /**
+    * @param value header value, like <code>form-data; name="file"; filename="foo.txt"</code>
+    * @return parameters of the header value, by lower case name
+    */
+   static Map<String, String> parseParameters(@NotNull final String value) {
+	final Map<String, String> parameters = new LinkedHashMap<String, String>();
+	int i = value.indexOf(';');
+	while (i >= 0 && i < value.length()) {
+	   // parameter name
+	   final int nameStart = i + 1;
+	   final int equals = value.indexOf('=', nameStart);
+	   final int nextSemicolon = value.indexOf(';', nameStart);
+	   if (equals < 0 || (nextSemicolon >= 0 && nextSemicolon < equals)) {
+		i = nextSemicolon;
+		continue;
+	   }
+	   final String name = value.substring(nameStart, equals).trim().toLowerCase();
+
+	   // parameter value, quoted or not
+	   int j = equals + 1;
+	   while (j < value.length() && value.charAt(j) == ' ') {
+		j++;
+	   }
+	   final StringBuilder parameter = new StringBuilder();
+	   if (j < value.length() && value.charAt(j) == '"') {
+		j++;
+		while (j < value.length() && value.charAt(j) != '"') {
+		   // escaped quote or backslash
+		   if (value.charAt(j) == '\\' && j + 1 < value.length() && (value.charAt(j + 1) == '"' || value.charAt(j + 1) == '\\')) {
+			j++;
+		   }
+		   parameter.append(value.charAt(j++));
+		}
+		i = value.indexOf(';', j);
+	   } else {
+		final int end = value.indexOf(';', j);
+		parameter.append(value.substring(j, end >= 0 ? end : value.length()).trim());
+		i = end;
+	   }
+	   parameters.put(name, parameter.toString());
+	}
+	return parameters;
+   }
+
+   /**
+    * a part of the multipart content
+    */
+   public class Part {
+
+	private final Map<String, String> headers;
+	private final Map<String, String> disposition;
+	private final PartInputStream in;
+
+	Part(final Map<String, String> headers) {
+	   this.headers = Collections.unmodifiableMap(headers);
+	   final String contentDisposition = headers.get("content-disposition");
+	   disposition = contentDisposition != null ? parseParameters(contentDisposition) : Collections.<String, String> emptyMap();
+	   in = new PartInputStream(this);
+	}
+
+	/**
+	 * @return headers of the part, by lower case name
+	 */
+	public Map<String, String> getHeaders() {
+	   return headers;
+	}
+
+	/**
+	 * @param name header name
+	 * @return header value, <code>null</code> if not defined
+	 */
+	public String getHeader(@NotNull final String name) {
+	   return headers.get(name.toLowerCase());
+	}
+
+	/**
+	 * @return name of the form field, <code>null</code> if not defined
+	 */
+	public String getName() {
+	   return disposition.get("name");
+	}
+
+	/**
+	 * @return name of the uploaded file, <code>null</code> if the part is not a file
+	 */
+	public String getFileName() {
+	   return disposition.get("filename");
+	}
+
+	/**
+	 * @return content type of the part, <code>null</code> if not defined
+	 */
+	public String getContentType() {
+	   return headers.get("content-type");
+	}
+
+	/**
+	 * @return charset of the part content type, <code>null</code> if not defined
+	 */
+	public String getCharset() {
+	   final String contentType = getContentType();
+	   return contentType != null ? parseParameters(contentType).get("charset") : null;
+	}
+
+	/**
+	 * @return content of the part, it can only be read until the next call to {@link MultipartParser#nextPart()}
+	 */
+	public InputStream getInputStream() {
+	   return in;
+	}
+   }
+
+   /**
+    * content of a part, until the next delimiter
+    */
+   class PartInputStream extends InputStream {
+
+	private final Part part;
+	// number of bytes read
+	private long count;
+	// the delimiter is reached
+	private boolean ended;
+
+	PartInputStream(final Part part) {
+	   this.part = part;
+	}
+
+	@Override
+	public int read() throws IOException {
+	   final byte[] b = new byte[1];
+	   final int n = read(b, 0, 1);
+	   return n > 0 ? b[0] & 0xff : -1;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   if (ended || current != part) { return -1; }
+	   if (len == 0) { return 0; }
+
+	   final int available = partAvailable();
+	   if (available == 0) {
+		// the delimiter is at the head of the buffer
+		head += delimiter.length;
+		ended = true;
+		return -1;
+	   }
+	   final int n = Math.min(available, len);
+	   System.arraycopy(buffer, head, b, off, n);
+	   head += n;
+	   count += n;
+	   if (part != null && maxPartSize >= 0 && count > maxPartSize) { throw new ResourceException("store.upload.part.toolarge",
+		   String.valueOf(part.getName()), String.valueOf(maxPartSize)); }
+	   return n;
+	}
+
+	/*
+	 * @return number of bytes of the part which can be read from the buffer, 0 if the delimiter is at the head of the buffer
+	 */
+	private int partAvailable() throws IOException {
+	   if (ended) { return 0; }
+	   while (true) {
+		final int delimiterIndex = indexOfDelimiter();
+		if (delimiterIndex >= 0) { return delimiterIndex - head; }
+		// the end of the buffer may be the beginning of a delimiter
+		final int safe = tail - head - (delimiter.length - 1);
+		if (safe > 0) { return safe; }
+		if (!fill()) { throw malformed("unexpected end of content, the closing boundary is missing"); }
+	   }
+	}
+
+	/**
+	 * skip the remaining content of the part
+	 * 
+	 * @throws IOException
+	 */
+	void skipAll() throws IOException {
+	   while (!ended) {
+		final int available = partAvailable();
+		if (available == 0) {
+		   head += delimiter.length;
+		   ended = true;
+		} else {
+		   head += available;
+		}
+	   }
+	}
+
+	@Override
+	public void close() {
+	   // the remaining content is skipped by the next part
+	}
+
+	/*
+	 * index of the delimiter in the buffer, -1 if not found
+	 */
+	private int indexOfDelimiter() {
+	   final int last = tail - delimiter.length;
+	   for (int i = head; i <= last; i++) {
+		int j = 0;
+		while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+		   j++;
+		}
+		if (j == delimiter.length) { return i; }
+	   }
+	   return -1;
+	}
+   }
+}
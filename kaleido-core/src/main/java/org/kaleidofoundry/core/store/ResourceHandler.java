@@ -21,6 +21,10 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.kaleidofoundry.core.lang.annotation.NotNull;
 import org.kaleidofoundry.core.lang.annotation.NotThreadSafe;
@@ -60,6 +64,67 @@ public interface ResourceHandler extends Serializable {
    @NotNull
    InputStream getInputStream() throws ResourceException;
 
+   /**
+    * Get a channel to read the content of the resource<br/>
+    * For a file resource, it is a {@link FileChannel}, which can be transferred to another channel without any copy in the heap.<br/>
+    * Once done, free resource with {@link #close()}<br/>
+    * Be careful, if you call several time this method, the same channel instance will be return.
+    * 
+    * @return readable channel of the resource
+    */
+   @NotNull
+   ReadableByteChannel getChannel() throws ResourceException;
+
+   /**
+    * Get the content of the resource as a read-only byte buffer<br/>
+    * A large file resource is memory mapped instead of being read in the heap (see
+    * {@link FileStoreContextBuilder#MappedReadThreshold}). Once read, the resource is closed.
+    * 
+    * @return content of the resource
+    */
+   @NotNull
+   ByteBuffer getByteBuffer() throws ResourceException;
+
+   /**
+    * Get an input stream to read a range of the content of the resource<br/>
+    * A file resource is positioned directly at the offset, other ones are skipped up to it.<br/>
+    * Once done, free resource with {@link #close()}
+    * 
+    * @param offset position of the first byte to read
+    * @param length max number of bytes to read, -1 to read up to the end
+    * @return input stream of the range
+    */
+   @NotNull
+   InputStream getInputStream(long offset, long length) throws ResourceException;
+
+   /**
+    * Iterate over the content of the resource, chunk by chunk, without loading it in memory<br/>
+    * The same buffer is reused from a chunk to another, so a chunk have to be consumed before asking for the next one.<br/>
+    * The resource is closed once the last chunk has been read.
+    * 
+    * <pre>
+    * for (ByteBuffer chunk : resource.getChunks(64 * 1024)) {
+    *    channel.write(chunk);
+    * }
+    * </pre>
+    * 
+    * @param chunkSize max size of a chunk
+    * @return chunks of the content, each one ready to be read
+    */
+   @NotNull
+   Iterable<ByteBuffer> getChunks(int chunkSize) throws ResourceException;
+
+   /**
+    * Copy the content of the resource to a channel<br/>
+    * The next chunk is read only once the previous one has been written, so a slow target slows down the reading instead of filling the
+    * memory.<br/>
+    * The resource is closed at the end of the copy.
+    * 
+    * @param target channel to write to (not closed)
+    * @return number of bytes copied
+    */
+   long transferTo(@NotNull WritableByteChannel target) throws ResourceException;
+
    /**
     * Get a reader used to read the content of the resource<br/>
     * You can use {@link BufferedReader} to handle it.<br/>
@@ -16,12 +16,18 @@
 package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHANNEL_BUFFER_SIZE;
 import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CHARSET;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_MAPPED_READ_THRESHOLD;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.BufferSize;
 import static org.kaleidofoundry.core.store.FileStoreContextBuilder.Charset;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.MappedReadThreshold;
 import static org.kaleidofoundry.core.util.ObjectHelper.firstNonNull;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -29,6 +35,15 @@ import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.kaleidofoundry.core.io.IOHelper;
 import org.kaleidofoundry.core.lang.annotation.Immutable;
@@ -54,6 +69,7 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
    private long lastModified;
    private String mimeType;
    private String charset;
+   private String etag;
 
    private boolean closed;   
    private byte[] bytes;   
@@ -62,6 +78,7 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
 
    private transient InputStream input;
    private transient Reader reader;
+   private transient ReadableByteChannel channel;
 
    /**
     * needed by REST javax.ws.rs controller
@@ -207,11 +224,134 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
 
    }
 
+   @Override
+   public ReadableByteChannel getChannel() throws ResourceException {
+	if (channel == null) {
+	   final InputStream in = getInputStream();
+	   channel = in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : Channels.newChannel(in);
+	}
+	return channel;
+   }
+
+   @Override
+   public ByteBuffer getByteBuffer() throws ResourceException {
+
+	if (bytes != null) {
+	   return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	} else if (input instanceof FileInputStream) {
+	   final FileChannel fileChannel = ((FileInputStream) input).getChannel();
+	   try {
+		final long size = fileChannel.size() - fileChannel.position();
+		final long threshold = store != null ? store.context.getLong(MappedReadThreshold, DEFAULT_MAPPED_READ_THRESHOLD)
+			: DEFAULT_MAPPED_READ_THRESHOLD;
+		if (size >= threshold) {
+		   try {
+			// the mapping remains valid once the channel is closed
+			return fileChannel.map(MapMode.READ_ONLY, fileChannel.position(), size);
+		   } finally {
+			close();
+		   }
+		}
+	   } catch (final IOException ioe) {
+		throw new ResourceException(ioe, uri);
+	   }
+	}
+	return ByteBuffer.wrap(getBytes()).asReadOnlyBuffer();
+   }
+
+   @Override
+   public InputStream getInputStream(final long offset, final long length) throws ResourceException {
+
+	if (offset < 0) { throw new IllegalArgumentException("offset must be positive"); }
+
+	// in memory content, no copy
+	if (bytes != null) {
+	   final int from = (int) Math.min(offset, bytes.length);
+	   final int count = length < 0 ? bytes.length - from : (int) Math.min(length, bytes.length - from);
+	   return new ByteArrayInputStream(bytes, from, count);
+	}
+
+	final InputStream in = getInputStream();
+	try {
+	   if (in instanceof FileInputStream) {
+		final FileChannel fileChannel = ((FileInputStream) in).getChannel();
+		fileChannel.position(fileChannel.position() + offset);
+	   } else {
+		long toSkip = offset;
+		while (toSkip > 0) {
+		   final long skipped = in.skip(toSkip);
+		   if (skipped > 0) {
+			toSkip -= skipped;
+		   } else if (in.read() >= 0) {
+			toSkip--;
+		   } else {
+			break;
+		   }
+		}
+	   }
+	} catch (final IOException ioe) {
+	   throw new ResourceException(ioe, uri);
+	}
+	return length < 0 ? in : new RangeInputStream(in, length);
+   }
+
+   @Override
+   public Iterable<ByteBuffer> getChunks(final int chunkSize) throws ResourceException {
+	if (chunkSize <= 0) { throw new IllegalArgumentException("chunkSize must be positive"); }
+	final ReadableByteChannel in = getChannel();
+	return new Iterable<ByteBuffer>() {
+	   @Override
+	   public Iterator<ByteBuffer> iterator() {
+		return new ChunkIterator(in, chunkSize);
+	   }
+	};
+   }
+
+   @Override
+   public long transferTo(final WritableByteChannel target) throws ResourceException {
+	try {
+	   if (isInMemory()) {
+		final ByteBuffer content = ByteBuffer.wrap(getBytes());
+		final long count = content.remaining();
+		while (content.hasRemaining()) {
+		   target.write(content);
+		}
+		return count;
+	   } else {
+		final int bufferSize = store != null ? store.context.getInteger(BufferSize, DEFAULT_CHANNEL_BUFFER_SIZE) : DEFAULT_CHANNEL_BUFFER_SIZE;
+		return IOHelper.copy(getChannel(), target, bufferSize);
+	   }
+	} catch (final IOException ioe) {
+	   throw ioe instanceof ResourceException ? (ResourceException) ioe : new ResourceException(ioe, uri);
+	} finally {
+	   // free resource handler
+	   close();
+	}
+   }
+
+   /**
+    * @return <code>true</code> if the content is already in memory (bytes or text)
+    */
+   boolean isInMemory() {
+	return bytes != null || text != null;
+   }
+
    @Override
    public byte[] getBytes() throws ResourceException {
 
 	if (bytes != null) {
 	   return bytes;
+	} else if (input instanceof FileInputStream) {
+	   // file size is known, read it at once in an array of the right size
+	   try {
+		bytes = readFully(((FileInputStream) input).getChannel());
+		return bytes;
+	   } catch (final IOException ioe) {
+		throw new ResourceException(ioe, uri);
+	   } finally {
+		// free resource handler
+		close();
+	   }
 	} else if (text != null) {
 	   String charset = firstNonNull(this.charset, store.context.getString(Charset, DEFAULT_CHARSET.getCode()));
 	   try {
@@ -277,7 +417,8 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
 	   String inputLine;
 
 	   try {
-		final StringBuilder stb = new StringBuilder();
+		// sized from the content length when known, to avoid successive re-allocations
+		final StringBuilder stb = length > 0 && length < Integer.MAX_VALUE ? new StringBuilder((int) length) : new StringBuilder();
 		buffReader = new BufferedReader(getReader(charset));
 		while ((inputLine = buffReader.readLine()) != null) {
 		   stb.append(inputLine.trim()).append("\n");
@@ -352,8 +493,23 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
 	this.charset = charset;
    }
 
+   /**
+    * @return version identifier of the resource content, given by the store (null if it can't be obtained)
+    * @see ResourceMetadata#getEtag()
+    */
+   public String getEtag() {
+	return etag;
+   }
+
+   void setEtag(final String etag) {
+	this.etag = etag;
+   }
+
    @Override
    public long getLength() {
+      if (length < 0 && bytes != null) {
+	   return bytes.length;
+      }
       return length;
    }
 
@@ -361,6 +517,125 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
       this.length = length;
    }
 
+   /**
+    * @param fileChannel
+    * @return the remaining content of the file
+    * @throws IOException
+    */
+   static byte[] readFully(final FileChannel fileChannel) throws IOException {
+	final long size = fileChannel.size() - fileChannel.position();
+	if (size > Integer.MAX_VALUE) { throw new IOException("resource too large to be read in memory (" + size + " bytes)"); }
+
+	final byte[] data = new byte[(int) size];
+	final ByteBuffer buffer = ByteBuffer.wrap(data);
+	int read = 0;
+	while (buffer.hasRemaining() && read >= 0) {
+	   read = fileChannel.read(buffer);
+	}
+	// the file may have been truncated meanwhile
+	return buffer.hasRemaining() ? Arrays.copyOf(data, buffer.position()) : data;
+   }
+
+   /**
+    * chunks of a channel, read in a single reused buffer
+    */
+   private class ChunkIterator implements Iterator<ByteBuffer> {
+
+	private final ReadableByteChannel in;
+	private final ByteBuffer buffer;
+	// is the buffer filled with the next chunk
+	private boolean fetched;
+
+	ChunkIterator(final ReadableByteChannel in, final int chunkSize) {
+	   this.in = in;
+	   buffer = ByteBuffer.allocate(chunkSize);
+	}
+
+	@Override
+	public boolean hasNext() {
+	   if (!fetched) {
+		buffer.clear();
+		try {
+		   while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+			// fill the chunk as much as possible
+		   }
+		} catch (final IOException ioe) {
+		   close();
+		   throw new IllegalStateException(StoreMessageBundle.getMessage("store.resource.read.error", uri, ioe.getMessage()), ioe);
+		}
+		buffer.flip();
+		fetched = true;
+		if (!buffer.hasRemaining()) {
+		   // free resource handler once the last chunk have been read
+		   close();
+		}
+	   }
+	   return buffer.hasRemaining();
+	}
+
+	@Override
+	public ByteBuffer next() {
+	   if (!hasNext()) { throw new NoSuchElementException(); }
+	   fetched = false;
+	   return buffer;
+	}
+
+	@Override
+	public void remove() {
+	   throw new UnsupportedOperationException();
+	}
+   }
+
+   /**
+    * input stream limited to a range of the underlying one
+    */
+   static class RangeInputStream extends FilterInputStream {
+
+	private long remaining;
+
+	RangeInputStream(final InputStream in, final long length) {
+	   super(in);
+	   remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException {
+	   if (remaining <= 0) { return -1; }
+	   final int b = super.read();
+	   if (b >= 0) {
+		remaining--;
+	   }
+	   return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   if (remaining <= 0) { return -1; }
+	   final int read = super.read(b, off, (int) Math.min(len, remaining));
+	   if (read > 0) {
+		remaining -= read;
+	   }
+	   return read;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+	   final long skipped = super.skip(Math.min(n, remaining));
+	   remaining -= skipped;
+	   return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+	   return (int) Math.min(super.available(), remaining);
+	}
+
+	@Override
+	public boolean markSupported() {
+	   return false;
+	}
+   }
+
    /**
     * this method is only used by for caching resource handler (if caching is enable)
     * 
@@ -368,5 +643,6 @@ class ResourceHandlerBean implements ResourceHandler, Serializable {
     */
    void setInputStream(final InputStream inputStream) {
 	input = inputStream;
+	channel = null;
    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.Serializable;
+
+import org.kaleidofoundry.core.lang.annotation.Immutable;
+
+/**
+ * Meta datas of a store resource, got without reading its content (see {@link FileStore#list(String)} and {@link FileStore#stat(String)})
+ * 
+ * @author jraduget
+ */
+@Immutable
+public class ResourceMetadata implements Serializable {
+
+   private static final long serialVersionUID = 1L;
+
+   private final String uri;
+   private final String path;
+   private final boolean directory;
+   private final long length;
+   private final long lastModified;
+   private final String mimeType;
+   private final String etag;
+
+   ResourceMetadata(final String uri, final String path, final boolean directory, final long length, final long lastModified,
+	   final String mimeType, final String etag) {
+	this.uri = uri;
+	this.path = path;
+	this.directory = directory;
+	this.length = length;
+	this.lastModified = lastModified;
+	this.mimeType = mimeType;
+	this.etag = etag;
+   }
+
+   /**
+    * @return full uri of the resource
+    */
+   public String getUri() {
+	return uri;
+   }
+
+   /**
+    * @return path of the resource, relative from the store root uri
+    */
+   public String getPath() {
+	return path;
+   }
+
+   /**
+    * @return is it a directory
+    */
+   public boolean isDirectory() {
+	return directory;
+   }
+
+   /**
+    * @return resource content length (-1, if it can't be obtained)
+    */
+   public long getLength() {
+	return length;
+   }
+
+   /**
+    * @return Time in milliseconds, when the resource has been modified (0 if it can't be obtained)
+    */
+   public long getLastModified() {
+	return lastModified;
+   }
+
+   /**
+    * @return the mime type of the resource (null if it can't be obtained)
+    */
+   public String getMimeType() {
+	return mimeType;
+   }
+
+   /**
+    * @return opaque version identifier of the resource content, like an http entity tag (null if it can't be obtained)
+    */
+   public String getEtag() {
+	return etag;
+   }
+
+   @Override
+   public String toString() {
+	return uri;
+   }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.kaleidofoundry.core.env.model.EnvironmentConstants.STATIC_ENV_PARAMETERS;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+import org.kaleidofoundry.core.util.StringHelper;
+
+/**
+ * Builds the full uri of the resources of a file store, given their relative path (see {@link AbstractFileStore#buildResourceURi(String)}).<br/>
+ * <br/>
+ * The base uri is resolved once (its <code>${...}</code> variables being parsed once into a {@link Template}), with the uri prefixes to use
+ * and the check of its scheme against the store types. A relative path is then normalized in a single pass ('\' as '/', ' ' as '%20'),
+ * and the resulting uris are kept in a bounded LRU cache.<br/>
+ * The resolved base uri and its cache are dropped if the value of one of its variables changes.<br/>
+ * <br/>
+ * A path beginning with the base uri is normalized by {@link #buildResourceUri(String, String)}, then cached if it has no other variable.
+ *
+ * @author jraduget
+ */
+@ThreadSafe
+class ResourceUriNormalizer {
+
+   /** default maximum number of cached uris */
+   static final int DEFAULT_CACHE_SIZE = 1024;
+
+   private final String baseUri;
+   private final FileStoreType[] storeTypes;
+   private final Template baseUriTemplate;
+   private final int cacheSize;
+
+   // base uri resolved with the current variables values
+   private volatile ResolvedBaseUri resolvedBaseUri;
+
+   /**
+    * @param baseUri base uri of the store
+    * @param storeTypes types of uri handled by the store
+    * @param cacheSize maximum number of cached uris
+    */
+   ResourceUriNormalizer(@NotNull final String baseUri, @NotNull final FileStoreType[] storeTypes, final int cacheSize) {
+	this.baseUri = baseUri;
+	this.storeTypes = storeTypes.clone();
+	this.baseUriTemplate = Template.compile(baseUri);
+	this.cacheSize = cacheSize;
+   }
+
+   /**
+    * @param resourceRelativePath
+    * @return full uri of the resource, given its relative path
+    */
+   String normalize(final String resourceRelativePath) {
+	final String resourceUri = normalize(resourceRelativePath, false);
+	return resourceUri != null ? resourceUri : buildResourceUri(baseUri, resourceRelativePath);
+   }
+
+   /**
+    * @param resourceRelativePath
+    * @param checked if <code>true</code> the scheme of the uri must be one of the store types
+    * @return full uri of the resource given its relative path, or <code>null</code> if it is checked and not manageable by the store
+    */
+   String normalize(final String resourceRelativePath, final boolean checked) {
+	if (resourceRelativePath == null) { return checked ? checked(buildResourceUri(baseUri, null)) : buildResourceUri(baseUri, null); }
+
+	final ResolvedBaseUri base = resolvedBaseUri();
+	String resourceUri = base.get(resourceRelativePath);
+	if (resourceUri != null) { return resourceUri; }
+
+	if (!resourceRelativePath.startsWith(baseUri)) {
+	   // the scheme is the one of the base uri, it has been checked once
+	   if (checked && !base.manageable) { return null; }
+	   resourceUri = (resourceRelativePath.startsWith("/") ? base.slashPrefix : base.prefix) + normalizePath(resourceRelativePath);
+	   // the cache only contains manageable uris
+	   if (!base.manageable) { return resourceUri; }
+	} else {
+	   resourceUri = buildResourceUri(baseUri, resourceRelativePath);
+	   // variables of the path, which are not tracked
+	   if (resourceRelativePath.indexOf("${", Math.max(baseUri.length() - 1, 0)) >= 0) { return checked ? checked(resourceUri) : resourceUri; }
+	   // the cache only contains manageable uris
+	   if (!isManageable(resourceUri)) { return checked ? null : resourceUri; }
+	}
+
+	base.put(resourceRelativePath, resourceUri);
+	return resourceUri;
+   }
+
+   /**
+    * @return number of cached uris
+    */
+   int getCacheSize() {
+	final ResolvedBaseUri base = resolvedBaseUri;
+	return base != null ? base.size() : 0;
+   }
+
+   /*
+    * base uri resolved with the current variables values
+    */
+   ResolvedBaseUri resolvedBaseUri() {
+	final ResolvedBaseUri base = resolvedBaseUri;
+	if (base != null && baseUriTemplate.isResolvedWith(base.values, STATIC_ENV_PARAMETERS)) { return base; }
+
+	final String[] values = baseUriTemplate.values(STATIC_ENV_PARAMETERS);
+	final ResolvedBaseUri newBase = new ResolvedBaseUri(baseUriTemplate.resolve(values), values);
+	resolvedBaseUri = newBase;
+	return newBase;
+   }
+
+   private String checked(final String resourceUri) {
+	return isManageable(resourceUri) ? resourceUri : null;
+   }
+
+   /*
+    * the scheme of the uri is one of the store types
+    */
+   boolean isManageable(final String resourceUri) {
+	final FileStoreType resourceType;
+	try {
+	   resourceType = FileStoreTypeEnum.match(resourceUri);
+	} catch (final IllegalArgumentException iae) {
+	   return false;
+	}
+	if (resourceType != null) {
+	   for (final FileStoreType t : storeTypes) {
+		if (t.equals(resourceType)) { return true; }
+	   }
+	}
+	return false;
+   }
+
+   /**
+    * normalize a path, by using '/' as path separator, and by replacing spaces by %20
+    * 
+    * @param path
+    * @return normalized path (the same instance if there is nothing to normalize)
+    */
+   static String normalizePath(@NotNull final String path) {
+	int i = 0;
+	final int length = path.length();
+	while (i < length && path.charAt(i) != '\\' && path.charAt(i) != ' ') {
+	   i++;
+	}
+	if (i == length) { return path; }
+
+	final StringBuilder normalized = new StringBuilder(length + 16).append(path, 0, i);
+	for (; i < length; i++) {
+	   final char c = path.charAt(i);
+	   if (c == '\\') {
+		normalized.append('/');
+	   } else if (c == ' ') {
+		normalized.append("%20");
+	   } else {
+		normalized.append(c);
+	   }
+	}
+	return normalized.toString();
+   }
+
+   /**
+    * build a full resource uri, given a relative path, without any cache
+    * 
+    * @param baseUri
+    * @param resourceRelativePath
+    * @return full resource uri, given the relative path parameter
+    */
+   static String buildResourceUri(final String baseUri, final String resourceRelativePath) {
+
+	boolean appendBaseUri = false;
+	final String relativePath = resourceRelativePath;
+	final StringBuilder resourceUri = new StringBuilder();
+
+	if (relativePath != null && !relativePath.startsWith(baseUri)) {
+	   appendBaseUri = true;
+	   resourceUri.append(baseUri);
+	} else {
+	   resourceUri.append(relativePath);
+	}
+
+	// merge variables that could be contains in the resource path
+	final StringBuilder mergedResourceUri = new StringBuilder(FileStoreProvider.buildFullResourceURi(resourceUri.toString()));
+
+	// remove '/' is baseUri ends with '/' and relativePath starts with a '/'
+	if (appendBaseUri && baseUri != null && baseUri.endsWith("/") && relativePath != null && relativePath.startsWith("/")) {
+	   mergedResourceUri.deleteCharAt(mergedResourceUri.length() - 1);
+	} else {
+	   // add '/' if needed
+	   if (appendBaseUri && baseUri != null && !baseUri.endsWith("/") && relativePath != null && !relativePath.startsWith("/")) {
+		mergedResourceUri.append("/");
+	   }
+	}
+
+	if (appendBaseUri) {
+	   mergedResourceUri.append(relativePath);
+	}
+
+	String result = mergedResourceUri.toString();
+	// normalize uri by using '/' as path separator
+	result = FileHelper.buildCustomPath(result, FileHelper.UNIX_SEPARATOR, false);
+	// normalize uri by replacing spaces by %20
+	result = StringHelper.replaceAll(result, " ", "%20");
+
+	return result;
+   }
+
+   /*
+    * base uri resolved with the given variables values, its uri prefixes, and the cache of the uris built from it
+    */
+   private class ResolvedBaseUri {
+
+	final String[] values;
+	// prefix of a relative path which does not begin with '/'
+	final String prefix;
+	// prefix of a relative path which begins with '/'
+	final String slashPrefix;
+	// is the base uri scheme one of the store types
+	final boolean manageable;
+	final Map<String, String> cache;
+
+	ResolvedBaseUri(final String resolvedBaseUri, final String[] values) {
+	   this.values = values;
+	   // same rules than buildResourceUri
+	   final String mergedBaseUri = FileStoreProvider.buildFullResourceURi(resolvedBaseUri);
+	   final boolean endsWithSlash = baseUri.endsWith("/");
+	   this.prefix = normalizePath(endsWithSlash ? mergedBaseUri : mergedBaseUri + "/");
+	   this.slashPrefix = normalizePath(endsWithSlash && mergedBaseUri.length() > 0 ? mergedBaseUri.substring(0, mergedBaseUri.length() - 1)
+		   : mergedBaseUri);
+	   this.manageable = isManageable(prefix);
+	   this.cache = new LinkedHashMap<String, String>(Math.min(cacheSize, 64), 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+		   return size() > cacheSize;
+		}
+	   };
+	}
+
+	synchronized String get(final String resourceRelativePath) {
+	   return cache.get(resourceRelativePath);
+	}
+
+	synchronized void put(final String resourceRelativePath, final String resourceUri) {
+	   if (cacheSize > 0) {
+		cache.put(resourceRelativePath, resourceUri);
+	   }
+	}
+
+	synchronized int size() {
+	   return cache.size();
+	}
+   }
+
+   /**
+    * Expression with <code>${...}</code> variables, parsed once
+    */
+   static class Template {
+
+	// literal parts, around the variables
+	private final String[] literals;
+	// variables names
+	private final String[] names;
+
+	private Template(final String[] literals, final String[] names) {
+	   this.literals = literals;
+	   this.names = names;
+	}
+
+	/**
+	 * @param expression
+	 * @return parsed expression, using the same rules than {@link StringHelper#extractToken(String)}
+	 */
+	static Template compile(@NotNull final String expression) {
+	   final List<String> literals = new ArrayList<String>();
+	   final List<String> names = new ArrayList<String>();
+	   int literalStart = 0;
+	   int i = expression.indexOf("${");
+	   while (i >= 0) {
+		final int end = expression.indexOf('}', i + 2);
+		if (end < 0) {
+		   break;
+		}
+		if (end > i + 2) {
+		   literals.add(expression.substring(literalStart, i));
+		   names.add(expression.substring(i + 2, end));
+		   literalStart = end + 1;
+		}
+		i = expression.indexOf("${", end + 1);
+	   }
+	   literals.add(expression.substring(literalStart));
+	   return new Template(literals.toArray(new String[literals.size()]), names.toArray(new String[names.size()]));
+	}
+
+	/**
+	 * @param variables
+	 * @return current values of the variables
+	 */
+	String[] values(final Map<String, String> variables) {
+	   final String[] values = new String[names.length];
+	   for (int i = 0; i < names.length; i++) {
+		values[i] = variables.get(names[i]);
+	   }
+	   return values;
+	}
+
+	/**
+	 * @param values previous values of the variables
+	 * @param variables
+	 * @return <code>true</code> if the variables have the same values
+	 */
+	boolean isResolvedWith(final String[] values, final Map<String, String> variables) {
+	   for (int i = 0; i < names.length; i++) {
+		final String value = variables.get(names[i]);
+		if (value == null ? values[i] != null : !value.equals(values[i])) { return false; }
+	   }
+	   return true;
+	}
+
+	/**
+	 * @param values values of the variables, an unknown variable (<code>null</code> value) is kept as is
+	 * @return resolved expression
+	 */
+	String resolve(final String[] values) {
+	   if (names.length == 0) { return literals[0]; }
+	   final StringBuilder resolved = new StringBuilder();
+	   for (int i = 0; i < names.length; i++) {
+		resolved.append(literals[i]);
+		if (values[i] != null) {
+		   resolved.append(values[i]);
+		} else {
+		   resolved.append("${").append(names[i]).append('}');
+		}
+	   }
+	   return resolved.append(literals[names.length]).toString();
+	}
+   }
+}
@@ -0,0 +1,753 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.kaleidofoundry.core.i18n.InternalBundleHelper.StoreMessageBundle;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CIRCUIT_BREAKER_OPEN_TIME;
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+import static org.kaleidofoundry.core.store.FileStoreConstants.TieredStorePluginName;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CircuitBreakerOpenTime;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.CircuitBreakerThreshold;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.FastStoreRef;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ReplicaStoreRefs;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.WriteBehind;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.WriteBehindJournal;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.io.IoIterable;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.plugin.Declare;
+import org.kaleidofoundry.core.store.WriteBehindJournal.Entry;
+import org.kaleidofoundry.core.store.WriteBehindJournal.Operation;
+import org.kaleidofoundry.core.util.StringHelper;
+
+/**
+ * Tiered {@link FileStore} implementation, which chains a fast store (a local file system store for instance) in front of slow replicated
+ * stores (http, jpa, ftp ... stores).<br/>
+ * <br/>
+ * <ul>
+ * <li><b>read-through</b> : a resource is read from the fast tier (see {@link FileStoreContextBuilder#FastStoreRef}). The slow tier is only
+ * read on a miss, then the resource is promoted to the fast tier, so the next reads don't leave it.</li>
+ * <li><b>write-behind</b> : a write is done in the fast tier, and recorded in a durable journal (see
+ * {@link FileStoreContextBuilder#WriteBehindJournal}). The replicas of the slow tier (see {@link FileStoreContextBuilder#ReplicaStoreRefs})
+ * are updated asynchronously, in the order of the journal, from the content of the fast tier. The writes which are not replicated when the
+ * store stops are replicated by the next instance. With {@link FileStoreContextBuilder#WriteBehind} disabled, a write waits for its
+ * replication.</li>
+ * <li><b>failover</b> : a miss is served by the first available replica. Each replica has a circuit breaker : after
+ * {@link FileStoreContextBuilder#CircuitBreakerThreshold} consecutive failures, it is no more called during
+ * {@link FileStoreContextBuilder#CircuitBreakerOpenTime} ms, then a single trial request decides if it is used again. There is no waiting
+ * retry, a failed replication is retried in the background once the open time is elapsed.</li>
+ * </ul>
+ * The fast tier is the reference for the resources it holds, so the replicas must only be written through this store. The
+ * {@link FileStoreContextBuilder#MaxRetryOnFailure} retries of the store itself should stay disabled, the failover of the replicas replaces
+ * them.
+ * 
+ * @author jraduget
+ * @see FileStoreContextBuilder enum of context configuration properties available
+ */
+@Declare(TieredStorePluginName)
+public class TieredFileStore extends AbstractFileStore implements FileStore {
+
+   /** default parent directory of the replication journals, relative to the user home directory */
+   static final String DEFAULT_JOURNAL_DIR = ".kaleido/tiered-journal";
+
+   private volatile FileStore fastStore;
+   private volatile List<Replica> replicas;
+   private volatile WriteBehindJournal journal;
+
+   // is a replication task submitted or running
+   private final AtomicBoolean replicating = new AtomicBoolean();
+   // have new entries been journaled since the replication task started
+   private final AtomicBoolean replicationRequested = new AtomicBoolean();
+   // is a retry of the failed replication scheduled
+   private final AtomicBoolean retryScheduled = new AtomicBoolean();
+   // a single thread replicates the journal at once, to keep its order
+   private final Object replicationLock = new Object();
+
+   /**
+    * @param context
+    */
+   public TieredFileStore(@NotNull final RuntimeContext<FileStore> context) {
+	super(context);
+   }
+
+   /**
+    * @param baseUri
+    * @param context
+    */
+   public TieredFileStore(final String baseUri, final RuntimeContext<FileStore> context) {
+	super(baseUri, context);
+   }
+
+   /**
+    * @param baseUri
+    * @param context
+    * @param fastStore store of the fast tier
+    * @param replicaStores stores of the slow tier, by order of preference
+    */
+   public TieredFileStore(final String baseUri, final RuntimeContext<FileStore> context, @NotNull final FileStore fastStore,
+	   @NotNull final FileStore... replicaStores) {
+	super(baseUri, context);
+	this.fastStore = fastStore;
+	replicas = createReplicas(Arrays.asList(replicaStores));
+   }
+
+   /**
+    * @see AbstractFileStore#AbstractFileStore()
+    */
+   TieredFileStore() {
+	super();
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#getStoreType()
+    */
+   @Override
+   public FileStoreType[] getStoreType() {
+	return new FileStoreType[] { FileStoreTypeEnum.tiered };
+   }
+
+   /**
+    * @return the store of the fast tier, provided by the {@link FileStoreContextBuilder#FastStoreRef} context on first use
+    */
+   public FileStore getFastStore() {
+	if (fastStore == null) {
+	   synchronized (this) {
+		if (fastStore == null) {
+		   final String fastStoreRef = context.getString(FastStoreRef);
+		   if (StringHelper.isEmpty(fastStoreRef)) { throw new IllegalStateException(StoreMessageBundle.getMessage(
+			   "store.tiered.fast.notdefined", context.getName(), FastStoreRef)); }
+		   fastStore = FileStoreFactory.provides(new RuntimeContext<FileStore>(fastStoreRef, FileStore.class, context));
+		}
+	   }
+	}
+	return fastStore;
+   }
+
+   /**
+    * @return the stores of the slow tier, by order of preference, provided by the {@link FileStoreContextBuilder#ReplicaStoreRefs}
+    *         contexts on first use
+    */
+   public List<FileStore> getReplicaStores() {
+	final List<FileStore> stores = new ArrayList<FileStore>();
+	for (final Replica replica : getReplicas()) {
+	   stores.add(replica.store);
+	}
+	return stores;
+   }
+
+   /**
+    * @param replicaStore
+    * @return <code>true</code> if the replica store is currently used, <code>false</code> if its circuit breaker is open
+    */
+   public boolean isAvailable(@NotNull final FileStore replicaStore) {
+	for (final Replica replica : getReplicas()) {
+	   if (replica.store == replicaStore) { return replica.circuitBreaker.getState() != CircuitBreaker.State.open; }
+	}
+	throw new IllegalArgumentException(replicaStore.getBaseUri());
+   }
+
+   /**
+    * @return number of writes which are not replicated yet
+    * @throws ResourceException
+    */
+   public int getPendingReplications() throws ResourceException {
+	return getJournal().pending().size();
+   }
+
+   /**
+    * replicate the pending writes now, in the caller thread
+    * 
+    * @return <code>true</code> if all the writes are replicated, <code>false</code> if a replica failed
+    * @throws ResourceException
+    */
+   public boolean flush() throws ResourceException {
+	return replicatePending();
+   }
+
+   /**
+    * The resource is read from the fast tier. On a miss, it is read from the first available replica, then promoted to the fast tier.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doGet(java.net.URI)
+    */
+   @Override
+   protected ResourceHandler doGet(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final String path = pathOf(resourceUri);
+
+	boolean promote = true;
+	try {
+	   return wrap(resourceUri, getFastStore().get(path));
+	} catch (final ResourceNotFoundException rnfe) {
+	   // miss
+	} catch (final ResourceException rse) {
+	   I18N_LOGGER.warn("store.tiered.fast.error", getFastStore().getBaseUri(), resourceUri, rse);
+	   promote = false;
+	}
+
+	// removed, but not replicated yet
+	if (getJournal().lastOperation(path) == Operation.remove) { throw new ResourceNotFoundException(resourceUri.toString()); }
+
+	final ResourceHandler replicaResource = failover(resourceUri, new ReplicaCall<ResourceHandler>() {
+	   @Override
+	   public ResourceHandler call(final FileStore replica) throws ResourceException {
+		return replica.get(path);
+	   }
+	});
+	if (!promote) { return wrap(resourceUri, replicaResource); }
+
+	// read-through promotion : the content is streamed to the fast tier, then read from it
+	try {
+	   try {
+		getFastStore().store(getFastStore().createResourceHandler(path, replicaResource.getInputStream()));
+	   } finally {
+		replicaResource.close();
+	   }
+	   return wrap(resourceUri, getFastStore().get(path));
+	} catch (final ResourceException rse) {
+	   I18N_LOGGER.warn("store.tiered.promotion.error", resourceUri, rse);
+	   return wrap(resourceUri, failover(resourceUri, new ReplicaCall<ResourceHandler>() {
+		@Override
+		public ResourceHandler call(final FileStore replica) throws ResourceException {
+		   return replica.get(path);
+		}
+	   }));
+	}
+   }
+
+   /**
+    * The write is journaled then done in the fast tier, its replication is asynchronous unless {@link FileStoreContextBuilder#WriteBehind}
+    * is disabled.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStore(java.net.URI, org.kaleidofoundry.core.store.ResourceHandler)
+    */
+   @Override
+   protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
+	final String path = pathOf(resourceUri);
+	// journaled first, so a write can't be lost for the replicas once it is in the fast tier
+	final Entry entry = append(Operation.store, path);
+	boolean stored = false;
+	try {
+	   getFastStore().store(getFastStore().createResourceHandler(path, resource.getInputStream()));
+	   stored = true;
+	} finally {
+	   resource.close();
+	   if (!stored) {
+		discard(entry);
+	   }
+	}
+	replicate(resourceUri, entry);
+   }
+
+   /**
+    * The resource is removed from the fast tier, its removal from the replicas is asynchronous unless
+    * {@link FileStoreContextBuilder#WriteBehind} is disabled.
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doRemove(java.net.URI)
+    */
+   @Override
+   protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final String path = pathOf(resourceUri);
+	final Entry entry = append(Operation.remove, path);
+	boolean found = false;
+	try {
+	   // the resource may have never been promoted to the fast tier, and a store like the file system one does not report a missing
+	   // resource with a ResourceNotFoundException on remove
+	   if (getFastStore().exists(path)) {
+		try {
+		   getFastStore().remove(path);
+		   found = true;
+		} catch (final ResourceNotFoundException rnfe) {
+		   // removed concurrently
+		   found = exists(resourceUri, path);
+		}
+	   } else {
+		found = exists(resourceUri, path);
+	   }
+	} finally {
+	   if (!found) {
+		discard(entry);
+	   }
+	}
+	if (!found) { throw new ResourceNotFoundException(resourceUri.toString()); }
+	replicate(resourceUri, entry);
+   }
+
+   /**
+    * The meta datas are read from the fast tier, or from the first available replica on a miss (there is no promotion).
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doStat(java.net.URI)
+    */
+   @Override
+   protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	final String path = pathOf(resourceUri);
+	try {
+	   return toResourceMetadata(getFastStore().stat(path));
+	} catch (final ResourceNotFoundException rnfe) {
+	   // miss
+	} catch (final ResourceException rse) {
+	   I18N_LOGGER.warn("store.tiered.fast.error", getFastStore().getBaseUri(), resourceUri, rse);
+	}
+
+	if (getJournal().lastOperation(path) == Operation.remove) { throw new ResourceNotFoundException(resourceUri.toString()); }
+
+	return toResourceMetadata(failover(resourceUri, new ReplicaCall<ResourceMetadata>() {
+	   @Override
+	   public ResourceMetadata call(final FileStore replica) throws ResourceException {
+		return replica.stat(path);
+	   }
+	}));
+   }
+
+   /**
+    * The listing of the first available replica, merged with the listing of the fast tier (which holds the writes that are not replicated
+    * yet).
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#doList(java.net.URI)
+    */
+   @Override
+   protected IoIterable<ResourceMetadata> doList(final URI directoryUri) throws ResourceNotFoundException, ResourceException {
+	final String path = pathOf(directoryUri);
+	final Map<String, ResourceMetadata> resources = new TreeMap<String, ResourceMetadata>();
+	boolean found = false;
+
+	if (!getReplicas().isEmpty()) {
+	   try {
+		found = collect(failover(directoryUri, new ReplicaCall<IoIterable<ResourceMetadata>>() {
+		   @Override
+		   public IoIterable<ResourceMetadata> call(final FileStore replica) throws ResourceException {
+			return replica.list(path);
+		   }
+		}), resources);
+	   } catch (final ResourceNotFoundException rnfe) {
+		// the directory may only be in the fast tier
+	   }
+	}
+	try {
+	   found = collect(getFastStore().list(path), resources) || found;
+	} catch (final ResourceNotFoundException rnfe) {
+	   // the directory may only be in the replicas
+	}
+	if (!found) { throw new ResourceNotFoundException(directoryUri.toString()); }
+
+	// removed, but not replicated yet
+	for (final Iterator<ResourceMetadata> it = resources.values().iterator(); it.hasNext();) {
+	   if (getJournal().lastOperation(it.next().getPath()) == Operation.remove) {
+		it.remove();
+	   }
+	}
+	return ioIterable(resources.values());
+   }
+
+   @Override
+   public void destroy() {
+	// the pending writes stay in the journal, for the next instance
+	super.destroy();
+   }
+
+   /**
+    * @param resourceUri
+    * @return path of the resource, relative to the store base uri, as it is in the tiers
+    */
+   String pathOf(final URI resourceUri) {
+	final String uri = resourceUri.toString();
+	final String path = uri.startsWith(getBaseUri()) ? uri.substring(getBaseUri().length()) : resourceUri.getPath();
+	return path.startsWith("/") ? path.substring(1) : path;
+   }
+
+   /**
+    * @return the replication journal, opened on first use. The writes which have not been replicated by a previous instance are
+    *         replicated then.
+    * @throws ResourceException
+    */
+   WriteBehindJournal getJournal() throws ResourceException {
+	if (journal == null) {
+	   boolean recovered = false;
+	   synchronized (this) {
+		if (journal == null) {
+		   final File directory = getJournalDirectory();
+		   try {
+			journal = new WriteBehindJournal(directory);
+		   } catch (final IOException ioe) {
+			throw new ResourceException("store.tiered.journal.error", ioe, directory.getPath());
+		   }
+		   recovered = !journal.isEmpty();
+		}
+	   }
+	   if (recovered) {
+		requestReplication();
+	   }
+	}
+	return journal;
+   }
+
+   /**
+    * @return directory of the replication journal. By default, a directory of the user home is used : unlike the java temp directory, it is
+    *         not cleaned at reboot, so the pending replications are not lost
+    * @see FileStoreContextBuilder#WriteBehindJournal
+    */
+   protected File getJournalDirectory() {
+	final String directory = context.getString(WriteBehindJournal);
+	if (!StringHelper.isEmpty(directory)) { return new File(directory); }
+	// one journal by store
+	final String name = !StringHelper.isEmpty(context.getName()) ? context.getName() : CasFileStore.toHex(CasFileStore.newDigest().digest(
+		getBaseUri().getBytes(StandardCharsets.UTF_8)));
+	return new File(new File(System.getProperty("user.home"), DEFAULT_JOURNAL_DIR), name);
+   }
+
+   /**
+    * @return replicate the writes asynchronously
+    * @see FileStoreContextBuilder#WriteBehind
+    */
+   protected boolean isWriteBehind() {
+	return context.getBoolean(WriteBehind, true);
+   }
+
+   /*
+    * replicas of the slow tier, created on first use
+    */
+   private List<Replica> getReplicas() {
+	if (replicas == null) {
+	   synchronized (this) {
+		if (replicas == null) {
+		   final List<FileStore> stores = new ArrayList<FileStore>();
+		   final String replicaStoreRefs = context.getString(ReplicaStoreRefs);
+		   if (!StringHelper.isEmpty(replicaStoreRefs)) {
+			for (final String replicaStoreRef : StringHelper.split(replicaStoreRefs, ",")) {
+			   stores.add(FileStoreFactory.provides(new RuntimeContext<FileStore>(replicaStoreRef.trim(), FileStore.class, context)));
+			}
+		   }
+		   replicas = createReplicas(stores);
+		}
+	   }
+	}
+	return replicas;
+   }
+
+   private List<Replica> createReplicas(final List<FileStore> stores) {
+	final List<Replica> result = new ArrayList<Replica>();
+	for (final FileStore store : stores) {
+	   result.add(new Replica(store, new CircuitBreaker(context.getInteger(CircuitBreakerThreshold, DEFAULT_CIRCUIT_BREAKER_THRESHOLD),
+		   context.getInteger(CircuitBreakerOpenTime, DEFAULT_CIRCUIT_BREAKER_OPEN_TIME))));
+	}
+	return Collections.unmodifiableList(result);
+   }
+
+   /**
+    * call the replicas by order of preference, until one of them answers. A replica whose circuit breaker is open is skipped.<br/>
+    * A replica which doesn't find the resource is not a failing one, but the next replicas are still called, in case of it is late.
+    * 
+    * @param resourceUri
+    * @param call
+    * @return the result of the first replica which answers
+    * @throws ResourceNotFoundException if no replica finds the resource
+    * @throws ResourceException if no replica is available
+    */
+   <T> T failover(final URI resourceUri, final ReplicaCall<T> call) throws ResourceNotFoundException, ResourceException {
+	ResourceException lastError = null;
+	boolean called = false;
+	for (final Replica replica : getReplicas()) {
+	   if (!replica.circuitBreaker.allowRequest()) {
+		continue;
+	   }
+	   called = true;
+	   try {
+		final T result = call.call(replica.store);
+		replica.circuitBreaker.onSuccess();
+		return result;
+	   } catch (final ResourceNotFoundException rnfe) {
+		replica.circuitBreaker.onSuccess();
+	   } catch (final ResourceException rse) {
+		lastError = rse;
+		onFailure(replica, resourceUri.toString(), rse);
+	   }
+	}
+	if (lastError != null) { throw lastError; }
+	if (!called && !getReplicas().isEmpty()) { throw new ResourceException("store.tiered.replicas.unavailable", getBaseUri(), resourceUri.toString()); }
+	throw new ResourceNotFoundException(resourceUri.toString());
+   }
+
+   /*
+    * is the resource in the replicas
+    */
+   private boolean exists(final URI resourceUri, final String path) throws ResourceException {
+	try {
+	   failover(resourceUri, new ReplicaCall<ResourceMetadata>() {
+		@Override
+		public ResourceMetadata call(final FileStore replica) throws ResourceException {
+		   return replica.stat(path);
+		}
+	   });
+	   return true;
+	} catch (final ResourceNotFoundException rnfe) {
+	   return false;
+	}
+   }
+
+   /*
+    * log the failure of a replica
+    */
+   private void onFailure(final Replica replica, final String resourceUri, final ResourceException rse) {
+	if (replica.circuitBreaker.onFailure()) {
+	   I18N_LOGGER.error("store.tiered.circuit.open", replica.store.getBaseUri(), replica.circuitBreaker.getFailures(),
+		   replica.circuitBreaker.getOpenTime(), rse);
+	} else {
+	   I18N_LOGGER.warn("store.tiered.replica.failover", replica.store.getBaseUri(), resourceUri, rse);
+	}
+   }
+
+   private Entry append(final Operation operation, final String path) throws ResourceException {
+	try {
+	   return getJournal().append(operation, path);
+	} catch (final IOException ioe) {
+	   throw new ResourceException("store.tiered.journal.error", ioe, getJournal().getDirectory().getPath());
+	}
+   }
+
+   /*
+    * remove an entry of a write which failed
+    */
+   private void discard(final Entry entry) {
+	try {
+	   getJournal().complete(entry);
+	} catch (final Exception e) {
+	   LOGGER.warn("can't remove the replication journal entry " + entry, e);
+	}
+   }
+
+   /*
+    * replicate a journaled write, in the background or now
+    */
+   private void replicate(final URI resourceUri, final Entry entry) throws ResourceException {
+	if (isWriteBehind()) {
+	   requestReplication();
+	} else if (!replicatePending() && getJournal().isPending(entry)) {
+	   throw new ResourceException("store.tiered.replication.pending", resourceUri.toString());
+	}
+   }
+
+   /**
+    * replicate the journal in the background, a single task runs at once
+    */
+   void requestReplication() {
+	replicationRequested.set(true);
+	if (!replicating.compareAndSet(false, true)) { return; }
+	try {
+	   getAsyncExecutor().execute(new Runnable() {
+		@Override
+		public void run() {
+		   try {
+			while (replicationRequested.getAndSet(false)) {
+			   if (!replicatePending()) {
+				scheduleRetry();
+				break;
+			   }
+			}
+		   } catch (final Throwable th) {
+			LOGGER.error("replication of the store " + getBaseUri() + " failed", th);
+			scheduleRetry();
+		   } finally {
+			replicating.set(false);
+		   }
+		   // entries journaled while the task was ending
+		   if (replicationRequested.get() && !retryScheduled.get()) {
+			requestReplication();
+		   }
+		}
+	   });
+	} catch (final RejectedExecutionException ree) {
+	   // queue is full or store is destroyed, the entries stay in the journal
+	   replicating.set(false);
+	   if (!getAsyncExecutor().isShutdown()) {
+		scheduleRetry();
+	   }
+	}
+   }
+
+   /*
+    * replicate the journal again, once the circuit breakers may have been closed
+    */
+   private void scheduleRetry() {
+	if (!retryScheduled.compareAndSet(false, true)) { return; }
+	ASYNC_SCHEDULER.schedule(new Runnable() {
+	   @Override
+	   public void run() {
+		retryScheduled.set(false);
+		requestReplication();
+	   }
+	}, getRetryPeriod(), TimeUnit.MILLISECONDS);
+   }
+
+   /*
+    * time in ms between two replications of a failing journal
+    */
+   private long getRetryPeriod() {
+	return Math.max(1, context.getInteger(CircuitBreakerOpenTime, DEFAULT_CIRCUIT_BREAKER_OPEN_TIME));
+   }
+
+   /**
+    * replicate the pending entries of the journal, in order. It stops at the first entry which can't be replicated, so the following
+    * writes of a same resource can't be replicated before it.
+    * 
+    * @return <code>true</code> if all the entries are replicated
+    * @throws ResourceException
+    */
+   boolean replicatePending() throws ResourceException {
+	synchronized (replicationLock) {
+	   for (final Entry entry : getJournal().pending()) {
+		if (!replicate(entry)) { return false; }
+		try {
+		   getJournal().complete(entry);
+		} catch (final IOException ioe) {
+		   throw new ResourceException("store.tiered.journal.error", ioe, getJournal().getDirectory().getPath());
+		}
+	   }
+	   return true;
+	}
+   }
+
+   /*
+    * replicate a journal entry to all the replicas, the content is read from the fast tier (the write of a same resource may be replicated
+    * more than once, it is idempotent)
+    */
+   private boolean replicate(final Entry entry) throws ResourceException {
+	for (final Replica replica : getReplicas()) {
+	   if (!replica.circuitBreaker.allowRequest()) { return false; }
+	   try {
+		if (entry.operation == Operation.store) {
+		   final ResourceHandler resource;
+		   try {
+			resource = getFastStore().get(entry.path);
+		   } catch (final ResourceNotFoundException rnfe) {
+			// removed meanwhile, a next entry removes it from the replicas
+			replica.circuitBreaker.onSuccess();
+			return true;
+		   }
+		   try {
+			replica.store.store(replica.store.createResourceHandler(entry.path, resource.getInputStream()));
+		   } finally {
+			resource.close();
+		   }
+		} else {
+		   try {
+			replica.store.remove(entry.path);
+		   } catch (final ResourceNotFoundException rnfe) {
+			// never replicated, or already removed
+		   }
+		}
+		replica.circuitBreaker.onSuccess();
+	   } catch (final ResourceException rse) {
+		if (replica.circuitBreaker.onFailure()) {
+		   I18N_LOGGER.error("store.tiered.circuit.open", replica.store.getBaseUri(), replica.circuitBreaker.getFailures(),
+			   replica.circuitBreaker.getOpenTime(), rse);
+		}
+		I18N_LOGGER.warn("store.tiered.replication.error", entry.path, replica.store.getBaseUri(), getRetryPeriod(), rse);
+		return false;
+	   }
+	}
+	return true;
+   }
+
+   /*
+    * resource of this store, reading the content of a tier resource
+    */
+   private ResourceHandler wrap(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
+	final ResourceHandler result = createResourceHandler(resourceUri.toString(), new FilterInputStream(resource.getInputStream()) {
+	   @Override
+	   public void close() throws IOException {
+		try {
+		   super.close();
+		} finally {
+		   resource.close();
+		}
+	   }
+	});
+	// Set some meta datas
+	if (result instanceof ResourceHandlerBean) {
+	   ((ResourceHandlerBean) result).setLastModified(resource.getLastModified());
+	   ((ResourceHandlerBean) result).setLength(resource.getLength());
+	   ((ResourceHandlerBean) result).setMimeType(resource.getMimeType());
+	   ((ResourceHandlerBean) result).setCharset(resource.getCharset());
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) result).setEtag(((ResourceHandlerBean) resource).getEtag());
+	   }
+	}
+	return result;
+   }
+
+   /*
+    * meta datas of this store, from the meta datas of a tier resource
+    */
+   private ResourceMetadata toResourceMetadata(final ResourceMetadata metadata) {
+	return createResourceMetadata(buildResourceURi(metadata.getPath()), metadata.isDirectory(), metadata.getLength(),
+		metadata.getLastModified(), metadata.getMimeType(), metadata.getEtag());
+   }
+
+   /*
+    * add the resources of a tier listing, to the resources of this store
+    * @return true
+    */
+   private boolean collect(final IoIterable<ResourceMetadata> listing, final Map<String, ResourceMetadata> resources) throws ResourceException {
+	try {
+	   for (final ResourceMetadata metadata : listing) {
+		resources.put(metadata.getPath(), toResourceMetadata(metadata));
+	   }
+	   return true;
+	} catch (final IllegalStateException ise) {
+	   if (ise.getCause() instanceof ResourceException) { throw (ResourceException) ise.getCause(); }
+	   throw ise;
+	} finally {
+	   closeQuietly(listing);
+	}
+   }
+
+   /**
+    * a call to a replica store
+    */
+   interface ReplicaCall<T> {
+	T call(FileStore replica) throws ResourceException;
+   }
+
+   /**
+    * a replica store, and its circuit breaker
+    */
+   static class Replica {
+
+	final FileStore store;
+	final CircuitBreaker circuitBreaker;
+
+	Replica(final FileStore store, final CircuitBreaker circuitBreaker) {
+	   this.store = store;
+	   this.circuitBreaker = circuitBreaker;
+	}
+   }
+}
@@ -15,28 +15,50 @@
  */
 package org.kaleidofoundry.core.store;
 
+import static org.kaleidofoundry.core.store.FileStoreConstants.DEFAULT_UPLOAD_MEMORY_THRESHOLD;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UploadMaxFileSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UploadMaxRequestSize;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UploadMemoryThreshold;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UploadSpillStoreRef;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UploadTempDirectory;
+
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.util.StringHelper;
 import org.kaleidofoundry.core.util.locale.LocaleFactory;
 
-import javax.mail.BodyPart;
-import javax.mail.MessagingException;
-import javax.mail.internet.HeaderTokenizer;
-import javax.mail.internet.MimeMultipart;
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 /**
- * Expose a {@link HttpServletRequest} as a {@link FileStore}, in order to provide user-friendly accessor to get the uploaded attachments
+ * Expose a {@link HttpServletRequest} as a {@link FileStore}, in order to provide user-friendly accessor to get the uploaded attachments<br/>
+ * <br/>
+ * The request is parsed as a stream (see {@link MultipartParser}) : an uploaded file up to
+ * {@link FileStoreContextBuilder#UploadMemoryThreshold} bytes is kept in memory, a larger one is written to a temporary file as it is read
+ * (or to the store of {@link FileStoreContextBuilder#UploadSpillStoreRef}), so the heap used by an upload does not depend on its size. The
+ * temporary files are removed by {@link #destroy()}.<br/>
+ * {@link FileStoreContextBuilder#UploadMaxFileSize} and {@link FileStoreContextBuilder#UploadMaxRequestSize} reject the too large uploads,
+ * as soon as the limit is reached.
  * 
  * @author jraduget
  */
@@ -44,7 +66,12 @@ public class UploadRequestFileStore extends AbstractFileStore {
 
    public static final String MULTIPART_DATA = "multipart/form-data";
 
-   private final Map<String, ResourceHandler> uploadedResourceByName;
+   private static final String TEMP_FILE_PREFIX = "kaleido-upload-";
+   private static final int COPY_BUFFER_SIZE = 8192;
+
+   private final Map<String, UploadedFile> uploadedFileByName;
+   // temporary files of the large uploaded files
+   private final List<File> tempFiles;
 
    /**
     * @param request
@@ -60,10 +87,12 @@ public class UploadRequestFileStore extends AbstractFileStore {
     */
    public UploadRequestFileStore(final HttpServletRequest request, @NotNull RuntimeContext<FileStore> context) {
 	super(context);
+	uploadedFileByName = new LinkedHashMap<String, UploadedFile>();
+	tempFiles = new ArrayList<File>();
 	try {
-	   uploadedResourceByName = new HashMap<String, ResourceHandler>();
 	   buildUploadedResources(request);
 	} catch (Exception e) {
+	   removeTempFiles();
 	   throw new IllegalStateException("Error creating servlet request FileStore", e);
 	}
    }
@@ -75,7 +104,8 @@ public class UploadRequestFileStore extends AbstractFileStore {
 
    @Override
    protected ResourceHandler doGet(@NotNull URI resourceUri) throws ResourceException {
-	return uploadedResourceByName.get(resourceUri.getPath().substring(1));
+	final UploadedFile uploadedFile = uploadedFileByName.get(resourceUri.getPath().substring(1));
+	return uploadedFile != null ? uploadedFile.createResourceHandler(resourceUri.toString()) : null;
    }
 
    @Override
@@ -90,70 +120,143 @@ public class UploadRequestFileStore extends AbstractFileStore {
 
    /**
     * @param request the request from which we extract the uploaded files
-    * @return uploaded file content by field name
     * @throws java.io.IOException
-    * @throws javax.mail.MessagingException
     */
-   private void buildUploadedResources(final ServletRequest request) throws IOException, MessagingException {
+   private void buildUploadedResources(final ServletRequest request) throws IOException {
 
-	InputStream inRequest;
-	MimeMultipart mimeContent;
+	if (!containsMultipartContent(request)) { return; }
 
-	String contentType = request.getContentType();
-	// int contentLength = request.getContentLength();
-
-	if (containsMultipartContent(request)) {
-
-	   inRequest = request.getInputStream();
-	   mimeContent = new MimeMultipart(new UploadRequestDataSource(contentType, inRequest));
-
-	   for (int i = 0; i < mimeContent.getCount(); i++) {
-
-		BodyPart part = mimeContent.getBodyPart(i);
-		String headerValues[] = part != null ? part.getHeader("Content-Disposition") : null;
-
-		if (headerValues != null) {
-
-		   String pName = null;
-		   HeaderTokenizer hdrTzr = new HeaderTokenizer(headerValues[0]);
-
-		   for (HeaderTokenizer.Token token; (token = hdrTzr.next()).getType() != -4;) {
-			if ("name=".equalsIgnoreCase(token.getValue())) {
-			   pName = hdrTzr.peek().getValue();
-			   break;
-			}
-		   }
-
-		   // named upload field, having data
-		   if (pName != null && part.getSize() > 0 && part.getFileName() != null) {
-			ResourceHandler resource = createResourceHandler(pName, part.getInputStream());
-			if (resource instanceof ResourceHandlerBean) {
-			   ((ResourceHandlerBean) resource).setCharset(request.getCharacterEncoding()); // TODO part.getHeader("Accept-Charset")
-			   ((ResourceHandlerBean) resource).setMimeType(part.getContentType());
-			   ((ResourceHandlerBean) resource).setLength(request.getContentLength());			   
-			   ((ResourceHandlerBean) resource).setLastModified(new GregorianCalendar(LocaleFactory.getDefaultFactory().getCurrentLocale())
-				   .getTimeInMillis());
-			}
-			uploadedResourceByName.put(pName, resource);
-		   }
+	final long maxRequestSize = context.getLong(UploadMaxRequestSize, -1L);
+	// rejected before reading it, if its size is known
+	if (maxRequestSize >= 0 && request.getContentLength() > maxRequestSize) { throw new ResourceException("store.upload.request.toolarge",
+		String.valueOf(maxRequestSize)); }
+
+	final String boundary = MultipartParser.getBoundary(request.getContentType());
+	if (StringHelper.isEmpty(boundary)) { throw new ResourceException("store.upload.malformed", "no boundary in the content type"); }
+
+	final MultipartParser parser = new MultipartParser(request.getInputStream(), boundary, context.getLong(UploadMaxFileSize, -1L),
+		maxRequestSize);
+
+	for (MultipartParser.Part part; (part = parser.nextPart()) != null;) {
+	   // named upload field, having data
+	   if (part.getName() != null && part.getFileName() != null) {
+		final UploadedFile uploadedFile = read(part);
+		if (uploadedFile.length > 0) {
+		   uploadedFile.charset = part.getCharset() != null ? part.getCharset() : request.getCharacterEncoding();
+		   uploadedFile.mimeType = part.getContentType();
+		   uploadedFile.lastModified = new GregorianCalendar(LocaleFactory.getDefaultFactory().getCurrentLocale()).getTimeInMillis();
+		   uploadedFileByName.put(part.getName(), uploadedFile);
+		}
+	   }
+	}
+   }
+
+   /*
+    * read the content of an uploaded file : in memory up to the threshold, then to a temporary file or to the spill store
+    */
+   private UploadedFile read(final MultipartParser.Part part) throws IOException {
+	final UploadedFile uploadedFile = new UploadedFile();
+	final InputStream in = part.getInputStream();
+	final int threshold = context.getInteger(UploadMemoryThreshold, DEFAULT_UPLOAD_MEMORY_THRESHOLD);
+
+	// the first bytes, up to the threshold
+	final ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(threshold + 1, COPY_BUFFER_SIZE));
+	final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+	int count = 0;
+	while (memory.size() <= threshold && (count = in.read(buffer, 0, Math.min(buffer.length, threshold + 1 - memory.size()))) >= 0) {
+	   memory.write(buffer, 0, count);
+	}
+	if (memory.size() <= threshold) {
+	   uploadedFile.content = memory.toByteArray();
+	   uploadedFile.length = uploadedFile.content.length;
+	   return uploadedFile;
+	}
+
+	// spill-over
+	final InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(memory.toByteArray()), in);
+	final String spillStoreRef = context.getString(UploadSpillStoreRef);
+	if (!StringHelper.isEmpty(spillStoreRef)) {
+	   final FileStore spillStore = getSpillStore(spillStoreRef);
+	   // a generated name only, the field name is given by the client (it could be ../../foo)
+	   final String path = UUID.randomUUID().toString() + ".upload";
+	   final CountingInputStream counted = new CountingInputStream(remaining);
+	   spillStore.store(spillStore.createResourceHandler(path, counted));
+	   uploadedFile.spillStore = spillStore;
+	   uploadedFile.spillPath = path;
+	   uploadedFile.length = counted.count;
+	} else {
+	   final String tempDirectory = context.getString(UploadTempDirectory);
+	   uploadedFile.tempFile = File.createTempFile(TEMP_FILE_PREFIX, ".tmp", !StringHelper.isEmpty(tempDirectory) ? new File(tempDirectory)
+		   : null);
+	   // a failed request does not leave its files
+	   tempFiles.add(uploadedFile.tempFile);
+	   final OutputStream out = new FileOutputStream(uploadedFile.tempFile);
+	   try {
+		while ((count = remaining.read(buffer)) >= 0) {
+		   out.write(buffer, 0, count);
+		   uploadedFile.length += count;
 		}
+	   } finally {
+		out.close();
 	   }
 	}
+	return uploadedFile;
+   }
 
+   /*
+    * store of the large uploaded files
+    */
+   private FileStore getSpillStore(final String spillStoreRef) {
+	return FileStoreFactory.provides(new RuntimeContext<FileStore>(spillStoreRef, FileStore.class, context));
    }
 
    /**
     * @return set of uri of the uploaded items
     */
    public Set<String> resourceUriSet() {
-	return uploadedResourceByName.keySet();
+	return Collections.unmodifiableSet(uploadedFileByName.keySet());
+   }
+
+   /**
+    * @return uploaded resources by name, each call gives new resource handlers, which have to be closed
+    * @throws ResourceException
+    */
+   public Map<String, ResourceHandler> getResourcesByName() throws ResourceException {
+	final Map<String, ResourceHandler> resources = new LinkedHashMap<String, ResourceHandler>();
+	for (final Map.Entry<String, UploadedFile> entry : uploadedFileByName.entrySet()) {
+	   resources.put(entry.getKey(), entry.getValue().createResourceHandler(buildResourceURi(entry.getKey())));
+	}
+	return Collections.unmodifiableMap(resources);
    }
 
    /**
-    * @return uploaded resources by name
+    * @param name name of the upload field
+    * @return path of the uploaded file in the store {@link FileStoreContextBuilder#UploadSpillStoreRef}, <code>null</code> if it have not
+    *         been written there
     */
-   public Map<String, ResourceHandler> getResourcesByName() {
-	return Collections.unmodifiableMap(uploadedResourceByName);
+   public String getSpillPath(@NotNull final String name) {
+	final UploadedFile uploadedFile = uploadedFileByName.get(name);
+	return uploadedFile != null ? uploadedFile.spillPath : null;
+   }
+
+   /**
+    * the temporary files of the uploaded files are removed (the files of the spill store are kept)
+    * 
+    * @see org.kaleidofoundry.core.store.AbstractFileStore#destroy()
+    */
+   @Override
+   public void destroy() {
+	super.destroy();
+	removeTempFiles();
+   }
+
+   private void removeTempFiles() {
+	for (final File tempFile : tempFiles) {
+	   if (tempFile.exists() && !tempFile.delete()) {
+		LOGGER.warn("can't remove the temporary upload file {}", tempFile);
+	   }
+	}
+	tempFiles.clear();
    }
 
    /**
@@ -164,4 +267,72 @@ public class UploadRequestFileStore extends AbstractFileStore {
 	String contentType = request.getContentType();
 	return contentType != null && contentType.toLowerCase().startsWith(MULTIPART_DATA);
    }
+
+   /**
+    * an uploaded file, in memory, in a temporary file, or in the spill store
+    */
+   class UploadedFile {
+
+	byte[] content;
+	File tempFile;
+	FileStore spillStore;
+	String spillPath;
+
+	long length;
+	String mimeType;
+	String charset;
+	long lastModified;
+
+	ResourceHandler createResourceHandler(final String resourceUri) throws ResourceException {
+	   final ResourceHandler resource;
+	   if (content != null) {
+		resource = UploadRequestFileStore.this.createResourceHandler(resourceUri, content);
+	   } else if (tempFile != null) {
+		try {
+		   resource = UploadRequestFileStore.this.createResourceHandler(resourceUri, new FileInputStream(tempFile));
+		} catch (final IOException ioe) {
+		   throw new ResourceException(ioe, resourceUri);
+		}
+	   } else {
+		resource = UploadRequestFileStore.this.createResourceHandler(resourceUri, spillStore.get(spillPath).getInputStream());
+	   }
+	   if (resource instanceof ResourceHandlerBean) {
+		((ResourceHandlerBean) resource).setCharset(charset);
+		((ResourceHandlerBean) resource).setMimeType(mimeType);
+		((ResourceHandlerBean) resource).setLength(length);
+		((ResourceHandlerBean) resource).setLastModified(lastModified);
+	   }
+	   return resource;
+	}
+   }
+
+   /**
+    * stream counting the bytes read
+    */
+   static class CountingInputStream extends FilterInputStream {
+
+	long count;
+
+	CountingInputStream(final InputStream in) {
+	   super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+	   final int b = super.read();
+	   if (b >= 0) {
+		count++;
+	   }
+	   return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+	   final int n = super.read(b, off, len);
+	   if (n > 0) {
+		count += n;
+	   }
+	   return n;
+	}
+   }
 }
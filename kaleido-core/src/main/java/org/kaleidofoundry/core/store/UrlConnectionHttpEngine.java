@@ -0,0 +1,377 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.kaleidofoundry.core.store.AbstractFileStore.LOGGER;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ConnectTimeout;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.NonProxyHosts;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ProxyHost;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ProxyPassword;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ProxyPort;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ProxySet;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ProxyUser;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.ReadTimeout;
+import static org.kaleidofoundry.core.store.FileStoreContextBuilder.UseCaches;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+import org.kaleidofoundry.core.util.StringHelper;
+
+/**
+ * Default {@link HttpEngine}, based on the jdk {@link HttpURLConnection}<br/>
+ * <br/>
+ * <ul>
+ * <li>the connections are pooled by the keep-alive cache of the jdk (see <code>http.keepAlive</code> and <code>http.maxConnections</code>
+ * system properties) : a response is fully read (or skipped) before being closed, so that its connection can be reused,</li>
+ * <li>the proxy settings are the ones of the store context, no system property is set : the non proxy hosts are matched by the engine, the
+ * proxy credentials are sent preemptively for http requests, and given to a shared {@link Authenticator} (by proxy host) for the https
+ * tunnels. This authenticator becomes the default one of the jvm, and hands over any other request to the previous default one (see
+ * {@link ProxyAuthenticator}),</li>
+ * <li>gzip and deflate content encodings are accepted and decoded.</li>
+ * </ul>
+ * 
+ * @author jraduget
+ */
+@ThreadSafe
+public class UrlConnectionHttpEngine implements HttpEngine {
+
+   /** Max number of unread bytes skipped when a response is closed, beyond it the connection is closed instead of being reused */
+   static final int MAX_DRAIN_SIZE = 64 * 1024;
+
+   private final RuntimeContext<FileStore> context;
+   // proxy of the store, null to use the jvm settings
+   private final Proxy proxy;
+   // hosts which are reached without the proxy, null if none
+   private final Pattern nonProxyHosts;
+   // preemptive basic proxy credentials, null if none
+   private final String proxyAuthorization;
+
+   /**
+    * @param context store context, for the proxy and connection settings
+    */
+   public UrlConnectionHttpEngine(@NotNull final RuntimeContext<FileStore> context) {
+	this.context = context;
+
+	final String proxyHost = context.getString(ProxyHost);
+	if (context.getBoolean(ProxySet, false) && !StringHelper.isEmpty(proxyHost)) {
+	   final int proxyPort = context.getInteger(ProxyPort, 80);
+	   proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, proxyPort));
+	   nonProxyHosts = compileNonProxyHosts(context.getString(NonProxyHosts));
+
+	   final String proxyUser = context.getString(ProxyUser);
+	   final String proxyPassword = context.getString(ProxyPassword);
+	   if (!StringHelper.isEmpty(proxyUser) && !StringHelper.isEmpty(proxyPassword)) {
+		proxyAuthorization = "Basic "
+			+ Base64.getEncoder().encodeToString((proxyUser + ":" + proxyPassword).getBytes(StandardCharsets.UTF_8));
+		ProxyAuthenticator.register(proxyHost, proxyPort, new PasswordAuthentication(proxyUser, proxyPassword.toCharArray()));
+	   } else {
+		proxyAuthorization = null;
+	   }
+	} else {
+	   proxy = null;
+	   nonProxyHosts = null;
+	   proxyAuthorization = null;
+	}
+   }
+
+   /*
+    * (non-Javadoc)
+    * @see org.kaleidofoundry.core.store.HttpEngine#execute(java.lang.String, java.net.URI, java.util.Map)
+    */
+   @Override
+   public Response execute(@NotNull final String method, @NotNull final URI uri, @NotNull final Map<String, String> headers) throws IOException {
+	final URL url = uri.toURL();
+	final boolean useProxy = proxy != null && !isNonProxyHost(url.getHost());
+
+	final URLConnection urlConnection;
+	if (useProxy) {
+	   urlConnection = url.openConnection(proxy);
+	} else if (proxy != null) {
+	   urlConnection = url.openConnection(Proxy.NO_PROXY);
+	} else {
+	   urlConnection = url.openConnection();
+	}
+	if (!(urlConnection instanceof HttpURLConnection)) { throw new IOException("not an http uri : " + uri); }
+
+	final HttpURLConnection connection = (HttpURLConnection) urlConnection;
+	connection.setRequestMethod(method);
+	if (!StringHelper.isEmpty(context.getString(ConnectTimeout))) {
+	   connection.setConnectTimeout(context.getInteger(ConnectTimeout));
+	}
+	if (!StringHelper.isEmpty(context.getString(ReadTimeout))) {
+	   connection.setReadTimeout(context.getInteger(ReadTimeout));
+	}
+	if (!StringHelper.isEmpty(context.getString(UseCaches))) {
+	   connection.setUseCaches(context.getBoolean(UseCaches));
+	}
+	if (useProxy && proxyAuthorization != null) {
+	   connection.setRequestProperty("Proxy-Authorization", proxyAuthorization);
+	}
+	connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+	for (final Map.Entry<String, String> header : headers.entrySet()) {
+	   connection.setRequestProperty(header.getKey(), header.getValue());
+	}
+
+	// send the request, and read the response headers
+	final int statusCode = connection.getResponseCode();
+	return new UrlConnectionResponse(connection, statusCode, "HEAD".equalsIgnoreCase(method));
+   }
+
+   /**
+    * nothing to release, the keep-alive cache of the jdk is shared by the jvm
+    * 
+    * @see org.kaleidofoundry.core.store.HttpEngine#close()
+    */
+   @Override
+   public void close() {
+   }
+
+   /**
+    * @param host
+    * @return <code>true</code> if the host have to be reached without the proxy
+    * @see FileStoreContextBuilder#NonProxyHosts
+    */
+   boolean isNonProxyHost(final String host) {
+	return nonProxyHosts != null && host != null && nonProxyHosts.matcher(host).matches();
+   }
+
+   /**
+    * @param nonProxyHosts hosts separated by '|', each host can start or end with a '*' wildcard (same syntax than the
+    *           <code>http.nonProxyHosts</code> system property)
+    * @return compiled pattern, null if there is no host
+    */
+   static Pattern compileNonProxyHosts(final String nonProxyHosts) {
+	if (StringHelper.isEmpty(nonProxyHosts)) { return null; }
+	final StringBuilder regex = new StringBuilder();
+	for (final String host : nonProxyHosts.split("\\|")) {
+	   if (!StringHelper.isEmpty(host.trim())) {
+		if (regex.length() > 0) {
+		   regex.append('|');
+		}
+		regex.append(Pattern.quote(host.trim()).replace("*", "\\E.*\\Q"));
+	   }
+	}
+	return regex.length() > 0 ? Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE) : null;
+   }
+
+   /**
+    * response of an {@link HttpURLConnection}
+    */
+   static class UrlConnectionResponse implements Response {
+
+	private final HttpURLConnection connection;
+	private final int statusCode;
+	private final boolean noBody;
+	// raw and decoded content, opened on first use
+	private InputStream rawInput;
+	private InputStream input;
+
+	UrlConnectionResponse(final HttpURLConnection connection, final int statusCode, final boolean headRequest) {
+	   this.connection = connection;
+	   this.statusCode = statusCode;
+	   this.noBody = headRequest || statusCode == HttpURLConnection.HTTP_NOT_MODIFIED || statusCode == HttpURLConnection.HTTP_NO_CONTENT;
+	}
+
+	@Override
+	public int getStatusCode() {
+	   return statusCode;
+	}
+
+	@Override
+	public String getHeader(@NotNull final String name) {
+	   return connection.getHeaderField(name);
+	}
+
+	@Override
+	public long getContentLength() {
+	   return isEncoded() ? -1 : connection.getContentLengthLong();
+	}
+
+	@Override
+	public long getLastModified() {
+	   return connection.getLastModified();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+	   if (input == null) {
+		final InputStream raw = getRawInputStream();
+		final String encoding = connection.getContentEncoding();
+		if (noBody || !isEncoded()) {
+		   input = raw;
+		} else if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+		   input = new GZIPInputStream(raw);
+		} else {
+		   input = new InflaterInputStream(raw);
+		}
+	   }
+	   return input;
+	}
+
+	@Override
+	public void close() {
+	   try {
+		// the body have to be fully read, to give back the connection to the keep-alive cache
+		final InputStream raw = getRawInputStream();
+		final byte[] buffer = new byte[FileStoreConstants.DEFAULT_BUFFER_SIZE];
+		long skipped = 0;
+		int count;
+		while (skipped <= MAX_DRAIN_SIZE && (count = raw.read(buffer)) >= 0) {
+		   skipped += count;
+		}
+		if (skipped > MAX_DRAIN_SIZE) {
+		   connection.disconnect();
+		} else {
+		   raw.close();
+		}
+	   } catch (final IOException ioe) {
+		connection.disconnect();
+	   }
+	}
+
+	boolean isEncoded() {
+	   final String encoding = connection.getContentEncoding();
+	   return encoding != null
+		   && ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding) || "deflate".equalsIgnoreCase(encoding));
+	}
+
+	InputStream getRawInputStream() throws IOException {
+	   if (rawInput == null) {
+		final InputStream raw = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream();
+		rawInput = raw != null ? raw : new ByteArrayInputStream(new byte[0]);
+	   }
+	   return rawInput;
+	}
+   }
+
+   /**
+    * {@link Authenticator} giving the credentials of the proxies declared by the stores, installed once for all the stores.<br/>
+    * It is only used by the jdk for the https tunnels through a proxy, the http requests send the credentials preemptively.<br/>
+    * <br/>
+    * Installing it replaces the default authenticator of the jvm : the one installed before by the application is kept, and asked for any
+    * other request (server authentication, or a proxy not declared by a store). An authenticator installed by the application afterwards
+    * replaces this one, the https tunnels through the store proxies are then authenticated by the application.
+    */
+   static class ProxyAuthenticator extends Authenticator {
+
+	// credentials by proxy host:port
+	static final ConcurrentMap<String, PasswordAuthentication> CREDENTIALS = new ConcurrentHashMap<String, PasswordAuthentication>();
+	private static final AtomicBoolean INSTALLED = new AtomicBoolean(false);
+
+	// default authenticator of the jvm when this one was installed, null if none
+	private final Authenticator previous;
+
+	ProxyAuthenticator(final Authenticator previous) {
+	   this.previous = previous;
+	}
+
+	static void register(final String proxyHost, final int proxyPort, final PasswordAuthentication credentials) {
+	   CREDENTIALS.put(proxyHost.toLowerCase() + ":" + proxyPort, credentials);
+	   if (INSTALLED.compareAndSet(false, true)) {
+		Authenticator.setDefault(new ProxyAuthenticator(getDefaultAuthenticator()));
+	   }
+	}
+
+	@Override
+	protected PasswordAuthentication getPasswordAuthentication() {
+	   if (getRequestorType() == RequestorType.PROXY && getRequestingHost() != null) {
+		final PasswordAuthentication credentials = CREDENTIALS.get(getRequestingHost().toLowerCase() + ":" + getRequestingPort());
+		if (credentials != null) { return credentials; }
+	   }
+	   return previous != null ? delegate() : null;
+	}
+
+	/**
+	 * @return the current default authenticator of the jvm, <code>null</code> if none or if it can't be read
+	 */
+	static Authenticator getDefaultAuthenticator() {
+	   try {
+		// java 9+
+		return (Authenticator) Authenticator.class.getMethod("getDefault").invoke(null);
+	   } catch (final NoSuchMethodException nsme) {
+		try {
+		   // java 8
+		   final Field field = Authenticator.class.getDeclaredField("theAuthenticator");
+		   field.setAccessible(true);
+		   return (Authenticator) field.get(null);
+		} catch (final Exception e) {
+		   LOGGER.warn("can't read the default authenticator, it is replaced by the proxy authenticator of the stores", e);
+		   return null;
+		}
+	   } catch (final Exception e) {
+		LOGGER.warn("can't read the default authenticator, it is replaced by the proxy authenticator of the stores", e);
+		return null;
+	   }
+	}
+
+	/**
+	 * @return the credentials given by the previous authenticator for the current request
+	 */
+	private PasswordAuthentication delegate() {
+	   try {
+		try {
+		   // java 9+
+		   final Method request = Authenticator.class.getMethod("requestPasswordAuthenticationInstance", String.class, InetAddress.class,
+			   int.class, String.class, String.class, String.class, URL.class, RequestorType.class);
+		   return (PasswordAuthentication) request.invoke(previous, getRequestingHost(), getRequestingSite(), getRequestingPort(),
+			   getRequestingProtocol(), getRequestingPrompt(), getRequestingScheme(), getRequestingURL(), getRequestorType());
+		} catch (final NoSuchMethodException nsme) {
+		   // java 8 : the request is copied into the previous authenticator, which is then asked for it
+		   synchronized (previous) {
+			for (final Field field : Authenticator.class.getDeclaredFields()) {
+			   if (!Modifier.isStatic(field.getModifiers()) && field.getName().startsWith("requesting")) {
+				field.setAccessible(true);
+				field.set(previous, field.get(this));
+			   }
+			}
+			final Method request = Authenticator.class.getDeclaredMethod("getPasswordAuthentication");
+			request.setAccessible(true);
+			return (PasswordAuthentication) request.invoke(previous);
+		   }
+		}
+	   } catch (final Exception e) {
+		LOGGER.warn("the default authenticator failed to authenticate " + getRequestingHost(), e);
+		return null;
+	   }
+	}
+   }
+}
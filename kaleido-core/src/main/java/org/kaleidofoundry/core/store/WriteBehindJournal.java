@@ -0,0 +1,219 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaleidofoundry.core.lang.annotation.NotNull;
+import org.kaleidofoundry.core.lang.annotation.ThreadSafe;
+
+/**
+ * Durable journal of the writes which are not replicated yet, used by {@link TieredFileStore}.<br/>
+ * <br/>
+ * Each pending write is a small file of the journal directory, named by its sequence number and its operation, and holding the resource
+ * path. It is synced to the disk with its directory before the write is acknowledged, and deleted once the write is replicated. So there is nothing to compact,
+ * and the pending writes of a stopped or crashed store are found again, in order, by the next instance.
+ * 
+ * @author jraduget
+ */
+@ThreadSafe
+class WriteBehindJournal {
+
+   /** operations of the journal */
+   enum Operation {
+	store,
+	remove
+   }
+
+   private static final String EXTENSION_SEPARATOR = ".";
+
+   private final File directory;
+   private final AtomicLong sequence;
+   // pending entries, by sequence number
+   private final ConcurrentNavigableMap<Long, Entry> entries;
+
+   /**
+    * open the journal, the pending entries of the directory are loaded
+    * 
+    * @param directory
+    * @throws IOException
+    */
+   WriteBehindJournal(@NotNull final File directory) throws IOException {
+	this.directory = directory;
+	entries = new ConcurrentSkipListMap<Long, Entry>();
+
+	if (!directory.isDirectory() && !directory.mkdirs()) { throw new IOException("can't create the journal directory " + directory); }
+	final File[] files = directory.listFiles();
+	if (files == null) { throw new IOException("can't read the journal directory " + directory); }
+	for (final File file : files) {
+	   final Entry entry = read(file);
+	   if (entry != null) {
+		entries.put(entry.sequence, entry);
+	   }
+	}
+	sequence = new AtomicLong(entries.isEmpty() ? 0 : entries.lastKey());
+   }
+
+   /**
+    * add an entry to the journal, it is synced to the disk when the method returns
+    * 
+    * @param operation
+    * @param path resource relative path
+    * @return the new entry
+    * @throws IOException
+    */
+   Entry append(@NotNull final Operation operation, @NotNull final String path) throws IOException {
+	final Entry entry = new Entry(sequence.incrementAndGet(), operation, path);
+	final File file = entry.getFile();
+	final FileOutputStream out = new FileOutputStream(file);
+	try {
+	   out.write(path.getBytes(StandardCharsets.UTF_8));
+	   out.getFD().sync();
+	} finally {
+	   out.close();
+	}
+	// the entry of the new file in the directory have to be durable too
+	syncDirectory();
+	entries.put(entry.sequence, entry);
+	return entry;
+   }
+
+   /**
+    * remove a replicated entry from the journal
+    * 
+    * @param entry
+    * @throws IOException
+    */
+   void complete(@NotNull final Entry entry) throws IOException {
+	if (Files.deleteIfExists(entry.getFile().toPath())) {
+	   syncDirectory();
+	}
+	entries.remove(entry.sequence);
+   }
+
+   /**
+    * @return the pending entries, oldest first
+    */
+   List<Entry> pending() {
+	return new ArrayList<Entry>(entries.values());
+   }
+
+   /**
+    * @param entry
+    * @return <code>true</code> if the entry is not replicated yet
+    */
+   boolean isPending(@NotNull final Entry entry) {
+	return entries.containsKey(entry.sequence);
+   }
+
+   /**
+    * @return <code>true</code> if there is no pending entry
+    */
+   boolean isEmpty() {
+	return entries.isEmpty();
+   }
+
+   /**
+    * @param path resource relative path
+    * @return the most recent pending operation of the resource, <code>null</code> if none
+    */
+   Operation lastOperation(@NotNull final String path) {
+	for (final Map.Entry<Long, Entry> entry : entries.descendingMap().entrySet()) {
+	   if (entry.getValue().path.equals(path)) { return entry.getValue().operation; }
+	}
+	return null;
+   }
+
+   /**
+    * @return directory of the journal
+    */
+   File getDirectory() {
+	return directory;
+   }
+
+   /*
+    * sync the directory to the disk, so the creation or the deletion of a journal file survives a crash. A directory can't be opened on some
+    * platforms (windows), the file system is trusted there
+    */
+   private void syncDirectory() throws IOException {
+	final FileChannel channel;
+	try {
+	   channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+	} catch (final IOException ioe) {
+	   return;
+	}
+	try {
+	   channel.force(true);
+	} finally {
+	   channel.close();
+	}
+   }
+
+   /*
+    * entry of a journal file, null if it is not a journal file
+    */
+   private Entry read(final File file) throws IOException {
+	final String name = file.getName();
+	final int separator = name.indexOf(EXTENSION_SEPARATOR);
+	if (!file.isFile() || separator <= 0) { return null; }
+	try {
+	   final long sequence = Long.parseLong(name.substring(0, separator));
+	   final Operation operation = Operation.valueOf(name.substring(separator + 1));
+	   return new Entry(sequence, operation, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	} catch (final IllegalArgumentException iae) {
+	   // not a journal file
+	   return null;
+	}
+   }
+
+   /**
+    * a pending write
+    */
+   class Entry {
+
+	final long sequence;
+	final Operation operation;
+	final String path;
+
+	Entry(final long sequence, final Operation operation, final String path) {
+	   this.sequence = sequence;
+	   this.operation = operation;
+	   this.path = path;
+	}
+
+	File getFile() {
+	   // zero padded, so the file names are sorted like the sequence
+	   return new File(directory, String.format("%019d", sequence) + EXTENSION_SEPARATOR + operation.name());
+	}
+
+	@Override
+	public String toString() {
+	   return operation + " " + path;
+	}
+   }
+}
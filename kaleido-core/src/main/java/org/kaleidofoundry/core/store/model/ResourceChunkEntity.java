@@ -0,0 +1,163 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store.model;
+
+import static org.kaleidofoundry.core.store.FileStoreConstants.MAX_CHUNK_SIZE;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ChunksByUri;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_MoveChunks;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_RemoveChunks;
+
+/**
+ * Fixed size chunk of the content of a {@link ResourceHandlerEntity}.<br/>
+ * <br/>
+ * The content of a resource is split into chunks, identified by the resource uri and the chunk position (from 0). So a large content can be
+ * written and read chunk by chunk, without ever being loaded at once in the heap.
+ * 
+ * @author jraduget
+ */
+@Entity(name = "FileStoreChunk")
+@Table(name = "FILESTORE_CHUNK")
+@IdClass(ResourceChunkEntity.Key.class)
+@NamedQueries({ @NamedQuery(name = Query_ChunksByUri.Name, query = Query_ChunksByUri.Jql),
+	@NamedQuery(name = Query_MoveChunks.Name, query = Query_MoveChunks.Jql),
+	@NamedQuery(name = Query_RemoveChunks.Name, query = Query_RemoveChunks.Jql) })
+public class ResourceChunkEntity implements Serializable {
+
+   private static final long serialVersionUID = -3504815283316742417L;
+
+   @Id
+   private String uri;
+   @Id
+   private Integer seq;
+   @Lob
+   @Column(length = MAX_CHUNK_SIZE)
+   private byte[] data;
+
+   public ResourceChunkEntity() {
+   }
+
+   /**
+    * @param uri uri of the resource
+    * @param seq position of the chunk in the content
+    * @param data bytes of the chunk
+    */
+   public ResourceChunkEntity(final String uri, final Integer seq, final byte[] data) {
+	this.uri = uri;
+	this.seq = seq;
+	this.data = data;
+   }
+
+   /**
+    * @return uri of the resource
+    */
+   public String getUri() {
+	return uri;
+   }
+
+   /**
+    * @param uri
+    */
+   public void setUri(final String uri) {
+	this.uri = uri;
+   }
+
+   /**
+    * @return position of the chunk in the content, from 0
+    */
+   public Integer getSeq() {
+	return seq;
+   }
+
+   /**
+    * @param seq
+    */
+   public void setSeq(final Integer seq) {
+	this.seq = seq;
+   }
+
+   /**
+    * @return bytes of the chunk
+    */
+   public byte[] getData() {
+	return data;
+   }
+
+   /**
+    * @param data
+    */
+   public void setData(final byte[] data) {
+	this.data = data;
+   }
+
+   /**
+    * Primary key of a {@link ResourceChunkEntity}
+    */
+   public static class Key implements Serializable {
+
+	private static final long serialVersionUID = 2204926404523370297L;
+
+	private String uri;
+	private Integer seq;
+
+	public Key() {
+	}
+
+	/**
+	 * @param uri
+	 * @param seq
+	 */
+	public Key(final String uri, final Integer seq) {
+	   this.uri = uri;
+	   this.seq = seq;
+	}
+
+	@Override
+	public int hashCode() {
+	   final int prime = 31;
+	   int result = 1;
+	   result = prime * result + (seq == null ? 0 : seq.hashCode());
+	   result = prime * result + (uri == null ? 0 : uri.hashCode());
+	   return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+	   if (this == obj) { return true; }
+	   if (!(obj instanceof Key)) { return false; }
+	   final Key other = (Key) obj;
+	   if (seq == null) {
+		if (other.seq != null) { return false; }
+	   } else if (!seq.equals(other.seq)) { return false; }
+	   if (uri == null) {
+		if (other.uri != null) { return false; }
+	   } else if (!uri.equals(other.uri)) { return false; }
+	   return true;
+	}
+   }
+
+}
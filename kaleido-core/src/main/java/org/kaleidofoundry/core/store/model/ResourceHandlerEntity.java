@@ -27,6 +27,8 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import javax.persistence.Table;
@@ -39,10 +41,16 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
 import org.kaleidofoundry.core.lang.annotation.Task;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_MoveResource;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_RemoveResource;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ResourceMetadataByUri;
+import org.kaleidofoundry.core.store.model.ResourceHandlerEntityConstants.Query_ResourcesByUriPrefix;
 import org.kaleidofoundry.core.util.locale.LocaleFactory;
 
 /**
  * Default entity used to store a file content in a blob / clob ...<br/>
+ * The content can be stored in the {@link #getContent()} lob, or split into {@link ResourceChunkEntity} rows (see {@link #getChunks()}), the
+ * entity then only carries the meta datas of the resource.<br/>
  * You can extend it and override default mapping on getter / setter, to custom it to your need, otherwise you can have your own
  * persistent.xml
  * 
@@ -51,6 +59,10 @@ import org.kaleidofoundry.core.util.locale.LocaleFactory;
 @Entity(name = "FileStore")
 // @Access(AccessType.PROPERTY)
 @Table(name = "FILESTORE")
+@NamedQueries({ @NamedQuery(name = Query_ResourcesByUriPrefix.Name, query = Query_ResourcesByUriPrefix.Jql),
+	@NamedQuery(name = Query_ResourceMetadataByUri.Name, query = Query_ResourceMetadataByUri.Jql),
+	@NamedQuery(name = Query_MoveResource.Name, query = Query_MoveResource.Jql),
+	@NamedQuery(name = Query_RemoveResource.Name, query = Query_RemoveResource.Jql) })
 @XmlRootElement(name = "resource")
 @XmlAccessorType(XmlAccessType.FIELD)
 @Task(comment = "Audit information (locale zone for the date, user information...)")
@@ -69,6 +81,7 @@ public class ResourceHandlerEntity implements Serializable {
    @Basic(fetch = FetchType.LAZY)
    @XmlTransient
    private byte[] content;
+   private Integer chunks;
    @Column(insertable = true, updatable = false, nullable = false)
    @Temporal(TemporalType.TIMESTAMP)
    private Date creationDate;
@@ -83,7 +96,9 @@ public class ResourceHandlerEntity implements Serializable {
 	if (updatedDate == null) {
 	   Locale locale = LocaleFactory.getDefaultFactory().getCurrentLocale();
 	   updatedDate = Calendar.getInstance(locale).getTime();
-	   size = content != null ? content.length : 0l;
+	   if (chunks == null) {
+		size = content != null ? content.length : 0l;
+	   }
 	}
    }
 
@@ -92,7 +107,9 @@ public class ResourceHandlerEntity implements Serializable {
 	if (creationDate == null) {
 	   Locale locale = LocaleFactory.getDefaultFactory().getCurrentLocale();
 	   creationDate = Calendar.getInstance(locale).getTime();
-	   size = content != null ? content.length : 0l;
+	   if (chunks == null) {
+		size = content != null ? content.length : 0l;
+	   }
 	}
    }
 
@@ -118,6 +135,13 @@ public class ResourceHandlerEntity implements Serializable {
 	return size;
    }
 
+   /**
+    * @return version of the entity, incremented by each update
+    */
+   public Integer getVersion() {
+	return version;
+   }
+
    /**
     * @return binary content
     */
@@ -126,6 +150,20 @@ public class ResourceHandlerEntity implements Serializable {
 	return content;
    }
 
+   /**
+    * @return number of content chunks, <code>null</code> if the content is stored in the entity lob
+    */
+   public Integer getChunks() {
+	return chunks;
+   }
+
+   /**
+    * @param chunks
+    */
+   public void setChunks(final Integer chunks) {
+	this.chunks = chunks;
+   }
+
    /**
     * @return entity creation date
     */
@@ -238,6 +276,7 @@ public class ResourceHandlerEntity implements Serializable {
 	result = prime * result + (mimeType == null ? 0 : mimeType.hashCode());
 	result = prime * result + (charset == null ? 0 : charset.hashCode());
 	result = prime * result + (size == null ? 0 : size.hashCode());
+	result = prime * result + (chunks == null ? 0 : chunks.hashCode());
 	result = prime * result + (updatedDate == null ? 0 : updatedDate.hashCode());
 	return result;
    }
@@ -264,6 +303,9 @@ public class ResourceHandlerEntity implements Serializable {
 	if (size == null) {
 	   if (other.size != null) { return false; }
 	} else if (!size.equals(other.size)) { return false; }
+	if (chunks == null) {
+	   if (other.chunks != null) { return false; }
+	} else if (!chunks.equals(other.chunks)) { return false; }
 	if (mimeType == null) {
 	   if (other.mimeType != null) { return false; }
 	} else if (!mimeType.equals(other.mimeType)) { return false; }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store.model;
+
+/**
+ * Constants for {@link ResourceHandlerEntity}
+ * 
+ * @author jraduget
+ */
+public interface ResourceHandlerEntityConstants {
+
+   /**
+    * Query static final informations, used to list the resources of a directory and of its sub directories (ordered by uri)
+    */
+   public static interface Query_ResourcesByUriPrefix {
+	String Name = "store.findResourcesByUriPrefix";
+	String Parameter_UriPrefix = "uriPrefix";
+	String Jql = "select r.uri, r.size, r.creationDate, r.updatedDate from FileStore r where r.uri like :" + Parameter_UriPrefix
+		+ " escape '\\' order by r.uri";
+   }
+
+   /**
+    * Query static final informations, used to get the meta datas of a resource without loading its content
+    */
+   public static interface Query_ResourceMetadataByUri {
+	String Name = "store.findResourceMetadataByUri";
+	String Parameter_Uri = "uri";
+	String Jql = "select r.size, r.creationDate, r.updatedDate, r.mimeType, r.version from FileStore r where r.uri = :" + Parameter_Uri;
+   }
+
+   /**
+    * Query static final informations, used to move a resource without loading its content
+    */
+   public static interface Query_MoveResource {
+	String Name = "store.moveResource";
+	String Parameter_Uri = "uri";
+	String Parameter_NewUri = "newUri";
+	String Parameter_NewName = "newName";
+	String Parameter_NewPath = "newPath";
+	String Parameter_UpdatedDate = "updatedDate";
+	String Jql = "update FileStore r set r.uri = :" + Parameter_NewUri + ", r.name = :" + Parameter_NewName + ", r.path = :" + Parameter_NewPath
+		+ ", r.updatedDate = :" + Parameter_UpdatedDate + ", r.version = r.version + 1 where r.uri = :" + Parameter_Uri;
+   }
+
+   /**
+    * Query static final informations, used to remove a resource without loading it
+    */
+   public static interface Query_RemoveResource {
+	String Name = "store.removeResource";
+	String Parameter_Uri = "uri";
+	String Jql = "delete from FileStore r where r.uri = :" + Parameter_Uri;
+   }
+
+   /**
+    * Query static final informations, used to read a range of the content chunks of a resource (ordered by position)
+    */
+   public static interface Query_ChunksByUri {
+	String Name = "store.findChunksByUri";
+	String Parameter_Uri = "uri";
+	String Parameter_FromSeq = "fromSeq";
+	String Parameter_ToSeq = "toSeq";
+	String Jql = "select c.data from FileStoreChunk c where c.uri = :" + Parameter_Uri + " and c.seq >= :" + Parameter_FromSeq
+		+ " and c.seq < :" + Parameter_ToSeq + " order by c.seq";
+   }
+
+   /**
+    * Query static final informations, used to move the content chunks of a resource without loading them
+    */
+   public static interface Query_MoveChunks {
+	String Name = "store.moveChunks";
+	String Parameter_Uri = "uri";
+	String Parameter_NewUri = "newUri";
+	String Jql = "update FileStoreChunk c set c.uri = :" + Parameter_NewUri + " where c.uri = :" + Parameter_Uri;
+   }
+
+   /**
+    * Query static final informations, used to remove the content chunks of a resource without loading them
+    */
+   public static interface Query_RemoveChunks {
+	String Name = "store.removeChunks";
+	String Parameter_Uri = "uri";
+	String Jql = "delete from FileStoreChunk c where c.uri = :" + Parameter_Uri;
+   }
+
+}
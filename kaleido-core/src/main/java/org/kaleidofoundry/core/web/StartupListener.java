@@ -30,6 +30,7 @@ import javax.servlet.ServletContextListener;
 
 import org.kaleidofoundry.core.env.EnvironmentInitializer;
 import org.kaleidofoundry.core.env.model.EnvironmentConstants;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +51,7 @@ import org.slf4j.LoggerFactory;
 public class StartupListener implements ServletContextListener {
 
    private static final Logger LOGGER = LoggerFactory.getLogger(StartupListener.class);
+   private static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, WebMessageBundle);
 
    protected EnvironmentInitializer initializer;
 
@@ -115,7 +117,7 @@ public class StartupListener implements ServletContextListener {
 	   while (bindingsEnum.hasMore()) {
 		Binding binding = bindingsEnum.next();
 		initializer.getEnvironments().put(binding.getName(), binding.getObject().toString());
-		LOGGER.info(WebMessageBundle.getMessage("loader.define.environment.parameter", binding.getName(), binding.getObject().toString()));
+		I18N_LOGGER.info("loader.define.environment.parameter", binding.getName(), binding.getObject().toString());
 	   }
 	} catch (NamingException e) {
 	   if (LOGGER.isDebugEnabled()) {
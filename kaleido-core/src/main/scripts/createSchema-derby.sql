@@ -1,8 +1,10 @@
 CREATE TABLE CONFIGURATION_PROPERTIES (CONFIGURATION_ID BIGINT NOT NULL, PROPERTY_ID BIGINT NOT NULL, PRIMARY KEY (CONFIGURATION_ID, PROPERTY_ID))
 CREATE TABLE CONFIGURATION (ID BIGINT NOT NULL, STORABLE SMALLINT DEFAULT 0, LOADED SMALLINT DEFAULT 0, UPDATEABLE SMALLINT DEFAULT 0, DESCRIPTION VARCHAR(255), NAME VARCHAR(255) UNIQUE, URI VARCHAR(255) UNIQUE, VERSION INTEGER, LABELS VARCHAR(255), PRIMARY KEY (ID))
-CREATE TABLE I18N_LANGUAGE (ID INTEGER GENERATED ALWAYS AS IDENTITY NOT NULL, CONTENT VARCHAR(255), LOCALE_ID VARCHAR(255), ISOLANGUAGE VARCHAR(255), VERSION INTEGER, MESSAGE_ID BIGINT, PRIMARY KEY (ID))
+CREATE TABLE I18N_LANGUAGE (ID INTEGER GENERATED ALWAYS AS IDENTITY NOT NULL, CONTENT VARCHAR(255), LOCALE_ID VARCHAR(255), ISOLANGUAGE VARCHAR(255), UPDATEDDATE TIMESTAMP, VERSION INTEGER, MESSAGE_ID BIGINT, PRIMARY KEY (ID))
+CREATE INDEX IX_I18N_LANGUAGE_UPDATEDDATE ON I18N_LANGUAGE (UPDATEDDATE)
 CREATE TABLE I18N_ENTRY (ID BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL, ENABLED SMALLINT DEFAULT 0, DESCRIPTION VARCHAR(255), CODE VARCHAR(255), TYPE INTEGER, LASTUSED TIMESTAMP, VERSION INTEGER, GROUPE_CODE VARCHAR(255), PRIMARY KEY (ID))
-CREATE TABLE FILESTORE (URI VARCHAR(255) NOT NULL, CONTENT BLOB(2147483647), CREATIONDATE TIMESTAMP NOT NULL, CONTENTSIZE INTEGER, UPDATEDDATE TIMESTAMP, NAME VARCHAR(255), PATH VARCHAR(255), CONTENTMIMETYPE VARCHAR(255), VERSION INTEGER, PRIMARY KEY (URI))
+CREATE TABLE FILESTORE (URI VARCHAR(255) NOT NULL, CONTENT BLOB(2147483647), CREATIONDATE TIMESTAMP NOT NULL, CONTENTSIZE INTEGER, UPDATEDDATE TIMESTAMP, NAME VARCHAR(255), PATH VARCHAR(255), CONTENTMIMETYPE VARCHAR(255), CHUNKS INTEGER, VERSION INTEGER, PRIMARY KEY (URI))
+CREATE TABLE FILESTORE_CHUNK (URI VARCHAR(255) NOT NULL, SEQ INTEGER NOT NULL, DATA BLOB(1048576), PRIMARY KEY (URI, SEQ))
 CREATE TABLE CONFIGURATION_PROPERTY (ID BIGINT NOT NULL, DESCRIPTION VARCHAR(255), NAME VARCHAR(255), VALUE VARCHAR(255), TYPE VARCHAR(255), VERSION INTEGER, LABELS VARCHAR(255), PRIMARY KEY (ID))
 CREATE TABLE I18N_ENTRY_I18N_LANGUAGE (I18nMessage_ID BIGINT NOT NULL, messageLanguages_ID INTEGER NOT NULL, PRIMARY KEY (I18nMessage_ID, messageLanguages_ID))
 CREATE TABLE I18N_GROUP (CODE VARCHAR(255) NOT NULL, VERSION INTEGER, DESCRIPTION_ID BIGINT, PARENT_CODE VARCHAR(255), PRIMARY KEY (CODE))
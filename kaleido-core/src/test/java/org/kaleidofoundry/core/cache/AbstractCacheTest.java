@@ -18,6 +18,8 @@ package org.kaleidofoundry.core.cache;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Test;
 import org.kaleidofoundry.core.lang.NotNullException;
@@ -166,6 +168,25 @@ public abstract class AbstractCacheTest  {
 	assertEquals(mockPersonToCompare2.getBirthdate(), mockPerson2.getBirthdate());
    }
 
+   /**
+    * test bulk put
+    */
+   @Test
+   public void putAll() {
+	final Map<Integer, Person> persons = new HashMap<Integer, Person>();
+	for (int id = 1; id <= 10; id++) {
+	   final Person p = Person.newMockInstance();
+	   p.setId(id);
+	   persons.put(id, p);
+	}
+
+	cache.putAll(persons);
+	assertEquals(10, cache.size());
+	for (final Person p : persons.values()) {
+	   assertSame(p, cache.get(p.getId()));
+	}
+   }
+
    /**
     * test remove and size features
     */
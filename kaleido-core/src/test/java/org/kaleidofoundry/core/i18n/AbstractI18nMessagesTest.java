@@ -125,6 +125,19 @@ public abstract class AbstractI18nMessagesTest  {
 	messages.getMessage("label.array.test");
    }
 
+   /**
+    * parsed message formats are cached per key, arguments must not leak from one call to another
+    */
+   @Test
+   public void cachedMessageFormat() {
+	final Locale locale = Locale.FRENCH;
+	final I18nMessages messages = I18nMessagesFactory.provides(getResourceRoot() + "root", locale);
+	for (int i = 0; i < 10; i++) {
+	   assertEquals("fr test label " + i + " " + (i + 1), messages.getMessage("label.array2.test", i, i + 1));
+	   assertEquals("fr test label", messages.getMessage("label.simple.test"));
+	}
+   }
+
    /**
     * Global test case
     * 
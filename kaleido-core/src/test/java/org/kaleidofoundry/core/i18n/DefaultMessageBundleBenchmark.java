@@ -0,0 +1,92 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.i18n;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link DefaultMessageBundle#getMessage(String, Object...)} micro benchmark<br/>
+ * <br/>
+ * Run it from the test classpath with {@link #main(String[])}
+ *
+ * @author jraduget
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DefaultMessageBundleBenchmark {
+
+   private I18nMessages messages;
+
+   @Setup
+   public void setup() {
+	messages = I18nMessagesFactory.provides("i18n/properties/root", Locale.FRENCH);
+   }
+
+   @TearDown
+   public void cleanup() {
+	I18nMessagesFactory.clearCache();
+   }
+
+   @Benchmark
+   public String plainMessage() {
+	return messages.getMessage("label.simple.test");
+   }
+
+   @Benchmark
+   public String parameterizedMessage() {
+	return messages.getMessage("label.array2.test", "01", "02");
+   }
+
+   @Benchmark
+   public Object missingKey() {
+	try {
+	   return messages.getMessage("noKey");
+	} catch (final MissingResourceException mre) {
+	   return mre;
+	}
+   }
+
+   /**
+    * @param args
+    * @throws RunnerException
+    */
+   public static void main(final String[] args) throws RunnerException {
+	new Runner(new OptionsBuilder().include(DefaultMessageBundleBenchmark.class.getSimpleName()).build()).run();
+   }
+}
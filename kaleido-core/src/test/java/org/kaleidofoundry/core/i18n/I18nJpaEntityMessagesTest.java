@@ -16,6 +16,8 @@
 package org.kaleidofoundry.core.i18n;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
@@ -23,6 +25,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -178,4 +186,45 @@ public class I18nJpaEntityMessagesTest extends AbstractI18nMessagesTest {
 	LOGGER.debug(messageBundle.getMessage("label.array.test", "3"));
 	LOGGER.debug(messageBundle.getMessage("label.array.test", "4"));
    }
+
+   @Test
+   public void bulkLoader() {
+	final I18nJpaBundleLoader loader = I18nMessagesProvider.getJpaBundleLoader();
+	assertFalse(loader.isLoaded(ResourceRoot + "root"));
+
+	loader.load(Arrays.asList(ResourceRoot + "root", ResourceRoot + "child", ResourceRoot + "nofile"));
+	assertTrue(loader.isLoaded(ResourceRoot + "root"));
+	assertTrue(loader.isLoaded(ResourceRoot + "child"));
+	assertTrue(loader.isLoaded(ResourceRoot + "nofile"));
+	assertNotNull(loader.getLastUpdatedDate());
+
+	assertEquals("fr test label", loader.getProperties(ResourceRoot + "root", Locale.FRENCH).getProperty("label.simple.test"));
+	assertEquals("test child label", loader.getProperties(ResourceRoot + "child", Locale.ROOT).getProperty("child.simple.test"));
+	// not found results are cached too
+	assertNull(loader.getProperties(ResourceRoot + "root", Locale.TRADITIONAL_CHINESE));
+	assertNull(loader.getProperties(ResourceRoot + "nofile", Locale.FRENCH));
+
+	// nothing have been updated since the loading
+	assertTrue(loader.refresh().isEmpty());
+
+	// a message committed late, with an update date older than the last one, is not missed by the refresh
+	final String lateResource = ResourceRoot + "late";
+	loader.load(Collections.singleton(lateResource));
+	final Date lastUpdatedDate = loader.getLastUpdatedDate();
+	final EntityManager em = UnmanagedEntityManagerFactory.currentEntityManager();
+	em.getTransaction().begin();
+	final I18nMessage message = new I18nMessage("late.test", null, new I18nMessageGroup(lateResource));
+	message.getMessageLanguages().add(new I18nMessageLanguage(message, "late label", Locale.ROOT));
+	em.merge(message);
+	em.flush();
+	em.createQuery("update I18nMessageLanguage ml set ml.updatedDate = :updatedDate where ml.content = 'late label'").setParameter(
+		"updatedDate", new Date(lastUpdatedDate.getTime() - 1000)).executeUpdate();
+	em.getTransaction().commit();
+	em.clear();
+
+	assertEquals(Collections.singleton(lateResource), loader.refresh());
+	assertEquals("late label", loader.getProperties(lateResource, Locale.ROOT).getProperty("late.test"));
+	// the overlap window is read again, but the applied messages are skipped
+	assertTrue(loader.refresh().isEmpty());
+   }
 }
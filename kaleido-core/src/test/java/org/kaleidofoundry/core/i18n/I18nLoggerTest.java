@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.i18n;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.Queue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.event.EventRecodingLogger;
+import org.slf4j.event.Level;
+import org.slf4j.event.SubstituteLoggingEvent;
+import org.slf4j.helpers.NOPLogger;
+import org.slf4j.helpers.SubstituteLogger;
+
+/**
+ * @author jraduget
+ */
+public class I18nLoggerTest {
+
+   @After
+   public void cleanup() {
+	I18nMessagesFactory.clearCache();
+   }
+
+   @Test
+   public void throwableOf() {
+	final Exception error = new IllegalStateException();
+	assertNull(I18nLogger.throwableOf(null));
+	assertNull(I18nLogger.throwableOf(new Object[] {}));
+	assertNull(I18nLogger.throwableOf(new Object[] { "foo", 1 }));
+	assertSame(error, I18nLogger.throwableOf(new Object[] { "foo", error }));
+	assertSame(error, I18nLogger.throwableOf(new Object[] { error }));
+   }
+
+   @Test
+   public void log() {
+	final Queue<SubstituteLoggingEvent> events = new LinkedList<SubstituteLoggingEvent>();
+	final I18nLogger logger = new I18nLogger(new EventRecodingLogger(new SubstituteLogger(I18nLoggerTest.class.getName(), events, false), events),
+		I18nMessagesFactory.provides("i18n/properties/root", Locale.FRENCH));
+	final Exception error = new IllegalStateException();
+
+	logger.error("label.array2.test", "01", "02");
+	logger.warn("label.array.test", "01", error);
+	logger.info("label.simple.test");
+	assertEquals(3, events.size());
+
+	SubstituteLoggingEvent event = events.poll();
+	assertEquals(Level.ERROR, event.getLevel());
+	assertEquals("fr test label 01 02", event.getMessage());
+	assertNull(event.getThrowable());
+	event = events.poll();
+	assertEquals(Level.WARN, event.getLevel());
+	assertEquals("fr test label 01", event.getMessage());
+	assertSame(error, event.getThrowable());
+	event = events.poll();
+	assertEquals(Level.INFO, event.getLevel());
+	assertEquals("fr test label", event.getMessage());
+   }
+
+   @Test(expected = MissingResourceException.class)
+   public void logNoResourceKey() {
+	final I18nLogger logger = I18nLogger.getLogger(I18nLoggerTest.class, I18nMessagesFactory.provides("i18n/properties/root", Locale.FRENCH));
+	logger.error("noKey");
+   }
+
+   @Test
+   public void disabledLevelNoResourceKey() {
+	// all the levels of the nop logger are disabled, the message is never resolved (an unknown key would throw a MissingResourceException)
+	final I18nLogger logger = new I18nLogger(NOPLogger.NOP_LOGGER, I18nMessagesFactory.provides("i18n/properties/root", Locale.FRENCH));
+	assertFalse(logger.isErrorEnabled());
+	logger.trace("noKey");
+	logger.debug("noKey");
+	logger.info("noKey");
+	logger.warn("noKey");
+	logger.error("noKey", new IllegalStateException());
+   }
+}
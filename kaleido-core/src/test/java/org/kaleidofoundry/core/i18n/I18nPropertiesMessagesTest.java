@@ -15,14 +15,37 @@
  */
 package org.kaleidofoundry.core.i18n;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaleidofoundry.core.io.FileHelper;
 
 /**
  * @author jraduget
  */
 public class I18nPropertiesMessagesTest extends AbstractI18nMessagesTest {
 
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
    @Override
    String getResourceRoot() {
 	return "i18n/properties/";
@@ -37,4 +60,88 @@ public class I18nPropertiesMessagesTest extends AbstractI18nMessagesTest {
    public void cleanup() {
 	super.cleanup();
    }
+
+   /**
+    * a modified bundle is reloaded in place, the other ones are kept
+    * 
+    * @throws IOException
+    */
+   @Test
+   public void reloadModifiedBundles() throws IOException {
+	final File file = new File(folder.getRoot(), "reload.properties");
+	final URLClassLoader loader = new URLClassLoader(new URL[] { folder.getRoot().toURI().toURL() }, null);
+
+	writeProperties(file, "label", "v1");
+	final I18nMessages messages = I18nMessagesFactory.provides("reload", Locale.ROOT, loader);
+	final I18nMessages otherMessages = I18nMessagesFactory.provides(getResourceRoot() + "root", Locale.FRENCH);
+	assertEquals("v1", messages.getMessage("label"));
+
+	writeProperties(file, "label", "v2");
+	file.setLastModified(file.lastModified() + 10000);
+
+	assertTrue(I18nMessagesFactory.reloadModifiedBundles().contains("reload.properties"));
+	assertEquals("v2", messages.getMessage("label"));
+	assertSame(messages, I18nMessagesFactory.provides("reload", Locale.ROOT, loader));
+	assertSame(otherMessages, I18nMessagesFactory.provides(getResourceRoot() + "root", Locale.FRENCH));
+
+	// nothing modified since
+	assertTrue(I18nMessagesFactory.reloadModifiedBundles().isEmpty());
+   }
+
+   /**
+    * the modification date of a jar bundle is not resolved by its loading, but by the first reload check
+    * 
+    * @throws IOException
+    */
+   @Test
+   public void jarBundleLastModified() throws IOException {
+	final File jar = new File(folder.getRoot(), "bundles.jar");
+	final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+	try {
+	   out.putNextEntry(new JarEntry("jarbundle.properties"));
+	   out.write("label=jar label\n".getBytes("ISO-8859-1"));
+	   out.closeEntry();
+	} finally {
+	   out.close();
+	}
+	final URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null);
+
+	final DefaultMessageBundle messages = (DefaultMessageBundle) I18nMessagesFactory.provides("jarbundle", Locale.ROOT, loader);
+	assertEquals("jar label", messages.getMessage("label"));
+	assertEquals(MessageBundleControl.LAST_MODIFIED_UNRESOLVED, messages.lastModified);
+
+	assertFalse(I18nMessagesFactory.reloadModifiedBundles().contains("jarbundle.properties"));
+	assertTrue(messages.lastModified > 0);
+	assertEquals("jar label", messages.getMessage("label"));
+   }
+
+   /**
+    * bundle resources loaded from a file store, with its parent locale
+    * 
+    * @throws IOException
+    */
+   @Test
+   public void fileStoreBundle() throws IOException {
+	writeProperties(new File(folder.getRoot(), "filestore.properties"), "label.parent", "parent label");
+	writeProperties(new File(folder.getRoot(), "filestore_fr.properties"), "label", "fr label");
+
+	final String rootPath = FileHelper.buildUnixAppPath(folder.getRoot().getCanonicalPath());
+	final String fileStoreUri = rootPath.startsWith("/") ? "file:" + rootPath : "file:/" + rootPath;
+
+	final I18nMessages messages = I18nMessagesFactory.provides(new I18nContextBuilder("fileStoreBundle").withBaseName("filestore")
+		.withLocaleLanguage("fr").withLocaleCountry("FR").withFileStoreUri(fileStoreUri).build());
+	assertEquals("fr label", messages.getMessage("label"));
+	assertEquals("parent label", messages.getMessage("label.parent"));
+   }
+
+   static void writeProperties(final File file, final String key, final String value) throws IOException {
+	final Properties properties = new Properties();
+	properties.setProperty(key, value);
+	final OutputStream out = new FileOutputStream(file);
+	try {
+	   properties.store(out, null);
+	} finally {
+	   out.close();
+	}
+   }
 }
@@ -15,7 +15,14 @@
  */
 package org.kaleidofoundry.core.io;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -131,4 +138,124 @@ public class ConsoleManagerTest  {
 	assertNotNull(bufferResult);
 	assertEquals(bufferResult.toString(), result);
    }
+
+   /**
+    * tail, extract and follow of a file system resource, accessed directly
+    * 
+    * @throws IOException
+    * @throws ResourceException
+    */
+   @Test
+   public void fileSystemResource() throws IOException, ResourceException {
+	final File file = File.createTempFile("kaleido-console-", ".log");
+	final String resource = file.toURI().toString();
+	try {
+	   final StringBuilder content = new StringBuilder();
+	   for (int i = 1; i <= 2500; i++) {
+		content.append("line ").append(i).append("\n");
+	   }
+	   write(file, content.toString(), false);
+	   console.register(resource);
+
+	   assertEquals("line 2499\nline 2500\n", console.tail(resource, 2));
+	   assertEquals("line 1001\nline 1002\n", console.extract(resource, 1001, 2));
+	   assertEquals("line 2500\n", console.extract(resource, 2500, 10));
+	   assertEquals("", console.extract(resource, 2501, 10));
+
+	   final Map<String, Serializable> parameters = new HashMap<String, Serializable>();
+	   parameters.put(FileStoreConsoleController.MAXLINE_COUNT_ARGS, 2);
+	   parameters.put(FileStoreConsoleController.COUNTLINE_ARGS, Boolean.TRUE);
+	   assertEquals("02499 line 2499\n02500 line 2500\n", console.tail(resource, parameters));
+
+	   // follow, from the last line
+	   parameters.clear();
+	   parameters.put(FileStoreConsoleController.MAXLINE_COUNT_ARGS, 1);
+	   StringBuilder output = new StringBuilder();
+	   long position = console.follow(resource, -1, parameters, output);
+	   assertEquals("line 2500\n", output.toString());
+	   assertEquals(file.length(), position);
+
+	   // the line being written is not given
+	   write(file, "line 2501\nline 25", true);
+	   parameters.clear();
+	   output = new StringBuilder();
+	   position = console.follow(resource, position, parameters, output);
+	   assertEquals("line 2501\n", output.toString());
+
+	   write(file, "02\n", true);
+	   output = new StringBuilder();
+	   position = console.follow(resource, position, parameters, output);
+	   assertEquals("line 2502\n", output.toString());
+	   assertEquals(file.length(), position);
+
+	   // rotated file
+	   write(file, "new\n", false);
+	   output = new StringBuilder();
+	   console.follow(resource, position, parameters, output);
+	   assertEquals("new\n", output.toString());
+	} finally {
+	   console.unregister(resource);
+	   file.delete();
+	}
+   }
+
+   /**
+    * search in the classpath resource and in a file system resource
+    * 
+    * @throws IOException
+    * @throws ResourceException
+    */
+   @Test
+   public void search() throws IOException, ResourceException {
+	final File file = File.createTempFile("kaleido-console-", ".log");
+	final String resource = file.toURI().toString();
+	try {
+	   write(file, "INFO start\nERROR A total of 3 errors\nINFO end\n", false);
+	   console.register(resource);
+
+	   final Map<String, Serializable> parameters = new HashMap<String, Serializable>();
+	   parameters.put(FileStoreConsoleController.MAXLINE_COUNT_ARGS, 10);
+	   String result = console.search(Arrays.asList(ClassPathResource, resource), "A total of 3294 files", parameters);
+	   assertEquals(ClassPathResource + ":549:A total of 3294 files (of which 3267 are classes) were written to output.\n", result);
+
+	   parameters.put(FileStoreConsoleController.REGEX_ARGS, "true");
+	   parameters.put(FileStoreConsoleController.IGNORECASE_ARGS, "true");
+	   parameters.put(FileStoreConsoleController.CONTEXT_ARGS, "1");
+	   result = console.search(Arrays.asList(resource), "^error .* (\\d+) errors$", parameters);
+	   assertEquals(resource + "-1-INFO start\n" + resource + ":2:ERROR A total of 3 errors\n" + resource + "-3-INFO end\n", result);
+
+	   // bounded result
+	   parameters.clear();
+	   parameters.put(FileStoreConsoleController.MAXLINE_COUNT_ARGS, 2);
+	   result = console.search(null, "A total of", parameters);
+	   assertEquals(2, result.replace("--\n", "").split("\n").length);
+
+	   // bounded arguments
+	   parameters.put(FileStoreConsoleController.MAXLINE_COUNT_ARGS, FileStoreConsoleController.MAX_MATCH_COUNT + 1);
+	   try {
+		console.search(null, "A total of", parameters);
+		fail("IllegalArgumentException expected");
+	   } catch (final IllegalArgumentException iae) {
+	   }
+	   parameters.clear();
+	   parameters.put(FileStoreConsoleController.CONTEXT_ARGS, FileStoreConsoleController.MAX_CONTEXT_LINES + 1);
+	   try {
+		console.search(null, "A total of", parameters);
+		fail("IllegalArgumentException expected");
+	   } catch (final IllegalArgumentException iae) {
+	   }
+	} finally {
+	   console.unregister(resource);
+	   file.delete();
+	}
+   }
+
+   static void write(final File file, final String content, final boolean append) throws IOException {
+	final OutputStream out = new FileOutputStream(file, append);
+	try {
+	   out.write(content.getBytes("UTF-8"));
+	} finally {
+	   out.close();
+	}
+   }
 }
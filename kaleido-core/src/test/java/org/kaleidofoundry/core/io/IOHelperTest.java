@@ -16,10 +16,15 @@
 package org.kaleidofoundry.core.io;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 
 import static org.junit.Assert.*;
 
@@ -170,4 +175,32 @@ public class IOHelperTest  {
 	}
    }
 
+   @Test
+   public void copyChannels() throws IOException {
+	// file to stream
+	final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	final FileInputStream fileIn = new FileInputStream(tempFilename);
+	try {
+	   assertEquals(3, IOHelper.copy(fileIn.getChannel(), Channels.newChannel(out), 16));
+	} finally {
+	   fileIn.close();
+	}
+	assertEquals("foo", out.toString("UTF-8"));
+
+	// stream to file
+	final File copyFile = tempFolder.newFile("iohelper.copy.test");
+	final FileOutputStream fileOut = new FileOutputStream(copyFile);
+	try {
+	   assertEquals(6, IOHelper.copy(Channels.newChannel(new ByteArrayInputStream("foobar".getBytes("UTF-8"))), fileOut.getChannel(), 16));
+	} finally {
+	   fileOut.close();
+	}
+	assertEquals(6, copyFile.length());
+
+	// stream to stream, with a buffer smaller than the content
+	final ByteArrayOutputStream streamOut = new ByteArrayOutputStream();
+	assertEquals(6, IOHelper.copy(Channels.newChannel(new ByteArrayInputStream("foobar".getBytes("UTF-8"))), Channels.newChannel(streamOut), 4));
+	assertEquals("foobar", streamOut.toString("UTF-8"));
+   }
+
 }
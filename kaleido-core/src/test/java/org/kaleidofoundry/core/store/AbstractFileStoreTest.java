@@ -18,6 +18,7 @@ package org.kaleidofoundry.core.store;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -117,6 +118,24 @@ public abstract class AbstractFileStoreTest  {
 	}
    }
 
+   @Test
+   public void stat() throws ResourceException {
+	for (final Map.Entry<String, String> resource : existingResources.entrySet()) {
+	   final ResourceMetadata metadata = fileStore.stat(resource.getKey());
+	   assertNotNull(metadata);
+	   assertFalse(metadata.isDirectory());
+	   // the length can be unknown for some stores
+	   assertTrue(metadata.getLength() < 0 || metadata.getLength() == resource.getValue().length());
+	}
+	for (final String uriToTest : nonExistingResources) {
+	   try {
+		fileStore.stat(uriToTest);
+		fail("uri <" + uriToTest + "> must throws ResourceNotFoundException");
+	   } catch (final ResourceNotFoundException rnfe) {
+	   }
+	}
+   }
+
    @Test
    public void notExists() throws ResourceException {
 
@@ -142,7 +161,12 @@ public abstract class AbstractFileStoreTest  {
 
 	// null argument not allowed
 	try {
-	   fileStore.store(null);
+	   fileStore.store((ResourceHandler) null);
+	   fail("NotNullException expected");
+	} catch (final NotNullException nae) {
+	}
+	try {
+	   fileStore.store((Collection<ResourceHandler>) null);
 	   fail("NotNullException expected");
 	} catch (final NotNullException nae) {
 	}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IoIterable;
+
+/**
+ * @author jraduget
+ */
+public class CasFileStoreTest extends AbstractFileStoreTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private FileStore backendStore;
+   private CasFileStore casStore;
+
+   @Before
+   @Override
+   public void setup() throws Throwable {
+	super.setup();
+
+	final String tempPath = FileHelper.buildUnixAppPath(folder.getRoot().getCanonicalPath());
+	final String tempPathUri = tempPath.startsWith("/") ? "file:" + tempPath : "file:/" + tempPath;
+	backendStore = new FileSystemStore(new FileStoreContextBuilder("casBackendStore").withBaseUri(tempPathUri).build());
+	casStore = new CasFileStore("cas:/", new FileStoreContextBuilder("casStore").withBaseUri("cas:/").withCasChunkSize(8).build(), backendStore);
+	fileStore = casStore;
+
+	// 1. existing resources (to get)
+	fileStore.store("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResources.put("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 2. resources to get (but which not exists)
+	nonExistingResources.add("foo");
+
+	// 3. resources to store
+	existingResourcesForStore.put("tmp/fooToStore.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 4. resources to remove
+	fileStore.store("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForRemove.put("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 5. resources to move
+	fileStore.store("tmp/fooToMove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForMove.put("tmp/fooToMove.txt", "tmp/moved/fooToMove.txt");
+   }
+
+   @After
+   @Override
+   public void cleanup() throws Throwable {
+	fileStore.destroy();
+	backendStore.destroy();
+   }
+
+   @Test
+   public void deduplication() throws Throwable {
+	final String content = "0123456701234567abc";
+	fileStore.store("dedup/foo.txt", content);
+	fileStore.store("dedup/bar.txt", content);
+
+	// 3 chunks, the first two are identical
+	final String hash = CasFileStore.toHex(CasFileStore.newDigest().digest("01234567".getBytes("UTF-8")));
+	assertEquals(4, casStore.getReferenceCount(hash));
+	assertTrue(backendStore.exists(CasFileStore.chunkPath(hash)));
+	assertEquals(content, fileStore.get("dedup/foo.txt").getText());
+	assertEquals(content, fileStore.get("dedup/bar.txt").getText());
+
+	// the entity tag is the hash of the whole content
+	final String digest = CasFileStore.toHex(CasFileStore.newDigest().digest(content.getBytes("UTF-8")));
+	assertEquals(digest, fileStore.stat("dedup/foo.txt").getEtag());
+	assertEquals(content.length(), fileStore.stat("dedup/foo.txt").getLength());
+
+	// a copy is a new manifest
+	final int chunks = countChunks();
+	fileStore.copy("dedup/foo.txt", fileStore, "dedup/copy.txt");
+	assertEquals(chunks, countChunks());
+	assertEquals(6, casStore.getReferenceCount(hash));
+	assertEquals(content, fileStore.get("dedup/copy.txt").getText());
+
+	// the chunks are removed with their last reference
+	fileStore.remove("dedup/foo.txt");
+	fileStore.remove("dedup/bar.txt");
+	assertTrue(backendStore.exists(CasFileStore.chunkPath(hash)));
+	fileStore.remove("dedup/copy.txt");
+	assertEquals(0, casStore.getReferenceCount(hash));
+	assertFalse(backendStore.exists(CasFileStore.chunkPath(hash)));
+   }
+
+   @Test
+   public void concurrentStore() throws Throwable {
+	final String content = "0123456701234567abc";
+	fileStore.store("concurrent/other.txt", content);
+	final String hash = CasFileStore.toHex(CasFileStore.newDigest().digest("01234567".getBytes("UTF-8")));
+
+	// concurrent updates of the same resource release the chunks of each previous manifest once
+	final int threads = 8;
+	final CountDownLatch start = new CountDownLatch(1);
+	final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+	final List<Thread> writers = new ArrayList<Thread>();
+	for (int i = 0; i < threads; i++) {
+	   final Thread writer = new Thread() {
+		@Override
+		public void run() {
+		   try {
+			start.await();
+			for (int j = 0; j < 20; j++) {
+			   fileStore.store("concurrent/foo.txt", content);
+			}
+		   } catch (final Throwable th) {
+			errors.add(th);
+		   }
+		}
+	   };
+	   writers.add(writer);
+	   writer.start();
+	}
+	start.countDown();
+	for (final Thread writer : writers) {
+	   writer.join();
+	}
+	assertTrue(errors.toString(), errors.isEmpty());
+
+	assertEquals(4, casStore.getReferenceCount(hash));
+	assertTrue(backendStore.exists(CasFileStore.chunkPath(hash)));
+	assertEquals(content, fileStore.get("concurrent/other.txt").getText());
+	fileStore.remove("concurrent/foo.txt");
+	assertEquals(content, fileStore.get("concurrent/other.txt").getText());
+	assertEquals(2, casStore.getReferenceCount(hash));
+   }
+
+   @Test
+   public void concurrentRead() throws Throwable {
+	final String content = "0123456789abcdefghij";
+	fileStore.store("read/foo.txt", content);
+	final int chunks = countChunks();
+	final String hash = CasFileStore.toHex(CasFileStore.newDigest().digest("01234567".getBytes("UTF-8")));
+
+	// the resource is updated then removed while it is read : its chunks are kept until the reader closes it
+	final ResourceHandler resource = fileStore.get("read/foo.txt");
+	fileStore.store("read/foo.txt", "another content");
+	fileStore.remove("read/foo.txt");
+	assertEquals(0, casStore.getReferenceCount(hash));
+	assertTrue(backendStore.exists(CasFileStore.chunkPath(hash)));
+	assertEquals(0, casStore.collectGarbage());
+	assertEquals(content, resource.getText());
+
+	resource.close();
+	assertFalse(backendStore.exists(CasFileStore.chunkPath(hash)));
+	assertEquals(chunks - 3, countChunks());
+   }
+
+   @Test
+   public void update() throws Throwable {
+	fileStore.store("update/foo.txt", "first content");
+	final int chunks = countChunks();
+	fileStore.store("update/foo.txt", "second content");
+	assertEquals("second content", fileStore.get("update/foo.txt").getText());
+	// the chunks of the first content have been released
+	assertEquals(chunks, countChunks());
+   }
+
+   @Test
+   public void list() throws Throwable {
+	final IoIterable<ResourceMetadata> resources = fileStore.walk("tmp", -1);
+	try {
+	   int count = 0;
+	   for (final ResourceMetadata resource : resources) {
+		assertNotNull(resource.getUri());
+		assertTrue(resource.getUri(), resource.getUri().startsWith("cas:/tmp/"));
+		if (!resource.isDirectory()) {
+		   assertEquals(DEFAULT_RESOURCE_MOCK_TEST.length(), resource.getLength());
+		   count++;
+		}
+	   }
+	   assertEquals(3, count);
+	} finally {
+	   resources.close();
+	}
+   }
+
+   @Test
+   public void collectGarbage() throws Throwable {
+	// an orphan chunk, left by an interrupted store
+	backendStore.store(CasFileStore.chunkPath("ff00"), "orphan");
+	final int chunks = countChunks();
+
+	// a new store instance rebuilds its reference counts from the manifests
+	final CasFileStore otherStore = new CasFileStore("cas:/", new FileStoreContextBuilder("otherCasStore").withBaseUri("cas:/")
+		.withCasChunkSize(8).build(), backendStore);
+	assertEquals(1, otherStore.collectGarbage());
+	assertEquals(chunks - 1, countChunks());
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, otherStore.get("tmp/foo.txt").getText());
+	assertEquals(0, otherStore.collectGarbage());
+	otherStore.destroy();
+   }
+
+   private int countChunks() {
+	int count = 0;
+	for (final File directory : new File(folder.getRoot(), CasFileStore.CHUNKS_DIR).listFiles()) {
+	   count += Arrays.asList(directory.list()).size();
+	}
+	return count;
+   }
+}
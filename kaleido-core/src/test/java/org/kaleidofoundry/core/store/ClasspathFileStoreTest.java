@@ -45,6 +45,31 @@ public class ClasspathFileStoreTest extends AbstractFileStoreTest {
 
    }
 
+   @Test
+   public void indexed() throws Throwable {
+	final ClasspathFileStore indexedStore = new ClasspathFileStore(new FileStoreContextBuilder("cpIndexedStore").withBaseUri("classpath:/")
+		.withClasspathIndex(true).build());
+	try {
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, indexedStore.get("store/foo.txt").getText());
+	   assertEquals(fileStore.stat("store/foo.txt").getLength(), indexedStore.stat("store/foo.txt").getLength());
+	   assertTrue(indexedStore.exists("/store/foo.txt"));
+
+	   // a resource not found is remembered, when the index is available
+	   assertFalse(indexedStore.exists("store/foo"));
+	   final ClasspathResourceIndex index = indexedStore.getClasspathIndex();
+	   if (index != null) {
+		assertTrue(index.isNotFound("store/foo"));
+	   }
+	   try {
+		indexedStore.get("store/foo");
+		fail();
+	   } catch (final ResourceNotFoundException rnfe) {
+	   }
+	} finally {
+	   indexedStore.destroy();
+	}
+   }
+
    @Test
    @Override
    public void store() throws ResourceException {
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author jraduget
+ */
+public class ClasspathResourceIndexTest {
+
+   private File root;
+   private File classesDirectory;
+   private File libJar;
+   private File dependencyJar;
+   private URLClassLoader classLoader;
+
+   @Before
+   public void setup() throws IOException {
+	root = new File(System.getProperty("java.io.tmpdir"), "kaleido-cpindex-" + System.nanoTime());
+	classesDirectory = new File(root, "classes");
+	libJar = new File(root, "lib/lib.jar");
+	dependencyJar = new File(root, "lib/dependency.jar");
+
+	write(new File(classesDirectory, "indexed/foo.txt"), "foo from classes");
+	write(new File(classesDirectory, "indexed/sub/bar.txt"), "bar");
+
+	// the jar is shadowed by the classes directory, and it refers to the dependency jar by its manifest
+	final Manifest manifest = new Manifest();
+	manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+	manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "dependency.jar");
+	jar(libJar, manifest, "indexed/foo.txt", "foo from jar", "indexed/lib.txt", "lib");
+	jar(dependencyJar, null, "indexed/dependency.txt", "dependency", "indexed/lib.txt", "lib from dependency");
+
+	classLoader = new URLClassLoader(new URL[] { classesDirectory.toURI().toURL(), libJar.toURI().toURL() }, null);
+   }
+
+   @After
+   public void cleanup() throws IOException {
+	classLoader.close();
+	delete(root);
+   }
+
+   @Test
+   public void build() throws IOException {
+	final ClasspathResourceIndex index = ClasspathResourceIndex.build(classLoader);
+	try {
+	   assertNotNull(index);
+	   assertEquals(3, index.getRootCount());
+	   // foo.txt, bar.txt, MANIFEST.MF, lib.txt, dependency.txt
+	   assertEquals(5, index.size());
+
+	   // first entry wins, like with the class loader
+	   assertEquals("foo from classes", read(index, "indexed/foo.txt"));
+	   assertEquals("bar", read(index, "indexed/sub/bar.txt"));
+	   assertEquals("lib", read(index, "indexed/lib.txt"));
+	   assertEquals("dependency", read(index, "indexed/dependency.txt"));
+	   assertEquals(read(classLoader.getResourceAsStream("indexed/lib.txt")), read(index, "indexed/lib.txt"));
+
+	   final ClasspathResourceIndex.Entry entry = index.get("indexed/dependency.txt");
+	   assertEquals(10, entry.size);
+	   assertTrue(entry.time > 0);
+
+	   // directories are not indexed
+	   assertNull(index.get("indexed/"));
+	   assertNull(index.get("indexed/sub"));
+	   assertNull(index.get("indexed/none.txt"));
+	} finally {
+	   index.close();
+	}
+   }
+
+   @Test
+   public void notFound() throws IOException {
+	final ClasspathResourceIndex index = ClasspathResourceIndex.build(classLoader);
+	assertFalse(index.isNotFound("indexed/none.txt"));
+	index.notFound("indexed/none.txt");
+	assertTrue(index.isNotFound("indexed/none.txt"));
+   }
+
+   @Test
+   public void notIndexable() throws IOException {
+	final ClassLoader customClassLoader = new ClassLoader(classLoader) {
+	};
+	assertNull(ClasspathResourceIndex.build(customClassLoader));
+
+	final URLClassLoader remoteClassLoader = new URLClassLoader(new URL[] { new URL("http://localhost/classes/") }, null);
+	try {
+	   assertNull(ClasspathResourceIndex.build(remoteClassLoader));
+	} finally {
+	   remoteClassLoader.close();
+	}
+   }
+
+   private static String read(final ClasspathResourceIndex index, final String resourceName) throws IOException {
+	return read(index.open(index.get(resourceName)));
+   }
+
+   private static String read(final InputStream in) throws IOException {
+	try {
+	   final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	   final byte[] buffer = new byte[256];
+	   int read;
+	   while ((read = in.read(buffer)) >= 0) {
+		out.write(buffer, 0, read);
+	   }
+	   return new String(out.toByteArray(), "UTF-8");
+	} finally {
+	   in.close();
+	}
+   }
+
+   private static void write(final File file, final String content) throws IOException {
+	file.getParentFile().mkdirs();
+	final OutputStream out = new FileOutputStream(file);
+	try {
+	   out.write(content.getBytes("UTF-8"));
+	} finally {
+	   out.close();
+	}
+   }
+
+   private static void jar(final File file, final Manifest manifest, final String... entries) throws IOException {
+	file.getParentFile().mkdirs();
+	final JarOutputStream out = manifest != null ? new JarOutputStream(new FileOutputStream(file), manifest) : new JarOutputStream(
+		new FileOutputStream(file));
+	try {
+	   for (int i = 0; i < entries.length; i += 2) {
+		out.putNextEntry(new JarEntry(entries[i]));
+		out.write(entries[i + 1].getBytes("UTF-8"));
+		out.closeEntry();
+	   }
+	} finally {
+	   out.close();
+	}
+   }
+
+   private static void delete(final File file) {
+	final File[] files = file.listFiles();
+	if (files != null) {
+	   for (final File child : files) {
+		delete(child);
+	   }
+	}
+	file.delete();
+   }
+}
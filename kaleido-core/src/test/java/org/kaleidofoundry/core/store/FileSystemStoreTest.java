@@ -17,8 +17,26 @@ package org.kaleidofoundry.core.store;
 
 import static org.kaleidofoundry.core.env.model.EnvironmentConstants.DEFAULT_BASE_DIR_PROPERTY;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.After;
 import org.junit.Before;
@@ -27,6 +45,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.io.FileHelper;
+import org.kaleidofoundry.core.io.IOHelper;
+import org.kaleidofoundry.core.io.IoIterable;
 
 import static org.junit.Assert.*;
 
@@ -125,4 +145,456 @@ public class FileSystemStoreTest extends AbstractFileStoreTest {
 	assertEquals("line1\nline2", resourceHandler.getText());
    }
 
+   @Test
+   public void channelAndByteBuffer() throws Throwable {
+	final String resourcePath = FileHelper.getFileName(folder.newFile("kaleido-resource-nio.test").getCanonicalPath());
+	fileStore.store(resourcePath, DEFAULT_RESOURCE_MOCK_TEST.getBytes("UTF-8"));
+
+	// file resource is read through its file channel
+	ResourceHandler resourceHandler = fileStore.get(resourcePath);
+	assertTrue(resourceHandler.getChannel() instanceof FileChannel);
+	resourceHandler.close();
+
+	// small file is read in the heap
+	resourceHandler = fileStore.get(resourcePath);
+	ByteBuffer content = resourceHandler.getByteBuffer();
+	assertFalse(content instanceof MappedByteBuffer);
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, new String(toArray(content), "UTF-8"));
+
+	// large file (over the threshold) is memory mapped
+	final String baseUri = fileStore.getBaseUri();
+	final FileStore mappedStore = new FileSystemStore(new FileStoreContextBuilder("fsMappedStore").withBaseUri(baseUri).withMappedReadThreshold("1")
+		.build());
+	resourceHandler = mappedStore.get(resourcePath);
+	content = resourceHandler.getByteBuffer();
+	assertTrue(content instanceof MappedByteBuffer);
+	assertTrue(resourceHandler.isClosed());
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, new String(toArray(content), "UTF-8"));
+
+	// file to file store, through the channels
+	final String copyPath = resourcePath + ".copy";
+	final ResourceHandler source = fileStore.get(resourcePath);
+	try {
+	   fileStore.store(fileStore.createResourceHandler(copyPath, source.getInputStream()));
+	} finally {
+	   source.close();
+	}
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, fileStore.get(copyPath).getText());
+   }
+
+   @Test
+   public void streaming() throws Throwable {
+	final String resourcePath = FileHelper.getFileName(folder.newFile("kaleido-resource-stream.test").getCanonicalPath());
+	fileStore.store(resourcePath, DEFAULT_RESOURCE_MOCK_TEST.getBytes("UTF-8"));
+
+	// range reads
+	ResourceHandler resourceHandler = fileStore.get(resourcePath);
+	assertEquals("line2", new String(IOHelper.toByteArray(resourceHandler.getInputStream(6, -1)), "UTF-8"));
+	resourceHandler.close();
+	resourceHandler = fileStore.get(resourcePath);
+	assertEquals("ne1", new String(IOHelper.toByteArray(resourceHandler.getInputStream(2, 3)), "UTF-8"));
+	resourceHandler.close();
+	resourceHandler = fileStore.createResourceHandler(resourcePath, DEFAULT_RESOURCE_MOCK_TEST.getBytes("UTF-8"));
+	assertEquals("ne1", new String(IOHelper.toByteArray(resourceHandler.getInputStream(2, 3)), "UTF-8"));
+
+	// chunked iteration, the last chunk is partial
+	resourceHandler = fileStore.get(resourcePath);
+	final ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+	int chunkCount = 0;
+	for (final ByteBuffer chunk : resourceHandler.getChunks(4)) {
+	   chunks.write(toArray(chunk));
+	   chunkCount++;
+	}
+	assertEquals(3, chunkCount);
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, chunks.toString("UTF-8"));
+	assertTrue(resourceHandler.isClosed());
+
+	// channel transfer
+	resourceHandler = fileStore.get(resourcePath);
+	final ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST.length(), resourceHandler.transferTo(Channels.newChannel(transferred)));
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, transferred.toString("UTF-8"));
+	assertTrue(resourceHandler.isClosed());
+
+	// copy to another store
+	final File targetFolder = folder.newFolder("kaleido-store-target");
+	final FileStore targetStore = new FileSystemStore(new FileStoreContextBuilder("fsTargetStore").withBaseUri(
+		"file:" + (targetFolder.toURI().getPath())).build());
+	fileStore.copy(resourcePath, targetStore, "copy.test");
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, targetStore.get("copy.test").getText());
+	assertTrue(fileStore.exists(resourcePath));
+   }
+
+   @Test
+   public void cachingMaxSize() throws Throwable {
+	final String resourcePath = FileHelper.getFileName(folder.newFile("kaleido-resource-cache.test").getCanonicalPath());
+	fileStore.store(resourcePath, DEFAULT_RESOURCE_MOCK_TEST.getBytes("UTF-8"));
+	final String baseUri = fileStore.getBaseUri();
+
+	// resource larger than the max size : streamed, not cached
+	final FileStore smallCacheStore = new FileSystemStore(new FileStoreContextBuilder("fsSmallCacheStore").withBaseUri(baseUri)
+		.withCaching("true").withCachingMaxSize("4").build());
+	ResourceHandler resourceHandler = smallCacheStore.get(resourcePath);
+	assertTrue(resourceHandler.getChannel() instanceof FileChannel);
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, resourceHandler.getText());
+
+	// resource under the max size : cached
+	final FileStore cacheStore = new FileSystemStore(new FileStoreContextBuilder("fsCacheStore").withBaseUri(baseUri).withCaching("true")
+		.build());
+	resourceHandler = cacheStore.get(resourcePath);
+	assertFalse(resourceHandler.getChannel() instanceof FileChannel);
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, resourceHandler.getText());
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST.length(), resourceHandler.getLength());
+	// a new handler for each get, sharing the cached content
+	assertNotSame(resourceHandler, cacheStore.get(resourcePath));
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, cacheStore.get(resourcePath).getText());
+   }
+
+   @Test
+   public void cachingValidation() throws Throwable {
+	final File file = folder.newFile("kaleido-resource-validation.test");
+	final String resourcePath = FileHelper.getFileName(file.getCanonicalPath());
+	fileStore.store(resourcePath, "foo");
+
+	final FileStore cacheStore = new FileSystemStore(new FileStoreContextBuilder("fsValidationCacheStore").withBaseUri(fileStore.getBaseUri())
+		.withCaching("true").withCachingValidation("true").build());
+	assertEquals("foo", cacheStore.get(resourcePath).getText());
+
+	// meta datas only
+	final ResourceMetadata metadata = cacheStore.stat(resourcePath);
+	assertEquals(3, metadata.getLength());
+	assertEquals(Files.getLastModifiedTime(file.toPath()).toMillis(), metadata.getLastModified());
+	assertEquals(resourcePath, metadata.getPath());
+
+	// the resource is modified behind the store : the stale cached content is reloaded
+	fileStore.store(resourcePath, "foobar");
+	file.setLastModified(metadata.getLastModified() + 2000);
+	assertEquals("foobar", cacheStore.get(resourcePath).getText());
+	assertTrue(cacheStore.exists(resourcePath));
+
+	fileStore.remove(resourcePath);
+	assertFalse(cacheStore.exists(resourcePath));
+   }
+
+   @Test
+   public void atomicStore() throws Throwable {
+	final File file = folder.newFile("kaleido-resource-atomic.test");
+	final String resourcePath = FileHelper.getFileName(file.getCanonicalPath());
+
+	fileStore.store(resourcePath, "foo");
+	assertEquals("foo", fileStore.get(resourcePath).getText());
+
+	// a reader opened before the store keeps on reading the previous content
+	final ResourceHandler reader = fileStore.get(resourcePath);
+	fileStore.store(resourcePath, DEFAULT_RESOURCE_MOCK_TEST);
+	assertEquals("foo", reader.getText());
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, fileStore.get(resourcePath).getText());
+
+	// no temporary file left
+	for (final String fileName : file.getParentFile().list()) {
+	   assertFalse(fileName, fileName.endsWith(".tmp"));
+	}
+   }
+
+   @Test
+   public void nativeMoveAndCopy() throws Throwable {
+	final File file = folder.newFile("kaleido-resource-native.test");
+	final String resourcePath = FileHelper.getFileName(file.getCanonicalPath());
+	final String copyPath = "kaleido-resource-native-copy.test";
+	final String movePath = "kaleido-resource-native-move.test";
+	fileStore.store(resourcePath, "foo");
+
+	// copy inside the same store
+	fileStore.copy(resourcePath, fileStore, copyPath);
+	assertEquals("foo", fileStore.get(resourcePath).getText());
+	assertEquals("foo", fileStore.get(copyPath).getText());
+
+	// move replaces an existing destination
+	fileStore.move(resourcePath, copyPath);
+	assertFalse(file.exists());
+	assertFalse(fileStore.exists(resourcePath));
+	assertEquals("foo", fileStore.get(copyPath).getText());
+
+	fileStore.move(copyPath, movePath);
+	assertFalse(fileStore.exists(copyPath));
+	assertEquals("foo", fileStore.get(movePath).getText());
+
+	try {
+	   fileStore.move(copyPath, resourcePath);
+	   fail("ResourceNotFoundException expected");
+	} catch (final ResourceNotFoundException rnfe) {
+	}
+	fileStore.remove(movePath);
+
+	// no temporary file left
+	for (final String fileName : file.getParentFile().list()) {
+	   assertFalse(fileName, fileName.endsWith(".tmp"));
+	}
+   }
+
+   @Test
+   public void batchStore() throws Throwable {
+	final String resourcePath1 = FileHelper.getFileName(folder.newFile("kaleido-resource-batch1.test").getCanonicalPath());
+	final String resourcePath2 = FileHelper.getFileName(folder.newFile("kaleido-resource-batch2.test").getCanonicalPath());
+
+	fileStore.store(Arrays.asList(fileStore.createResourceHandler(resourcePath1, "foo"), fileStore.createResourceHandler(resourcePath2, "bar")));
+	assertEquals("foo", fileStore.get(resourcePath1).getText());
+	assertEquals("bar", fileStore.get(resourcePath2).getText());
+
+	// a failure while writing a resource : none of them is stored
+	final InputStream failingInput = new InputStream() {
+	   @Override
+	   public int read() throws IOException {
+		throw new IOException("read failure");
+	   }
+	};
+	try {
+	   fileStore.store(Arrays.asList(fileStore.createResourceHandler(resourcePath1, "foo2"),
+		   fileStore.createResourceHandler(resourcePath2, failingInput)));
+	   fail();
+	} catch (final ResourceException rse) {
+	}
+	assertEquals("foo", fileStore.get(resourcePath1).getText());
+	assertEquals("bar", fileStore.get(resourcePath2).getText());
+   }
+
+   @Test
+   public void asyncOperations() throws Throwable {
+	final String resourcePath = FileHelper.getFileName(folder.newFile("kaleido-resource-async.test").getCanonicalPath());
+
+	assertSame(fileStore, fileStore.storeAsync(fileStore.createResourceHandler(resourcePath, DEFAULT_RESOURCE_MOCK_TEST)).get(5,
+		TimeUnit.SECONDS));
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, fileStore.getAsync(resourcePath).get(5, TimeUnit.SECONDS).getText());
+	assertTrue(fileStore.existsAsync(resourcePath).get(5, TimeUnit.SECONDS));
+
+	assertSame(fileStore, fileStore.moveAsync(resourcePath, resourcePath + ".moved").get(5, TimeUnit.SECONDS));
+	assertFalse(fileStore.existsAsync(resourcePath).get(5, TimeUnit.SECONDS));
+	assertEquals(DEFAULT_RESOURCE_MOCK_TEST, fileStore.get(resourcePath + ".moved").getText());
+	try {
+	   fileStore.moveAsync(resourcePath, resourcePath + ".moved").get(5, TimeUnit.SECONDS);
+	   fail();
+	} catch (final ExecutionException ee) {
+	   assertTrue(ee.getCause() instanceof ResourceNotFoundException);
+	}
+	assertSame(fileStore, fileStore.moveAsync(resourcePath + ".moved", resourcePath).get(5, TimeUnit.SECONDS));
+
+	fileStore.removeAsync(resourcePath).get(5, TimeUnit.SECONDS);
+	assertFalse(fileStore.existsAsync(resourcePath).get(5, TimeUnit.SECONDS));
+
+	try {
+	   fileStore.getAsync(resourcePath).get(5, TimeUnit.SECONDS);
+	   fail();
+	} catch (final ExecutionException ee) {
+	   assertTrue(ee.getCause() instanceof ResourceNotFoundException);
+	}
+   }
+
+   @Test
+   public void batchOperations() throws Throwable {
+	final File batchFolder = folder.newFolder("kaleido-batch");
+	final String root = FileHelper.getFileName(batchFolder.getCanonicalPath());
+	final List<ResourceHandler> resources = new ArrayList<ResourceHandler>();
+	for (int i = 0; i < 10; i++) {
+	   resources.add(fileStore.createResourceHandler(root + "/resource" + i + ".test", "content" + i));
+	}
+
+	BatchResult<Void> storeResult = fileStore.storeAll(resources);
+	assertTrue(storeResult.toString(), storeResult.isSuccessful());
+	assertEquals(10, storeResult.size());
+
+	final List<String> paths = new ArrayList<String>();
+	final List<String> relativePaths = new ArrayList<String>();
+	for (int i = 0; i < 10; i++) {
+	   paths.add(root + "/resource" + i + ".test");
+	   relativePaths.add("resource" + i + ".test");
+	}
+	paths.add(root + "/foo");
+
+	// report in the request order, the missing resource does not stop the other ones
+	final BatchResult<ResourceHandler> getResult = fileStore.getAll(paths);
+	assertFalse(getResult.isSuccessful());
+	assertEquals(10, getResult.getSucceeded().size());
+	assertEquals(new ArrayList<String>(paths.subList(0, 10)), new ArrayList<String>(getResult.getSucceeded().keySet()));
+	assertTrue(getResult.getFailed().get(root + "/foo") instanceof ResourceNotFoundException);
+	for (int i = 0; i < 10; i++) {
+	   assertEquals("content" + i, getResult.getSucceeded().get(paths.get(i)).getText());
+	}
+
+	// copy the tree to another store
+	final File targetFolder = folder.newFolder("kaleido-batch-target");
+	final FileStore targetStore = new FileSystemStore(new FileStoreContextBuilder("fsBatchTargetStore").withBaseUri(
+		"file:" + targetFolder.toURI().getPath()).build());
+	targetFolder.toPath().resolve("copy").toFile().mkdir();
+	final BatchResult<Void> copyResult = fileStore.copyTree(root, relativePaths, targetStore, "copy");
+	assertTrue(copyResult.toString(), copyResult.isSuccessful());
+	assertEquals("content3", targetStore.get("copy/resource3.test").getText());
+
+	final BatchResult<Void> removeResult = fileStore.removeAll(paths.subList(0, 10));
+	assertTrue(removeResult.toString(), removeResult.isSuccessful());
+	assertFalse(fileStore.exists(paths.get(0)));
+   }
+
+   @Test
+   public void batchStoreRollback() throws Throwable {
+	final File batchFolder = folder.newFolder("kaleido-batch-rollback");
+	final String root = FileHelper.getFileName(batchFolder.getCanonicalPath());
+	fileStore.store(root + "/a.txt", "old a");
+
+	// the second replacement fails
+	final FileStore failingStore = new FileSystemStore(new FileStoreContextBuilder("fsFailingStore").withBaseUri(fileStore.getBaseUri())
+		.build()) {
+	   @Override
+	   void commit(final URI resourceUri, final File tempFile, final File file) throws ResourceException {
+		if (file.getName().equals("b.txt")) {
+		   tempFile.delete();
+		   throw new ResourceException(new IOException("commit failure"), resourceUri.toString());
+		}
+		super.commit(resourceUri, tempFile, file);
+	   }
+	};
+	try {
+	   failingStore.store(Arrays.asList(failingStore.createResourceHandler(root + "/a.txt", "new a"), failingStore.createResourceHandler(root
+		   + "/b.txt", "new b")));
+	   fail("ResourceException expected");
+	} catch (final ResourceException rse) {
+	}
+
+	// the replaced file is restored, the new one is removed, nothing is left aside
+	assertEquals("old a", fileStore.get(root + "/a.txt").getText());
+	assertFalse(fileStore.exists(root + "/b.txt"));
+	assertEquals(Arrays.asList("a.txt"), Arrays.asList(batchFolder.list()));
+   }
+
+   @Test
+   public void listAndWalk() throws Throwable {
+	final File listFolder = folder.newFolder("kaleido-list");
+	final String root = FileHelper.getFileName(listFolder.getCanonicalPath());
+	new File(listFolder, "sub/subsub").mkdirs();
+	for (final String path : new String[] { "a.txt", "b.txt", "sub/c.txt", "sub/subsub/d.txt" }) {
+	   final FileWriter fout = new FileWriter(new File(listFolder, path));
+	   fout.append(path);
+	   fout.close();
+	}
+
+	// direct children, without reading their content
+	final Map<String, ResourceMetadata> children = toMap(fileStore.list(root));
+	assertEquals(new TreeSet<String>(Arrays.asList(root + "/a.txt", root + "/b.txt", root + "/sub")), children.keySet());
+	assertTrue(children.get(root + "/sub").isDirectory());
+	assertFalse(children.get(root + "/a.txt").isDirectory());
+	assertEquals(5, children.get(root + "/a.txt").getLength());
+	assertEquals("text/plain", children.get(root + "/a.txt").getMimeType());
+	assertEquals(fileStore.get(root + "/a.txt").getUri(), children.get(root + "/a.txt").getUri());
+
+	// depth limited and full walk
+	assertEquals(5, toMap(fileStore.walk(root, 2)).size());
+	final Map<String, ResourceMetadata> tree = toMap(fileStore.walk(root, -1));
+	assertEquals(6, tree.size());
+	assertEquals(16, tree.get(root + "/sub/subsub/d.txt").getLength());
+
+	// a directory comes before its children
+	final List<String> order = new ArrayList<String>();
+	final IoIterable<ResourceMetadata> walk = fileStore.walk(root, -1);
+	try {
+	   for (final ResourceMetadata resource : walk) {
+		order.add(resource.getPath());
+	   }
+	} finally {
+	   walk.close();
+	}
+	assertTrue(order.indexOf(root + "/sub") < order.indexOf(root + "/sub/c.txt"));
+	assertTrue(order.indexOf(root + "/sub/subsub") < order.indexOf(root + "/sub/subsub/d.txt"));
+
+	try {
+	   fileStore.list(root + "/foo");
+	   fail();
+	} catch (final ResourceNotFoundException rnfe) {
+	}
+   }
+
+   static Map<String, ResourceMetadata> toMap(final IoIterable<ResourceMetadata> resources) throws IOException {
+	final Map<String, ResourceMetadata> result = new TreeMap<String, ResourceMetadata>();
+	try {
+	   for (final ResourceMetadata resource : resources) {
+		result.put(resource.getPath(), resource);
+	   }
+	} finally {
+	   resources.close();
+	}
+	return result;
+   }
+
+   @Test
+   public void compression() throws IOException {
+	final StringBuilder text = new StringBuilder();
+	for (int i = 0; i < 200; i++) {
+	   text.append("line ").append(i).append('\n');
+	}
+
+	for (final CompressionCodec codec : CompressionCodec.values()) {
+	   final FileStore compressedStore = new FileSystemStore(new FileStoreContextBuilder("fsCompressedStore").withBaseUri(fileStore.getBaseUri())
+		   .withCompression(codec.name()).build());
+
+	   // a text larger than the min size is compressed on disk
+	   compressedStore.store("compressed.txt", text.toString().getBytes("UTF-8"));
+	   final byte[] header = new byte[CompressionCodec.HEADER_LENGTH];
+	   final InputStream stored = Files.newInputStream(new File(folder.getRoot(), "compressed.txt").toPath());
+	   try {
+		assertEquals(header.length, AbstractFileStore.readChunk(stored, header));
+	   } finally {
+		stored.close();
+	   }
+	   assertEquals(codec, CompressionCodec.detect(header, header.length));
+	   assertTrue(new File(folder.getRoot(), "compressed.txt").length() < text.length());
+	   assertArrayEquals(text.toString().getBytes("UTF-8"), compressedStore.get("compressed.txt").getBytes());
+
+	   // a small resource, or a resource of another type, is stored as is
+	   compressedStore.store("small.txt", "foo".getBytes("UTF-8"));
+	   assertEquals(3, new File(folder.getRoot(), "small.txt").length());
+	   assertEquals("foo", compressedStore.get("small.txt").getText("UTF-8"));
+	   compressedStore.store("compressed.bin", text.toString().getBytes("UTF-8"));
+	   assertEquals(text.length(), new File(folder.getRoot(), "compressed.bin").length());
+
+	   // a resource stored before the compression has been enabled is still readable
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, compressedStore.get("kaleido-resource-get.test").getText());
+
+	   // a gzip file, or a text starting like a zlib header, is stored and read as is
+	   final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+	   final GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+	   gzip.write(text.toString().getBytes("UTF-8"));
+	   gzip.close();
+	   compressedStore.store("archive.gz", gzipped.toByteArray());
+	   assertArrayEquals(gzipped.toByteArray(), compressedStore.get("archive.gz").getBytes());
+	   compressedStore.store("zlib.txt", "x^foo".getBytes("UTF-8"));
+	   assertEquals("x^foo", compressedStore.get("zlib.txt").getText("UTF-8"));
+	   compressedStore.store("zlib.txt", "x\u00dafoo".getBytes("ISO-8859-1"));
+	   assertEquals("x\u00dafoo", compressedStore.get("zlib.txt").getText("ISO-8859-1"));
+	}
+   }
+
+   @Test
+   public void retryDelay() {
+	final AbstractFileStore retryStore = new FileSystemStore(new FileStoreContextBuilder("fsRetryStore").withBaseUri(fileStore.getBaseUri())
+		.withSleepTimeBeforeRetryOnFailure(100).withMaxSleepTimeBeforeRetryOnFailure(1000).build());
+
+	// exponential backoff, with a jitter between the half and the whole of the delay
+	for (int i = 0; i < 10; i++) {
+	   assertBetween(50, 100, retryStore.getRetryDelay(1));
+	   assertBetween(100, 200, retryStore.getRetryDelay(2));
+	   assertBetween(200, 400, retryStore.getRetryDelay(3));
+	   assertBetween(500, 1000, retryStore.getRetryDelay(5));
+	   assertBetween(500, 1000, retryStore.getRetryDelay(50));
+	}
+	assertEquals(0, ((AbstractFileStore) fileStore).getRetryDelay(1));
+   }
+
+   static void assertBetween(final long min, final long max, final long value) {
+	assertTrue(value + " < " + min, value >= min);
+	assertTrue(value + " > " + max, value <= max);
+   }
+
+   static byte[] toArray(final ByteBuffer buffer) {
+	final byte[] data = new byte[buffer.remaining()];
+	buffer.get(data);
+	return data;
+   }
 }
@@ -19,6 +19,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Server;
@@ -103,4 +109,52 @@ public class HttpFileStoreTest extends AbstractFileStoreTest {
 	   assertEquals("store.readonly.illegal", rse.getCode());
 	}
    }
+
+   @Test
+   public void conditionalGet() throws Throwable {
+	final List<Integer> statusCodes = new ArrayList<Integer>();
+	final RuntimeContext<FileStore> context = new FileStoreContextBuilder("httpValidationCacheStore").withBaseUri("http://localhost:9090/test/")
+		.withCaching("true").withCachingValidation("true").build();
+	final FileStore cacheStore = new HttpFileStore(context) {
+	   @Override
+	   protected HttpEngine createHttpEngine() {
+		final HttpEngine engine = super.createHttpEngine();
+		return new HttpEngine() {
+		   @Override
+		   public Response execute(final String method, final URI uri, final Map<String, String> headers) throws IOException {
+			final Response response = engine.execute(method, uri, headers);
+			statusCodes.add(response.getStatusCode());
+			return response;
+		   }
+
+		   @Override
+		   public void close() {
+			engine.close();
+		   }
+		};
+	   }
+	};
+
+	try {
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, cacheStore.get("kaleidofoundry/it/store/foo.txt").getText());
+	   // unchanged resource, the cached content is validated without being transfered again
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, cacheStore.get("kaleidofoundry/it/store/foo.txt").getText());
+	   assertEquals(Arrays.asList(200, 304), statusCodes);
+	} finally {
+	   cacheStore.destroy();
+	}
+   }
+
+   @Test
+   public void getRange() throws Throwable {
+	final HttpFileStore httpStore = (HttpFileStore) fileStore;
+	assertEquals("ne1", httpStore.getRange("kaleidofoundry/it/store/foo.txt", 2, 3).getText());
+	assertEquals("ne1\nline2", httpStore.getRange("kaleidofoundry/it/store/foo.txt", 2, -1).getText());
+	assertEquals("", httpStore.getRange("kaleidofoundry/it/store/foo.txt", 100, 3).getText());
+	try {
+	   httpStore.getRange("kaleidofoundry/it/store/foo", 0, 3);
+	   fail();
+	} catch (final ResourceNotFoundException rnfe) {
+	}
+   }
 }
@@ -15,6 +15,15 @@
  */
 package org.kaleidofoundry.core.store;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.Calendar;
 
@@ -27,6 +36,7 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.kaleidofoundry.core.context.RuntimeContext;
 import org.kaleidofoundry.core.io.FileHelper;
 import org.kaleidofoundry.core.io.MimeTypeResolverFactory;
@@ -80,6 +90,7 @@ public class JpaFileStoreTest extends AbstractFileStoreTest {
 	   for (Object model : query.getResultList()) {
 		em.remove(model);
 	   }
+	   em.createQuery("DELETE FROM FileStoreChunk c").executeUpdate();
 	   em.flush();
 
 	   // 1. existing resources (to get) - create mocked entity for the get test
@@ -138,6 +149,50 @@ public class JpaFileStoreTest extends AbstractFileStoreTest {
 
    }
 
+   @Test
+   public void chunkedContent() throws ResourceException, UnsupportedEncodingException {
+	final FileStore chunkedStore = new JpaFileStore(new FileStoreContextBuilder("jpaChunkedStore").withBaseUri("jpa:/").withChunkSize(16)
+		.withChunkFetchSize(2).build());
+	final StringBuilder content = new StringBuilder();
+	for (int i = 0; i < 10; i++) {
+	   content.append("chunked content line ").append(i).append("\n");
+	}
+
+	chunkedStore.store("tmp/chunked.txt", content.toString());
+	final ResourceHandlerEntity entity = em.find(ResourceHandlerEntity.class, "jpa:/tmp/chunked.txt");
+	assertNotNull(entity);
+	assertNull(entity.getContent());
+	assertEquals(Long.valueOf(content.length()), entity.getSize());
+	assertEquals(Integer.valueOf((content.length() + 15) / 16), entity.getChunks());
+	assertArrayEquals(content.toString().getBytes("UTF-8"), chunkedStore.get("tmp/chunked.txt").getBytes());
+
+	// update with a shorter content, the previous chunks are replaced
+	chunkedStore.store("tmp/chunked.txt", "short");
+	assertEquals("short", chunkedStore.get("tmp/chunked.txt").getText());
+
+	// the chunks follow the moved resource, and are removed with it
+	chunkedStore.move("tmp/chunked.txt", "tmp/chunked.moved");
+	assertEquals("short", chunkedStore.get("tmp/chunked.moved").getText());
+	chunkedStore.remove("tmp/chunked.moved");
+	assertFalse(chunkedStore.exists("tmp/chunked.moved"));
+	assertEquals(0l, ((Number) em.createQuery("SELECT count(c) FROM FileStoreChunk c").getSingleResult()).longValue());
+   }
+
+   @Test
+   public void moveMissingOriginOntoExistingDestination() throws ResourceException, UnsupportedEncodingException {
+	final FileStore chunkedStore = new JpaFileStore(new FileStoreContextBuilder("jpaMoveStore").withBaseUri("jpa:/").withChunkSize(16).build());
+	chunkedStore.store("tmp/existing.txt", "existing content, stored in chunks");
+	try {
+	   chunkedStore.move("tmp/missing.txt", "tmp/existing.txt");
+	   fail("ResourceNotFoundException expected");
+	} catch (final ResourceNotFoundException rnfe) {
+	}
+	// the destination and its chunks are left as is
+	assertTrue(chunkedStore.exists("tmp/existing.txt"));
+	assertEquals("existing content, stored in chunks", chunkedStore.get("tmp/existing.txt").getText());
+	chunkedStore.remove("tmp/existing.txt");
+   }
+
    @After
    @Override
    public void cleanup() {
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author jraduget
+ */
+public class LineIndexTest {
+
+   static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private File file;
+
+   @Before
+   public void setup() throws IOException {
+	file = File.createTempFile("kaleido-lineindex-", ".log");
+   }
+
+   @After
+   public void cleanup() {
+	file.delete();
+   }
+
+   @Test
+   public void isSupported() {
+	assertTrue(LineIndex.isSupported(UTF8));
+	assertTrue(LineIndex.isSupported(Charset.forName("ISO-8859-1")));
+	assertFalse(LineIndex.isSupported(Charset.forName("UTF-16")));
+   }
+
+   @Test
+   public void lineOffset() throws IOException {
+	// lines of different lengths, to cross the read blocks at different positions
+	final StringBuilder content = new StringBuilder();
+	final List<Long> offsets = new ArrayList<Long>();
+	for (int i = 0; i < 5000; i++) {
+	   offsets.add((long) content.length());
+	   content.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+	}
+	write(content.toString(), false);
+
+	final LineIndex index = new LineIndex(file, 100);
+	assertEquals(5000, index.getLineCount());
+	for (final int line : new int[] { 0, 1, 99, 100, 101, 2345, 4999 }) {
+	   assertEquals(offsets.get(line).longValue(), index.lineOffset(line));
+	   final List<String> lines = new ArrayList<String>();
+	   index.readLines(index.lineOffset(line), 2, UTF8, false, lines);
+	   assertEquals("line " + line, lines.get(0));
+	}
+	assertEquals(content.length(), index.lineOffset(5000));
+	assertEquals(content.length(), index.lineOffset(6000));
+   }
+
+   @Test
+   public void update() throws IOException {
+	write("a\nb\nc", false);
+	final LineIndex index = new LineIndex(file, 2);
+	assertEquals(3, index.getLineCount());
+
+	// appended lines are indexed incrementally
+	write("c\nd\ne\n", true);
+	assertEquals(5, index.getLineCount());
+	assertEquals(9, index.lineOffset(4));
+
+	// truncated file, the index is rebuilt
+	write("x\n", false);
+	assertEquals(1, index.getLineCount());
+	assertEquals(2, index.lineOffset(1));
+   }
+
+   @Test
+   public void tailOffset() throws IOException {
+	write("", false);
+	final LineIndex index = new LineIndex(file);
+	assertEquals(0, index.tailOffset(3));
+
+	write("a\nbb\nccc\n", false);
+	assertEquals(9, index.tailOffset(0));
+	assertEquals(5, index.tailOffset(1));
+	assertEquals(2, index.tailOffset(2));
+	assertEquals(0, index.tailOffset(3));
+	assertEquals(0, index.tailOffset(10));
+
+	write("dddd", true);
+	assertEquals(9, index.tailOffset(1));
+
+	// the last lines of a file larger than a block
+	final StringBuilder content = new StringBuilder();
+	for (int i = 0; i < 3 * LineIndex.BLOCK_SIZE; i++) {
+	   content.append(i % 1000 == 999 ? '\n' : 'x');
+	}
+	content.append("\nlast\n");
+	write(content.toString(), false);
+	final List<String> lines = new ArrayList<String>();
+	index.readLines(index.tailOffset(2), 10, UTF8, false, lines);
+	assertEquals(2, lines.size());
+	assertEquals("last", lines.get(1));
+   }
+
+   @Test
+   public void readLines() throws IOException {
+	write("a\r\nb\nc", false);
+	final LineIndex index = new LineIndex(file);
+
+	List<String> lines = new ArrayList<String>();
+	assertEquals(6, index.readLines(0, 10, UTF8, false, lines));
+	assertEquals(Arrays.asList("a", "b", "c"), lines);
+
+	// a line being written is not read
+	lines = new ArrayList<String>();
+	assertEquals(5, index.readLines(0, 10, UTF8, true, lines));
+	assertEquals(Arrays.asList("a", "b"), lines);
+
+	lines = new ArrayList<String>();
+	assertEquals(3, index.readLines(0, 1, UTF8, false, lines));
+	assertEquals(Arrays.asList("a"), lines);
+
+	final LinkedList<String> lastLines = new LinkedList<String>();
+	assertEquals(6, LineIndex.tailLines(new ByteArrayInputStream("a\r\nb\nc".getBytes(UTF8)), 0, 2, UTF8, false, lastLines));
+	assertEquals(Arrays.asList("b", "c"), lastLines);
+   }
+
+   void write(final String content, final boolean append) throws IOException {
+	final OutputStream out = new FileOutputStream(file, append);
+	try {
+	   out.write(content.getBytes(UTF8));
+	} finally {
+	   out.close();
+	}
+   }
+}
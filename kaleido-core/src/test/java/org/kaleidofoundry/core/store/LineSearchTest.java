@@ -0,0 +1,136 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author jraduget
+ */
+public class LineSearchTest {
+
+   static final Charset UTF8 = Charset.forName("UTF-8");
+
+   static final String CONTENT = "INFO start\nDEBUG a\nERROR first\nDEBUG b\nDEBUG c\nDEBUG d\nERROR second\r\nERROR third\nINFO end";
+
+   private File file;
+
+   @Before
+   public void setup() throws IOException {
+	file = File.createTempFile("kaleido-linesearch-", ".log");
+	final OutputStream out = new FileOutputStream(file);
+	try {
+	   out.write(CONTENT.getBytes(UTF8));
+	} finally {
+	   out.close();
+	}
+   }
+
+   @After
+   public void cleanup() {
+	file.delete();
+   }
+
+   @Test
+   public void search() throws Exception {
+	// memory mapped file, and streamed resource
+	for (final File searchedFile : new File[] { file, null }) {
+	   final List<LineSearch.Line> lines = search(searchedFile, Pattern.compile("ERROR", Pattern.LITERAL), 0, 10).call();
+	   assertEquals("[3:ERROR first, 7:ERROR second, 8:ERROR third]", lines.toString());
+	}
+   }
+
+   @Test
+   public void context() throws Exception {
+	for (final File searchedFile : new File[] { file, null }) {
+	   final List<LineSearch.Line> lines = search(searchedFile, Pattern.compile("ERROR", Pattern.LITERAL), 1, 10).call();
+	   assertEquals("[2-DEBUG a, 3:ERROR first, 4-DEBUG b, 6-DEBUG d, 7:ERROR second, 8:ERROR third, 9-INFO end]", lines.toString());
+	}
+
+	// the context is bounded
+	final StringBuilder content = new StringBuilder();
+	for (int i = 0; i < 2 * FileStoreConsoleController.MAX_CONTEXT_LINES; i++) {
+	   content.append("DEBUG ").append(i).append("\n");
+	}
+	content.append("ERROR last\n");
+	final List<LineSearch.Line> lines = new LineSearch("file", null, new Callable<InputStream>() {
+	   @Override
+	   public InputStream call() {
+		return new ByteArrayInputStream(content.toString().getBytes(UTF8));
+	   }
+	}, UTF8, Pattern.compile("ERROR"), Integer.MAX_VALUE, new AtomicLong(1)).call();
+	assertEquals(FileStoreConsoleController.MAX_CONTEXT_LINES + 1, lines.size());
+   }
+
+   @Test
+   public void maxMatches() throws Exception {
+	final AtomicLong remainingMatches = new AtomicLong(2);
+	List<LineSearch.Line> lines = new LineSearch("file", file, null, UTF8, Pattern.compile("^(INFO|ERROR) .*t$"), 1, remainingMatches).call();
+	// the context of the last match is given
+	assertEquals("[1:INFO start, 2-DEBUG a, 3:ERROR first, 4-DEBUG b]", lines.toString());
+
+	// the shared matches count is exhausted
+	lines = search(null, Pattern.compile("ERROR"), 0, 0).call();
+	assertEquals("[]", lines.toString());
+   }
+
+   @Test
+   public void interrupted() throws Exception {
+	// catastrophic backtracking
+	final LineSearch lineSearch = new LineSearch("file", null, null, UTF8, Pattern.compile("^(a+)+$"), 0, new AtomicLong(1));
+	final Thread thread = new Thread() {
+	   @Override
+	   public void run() {
+		try {
+		   lineSearch.line("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaab");
+		} catch (final CancellationException ce) {
+		}
+	   }
+	};
+	thread.start();
+	Thread.sleep(100);
+	thread.interrupt();
+	thread.join(5000);
+	assertFalse(thread.isAlive());
+   }
+
+   LineSearch search(final File searchedFile, final Pattern pattern, final int context, final long maxMatches) {
+	return new LineSearch("file", searchedFile, new Callable<InputStream>() {
+	   @Override
+	   public InputStream call() {
+		return new ByteArrayInputStream(CONTENT.getBytes(UTF8));
+	   }
+	}, UTF8, pattern, context, new AtomicLong(maxMatches));
+   }
+}
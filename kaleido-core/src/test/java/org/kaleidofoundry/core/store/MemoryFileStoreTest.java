@@ -0,0 +1,290 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author jraduget
+ */
+public class MemoryFileStoreTest extends AbstractFileStoreTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Before
+   @Override
+   public void setup() throws Throwable {
+	super.setup();
+
+	fileStore = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreTest").withBaseUri("memory:/").withMemorySlabSize(16).build());
+
+	// 1. existing resources (to get)
+	fileStore.store("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResources.put("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 2. resources to get (but which not exists) : a memory resource never stored is read as an empty content, see notStored()
+
+	// 3. resources to store
+	existingResourcesForStore.put("tmp/fooToStore.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 4. resources to remove
+	fileStore.store("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForRemove.put("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 5. resources to move
+	fileStore.store("tmp/fooToMove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForMove.put("tmp/fooToMove.txt", "tmp/moved/fooToMove.txt");
+   }
+
+   @After
+   @Override
+   public void cleanup() throws Throwable {
+	fileStore.destroy();
+   }
+
+   @Test
+   public void notStored() throws Throwable {
+	assertEquals("", fileStore.get("foo").getText());
+	assertFalse(fileStore.exists("foo"));
+	try {
+	   fileStore.stat("foo");
+	   fail("ResourceNotFoundException expected");
+	} catch (final ResourceNotFoundException rnfe) {
+	}
+   }
+
+   /**
+    * a memory resource never stored is read as an empty content, so existence is checked with {@link FileStore#exists(String)}
+    */
+   @Test
+   @Override
+   public void store() throws ResourceException, UnsupportedEncodingException {
+	for (final String uriToTest : existingResourcesForStore.keySet()) {
+	   assertFalse(fileStore.exists(uriToTest));
+	   fileStore.store(uriToTest, existingResourcesForStore.get(uriToTest));
+	   assertTrue(fileStore.exists(uriToTest));
+	   assertEquals(existingResourcesForStore.get(uriToTest), fileStore.get(uriToTest).getText());
+	}
+   }
+
+   @Test
+   @Override
+   public void move() throws ResourceException {
+	for (final String uriToTest : existingResourcesForMove.keySet()) {
+	   final String newResourcePath = existingResourcesForMove.get(uriToTest);
+	   assertTrue(fileStore.exists(uriToTest));
+	   fileStore.move(uriToTest, newResourcePath);
+	   assertFalse(fileStore.exists(uriToTest));
+	   assertTrue(fileStore.exists(newResourcePath));
+	   fileStore.remove(newResourcePath);
+	}
+   }
+
+   @Test
+   @Override
+   public void remove() throws ResourceException {
+	for (final String uriToTest : existingResourcesForRemove.keySet()) {
+	   assertTrue(fileStore.exists(uriToTest));
+	   fileStore.remove(uriToTest);
+	   assertFalse(fileStore.exists(uriToTest));
+	}
+   }
+
+   @Test
+   public void slabs() throws Throwable {
+	final byte[] content = new byte[100];
+	for (int i = 0; i < content.length; i++) {
+	   content[i] = (byte) i;
+	}
+	fileStore.store("slabs.bin", new ByteArrayInputStream(content));
+
+	// each get has its own stream over the slabs
+	assertTrue(Arrays.equals(content, fileStore.get("slabs.bin").getBytes()));
+	assertTrue(Arrays.equals(content, fileStore.get("slabs.bin").getBytes()));
+	assertEquals(100, fileStore.stat("slabs.bin").getLength());
+
+	// range over several slabs
+	final ResourceHandler resource = fileStore.get("slabs.bin");
+	final byte[] range = new byte[40];
+	assertEquals(40, resource.getInputStream(10, 40).read(range));
+	assertTrue(Arrays.equals(Arrays.copyOfRange(content, 10, 50), range));
+	resource.close();
+   }
+
+   @Test
+   public void sizeAccounting() throws Throwable {
+	final MemoryFileStore store = (MemoryFileStore) fileStore;
+	final long initialSize = store.getUsedSize();
+
+	store.store("size/a.txt", "0123456789");
+	assertEquals(initialSize + 10, store.getUsedSize());
+	store.store("size/a.txt", "01234");
+	assertEquals(initialSize + 5, store.getUsedSize());
+	store.copy("size/a.txt", store, "size/b.txt");
+	assertEquals(initialSize + 10, store.getUsedSize());
+	store.move("size/b.txt", "size/c.txt");
+	assertEquals(initialSize + 10, store.getUsedSize());
+	store.remove("size/a.txt");
+	store.remove("size/c.txt");
+	assertEquals(initialSize, store.getUsedSize());
+   }
+
+   @Test
+   public void lruEviction() throws Throwable {
+	final MemoryFileStore store = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreLru").withBaseUri("memory:/lru").withMemoryMaxSize(30)
+		.withMemoryEviction("lru").build());
+	try {
+	   store.store("a.txt", "0123456789");
+	   store.store("b.txt", "0123456789");
+	   store.store("c.txt", "0123456789");
+	   // a becomes the most recently used
+	   store.get("a.txt").close();
+	   store.store("d.txt", "0123456789");
+
+	   assertTrue(store.exists("a.txt"));
+	   assertFalse(store.exists("b.txt"));
+	   assertTrue(store.exists("c.txt"));
+	   assertTrue(store.exists("d.txt"));
+	   assertEquals(30, store.getUsedSize());
+
+	   // a moved resource keeps its place in the eviction order
+	   store.move("c.txt", "e.txt");
+	   store.store("f.txt", "0123456789");
+	   assertFalse(store.exists("e.txt"));
+	   assertTrue(store.exists("a.txt"));
+	   assertTrue(store.exists("d.txt"));
+	   assertTrue(store.exists("f.txt"));
+	   assertEquals(30, store.getUsedSize());
+	} finally {
+	   store.destroy();
+	}
+   }
+
+   @Test
+   public void fifoEviction() throws Throwable {
+	final MemoryFileStore store = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreFifo").withBaseUri("memory:/fifo")
+		.withMemoryMaxSize(30).withMemoryEviction("fifo").build());
+	try {
+	   store.store("a.txt", "0123456789");
+	   store.store("b.txt", "0123456789");
+	   store.store("c.txt", "0123456789");
+	   store.get("a.txt").close();
+	   store.store("d.txt", "01234567890123456789");
+
+	   assertFalse(store.exists("a.txt"));
+	   assertFalse(store.exists("b.txt"));
+	   assertTrue(store.exists("c.txt"));
+	   assertTrue(store.exists("d.txt"));
+	   assertEquals(30, store.getUsedSize());
+	} finally {
+	   store.destroy();
+	}
+   }
+
+   @Test
+   public void noEviction() throws Throwable {
+	final MemoryFileStore store = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreFull").withBaseUri("memory:/full")
+		.withMemoryMaxSize(20).withMemoryEviction("none").build());
+	try {
+	   store.store("a.txt", "0123456789");
+	   store.store("b.txt", "0123456789");
+	   // a replaced resource releases its size
+	   store.store("b.txt", "9876543210");
+	   try {
+		store.store("c.txt", "0");
+		fail("ResourceException expected");
+	   } catch (final ResourceException rse) {
+		assertEquals("store.memory.full", rse.getCode());
+	   }
+	   // larger than the store
+	   try {
+		store.remove("a.txt");
+		store.store("c.txt", "012345678901234567890");
+		fail("ResourceException expected");
+	   } catch (final ResourceException rse) {
+		assertEquals("store.memory.full", rse.getCode());
+	   }
+	   assertEquals(10, store.getUsedSize());
+	   assertEquals("9876543210", store.get("b.txt").getText());
+	} finally {
+	   store.destroy();
+	}
+   }
+
+   @Test
+   public void offHeap() throws Throwable {
+	final MemoryFileStore store = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreOffHeap").withBaseUri("memory:/offheap")
+		.withMemoryOffHeap(true).withMemorySlabSize(4).build());
+	try {
+	   store.store("foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, store.get("foo.txt").getText());
+	} finally {
+	   store.destroy();
+	}
+   }
+
+   @Test
+   public void snapshot() throws Throwable {
+	final MemoryFileStore store = (MemoryFileStore) fileStore;
+	final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	final int count = store.snapshot(out);
+
+	final MemoryFileStore restored = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreRestored").withBaseUri("memory:/").build());
+	try {
+	   assertEquals(count, restored.restore(new ByteArrayInputStream(out.toByteArray())));
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, restored.get("tmp/foo.txt").getText());
+	   assertEquals(store.stat("tmp/foo.txt").getLastModified(), restored.stat("tmp/foo.txt").getLastModified());
+	   assertEquals(store.getUsedSize(), restored.getUsedSize());
+	} finally {
+	   restored.destroy();
+	}
+   }
+
+   @Test
+   public void snapshotFile() throws Throwable {
+	final File snapshotFile = new File(folder.getRoot(), "memory.snapshot");
+
+	final MemoryFileStore store = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreSnapshot").withBaseUri("memory:/snapshot")
+		.withMemorySnapshotFile(snapshotFile.getPath()).build());
+	store.store("foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	store.destroy();
+	assertTrue(snapshotFile.exists());
+
+	final MemoryFileStore restored = new MemoryFileStore(new FileStoreContextBuilder("memoryStoreSnapshot").withBaseUri("memory:/snapshot")
+		.withMemorySnapshotFile(snapshotFile.getPath()).build());
+	try {
+	   assertEquals(DEFAULT_RESOURCE_MOCK_TEST, restored.get("foo.txt").getText());
+	} finally {
+	   restored.destroy();
+	}
+   }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.junit.Test;
+import org.kaleidofoundry.core.io.IOHelper;
+
+/**
+ * @author jraduget
+ */
+public class MultipartParserTest {
+
+   static final String BOUNDARY = "----kaleidoBoundary7MA4YWxk";
+
+   @Test
+   public void getBoundary() {
+	assertEquals(BOUNDARY, MultipartParser.getBoundary("multipart/form-data; boundary=" + BOUNDARY));
+	assertEquals(BOUNDARY, MultipartParser.getBoundary("multipart/form-data; boundary=\"" + BOUNDARY + "\""));
+	assertNull(MultipartParser.getBoundary("multipart/form-data"));
+	assertNull(MultipartParser.getBoundary(null));
+   }
+
+   @Test
+   public void parseParameters() {
+	final Map<String, String> parameters = MultipartParser.parseParameters("form-data; name=field; FileName=\"a;\\\"b\\\".txt\" ; foo");
+	assertEquals(2, parameters.size());
+	assertEquals("field", parameters.get("name"));
+	assertEquals("a;\"b\".txt", parameters.get("filename"));
+   }
+
+   @Test
+   public void parse() throws IOException {
+	// the parts must be found whatever the delimiters position in the read buffer is
+	for (final int size : new int[] { 0, 1, MultipartParser.BUFFER_SIZE - 1, MultipartParser.BUFFER_SIZE, 3 * MultipartParser.BUFFER_SIZE + 7 }) {
+	   for (final int chunk : new int[] { 1, 7, MultipartParser.BUFFER_SIZE }) {
+		final String content = content(size);
+		final MultipartParser parser = new MultipartParser(chunked(multipart(content), chunk), BOUNDARY, -1, -1);
+
+		MultipartParser.Part part = parser.nextPart();
+		assertEquals("field", part.getName());
+		assertNull(part.getFileName());
+		assertEquals("value", read(part.getInputStream()));
+
+		part = parser.nextPart();
+		assertEquals("file", part.getName());
+		assertEquals("foo bar.txt", part.getFileName());
+		assertEquals("text/plain; charset=UTF-8", part.getContentType());
+		assertEquals("UTF-8", part.getCharset());
+		assertEquals(content, read(part.getInputStream()));
+
+		// not read, it is skipped
+		part = parser.nextPart();
+		assertEquals("skipped", part.getName());
+
+		part = parser.nextPart();
+		assertEquals("empty", part.getName());
+		assertEquals("", read(part.getInputStream()));
+
+		assertNull(parser.nextPart());
+		assertNull(parser.nextPart());
+	   }
+	}
+   }
+
+   @Test
+   public void maxPartSize() throws IOException {
+	final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(multipart(content(1000))), BOUNDARY, 100, -1);
+	assertEquals("value", read(parser.nextPart().getInputStream()));
+	try {
+	   read(parser.nextPart().getInputStream());
+	   fail();
+	} catch (final ResourceException rse) {
+	   assertEquals("store.upload.part.toolarge", rse.getCode());
+	}
+   }
+
+   @Test
+   public void maxSize() throws IOException {
+	final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(multipart(content(100000))), BOUNDARY, -1, 50000);
+	try {
+	   while (parser.nextPart() != null) {
+	   }
+	   fail();
+	} catch (final ResourceException rse) {
+	   assertEquals("store.upload.request.toolarge", rse.getCode());
+	}
+   }
+
+   @Test
+   public void malformed() throws IOException {
+	final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(("--" + BOUNDARY + "\r\nContent-Type: text/plain\r\n\r\nfoo")
+		.getBytes("UTF-8")), BOUNDARY, -1, -1);
+	try {
+	   read(parser.nextPart().getInputStream());
+	   fail();
+	} catch (final ResourceException rse) {
+	   assertEquals("store.upload.malformed", rse.getCode());
+	}
+   }
+
+   static String content(final int size) {
+	final StringBuilder content = new StringBuilder();
+	for (int i = 0; i < size; i++) {
+	   // line breaks and dashes, like the beginning of a delimiter
+	   content.append(i % 50 == 0 ? "\r\n--" : String.valueOf((char) ('a' + i % 26)));
+	}
+	return content.toString();
+   }
+
+   static byte[] multipart(final String content) throws IOException {
+	return ("preamble\r\n--" + BOUNDARY + "\r\n" //
+		+ "Content-Disposition: form-data; name=\"field\"\r\n\r\nvalue\r\n--" + BOUNDARY + "\r\n" //
+		+ "Content-Disposition: form-data; name=\"file\"; filename=\"foo bar.txt\"\r\n" //
+		+ "Content-Type: text/plain; charset=UTF-8\r\n\r\n" + content + "\r\n--" + BOUNDARY + "  \r\n" //
+		+ "Content-Disposition: form-data; name=\"skipped\"; filename=\"skipped.txt\"\r\n\r\n" + content + "\r\n--" + BOUNDARY + "\r\n" //
+		+ "Content-Disposition: form-data; name=\"empty\"; filename=\"empty.bin\"\r\n\r\n\r\n--" + BOUNDARY + "--\r\nepilogue")
+		.getBytes("UTF-8");
+   }
+
+   static String read(final InputStream in) throws IOException {
+	return new String(IOHelper.toByteArray(in), "UTF-8");
+   }
+
+   /*
+    * a stream which gives at most the given number of bytes by read
+    */
+   static InputStream chunked(final byte[] data, final int chunk) {
+	return new FilterInputStream(new ByteArrayInputStream(data)) {
+	   @Override
+	   public int read(final byte[] b, final int off, final int len) throws IOException {
+		return super.read(b, off, Math.min(len, chunk));
+	   }
+	};
+   }
+}
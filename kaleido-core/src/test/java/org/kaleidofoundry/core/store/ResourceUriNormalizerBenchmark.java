@@ -0,0 +1,100 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link ResourceUriNormalizer} micro benchmark, compared to the previous uri build and check of {@link AbstractFileStore} (the uri being
+ * built twice, then parsed to check its scheme)<br/>
+ * <br/>
+ * Run it from the test classpath with {@link #main(String[])}
+ *
+ * @author jraduget
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ResourceUriNormalizerBenchmark {
+
+   static final String BASE_URI = "file:/var/kaleido/store/";
+
+   static final String[] PATHS = { "foo.txt", "/dir/foo.txt", "dir/sub dir/foo bar.txt", "a/b/c/d/e/f/g.log" };
+
+   static final FileStoreType[] STORE_TYPES = { FileStoreTypeEnum.file };
+
+   private ResourceUriNormalizer cachedNormalizer;
+   private ResourceUriNormalizer normalizer;
+   private int index;
+
+   @Setup
+   public void setup() {
+	cachedNormalizer = new ResourceUriNormalizer(BASE_URI, STORE_TYPES, ResourceUriNormalizer.DEFAULT_CACHE_SIZE);
+	normalizer = new ResourceUriNormalizer(BASE_URI, STORE_TYPES, 0);
+   }
+
+   @Benchmark
+   public String previousBuildAndCheck() {
+	final String resourceUri = ResourceUriNormalizer.buildResourceUri(BASE_URI, nextPath());
+	final FileStoreType resourceType = FileStoreTypeEnum.match(ResourceUriNormalizer.buildResourceUri(BASE_URI, resourceUri));
+	for (final FileStoreType t : STORE_TYPES) {
+	   if (t.equals(resourceType)) { return resourceUri; }
+	}
+	throw new IllegalArgumentException(resourceUri);
+   }
+
+   @Benchmark
+   public String normalizeAndCheck() {
+	return normalizer.normalize(nextPath(), true);
+   }
+
+   @Benchmark
+   public String cachedNormalizeAndCheck() {
+	return cachedNormalizer.normalize(nextPath(), true);
+   }
+
+   private String nextPath() {
+	// racy on purpose, it only varies the paths
+	return PATHS[(index++ & 0x7fffffff) % PATHS.length];
+   }
+
+   /**
+    * @param args
+    * @throws RunnerException
+    */
+   public static void main(final String[] args) throws RunnerException {
+	new Runner(new OptionsBuilder().include(ResourceUriNormalizerBenchmark.class.getSimpleName()).build()).run();
+   }
+}
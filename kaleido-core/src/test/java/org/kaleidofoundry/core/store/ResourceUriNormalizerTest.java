@@ -0,0 +1,102 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.kaleidofoundry.core.env.model.EnvironmentConstants.STATIC_ENV_PARAMETERS;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author jraduget
+ */
+public class ResourceUriNormalizerTest {
+
+   static final String[] BASE_URIS = { "file:/tmp", "file:/tmp/", "http://localhost:8080/app/", "classpath:/store" };
+
+   static final String[] PATHS = { "foo.txt", "/foo.txt", "dir\\sub dir/foo bar.txt", "", "/", "a/b/c/" };
+
+   @After
+   public void cleanup() {
+	STATIC_ENV_PARAMETERS.remove("kaleido.test.dir");
+   }
+
+   @Test
+   public void normalize() {
+	for (final String baseUri : BASE_URIS) {
+	   final ResourceUriNormalizer normalizer = new ResourceUriNormalizer(baseUri, FileStoreTypeEnum.values(), 16);
+	   for (final String path : PATHS) {
+		// same result than without cache, relative or full path
+		for (final String resourcePath : new String[] { path, baseUri + path }) {
+		   final String expected = ResourceUriNormalizer.buildResourceUri(baseUri, resourcePath);
+		   assertEquals(expected, normalizer.normalize(resourcePath));
+		   assertEquals(expected, normalizer.normalize(resourcePath, true));
+		}
+	   }
+	}
+   }
+
+   @Test
+   public void normalizePath() {
+	final String path = "/dir/foo.txt";
+	assertSame(path, ResourceUriNormalizer.normalizePath(path));
+	assertEquals("/dir/sub%20dir/foo%20bar.txt", ResourceUriNormalizer.normalizePath("\\dir\\sub dir/foo bar.txt"));
+   }
+
+   @Test
+   public void manageable() {
+	final ResourceUriNormalizer normalizer = new ResourceUriNormalizer("file:/tmp", new FileStoreType[] { FileStoreTypeEnum.http }, 16);
+	assertNull(normalizer.normalize("foo.txt", true));
+	assertNull(normalizer.normalize("file:/tmp/foo.txt", true));
+	assertEquals("file:/tmp/foo.txt", normalizer.normalize("foo.txt"));
+	// the uris which are not manageable are not cached
+	assertEquals(0, normalizer.getCacheSize());
+   }
+
+   @Test
+   public void cacheSize() {
+	final ResourceUriNormalizer normalizer = new ResourceUriNormalizer("file:/tmp", FileStoreTypeEnum.values(), 2);
+	normalizer.normalize("a.txt");
+	normalizer.normalize("b.txt");
+	normalizer.normalize("a.txt");
+	normalizer.normalize("c.txt");
+	assertEquals(2, normalizer.getCacheSize());
+   }
+
+   @Test
+   public void variables() {
+	STATIC_ENV_PARAMETERS.put("kaleido.test.dir", "/tmp/a");
+	final ResourceUriNormalizer normalizer = new ResourceUriNormalizer("file:${kaleido.test.dir}", FileStoreTypeEnum.values(), 16);
+	assertEquals("file:/tmp/a/foo.txt", normalizer.normalize("foo.txt"));
+	assertEquals(1, normalizer.getCacheSize());
+
+	// the base uri is resolved again, and its cache is dropped
+	STATIC_ENV_PARAMETERS.put("kaleido.test.dir", "/tmp/b");
+	assertEquals("file:/tmp/b/foo.txt", normalizer.normalize("foo.txt"));
+	assertEquals("file:/tmp/b/foo.txt", normalizer.normalize("file:${kaleido.test.dir}/foo.txt"));
+	assertEquals(2, normalizer.getCacheSize());
+   }
+
+   @Test
+   public void template() {
+	final ResourceUriNormalizer.Template template = ResourceUriNormalizer.Template.compile("a${x}b${}c${y}d${z");
+	assertEquals("a1b${}c${y}d${z", template.resolve(new String[] { "1", null }));
+	assertEquals("nothing", ResourceUriNormalizer.Template.compile("nothing").resolve(new String[0]));
+   }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.io.FileHelper;
+
+/**
+ * @author jraduget
+ */
+public class TieredFileStoreTest extends AbstractFileStoreTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private FileStore fastStore;
+   private FailingStore replica1;
+   private FailingStore replica2;
+   private TieredFileStore tieredStore;
+
+   @Before
+   @Override
+   public void setup() throws Throwable {
+	super.setup();
+
+	fastStore = new FileSystemStore(new FileStoreContextBuilder("tieredFastStore").withBaseUri(uriOf(folder.newFolder("fast"))).build());
+	replica1 = new FailingStore(new FileStoreContextBuilder("tieredReplica1").withBaseUri(uriOf(folder.newFolder("replica1"))).build());
+	replica2 = new FailingStore(new FileStoreContextBuilder("tieredReplica2").withBaseUri(uriOf(folder.newFolder("replica2"))).build());
+	tieredStore = newTieredStore(false, 200);
+	fileStore = tieredStore;
+
+	// 1. existing resources (to get)
+	fileStore.store("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResources.put("tmp/foo.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 2. resources to get (but which not exists)
+	nonExistingResources.add("foo");
+
+	// 3. resources to store
+	existingResourcesForStore.put("tmp/fooToStore.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 4. resources to remove
+	fileStore.store("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForRemove.put("tmp/fooToRemove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+
+	// 5. resources to move
+	fileStore.store("tmp/fooToMove.txt", DEFAULT_RESOURCE_MOCK_TEST);
+	existingResourcesForMove.put("tmp/fooToMove.txt", "tmp/moved/fooToMove.txt");
+   }
+
+   @After
+   @Override
+   public void cleanup() throws Throwable {
+	fileStore.destroy();
+	fastStore.destroy();
+	replica1.destroy();
+	replica2.destroy();
+   }
+
+   @Test
+   public void writeThrough() throws Throwable {
+	fileStore.store("wt/foo.txt", "foo");
+	assertEquals("foo", fastStore.get("wt/foo.txt").getText());
+	assertEquals("foo", replica1.get("wt/foo.txt").getText());
+	assertEquals("foo", replica2.get("wt/foo.txt").getText());
+	assertEquals(0, tieredStore.getPendingReplications());
+
+	fileStore.remove("wt/foo.txt");
+	assertFalse(fastStore.exists("wt/foo.txt"));
+	assertFalse(replica1.exists("wt/foo.txt"));
+	assertFalse(replica2.exists("wt/foo.txt"));
+   }
+
+   @Test
+   public void readThrough() throws Throwable {
+	// only in the slow tier
+	replica1.store("rt/foo.txt", "foo");
+	assertFalse(fastStore.exists("rt/foo.txt"));
+	assertTrue(fileStore.exists("rt/foo.txt"));
+	assertFalse(fastStore.exists("rt/foo.txt"));
+
+	// promoted on the first read, then the slow tier is no more read
+	assertEquals("foo", fileStore.get("rt/foo.txt").getText());
+	assertEquals("foo", fastStore.get("rt/foo.txt").getText());
+	replica1.down = true;
+	replica2.down = true;
+	assertEquals("foo", fileStore.get("rt/foo.txt").getText());
+	assertEquals(1, replica1.gets);
+   }
+
+   @Test
+   public void failover() throws Throwable {
+	replica2.store("fo/foo.txt", "foo");
+	replica1.down = true;
+
+	// the failing replica is called until its circuit breaker opens
+	for (int i = 0; i < 3; i++) {
+	   assertTrue(tieredStore.isAvailable(replica1));
+	   assertEquals("foo", fileStore.get("fo/foo.txt").getText());
+	   fastStore.remove("fo/foo.txt");
+	}
+	assertFalse(tieredStore.isAvailable(replica1));
+	assertEquals(3, replica1.gets);
+	assertEquals("foo", fileStore.get("fo/foo.txt").getText());
+	assertEquals(3, replica1.gets);
+
+	// a single trial once the open time is elapsed
+	fastStore.remove("fo/foo.txt");
+	replica1.down = false;
+	Thread.sleep(250);
+	assertEquals("foo", fileStore.get("fo/foo.txt").getText());
+	assertEquals(4, replica1.gets);
+	assertTrue(tieredStore.isAvailable(replica1));
+
+	// no replica available
+	fastStore.remove("fo/foo.txt");
+	replica1.down = true;
+	replica2.down = true;
+	try {
+	   fileStore.get("fo/foo.txt");
+	   fail();
+	} catch (final ResourceNotFoundException rnfe) {
+	   fail();
+	} catch (final ResourceException rse) {
+	}
+   }
+
+   @Test
+   public void writeBehind() throws Throwable {
+	// no retry of the failed replications during the test
+	fileStore.destroy();
+	tieredStore = newTieredStore(true, 60000);
+	fileStore = tieredStore;
+	// a resource only in the slow tier, written before any pending replication (a background replication could run while a replica is up)
+	replica1.store("wb/bar.txt", "bar");
+	replica2.store("wb/bar.txt", "bar");
+
+	// the replicas are down, the write is only in the fast tier and in the journal
+	replica1.down = true;
+	fileStore.store("wb/foo.txt", "foo");
+	assertEquals("foo", fileStore.get("wb/foo.txt").getText());
+	assertFalse(tieredStore.flush());
+	assertEquals(1, tieredStore.getPendingReplications());
+	assertFalse(replica2.exists("wb/foo.txt"));
+
+	// a removal not replicated yet hides the resource of the slow tier
+	fileStore.remove("wb/bar.txt");
+	assertFalse(fileStore.exists("wb/bar.txt"));
+	assertTrue(replica2.exists("wb/bar.txt"));
+	assertEquals(2, tieredStore.getPendingReplications());
+
+	// the next instance replicates the journal
+	fileStore.destroy();
+	replica1.down = false;
+	tieredStore = newTieredStore(true, 60000);
+	fileStore = tieredStore;
+	assertTrue(tieredStore.flush());
+	assertEquals(0, tieredStore.getPendingReplications());
+	assertEquals("foo", replica1.get("wb/foo.txt").getText());
+	assertEquals("foo", replica2.get("wb/foo.txt").getText());
+	assertFalse(replica1.exists("wb/bar.txt"));
+	assertFalse(replica2.exists("wb/bar.txt"));
+   }
+
+   @Test
+   public void journal() throws Throwable {
+	final File directory = folder.newFolder("journal-test");
+	WriteBehindJournal journal = new WriteBehindJournal(directory);
+	final WriteBehindJournal.Entry foo = journal.append(WriteBehindJournal.Operation.store, "foo.txt");
+	journal.append(WriteBehindJournal.Operation.remove, "bar.txt");
+	journal.append(WriteBehindJournal.Operation.store, "bar.txt");
+	journal.complete(foo);
+
+	journal = new WriteBehindJournal(directory);
+	assertEquals(2, journal.pending().size());
+	assertEquals("bar.txt", journal.pending().get(0).path);
+	assertEquals(WriteBehindJournal.Operation.remove, journal.pending().get(0).operation);
+	assertEquals(WriteBehindJournal.Operation.store, journal.lastOperation("bar.txt"));
+	assertEquals(null, journal.lastOperation("foo.txt"));
+	assertEquals(4, journal.append(WriteBehindJournal.Operation.store, "foo.txt").sequence);
+
+	// by default, the journal is not kept in the java temp directory, which may be cleaned at reboot
+	final TieredFileStore defaultStore = new TieredFileStore("tiered:/", new FileStoreContextBuilder("tieredDefaultStore").withBaseUri(
+		"tiered:/").build(), fastStore, replica1);
+	assertEquals(new File(new File(System.getProperty("user.home"), TieredFileStore.DEFAULT_JOURNAL_DIR), "tieredDefaultStore"),
+		defaultStore.getJournalDirectory());
+   }
+
+   private TieredFileStore newTieredStore(final boolean writeBehind, final int circuitBreakerOpenTime) throws IOException {
+	final RuntimeContext<FileStore> context = new FileStoreContextBuilder("tieredStore").withBaseUri("tiered:/").withWriteBehind(writeBehind)
+		.withWriteBehindJournal(new File(folder.getRoot(), "journal").getCanonicalPath()).withCircuitBreakerThreshold(3)
+		.withCircuitBreakerOpenTime(circuitBreakerOpenTime).build();
+	return new TieredFileStore("tiered:/", context, fastStore, replica1, replica2);
+   }
+
+   static String uriOf(final File directory) throws IOException {
+	final String path = FileHelper.buildUnixAppPath(directory.getCanonicalPath());
+	return path.startsWith("/") ? "file:" + path : "file:/" + path;
+   }
+
+   /**
+    * file system store, which can be turned down
+    */
+   static class FailingStore extends FileSystemStore {
+
+	volatile boolean down;
+	volatile int gets;
+
+	FailingStore(final RuntimeContext<FileStore> context) {
+	   super(context);
+	}
+
+	@Override
+	protected ResourceHandler doGet(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	   gets++;
+	   checkUp(resourceUri);
+	   return super.doGet(resourceUri);
+	}
+
+	@Override
+	protected void doStore(final URI resourceUri, final ResourceHandler resource) throws ResourceException {
+	   checkUp(resourceUri);
+	   super.doStore(resourceUri, resource);
+	}
+
+	@Override
+	protected void doRemove(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	   checkUp(resourceUri);
+	   super.doRemove(resourceUri);
+	}
+
+	@Override
+	protected ResourceMetadata doStat(final URI resourceUri) throws ResourceNotFoundException, ResourceException {
+	   checkUp(resourceUri);
+	   return super.doStat(resourceUri);
+	}
+
+	private void checkUp(final URI resourceUri) throws ResourceException {
+	   if (down) { throw new ResourceException("store.connection.error", resourceUri.toString()); }
+	}
+   }
+}
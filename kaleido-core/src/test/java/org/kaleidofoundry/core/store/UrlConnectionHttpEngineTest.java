@@ -0,0 +1,75 @@
+/*
+ * Copyright 2008-2021 the original author or authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaleidofoundry.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.Authenticator;
+import java.net.Authenticator.RequestorType;
+import java.net.PasswordAuthentication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaleidofoundry.core.store.UrlConnectionHttpEngine.ProxyAuthenticator;
+
+/**
+ * @author jraduget
+ */
+public class UrlConnectionHttpEngineTest {
+
+   private Authenticator defaultAuthenticator;
+
+   @Before
+   public void setup() {
+	defaultAuthenticator = ProxyAuthenticator.getDefaultAuthenticator();
+   }
+
+   @After
+   public void cleanup() {
+	ProxyAuthenticator.CREDENTIALS.remove("proxy.kaleido.test:3128");
+	Authenticator.setDefault(defaultAuthenticator);
+   }
+
+   @Test
+   public void proxyAuthenticator() {
+	final PasswordAuthentication serverCredentials = new PasswordAuthentication("server", "secret".toCharArray());
+	final Authenticator applicationAuthenticator = new Authenticator() {
+	   @Override
+	   protected PasswordAuthentication getPasswordAuthentication() {
+		return getRequestorType() == RequestorType.SERVER ? serverCredentials : null;
+	   }
+	};
+	Authenticator.setDefault(applicationAuthenticator);
+	assertSame(applicationAuthenticator, ProxyAuthenticator.getDefaultAuthenticator());
+
+	final PasswordAuthentication proxyCredentials = new PasswordAuthentication("proxy", "secret".toCharArray());
+	ProxyAuthenticator.CREDENTIALS.put("proxy.kaleido.test:3128", proxyCredentials);
+	Authenticator.setDefault(new ProxyAuthenticator(applicationAuthenticator));
+
+	// the store proxies are authenticated by the store credentials
+	assertSame(proxyCredentials, Authenticator.requestPasswordAuthentication("proxy.kaleido.test", null, 3128, "http", "proxy", "basic", null,
+		RequestorType.PROXY));
+	// any other request is handed over to the authenticator of the application
+	final PasswordAuthentication credentials = Authenticator.requestPasswordAuthentication("www.kaleido.test", null, 443, "https", "server",
+		"basic", null, RequestorType.SERVER);
+	assertEquals("server", credentials.getUserName());
+	assertNull(Authenticator.requestPasswordAuthentication("other.kaleido.test", null, 3128, "http", "proxy", "basic", null,
+		RequestorType.PROXY));
+   }
+}
@@ -15,6 +15,7 @@ DROP TABLE CONFIGURATION
 DROP TABLE I18N_ENTRY
 DROP TABLE I18N_LANGUAGE
 DROP TABLE FILESTORE
+DROP TABLE FILESTORE_CHUNK
 DROP TABLE CONFIGURATION_PROPERTY
 DROP TABLE I18N_ENTRY_I18N_LANGUAGE
 DROP TABLE I18N_GROUP
@@ -188,9 +188,13 @@ public class SynchronousMailDispatcher implements MailDispatcher {
 	if (hasAdress == true) {
 	   try {
 		long currentTimeMillis = System.currentTimeMillis();
-		LOGGER.debug("mail sending starting at {}", new Date().toString());
+		if (LOGGER.isDebugEnabled()) {
+		   LOGGER.debug("mail sending starting at {}", new Date(currentTimeMillis));
+		}
 		Transport.send(mimeMessage);
-		LOGGER.debug("mail sending ended in an elapsed time of {} ms", System.currentTimeMillis() - currentTimeMillis);
+		if (LOGGER.isDebugEnabled()) {
+		   LOGGER.debug("mail sending ended in an elapsed time of {} ms", System.currentTimeMillis() - currentTimeMillis);
+		}
 
 	   } catch (MessagingException me) {
 		// error while sending the mail message
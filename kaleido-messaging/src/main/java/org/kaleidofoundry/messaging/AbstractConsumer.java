@@ -22,6 +22,7 @@ import static org.kaleidofoundry.messaging.ClientContextBuilder.CONSUMER_THREAD_
 import static org.kaleidofoundry.messaging.ClientContextBuilder.DEBUG_PROPERTY;
 import static org.kaleidofoundry.messaging.ClientContextBuilder.THREAD_POOL_COUNT_PROPERTY;
 import static org.kaleidofoundry.messaging.ClientContextBuilder.TRANSPORT_REF;
+import static org.kaleidofoundry.messaging.MessagingConstants.MessagingMessageBundle;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -34,6 +35,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.kaleidofoundry.core.context.EmptyContextParameterException;
 import org.kaleidofoundry.core.context.RuntimeContext;
+import org.kaleidofoundry.core.i18n.I18nLogger;
 import org.kaleidofoundry.core.lang.annotation.Task;
 import org.kaleidofoundry.core.util.StringHelper;
 import org.slf4j.Logger;
@@ -47,6 +49,8 @@ public abstract class AbstractConsumer implements Consumer {
 
    /** Default consumers logger */
    protected static final Logger LOGGER = LoggerFactory.getLogger(Consumer.class);
+   /** i18n logger, messages are formatted only if the level is enabled */
+   protected static final I18nLogger I18N_LOGGER = new I18nLogger(LOGGER, MessagingMessageBundle);
 
    /** Consumers logger use for statistics */
    protected final Logger STATISTICS_LOGGER;
@@ -192,9 +196,9 @@ public abstract class AbstractConsumer implements Consumer {
 			if ((processedMessagesOK + processedMessagesKO + processedMessagesSkipped) % printProcessedMessagesModulo == 0) {
 			   long averageResponseTime = (AverageResponseTime.get() + responseTime) / 2;
 
-			   if ((processedMessagesOK + processedMessagesKO + processedMessagesSkipped) % printProcessedMessagesModulo == 0) {
-				STATISTICS_LOGGER.info("consumer statistics : name={} ; msg OK={} ; msg KO={} ; msg SKIPPED={} ; msg response time={}ms", new Object[] {
-					getName(), processedMessagesOK, processedMessagesKO, processedMessagesSkipped, averageResponseTime });
+			   if (STATISTICS_LOGGER.isInfoEnabled()) {
+				STATISTICS_LOGGER.info("consumer statistics : name={} ; msg OK={} ; msg KO={} ; msg SKIPPED={} ; msg response time={}ms", getName(),
+					processedMessagesOK, processedMessagesKO, processedMessagesSkipped, averageResponseTime);
 			   }
 			}
 		   }
@@ -242,11 +246,9 @@ public abstract class AbstractConsumer implements Consumer {
 	   if (!messageWrapper.hasError() && messageWrapper.getMessage() != null) {
 
 		if (isDebug()) {
-		   LOGGER.info(
-			   "<<< receiving message with providerId={} , correlationId={} , parameters={}",
-			   new Object[] { messageWrapper.getMessage().getProviderId(), messageWrapper.getMessage().getCorrelationId(),
-				   String.valueOf(messageWrapper.getMessage().getParameters()) });
-		   LOGGER.info("{}", messageWrapper.getMessage().toString());
+		   LOGGER.info("<<< receiving message with providerId={} , correlationId={} , parameters={}", messageWrapper.getMessage().getProviderId(),
+			   messageWrapper.getMessage().getCorrelationId(), messageWrapper.getMessage().getParameters());
+		   LOGGER.info("{}", messageWrapper.getMessage());
 		}
 
 		// Processing handler
@@ -302,7 +304,7 @@ public abstract class AbstractConsumer implements Consumer {
 
 	protected final void printResponseTime(long beginTimeStamp) {
 	   final long responseTime = System.currentTimeMillis() - beginTimeStamp;
-	   LOGGER.info("processing message in {} ms", String.valueOf(responseTime));
+	   LOGGER.info("processing message in {} ms", responseTime);
 	}
    }
 
@@ -198,9 +198,9 @@ public abstract class AbstractProducer implements Producer {
 
    protected void debugMessage(Message message) {
 	if (isDebug()) {
-	   LOGGER.info(">>> sending message with providerId={} , correlationId={} , parameters={}",
-		   new Object[] { message.getProviderId(), message.getCorrelationId(), String.valueOf(message.getParameters()) });
-	   LOGGER.info("{}", message.toString());
+	   LOGGER.info(">>> sending message with providerId={} , correlationId={} , parameters={}", message.getProviderId(), message.getCorrelationId(),
+		   message.getParameters());
+	   LOGGER.info("{}", message);
 	}
    }
 
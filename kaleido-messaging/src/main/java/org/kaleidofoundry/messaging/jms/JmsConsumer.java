@@ -21,7 +21,6 @@ import static org.kaleidofoundry.messaging.ClientContextBuilder.CONSUMER_NOLOCAL
 import static org.kaleidofoundry.messaging.ClientContextBuilder.CONSUMER_READ_BUFFER_SIZE;
 import static org.kaleidofoundry.messaging.ClientContextBuilder.CONSUMER_RECEIVE_TIMEOUT_PROPERTY;
 import static org.kaleidofoundry.messaging.MessagingConstants.MESSAGE_TYPE_FIELD;
-import static org.kaleidofoundry.messaging.MessagingConstants.MessagingMessageBundle;
 
 import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
@@ -246,7 +245,7 @@ public class JmsConsumer extends AbstractConsumer {
 		   try {
 			transport.closeConnection(connection);
 		   } catch (TransportException te) {
-			LOGGER.error(MessagingMessageBundle.getMessage("messaging.transport.jms.connection.close"), te);
+			I18N_LOGGER.error("messaging.transport.jms.connection.close", te);
 		   }
 		}
 	   }
@@ -258,7 +257,7 @@ public class JmsConsumer extends AbstractConsumer {
 		   try {
 			connection.stop();
 		   } catch (JMSException jmse) {
-			LOGGER.error(MessagingMessageBundle.getMessage("messaging.transport.jms.connection.stop"), jmse);
+			I18N_LOGGER.error("messaging.transport.jms.connection.stop", jmse);
 		   }
 
 		}